@@ -0,0 +1,534 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.bot.sharding;
+
+import com.mashape.unirest.http.Unirest;
+import gnu.trove.map.TLongObjectMap;
+import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.JDABuilder;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.entities.VoiceChannel;
+import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.events.ExceptionEvent;
+import net.dv8tion.jda.core.exceptions.RateLimitedException;
+import net.dv8tion.jda.core.requests.SessionStartQueue;
+import net.dv8tion.jda.core.requests.ratelimit.DefaultRateLimiterFactory;
+import net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory;
+import net.dv8tion.jda.core.requests.ratelimit.SharedRateLimiterFactory;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import net.dv8tion.jda.core.utils.MiscUtil;
+import net.dv8tion.jda.core.utils.SimpleLog;
+import org.apache.http.util.Args;
+
+import javax.security.auth.login.LoginException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Runs all shards of a {@link net.dv8tion.jda.core.AccountType#BOT BOT} account in one JVM.
+ *
+ * <p>Every shard is a separate {@link net.dv8tion.jda.core.JDA JDA} instance built with the provided
+ * {@link net.dv8tion.jda.core.JDABuilder JDABuilder}, but the shards share:
+ * <ul>
+ *     <li>One {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter}, so the rate limit buckets and the
+ *         global rate limit of the token are tracked once, see
+ *         {@link net.dv8tion.jda.core.requests.ratelimit.SharedRateLimiterFactory SharedRateLimiterFactory}</li>
+ *     <li>The {@link net.dv8tion.jda.core.requests.transport.IRestTransport IRestTransport} and its connection pool</li>
+ *     <li>One pool for {@link net.dv8tion.jda.core.requests.RestAction RestAction} callbacks</li>
+ *     <li>A {@link net.dv8tion.jda.core.requests.SessionStartQueue SessionStartQueue} which identifies the shards
+ *         one after the other, {@value net.dv8tion.jda.core.requests.SessionStartQueue#IDENTIFY_DELAY} seconds apart</li>
+ * </ul>
+ * The WebSocket reading and sending threads are still started per shard.
+ *
+ * <p>The builder is reused for every shard. Event listeners, the event manager and other settings of the builder
+ * apply to all shards. The sharding information, rate limiter factory, transport, callback pool, session start
+ * queue and shutdown hook of the builder are overridden by this manager.
+ *
+ * <p>Shards should be shutdown through {@link #shutdown(int)} or {@link #shutdown()}. Calling
+ * {@link net.dv8tion.jda.core.JDA#shutdown() JDA.shutdown()} on a shard only shuts down that shard, the resources shared
+ * with the other shards are only freed by {@link #shutdown()}.
+ *
+ * <p><b>Example</b>
+ * <pre><code>
+ * ShardManager manager = new ShardManager(new JDABuilder(AccountType.BOT).setToken(token).addEventListener(listener), 16);
+ * manager.start();
+ * Guild guild = manager.getGuildById(guildId); // Looks only at the shard the guild belongs to
+ * </code></pre>
+ */
+public class ShardManager
+{
+    public static final SimpleLog LOG = SimpleLog.getLog("JDAShardManager");
+
+    protected final JDABuilder builder;
+    protected final int shardTotal;
+    protected final AtomicReferenceArray<JDA> shards;
+    protected final SharedRateLimiterFactory rateLimiterFactory;
+    protected final SessionStartQueue sessionStartQueue = new SessionStartQueue();
+    protected final ScheduledExecutorService callbackPool;
+    protected final Thread shutdownHook = new Thread(this::shutdown, "JDA ShardManager Shutdown Hook");
+
+    protected IRestTransport restTransport;
+    protected boolean started = false;
+    protected boolean shutdown = false;
+
+    /**
+     * Creates a new ShardManager which uses the
+     * {@link net.dv8tion.jda.core.requests.ratelimit.DefaultRateLimiterFactory DefaultRateLimiterFactory}.
+     *
+     * @param  builder
+     *         The builder used to create every shard, the token has to be set already
+     * @param  shardTotal
+     *         The total amount of shards
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the builder is {@code null} or the shard total is not positive
+     */
+    public ShardManager(JDABuilder builder, int shardTotal)
+    {
+        this(builder, shardTotal, new DefaultRateLimiterFactory());
+    }
+
+    /**
+     * Creates a new ShardManager.
+     *
+     * @param  builder
+     *         The builder used to create every shard, the token has to be set already
+     * @param  shardTotal
+     *         The total amount of shards
+     * @param  rateLimiterFactory
+     *         The factory used to create the RateLimiter shared by all shards
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If any of the arguments is {@code null} or the shard total is not positive
+     */
+    public ShardManager(JDABuilder builder, int shardTotal, IRateLimiterFactory rateLimiterFactory)
+    {
+        Args.notNull(builder, "JDABuilder");
+        Args.positive(shardTotal, "Shard total");
+        Args.notNull(rateLimiterFactory, "IRateLimiterFactory");
+        this.builder = builder;
+        this.shardTotal = shardTotal;
+        this.shards = new AtomicReferenceArray<>(shardTotal);
+        this.rateLimiterFactory = new SharedRateLimiterFactory(rateLimiterFactory, "JDA ShardManager", this::handleRateLimiterError);
+        this.callbackPool = Executors.newScheduledThreadPool(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), new CallbackThreadFactory());
+    }
+
+    /**
+     * Builds and logs in all shards.
+     * <br>This returns once every shard started to connect, the shards are then identified in order by the
+     * {@link #getSessionStartQueue() SessionStartQueue} which takes about
+     * {@value net.dv8tion.jda.core.requests.SessionStartQueue#IDENTIFY_DELAY} seconds per shard.
+     *
+     * @throws LoginException
+     *         If the token is invalid
+     * @throws RateLimitedException
+     *         If the login was rate limited
+     * @throws java.lang.IllegalStateException
+     *         If this manager was already started or shutdown, or the token is not a
+     *         {@link net.dv8tion.jda.core.AccountType#BOT BOT} token
+     */
+    public synchronized void start() throws LoginException, RateLimitedException
+    {
+        if (started || shutdown)
+            throw new IllegalStateException("ShardManager was already started");
+        started = true;
+
+        builder.setRateLimiterFactory(rateLimiterFactory)
+               .setCallbackPool(callbackPool)
+               .setSessionStartQueue(sessionStartQueue)
+               .setEnableShutdownHook(false);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try
+        {
+            for (int shardId = 0; shardId < shardTotal; shardId++)
+                buildShard(shardId);
+        }
+        catch (LoginException | RateLimitedException | RuntimeException e)
+        {
+            //Shards that were already built would otherwise keep running without being reachable through start()
+            LOG.fatal("Could not start all shards, shutting down the shards that were started");
+            stopShards();
+            throw e;
+        }
+    }
+
+    /**
+     * Shuts down the shard with the provided id and builds a new one in its place.
+     * <br>The new shard identifies once it is its turn in the {@link #getSessionStartQueue() SessionStartQueue}.
+     *
+     * @param  shardId
+     *         The id of the shard
+     *
+     * @throws LoginException
+     *         If the token is invalid
+     * @throws RateLimitedException
+     *         If the login was rate limited
+     * @throws java.lang.IllegalStateException
+     *         If this manager was not started yet or is shutdown
+     * @throws java.lang.IndexOutOfBoundsException
+     *         If the shard id is not between 0 and {@link #getShardTotal()}
+     *
+     * @return The new shard
+     */
+    public synchronized JDA restart(int shardId) throws LoginException, RateLimitedException
+    {
+        if (!started || shutdown)
+            throw new IllegalStateException("ShardManager is not running");
+        shutdown(shardId);
+        return buildShard(shardId);
+    }
+
+    /**
+     * Shuts down the shard with the provided id without freeing the resources shared with the other shards.
+     * <br>Does nothing if the shard is not running.
+     *
+     * @param  shardId
+     *         The id of the shard
+     *
+     * @throws java.lang.IndexOutOfBoundsException
+     *         If the shard id is not between 0 and {@link #getShardTotal()}
+     */
+    public void shutdown(int shardId)
+    {
+        JDA shard = shards.getAndSet(shardId, null);
+        if (shard != null)
+            shard.shutdown(false);
+    }
+
+    /**
+     * Shuts down the shards that were started by {@link #start()} without freeing the shared resources,
+     * so {@link #start()} can be called again.
+     */
+    protected void stopShards()
+    {
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+            shutdown(shardId);
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (Exception ignored) { }
+        started = false;
+    }
+
+    /**
+     * Shuts down all shards and frees the resources shared by them.
+     */
+    public synchronized void shutdown()
+    {
+        if (shutdown)
+            return;
+        shutdown = true;
+
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+            shutdown(shardId);
+
+        sessionStartQueue.shutdown();
+        callbackPool.shutdown();
+        if (restTransport != null)
+            restTransport.shutdown();
+        try
+        {
+            Unirest.shutdown();
+        }
+        catch (IOException ignored) {}
+
+        if (started && Thread.currentThread() != shutdownHook)
+        {
+            try
+            {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            }
+            catch (Exception ignored) { }
+        }
+    }
+
+    public int getShardTotal()
+    {
+        return shardTotal;
+    }
+
+    /**
+     * The shard with the provided id.
+     *
+     * @param  shardId
+     *         The id of the shard
+     *
+     * @throws java.lang.IndexOutOfBoundsException
+     *         If the shard id is not between 0 and {@link #getShardTotal()}
+     *
+     * @return Possibly-null shard, {@code null} if it is not running
+     */
+    public JDA getShardById(int shardId)
+    {
+        return shards.get(shardId);
+    }
+
+    /**
+     * Immutable list of all running shards, ordered by their shard id.
+     *
+     * @return The running shards
+     */
+    public List<JDA> getShards()
+    {
+        List<JDA> list = new ArrayList<>(shardTotal);
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+        {
+            JDA shard = shards.get(shardId);
+            if (shard != null)
+                list.add(shard);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * The id of the shard that receives the events of the provided guild.
+     * <br>Discord assigns guilds with {@code (guildId >> 22) % shardTotal}.
+     *
+     * @param  guildId
+     *         The id of the guild
+     *
+     * @return The shard id of the guild
+     */
+    public int getShardIdForGuild(long guildId)
+    {
+        return (int) ((guildId >>> MiscUtil.TIMESTAMP_OFFSET) % shardTotal);
+    }
+
+    /**
+     * The shard that receives the events of the provided guild.
+     *
+     * @param  guildId
+     *         The id of the guild
+     *
+     * @return Possibly-null shard, {@code null} if it is not running
+     */
+    public JDA getShardForGuild(long guildId)
+    {
+        return shards.get(getShardIdForGuild(guildId));
+    }
+
+    public Guild getGuildById(String id)
+    {
+        return getGuildById(MiscUtil.parseSnowflake(id));
+    }
+
+    /**
+     * The guild with the provided id. Only the shard the guild belongs to is checked.
+     *
+     * @param  id
+     *         The id of the guild
+     *
+     * @return Possibly-null guild
+     */
+    public Guild getGuildById(long id)
+    {
+        JDA shard = getShardForGuild(id);
+        return shard == null ? null : shard.getGuildById(id);
+    }
+
+    /**
+     * Immutable list of the guilds of all running shards.
+     *
+     * @return The guilds of all shards
+     */
+    public List<Guild> getGuilds()
+    {
+        List<Guild> guilds = new ArrayList<>();
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+        {
+            JDA shard = shards.get(shardId);
+            if (shard != null)
+                guilds.addAll(shard.getGuilds());
+        }
+        return Collections.unmodifiableList(guilds);
+    }
+
+    public User getUserById(String id)
+    {
+        return getUserById(MiscUtil.parseSnowflake(id));
+    }
+
+    /**
+     * The user with the provided id. Every shard keeps its own instance of the users it can see,
+     * this returns the instance of the first shard that has one.
+     *
+     * @param  id
+     *         The id of the user
+     *
+     * @return Possibly-null user
+     */
+    public User getUserById(long id)
+    {
+        return find(shard -> shard.getUserById(id));
+    }
+
+    /**
+     * Immutable list of the users of all running shards. Users that are visible to multiple shards are only
+     * included once.
+     *
+     * @return The users of all shards
+     */
+    public List<User> getUsers()
+    {
+        TLongObjectMap<User> users = MiscUtil.newLongMap();
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+        {
+            JDA shard = shards.get(shardId);
+            if (shard != null)
+                shard.getUsers().forEach(user -> users.putIfAbsent(user.getIdLong(), user));
+        }
+        return Collections.unmodifiableList(new ArrayList<>(users.valueCollection()));
+    }
+
+    public TextChannel getTextChannelById(String id)
+    {
+        return getTextChannelById(MiscUtil.parseSnowflake(id));
+    }
+
+    public TextChannel getTextChannelById(long id)
+    {
+        return find(shard -> shard.getTextChannelById(id));
+    }
+
+    public VoiceChannel getVoiceChannelById(String id)
+    {
+        return getVoiceChannelById(MiscUtil.parseSnowflake(id));
+    }
+
+    public VoiceChannel getVoiceChannelById(long id)
+    {
+        return find(shard -> shard.getVoiceChannelById(id));
+    }
+
+    /**
+     * The average {@link net.dv8tion.jda.core.JDA#getPing() ping} of all running shards that received
+     * a heartbeat acknowledgement.
+     *
+     * @return The average ping in milliseconds, or {@code -1} if no shard has a ping yet
+     */
+    public double getAveragePing()
+    {
+        long sum = 0;
+        int count = 0;
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+        {
+            JDA shard = shards.get(shardId);
+            if (shard != null && shard.getPing() >= 0)
+            {
+                sum += shard.getPing();
+                count++;
+            }
+        }
+        return count == 0 ? -1 : (double) sum / count;
+    }
+
+    /**
+     * The queue that identifies the shards of this manager one after the other.
+     *
+     * @return The SessionStartQueue
+     */
+    public SessionStartQueue getSessionStartQueue()
+    {
+        return sessionStartQueue;
+    }
+
+    protected JDA buildShard(int shardId) throws LoginException, RateLimitedException
+    {
+        if (shardTotal > 1)
+            builder.useSharding(shardId, shardTotal);
+        JDA shard = builder.buildAsync();
+        if (shard.getAccountType() != AccountType.BOT)
+        {
+            shard.shutdown(false);
+            throw new IllegalStateException("Sharding is only available for BOT accounts");
+        }
+
+        //Shutting down the shard must not free the transport and Unirest, which are used by the other shards
+        ((JDAImpl) shard).setManaged(true);
+        //The first shard creates the transport, all following shards reuse it.
+        // It is owned by this manager from now on, so shutting down the first shard does not close it.
+        if (restTransport == null)
+        {
+            ((JDAImpl) shard).setRestTransportShared(true);
+            restTransport = ((JDAImpl) shard).getRestTransport();
+            builder.setRestTransport(restTransport);
+        }
+        shards.set(shardId, shard);
+        LOG.debug("Started shard " + shardId + " of " + shardTotal);
+        return shard;
+    }
+
+    /**
+     * Handles internal errors of the shared RateLimiter.
+     * <br>They are fired as an {@link net.dv8tion.jda.core.events.ExceptionEvent ExceptionEvent} on the first shard
+     * that is still running, as the shard that created the RateLimiter might have been shutdown or restarted since.
+     *
+     * @param error
+     *        The error
+     */
+    protected void handleRateLimiterError(Throwable error)
+    {
+        JDA shard = find(jda ->
+        {
+            JDA.Status status = jda.getStatus();
+            return status != JDA.Status.SHUTTING_DOWN && status != JDA.Status.SHUTDOWN ? jda : null;
+        });
+        if (shard != null)
+            ((JDAImpl) shard).getEventManager().handle(new ExceptionEvent(shard, error, true));
+    }
+
+    protected <T> T find(Function<JDA, T> lookup)
+    {
+        for (int shardId = 0; shardId < shardTotal; shardId++)
+        {
+            JDA shard = shards.get(shardId);
+            if (shard == null)
+                continue;
+            T result = lookup.apply(shard);
+            if (result != null)
+                return result;
+        }
+        return null;
+    }
+
+    private static class CallbackThreadFactory implements ThreadFactory
+    {
+        final AtomicInteger threadCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread t = new Thread(r, "JDA ShardManager Callback-Pool - Thread " + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -137,10 +137,16 @@ public class MentionPaginationAction extends PaginationAction<Message, MentionPa
 
     @Override
     protected void finalizeRoute()
+    {
+        finalizeRoute(getLimit());
+    }
+
+    @Override
+    protected void finalizeRoute(int pageLimit)
     {
         Message last = this.last;
         String limit, before, everyone, role;
-        limit = String.valueOf(super.getLimit());
+        limit = String.valueOf(pageLimit);
         before = last != null ? last.getId() : null;
         everyone = String.valueOf(isEveryone);
         role = String.valueOf(isRole);
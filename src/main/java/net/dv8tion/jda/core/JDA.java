@@ -756,6 +756,11 @@ public interface JDA
      * <br>If the background-thread is closed, the system can exit properly, but no further JDA requests are possible (includes other JDA instances).
      * If you want to create any new instances or if you have any other instances running in parallel, then {@code free}
      * should be set to false.
+     * <br>The REST transport created by this instance is always shut down, a transport that was provided through
+     * {@link net.dv8tion.jda.core.JDABuilder#setRestTransport(net.dv8tion.jda.core.requests.transport.IRestTransport)
+     * JDABuilder.setRestTransport(...)} is only shut down if {@code free} is true.
+     * <br>Shards of a {@link net.dv8tion.jda.bot.sharding.ShardManager ShardManager} ignore {@code free}, the resources
+     * they share are freed by {@link net.dv8tion.jda.bot.sharding.ShardManager#shutdown() ShardManager.shutdown()}.
      *
      * @param  free If true, shuts down JDA's rest system permanently for all current and future instances.
      */
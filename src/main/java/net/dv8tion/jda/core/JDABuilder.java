@@ -18,12 +18,18 @@ package net.dv8tion.jda.core;
 import com.neovisionaries.ws.client.ProxySettings;
 import com.neovisionaries.ws.client.WebSocketFactory;
 import net.dv8tion.jda.core.JDA.Status;
+import net.dv8tion.jda.core.audio.SelectorReceiveEngine;
 import net.dv8tion.jda.core.audio.factory.IAudioSendFactory;
 import net.dv8tion.jda.core.entities.Game;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.exceptions.RateLimitedException;
 import net.dv8tion.jda.core.hooks.IEventManager;
 import net.dv8tion.jda.core.managers.impl.PresenceImpl;
+import net.dv8tion.jda.core.requests.SessionStartQueue;
+import net.dv8tion.jda.core.requests.ratelimit.DefaultRateLimiterFactory;
+import net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import net.dv8tion.jda.core.utils.MemberCachePolicy;
 import org.apache.http.HttpHost;
 import org.apache.http.util.Args;
 
@@ -32,6 +38,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Used to create new {@link net.dv8tion.jda.core.JDA} instances. This is also useful for making sure all of
@@ -55,6 +62,11 @@ public class JDABuilder
     protected String token = null;
     protected IEventManager eventManager = null;
     protected IAudioSendFactory audioSendFactory = null;
+    protected SelectorReceiveEngine audioReceiveEngine = null;
+    protected IRateLimiterFactory rateLimiterFactory = new DefaultRateLimiterFactory();
+    protected IRestTransport restTransport = null;
+    protected ScheduledExecutorService callbackPool = null;
+    protected SessionStartQueue sessionStartQueue = null;
     protected JDA.ShardInfo shardInfo = null;
     protected Game game = null;
     protected OnlineStatus status = OnlineStatus.ONLINE;
@@ -64,6 +76,11 @@ public class JDABuilder
     protected boolean enableVoice = true;
     protected boolean enableShutdownHook = true;
     protected boolean enableBulkDeleteSplitting = true;
+    protected boolean enableAsyncRequests = false;
+    protected boolean enableZlibStream = false;
+    protected MemberCachePolicy memberCachePolicy = MemberCachePolicy.ALL;
+    protected boolean enablePresenceCache = true;
+    protected boolean enableNameIndex = false;
     protected boolean autoReconnect = true;
     protected boolean idle = false;
 
@@ -218,6 +235,111 @@ public class JDABuilder
         return this;
     }
 
+    /**
+     * Enables/Disables asynchronous execution of REST requests.
+     * <br>When enabled, requests are sent through a non-blocking HTTP client and the threads of the
+     * {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter} are not held while waiting for a response.
+     * This allows many more requests to be in flight at the same time, which is useful for bots that keep a lot of
+     * rate limit buckets busy and do not want slow responses on one route to delay all other routes.
+     *
+     * <p>Default: <b>false (disabled)</b>
+     *
+     * @param  enabled
+     *         True - REST requests will be sent asynchronously.
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setAsyncRequestsEnabled(boolean enabled)
+    {
+        this.enableAsyncRequests = enabled;
+        return this;
+    }
+
+    /**
+     * Enables/Disables zlib transport compression for the gateway connection.
+     * <br>When enabled, the whole websocket connection is compressed as a single zlib stream ({@code compress=zlib-stream})
+     * instead of only compressing large payloads such as READY. This reduces the bandwidth used by the gateway,
+     * especially for bots that receive a lot of events.
+     *
+     * <p>Default: <b>false (disabled)</b>
+     *
+     * @param  enabled
+     *         True - the gateway connection will use zlib-stream transport compression.
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setZlibStreamEnabled(boolean enabled)
+    {
+        this.enableZlibStream = enabled;
+        return this;
+    }
+
+    /**
+     * Sets the {@link net.dv8tion.jda.core.utils.MemberCachePolicy MemberCachePolicy} which decides which
+     * {@link net.dv8tion.jda.core.entities.Member Members} are kept in the cache.
+     * <br>Bots in a lot of large guilds can use this to greatly reduce the memory used by JDA, for example by only
+     * caching {@link net.dv8tion.jda.core.utils.MemberCachePolicy#ONLINE online} or
+     * {@link net.dv8tion.jda.core.utils.MemberCachePolicy#VOICE voice connected} Members.
+     * The self member and the owner of a Guild are always cached.
+     *
+     * <p>Note that {@link net.dv8tion.jda.core.entities.Guild#getMembers() Guild.getMembers()} and all lookups
+     * only return cached Members when a restrictive policy is used.
+     *
+     * <p>Default: {@link net.dv8tion.jda.core.utils.MemberCachePolicy#ALL MemberCachePolicy.ALL}
+     *
+     * @param  policy
+     *         The MemberCachePolicy to use
+     *
+     * @throws IllegalArgumentException
+     *         If the provided policy is {@code null}
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setMemberCachePolicy(MemberCachePolicy policy)
+    {
+        Args.notNull(policy, "MemberCachePolicy");
+        this.memberCachePolicy = policy;
+        return this;
+    }
+
+    /**
+     * Enables/Disables caching of presences received for Users that are not cached as
+     * {@link net.dv8tion.jda.core.entities.Member Members} of the respective Guild.
+     * <br>When a restrictive {@link #setMemberCachePolicy(MemberCachePolicy) MemberCachePolicy} is used
+     * this cache can grow with every online User of every Guild, so disabling it is recommended in that case.
+     *
+     * <p>Default: <b>true (enabled)</b>
+     *
+     * @param  enabled
+     *         True - presences of unknown Users will be cached
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setPresenceCacheEnabled(boolean enabled)
+    {
+        this.enablePresenceCache = enabled;
+        return this;
+    }
+
+    /**
+     * Enables/Disables the name indices of the User, TextChannel and Role caches.
+     * <br>With the indices enabled the {@code getXByName} methods of {@link net.dv8tion.jda.core.JDA JDA} and
+     * {@link net.dv8tion.jda.core.entities.Guild Guild} for Users, Members, TextChannels and Roles use a hash lookup
+     * instead of comparing the name of every cached entity. This costs an additional map entry per cached entity.
+     *
+     * <p>Default: <b>false (disabled)</b>
+     *
+     * @param  enabled
+     *         True - the caches are indexed by name
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setNameIndexEnabled(boolean enabled)
+    {
+        this.enableNameIndex = enabled;
+        return this;
+    }
+
     /**
      * Enables/Disables the use of a Shutdown hook to clean up JDA.
      * <br>When the Java program closes shutdown hooks are run. This is used as a last-second cleanup
@@ -281,6 +403,8 @@ public class JDABuilder
      * Changes the factory used to create {@link net.dv8tion.jda.core.audio.factory.IAudioSendSystem IAudioSendSystem}
      * objects which handle the sending loop for audio packets.
      * <br>By default, JDA uses {@link net.dv8tion.jda.core.audio.factory.DefaultSendFactory DefaultSendFactory}.
+     * <br>Bots with many audio connections can use the {@link net.dv8tion.jda.core.audio.factory.PooledSendFactory PooledSendFactory}
+     * which sends for all connections from a few shared threads.
      *
      * @param  factory
      *         The new {@link net.dv8tion.jda.core.audio.factory.IAudioSendFactory IAudioSendFactory} to be used
@@ -294,6 +418,114 @@ public class JDABuilder
         return this;
     }
 
+    /**
+     * Sets the {@link net.dv8tion.jda.core.audio.SelectorReceiveEngine SelectorReceiveEngine} used to receive audio
+     * for all audio connections of this JDA instance.
+     * <br>By default, JDA starts a receiving thread and a thread for combined audio for every audio connection
+     * that has an {@link net.dv8tion.jda.core.audio.AudioReceiveHandler AudioReceiveHandler}.
+     * Bots that receive audio in many channels can share the threads of a single engine between all connections
+     * and shards instead.
+     *
+     * <p>The engine can only be used with the send factories provided by JDA, see
+     * {@link net.dv8tion.jda.core.audio.SelectorReceiveEngine#isSupported(IAudioSendFactory) SelectorReceiveEngine.isSupported(IAudioSendFactory)}.
+     * Building fails if it is combined with any other {@link #setAudioSendFactory(IAudioSendFactory) IAudioSendFactory}.
+     *
+     * @param  engine
+     *         The SelectorReceiveEngine to use, or {@code null} to use a thread per connection
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setAudioReceiveEngine(SelectorReceiveEngine engine)
+    {
+        this.audioReceiveEngine = engine;
+        return this;
+    }
+
+    /**
+     * Changes the factory used to create the {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter}
+     * which schedules all REST requests of the JDA instance.
+     * <br>By default, JDA uses {@link net.dv8tion.jda.core.requests.ratelimit.DefaultRateLimiterFactory DefaultRateLimiterFactory}.
+     *
+     * <p>Bots that keep a lot of routes busy at the same time can use the
+     * {@link net.dv8tion.jda.core.requests.ratelimit.ConcurrentRateLimiterFactory ConcurrentRateLimiterFactory}
+     * which does not synchronize the different rate limit buckets with each other.
+     *
+     * @param  factory
+     *         The new {@link net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory IRateLimiterFactory} to be used
+     *         when creating the RateLimiter of the {@link net.dv8tion.jda.core.JDA JDA} instance.
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided factory is {@code null}
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setRateLimiterFactory(IRateLimiterFactory factory)
+    {
+        Args.notNull(factory, "Provided IRateLimiterFactory");
+        this.rateLimiterFactory = factory;
+        return this;
+    }
+
+    /**
+     * Changes the transport used to send all REST requests of the JDA instance.
+     * <br>By default, every JDA instance creates its own
+     * {@link net.dv8tion.jda.core.requests.transport.PooledRestTransport PooledRestTransport} which uses the
+     * {@link #setProxy(org.apache.http.HttpHost) global proxy}. That transport is shut down together with the instance.
+     *
+     * <p>Providing a transport allows to tune the connection pool, for example
+     * {@code new PooledRestTransport(Requester.DISCORD_API_PREFIX, null, 500, 200)},
+     * or to send all requests to a different base url.
+     * <br>The same transport is used by every JDA instance created by this builder. A provided transport is
+     * only shut down by {@link net.dv8tion.jda.core.JDA#shutdown(boolean) JDA.shutdown(true)}.
+     *
+     * @param  transport
+     *         The {@link net.dv8tion.jda.core.requests.transport.IRestTransport IRestTransport} to use,
+     *         or {@code null} to use the default
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setRestTransport(IRestTransport transport)
+    {
+        this.restTransport = transport;
+        return this;
+    }
+
+    /**
+     * Sets the pool used to run the callbacks of {@link net.dv8tion.jda.core.requests.RestAction RestActions}
+     * and other scheduled tasks of the JDA instance.
+     * <br>By default, every JDA instance creates its own pool with {@link #setCorePoolSize(int) core pool size} threads.
+     *
+     * <p>Providing a pool allows to share the threads between multiple shards.
+     * The provided pool is not shutdown when the JDA instance is shutdown.
+     *
+     * @param  pool
+     *         The pool to use, or {@code null} to create a pool for every JDA instance
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setCallbackPool(ScheduledExecutorService pool)
+    {
+        this.callbackPool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the {@link net.dv8tion.jda.core.requests.SessionStartQueue SessionStartQueue} used to space out the
+     * IDENTIFYs of multiple shards that use the same token.
+     * <br>By default, JDA identifies right away which will get the session invalidated if another shard identified
+     * less than {@value net.dv8tion.jda.core.requests.SessionStartQueue#IDENTIFY_DELAY} seconds before.
+     *
+     * @param  queue
+     *         The queue shared by all shards of the token, or {@code null} to identify right away
+     *
+     * @return Returns the {@link net.dv8tion.jda.core.JDABuilder JDABuilder} instance. Useful for chaining.
+     */
+    public JDABuilder setSessionStartQueue(SessionStartQueue queue)
+    {
+        this.sessionStartQueue = queue;
+        return this;
+    }
+
     /**
      * Sets whether or not we should mark our session as afk
      * <br>This value can be changed at any time in the {@link net.dv8tion.jda.core.managers.Presence Presence} from a JDA instance.
@@ -459,12 +691,18 @@ public class JDABuilder
      *          If the provided token is empty or null.
      * @throws  RateLimitedException
      *          If we are being Rate limited.
+     * @throws  IllegalStateException
+     *          If a {@link net.dv8tion.jda.core.audio.SelectorReceiveEngine SelectorReceiveEngine} is combined with
+     *          an {@link net.dv8tion.jda.core.audio.factory.IAudioSendFactory IAudioSendFactory} it does not support.
      *
      * @return A {@link net.dv8tion.jda.core.JDA} instance that has started the login process. It is unknown as
      *         to whether or not loading has finished when this returns.
      */
     public JDA buildAsync() throws LoginException, IllegalArgumentException, RateLimitedException
     {
+        if (audioReceiveEngine != null && audioSendFactory != null && !SelectorReceiveEngine.isSupported(audioSendFactory))
+            throw new IllegalStateException("The SelectorReceiveEngine can not be used with the IAudioSendFactory "
+                    + audioSendFactory.getClass().getName() + " as it might send through the blocking DatagramSocket");
         jdaCreated = true;
 
         WebSocketFactory wsFactory = new WebSocketFactory();
@@ -477,13 +715,20 @@ public class JDABuilder
         }
 
         JDAImpl jda = new JDAImpl(accountType, proxy, wsFactory, autoReconnect, enableVoice, enableShutdownHook,
-                enableBulkDeleteSplitting, corePoolSize, maxReconnectDelay);
+                enableBulkDeleteSplitting, corePoolSize, maxReconnectDelay, rateLimiterFactory, restTransport, enableAsyncRequests,
+                enableZlibStream, callbackPool);
 
         if (eventManager != null)
             jda.setEventManager(eventManager);
 
         if (audioSendFactory != null)
             jda.setAudioSendFactory(audioSendFactory);
+        jda.setAudioReceiveEngine(audioReceiveEngine);
+        jda.setSessionStartQueue(sessionStartQueue);
+
+        jda.setMemberCachePolicy(memberCachePolicy);
+        jda.setPresenceCacheEnabled(enablePresenceCache);
+        jda.setNameIndexEnabled(enableNameIndex);
 
         listeners.forEach(jda::addEventListener);
         jda.setStatus(JDA.Status.INITIALIZED);  //This is already set by JDA internally, but this is to make sure the listeners catch it.
@@ -37,11 +37,13 @@ import tomp2p.opuswrapper.Opus;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
@@ -63,6 +65,7 @@ public class AudioConnection
     private final String threadIdentifier;
     private final AudioWebSocket webSocket;
     private DatagramSocket udpSocket;
+    private DatagramChannel udpChannel;
     private VoiceChannel channel;
     private volatile AudioSendHandler sendHandler = null;
     private volatile AudioReceiveHandler receiveHandler = null;
@@ -70,7 +73,11 @@ public class AudioConnection
     private ScheduledExecutorService combinedAudioExecutor;
 
     private IAudioSendSystem sendSystem;
-    private Thread receiveThread;
+    //The receiving thread stops once it is no longer the current one. It is not interrupted as that would close the
+    // DatagramChannel, which is shared with the sending system, see stopReceiveThread.
+    private volatile Thread receiveThread;
+    //Set instead of the receiveThread if the JDA instance receives through a shared SelectorReceiveEngine
+    private volatile SelectorReceiveEngine receiveEngine;
     private long queueTimeout;
 
     private volatile boolean couldReceive = false;
@@ -121,6 +128,7 @@ public class AudioConnection
                 if (!connectionTimeout)
                 {
                     AudioConnection.this.udpSocket = webSocket.getUdpSocket();
+                    AudioConnection.this.udpChannel = webSocket.getUdpChannel();
 
                     setupSendSystem();
                     setupReceiveSystem();
@@ -172,6 +180,16 @@ public class AudioConnection
         return channel.getGuild();
     }
 
+    DatagramChannel getUdpChannel()
+    {
+        return udpChannel;
+    }
+
+    byte[] getSecretKey()
+    {
+        return webSocket.getSecretKey();
+    }
+
     public void updateUserSSRC(int ssrc, long userId, boolean talking)
     {
         if (ssrcMap.containsKey(ssrc))
@@ -190,7 +208,7 @@ public class AudioConnection
             ssrcMap.put(ssrc, userId);
 
             //Only create a decoder if we are actively handling received audio.
-            if (receiveThread != null)
+            if (receiveThread != null || receiveEngine != null)
                 opusDecoders.put(ssrc, new Decoder(ssrc));
         }
     }
@@ -209,10 +227,11 @@ public class AudioConnection
             sendSystem.shutdown();
             sendSystem = null;
         }
-        if (receiveThread != null)
+        stopReceiveThread();
+        if (receiveEngine != null)
         {
-            receiveThread.interrupt();
-            receiveThread = null;
+            receiveEngine.unregister(this);
+            receiveEngine = null;
         }
         if (combinedAudioExecutor != null)
         {
@@ -255,14 +274,34 @@ public class AudioConnection
 
     private synchronized void setupReceiveSystem()
     {
-        if (udpSocket != null && !udpSocket.isClosed() && receiveHandler != null && receiveThread == null)
+        if (udpSocket != null && !udpSocket.isClosed() && receiveHandler != null && receiveThread == null && receiveEngine == null)
         {
-            setupReceiveThread();
+            JDAImpl api = (JDAImpl) getJDA();
+            SelectorReceiveEngine engine = api.getAudioReceiveEngine();
+            if (engine != null && !SelectorReceiveEngine.isSupported(api.getAudioSendFactory()))
+            {
+                LOG.warn("The SelectorReceiveEngine does not support the IAudioSendFactory " + api.getAudioSendFactory().getClass().getName()
+                        + ", receiving using a thread instead");
+                engine = null;
+            }
+            if (engine != null)
+            {
+                receiveEngine = engine;
+                engine.register(this);
+            }
+            else
+            {
+                setupReceiveThread();
+            }
         }
-        else if (receiveHandler == null && receiveThread != null)
+        else if (receiveHandler == null && (receiveThread != null || receiveEngine != null))
         {
-            receiveThread.interrupt();
-            receiveThread = null;
+            stopReceiveThread();
+            if (receiveEngine != null)
+            {
+                receiveEngine.unregister(this);
+                receiveEngine = null;
+            }
 
             if (combinedAudioExecutor != null)
             {
@@ -289,107 +328,46 @@ public class AudioConnection
                 @Override
                 public void run()
                 {
-                    try
-                    {
-                        udpSocket.setSoTimeout(1000);
-                    }
-                    catch (SocketException e)
-                    {
-                        LOG.log(e);
-                    }
-                    while (!udpSocket.isClosed() && !this.isInterrupted())
+                    //Receives through the channel itself, the blocking receive of the DatagramSocket view holds
+                    // the lock its send needs until a packet arrives or the timeout passes.
+                    //Reused for every packet of this thread, only the decoded arrays are handed to the handler
+                    byte[] received = new byte[1920];
+                    ByteBuffer receiveBuffer = ByteBuffer.wrap(received);
+                    ShortBuffer decodeBuffer = ShortBuffer.allocate(4096);
+                    while (udpChannel.isOpen() && receiveThread == this)
                     {
-                        DatagramPacket receivedPacket = new DatagramPacket(new byte[1920], 1920);
                         try
                         {
-                            udpSocket.receive(receivedPacket);
-
-                            if (receiveHandler != null && (receiveHandler.canReceiveUser() || receiveHandler.canReceiveCombined()) && webSocket.getSecretKey() != null)
+                            receiveBuffer.clear();
+                            if (udpChannel.receive(receiveBuffer) == null)
                             {
-                                if (!couldReceive)
-                                {
-                                    couldReceive = true;
-                                    sendSilentPackets();
-                                }
-                                AudioPacket decryptedPacket = AudioPacket.decryptAudioPacket(receivedPacket, webSocket.getSecretKey());
-
-                                int ssrc = decryptedPacket.getSSRC();
-                                final long userId = ssrcMap.get(ssrc);
-                                Decoder decoder = opusDecoders.get(ssrc);
-                                if (userId == ssrcMap.getNoEntryValue())
-                                {
-                                    byte[] audio = decryptedPacket.getEncodedAudio();
-
-                                    //If the bytes are silence, then this was caused by a User joining the voice channel,
-                                    // and as such, we haven't yet received information to pair the SSRC with the UserId.
-                                    if (!Arrays.equals(audio, silenceBytes))
-                                        LOG.debug("Received audio data with an unknown SSRC id. Ignoring");
-
-                                    continue;
-                                }
-                                if (decoder == null)
-                                {
-                                    decoder = new Decoder(ssrc);
-                                    opusDecoders.put(ssrc, decoder);
-                                }
-                                if (!decoder.isInOrder(decryptedPacket.getSequence()))
-                                {
-                                    LOG.trace("Got out-of-order audio packet. Ignoring.");
-                                    continue;
-                                }
-
-                                User user = getJDA().getUserById(userId);
-                                if (user == null)
-                                    LOG.warn("Received audio data with a known SSRC, but the userId associate with the SSRC is unknown to JDA!");
-                                else
-                                {
-//                                    if (decoder.wasPacketLost(decryptedPacket.getSequence()))
-//                                    {
-//                                        LOG.debug("Packet(s) missed. Using Opus packetloss-compensation.");
-//                                        short[] decodedAudio = decoder.decodeFromOpus(null);
-//                                        receiveHandler.handleUserAudio(new UserAudio(user, decodedAudio));
-//                                    }
-                                    short[] decodedAudio = decoder.decodeFromOpus(decryptedPacket);
-
-                                    //If decodedAudio is null, then the Opus decode failed, so throw away the packet.
-                                    if (decodedAudio == null)
-                                    {
-                                        LOG.trace("Received audio data but Opus failed to properly decode, instead it returned an error");
-                                    }
-                                    else
-                                    {
-                                        if (receiveHandler.canReceiveUser())
-                                        {
-                                            receiveHandler.handleUserAudio(new UserAudio(user, decodedAudio));
-                                        }
-                                        if (receiveHandler.canReceiveCombined())
-                                        {
-                                            Queue<Pair<Long, short[]>> queue = combinedQueue.get(user);
-                                            if (queue == null)
-                                            {
-                                                queue = new ConcurrentLinkedQueue<>();
-                                                combinedQueue.put(user, queue);
-                                            }
-                                            queue.add(Pair.<Long, short[]>of(System.currentTimeMillis(), decodedAudio));
-                                        }
-                                    }
-                                }
+                                //Still in non-blocking mode after a SelectorReceiveEngine received for this connection
+                                Thread.sleep(OPUS_FRAME_TIME_AMOUNT);
+                                continue;
                             }
-                            else if (couldReceive)
+
+                            //Too small for an audio packet, also skips the wake up packet of stopReceiveThread
+                            if (receiveBuffer.position() <= AudioPacket.RTP_HEADER_BYTE_LENGTH || receiveThread != this)
+                                continue;
+
+                            if (canReceive())
                             {
-                                couldReceive = false;
-                                sendSilentPackets();
+                                DatagramPacket receivedPacket = new DatagramPacket(received, receiveBuffer.position());
+                                AudioPacket decryptedPacket = AudioPacket.decryptAudioPacket(receivedPacket, webSocket.getSecretKey());
+                                byte[] audio = decryptedPacket.getEncodedAudio();
+                                handleAudioPacket(decryptedPacket.getSequence(), decryptedPacket.getTimestamp(),
+                                        decryptedPacket.getSSRC(), audio, audio.length, decodeBuffer);
                             }
                         }
-                        catch (SocketTimeoutException e)
+                        catch (ClosedChannelException e)
                         {
-                            //Ignore. We set a low timeout so that we wont block forever so we can properly shutdown the loop.
+                            //The channel was closed while we were listening for the next packet.
+                            //This is expected. Ignore the exception. The thread will exit during the next while
+                            // iteration because the udpChannel.isOpen() will return false.
                         }
-                        catch (SocketException e)
+                        catch (InterruptedException e)
                         {
-                            //The socket was closed while we were listening for the next packet.
-                            //This is expected. Ignore the exception. The thread will exit during the next while
-                            // iteration because the udpSocket.isClosed() will return true.
+                            return;
                         }
                         catch (Exception e)
                         {
@@ -408,6 +386,26 @@ public class AudioConnection
         }
     }
 
+    //The receiving thread waits for the next packet without a timeout, so it is woken up by an empty packet
+    // that it sends to its own port. The channel is bound to the wildcard address, so it can be reached through loopback.
+    private void stopReceiveThread()
+    {
+        if (receiveThread == null)
+            return;
+        receiveThread = null;
+        if (udpChannel == null || !udpChannel.isOpen())
+            return;
+        try
+        {
+            InetSocketAddress local = (InetSocketAddress) udpChannel.getLocalAddress();
+            udpChannel.send(ByteBuffer.allocate(0), new InetSocketAddress(InetAddress.getLoopbackAddress(), local.getPort()));
+        }
+        catch (Exception e)
+        {
+            LOG.debug("Could not wake up the receiving thread, it stops once the next packet is received");
+        }
+    }
+
     private synchronized void setupCombinedExecutor()
     {
         if (combinedAudioExecutor == null)
@@ -417,62 +415,7 @@ public class AudioConnection
             {
                 try
                 {
-                    List<User> users = new LinkedList<>();
-                    List<short[]> audioParts = new LinkedList<>();
-                    if (receiveHandler != null && receiveHandler.canReceiveCombined())
-                    {
-                        long currentTime = System.currentTimeMillis();
-                        for (Map.Entry<User, Queue<Pair<Long, short[]>>> entry : combinedQueue.entrySet())
-                        {
-                            User user = entry.getKey();
-                            Queue<Pair<Long, short[]>> queue = entry.getValue();
-            
-                            if (queue.isEmpty())
-                                continue;
-            
-                            Pair<Long, short[]> audioData = queue.poll();
-                            //Make sure the audio packet is younger than 100ms
-                            while (audioData != null && currentTime - audioData.getLeft() > queueTimeout)
-                            {
-                                audioData = queue.poll();
-                            }
-            
-                            //If none of the audio packets were younger than 100ms, then there is nothing to add.
-                            if (audioData == null)
-                            {
-                                continue;
-                            }
-                            users.add(user);
-                            audioParts.add(audioData.getRight());
-                        }
-            
-                        if (!audioParts.isEmpty())
-                        {
-                            int audioLength = audioParts.get(0).length;
-                            short[] mix = new short[1920];  //960 PCM samples for each channel
-                            int sample;
-                            for (int i = 0; i < audioLength; i++)
-                            {
-                                sample = 0;
-                                for (short[] audio : audioParts)
-                                {
-                                    sample += audio[i];
-                                }
-                                if (sample > Short.MAX_VALUE)
-                                    mix[i] = Short.MAX_VALUE;
-                                else if (sample < Short.MIN_VALUE)
-                                    mix[i] = Short.MIN_VALUE;
-                                else
-                                    mix[i] = (short) sample;
-                            }
-                            receiveHandler.handleCombinedAudio(new CombinedAudio(users, mix));
-                        }
-                        else
-                        {
-                            //No audio to mix, provide 20 MS of silence. (960 PCM samples for each channel)
-                            receiveHandler.handleCombinedAudio(new CombinedAudio(Collections.emptyList(), new short[1920]));
-                        }
-                    }
+                    handleCombinedAudio();
                 }
                 catch (Exception e)
                 {
@@ -482,8 +425,200 @@ public class AudioConnection
         }
     }
 
+    /**
+     * Checks whether received packets should currently be handled and updates the silence state accordingly.
+     * <br>Called for every received packet before it is decrypted.
+     *
+     * @return True, if the packet should be decrypted and passed to {@link #handleAudioPacket(char, int, int, byte[], int, ShortBuffer)}
+     */
+    boolean canReceive()
+    {
+        AudioReceiveHandler handler = receiveHandler;
+        if (handler != null && (handler.canReceiveUser() || handler.canReceiveCombined()) && webSocket.getSecretKey() != null)
+        {
+            if (!couldReceive)
+            {
+                couldReceive = true;
+                sendSilentPackets();
+            }
+            return true;
+        }
+        else if (couldReceive)
+        {
+            couldReceive = false;
+            sendSilentPackets();
+        }
+        return false;
+    }
+
+    /**
+     * Decodes a decrypted audio packet and passes it to the receive handler.
+     * <br>Called by the receiving thread of this connection or by the {@link SelectorReceiveEngine}.
+     *
+     * @param seq
+     *        The RTP sequence of the packet
+     * @param timestamp
+     *        The RTP timestamp of the packet
+     * @param ssrc
+     *        The SSRC of the user that sent the packet
+     * @param encodedAudio
+     *        Array starting with the Opus frame of the packet
+     * @param length
+     *        The length of the Opus frame
+     * @param decodeBuffer
+     *        Reused output buffer of the decoder
+     */
+    void handleAudioPacket(char seq, int timestamp, int ssrc, byte[] encodedAudio, int length, ShortBuffer decodeBuffer)
+    {
+        final long userId = ssrcMap.get(ssrc);
+        Decoder decoder = opusDecoders.get(ssrc);
+        if (userId == ssrcMap.getNoEntryValue())
+        {
+            //If the bytes are silence, then this was caused by a User joining the voice channel,
+            // and as such, we haven't yet received information to pair the SSRC with the UserId.
+            if (!isSilence(encodedAudio, length))
+                LOG.debug("Received audio data with an unknown SSRC id. Ignoring");
+            return;
+        }
+        if (decoder == null)
+        {
+            decoder = new Decoder(ssrc);
+            opusDecoders.put(ssrc, decoder);
+        }
+        if (!decoder.isInOrder(seq))
+        {
+            LOG.trace("Got out-of-order audio packet. Ignoring.");
+            return;
+        }
+
+        User user = getJDA().getUserById(userId);
+        if (user == null)
+        {
+            LOG.warn("Received audio data with a known SSRC, but the userId associate with the SSRC is unknown to JDA!");
+            return;
+        }
+
+        short[] decodedAudio = decoder.decodeFromOpus(seq, timestamp, encodedAudio, length, decodeBuffer);
+
+        //If decodedAudio is null, then the Opus decode failed, so throw away the packet.
+        if (decodedAudio == null)
+        {
+            LOG.trace("Received audio data but Opus failed to properly decode, instead it returned an error");
+            return;
+        }
+
+        final AudioReceiveHandler handler = receiveHandler;
+        if (handler == null)
+            return;
+        if (handler.canReceiveUser())
+        {
+            UserAudio userAudio = new UserAudio(user, decodedAudio);
+            SelectorReceiveEngine engine = receiveEngine;
+            if (engine != null)
+                engine.deliver(() -> handler.handleUserAudio(userAudio));
+            else
+                handler.handleUserAudio(userAudio);
+        }
+        if (handler.canReceiveCombined())
+        {
+            Queue<Pair<Long, short[]>> queue = combinedQueue.get(user);
+            if (queue == null)
+            {
+                queue = new ConcurrentLinkedQueue<>();
+                combinedQueue.put(user, queue);
+            }
+            queue.add(Pair.<Long, short[]>of(System.currentTimeMillis(), decodedAudio));
+        }
+    }
+
+    /**
+     * Mixes the queued audio of all users and passes it to the receive handler.
+     * <br>Called every 20ms by the combined executor of this connection or by the {@link SelectorReceiveEngine}.
+     */
+    void handleCombinedAudio()
+    {
+        final AudioReceiveHandler handler = receiveHandler;
+        if (handler == null || !handler.canReceiveCombined())
+            return;
+
+        List<User> users = new LinkedList<>();
+        List<short[]> audioParts = new LinkedList<>();
+        long currentTime = System.currentTimeMillis();
+        for (Map.Entry<User, Queue<Pair<Long, short[]>>> entry : combinedQueue.entrySet())
+        {
+            User user = entry.getKey();
+            Queue<Pair<Long, short[]>> queue = entry.getValue();
+
+            if (queue.isEmpty())
+                continue;
+
+            Pair<Long, short[]> audioData = queue.poll();
+            //Make sure the audio packet is younger than 100ms
+            while (audioData != null && currentTime - audioData.getLeft() > queueTimeout)
+            {
+                audioData = queue.poll();
+            }
+
+            //If none of the audio packets were younger than 100ms, then there is nothing to add.
+            if (audioData == null)
+            {
+                continue;
+            }
+            users.add(user);
+            audioParts.add(audioData.getRight());
+        }
+
+        final CombinedAudio combinedAudio;
+        if (!audioParts.isEmpty())
+        {
+            int audioLength = audioParts.get(0).length;
+            short[] mix = new short[1920];  //960 PCM samples for each channel
+            int sample;
+            for (int i = 0; i < audioLength; i++)
+            {
+                sample = 0;
+                for (short[] audio : audioParts)
+                {
+                    sample += audio[i];
+                }
+                if (sample > Short.MAX_VALUE)
+                    mix[i] = Short.MAX_VALUE;
+                else if (sample < Short.MIN_VALUE)
+                    mix[i] = Short.MIN_VALUE;
+                else
+                    mix[i] = (short) sample;
+            }
+            combinedAudio = new CombinedAudio(users, mix);
+        }
+        else
+        {
+            //No audio to mix, provide 20 MS of silence. (960 PCM samples for each channel)
+            combinedAudio = new CombinedAudio(Collections.emptyList(), new short[1920]);
+        }
+
+        SelectorReceiveEngine engine = receiveEngine;
+        if (engine != null)
+            engine.deliver(() -> handler.handleCombinedAudio(combinedAudio));
+        else
+            handler.handleCombinedAudio(combinedAudio);
+    }
+
+    private boolean isSilence(byte[] audio, int length)
+    {
+        if (length != silenceBytes.length)
+            return false;
+        for (int i = 0; i < length; i++)
+        {
+            if (audio[i] != silenceBytes[i])
+                return false;
+        }
+        return true;
+    }
+
     private class PacketProvider implements IPacketProvider
     {
+        final AudioSendBuffers buffers = new AudioSendBuffers();
+        byte[] secretKey;       //Set once the connection is ready, does not change for the lifetime of the connection.
         char seq = 0;           //Sequence of audio packets. Used to determine the order of the packets.
         int timestamp = 0;      //Used to sync up our packets within the same timeframe of other people talking.
 
@@ -505,10 +640,34 @@ public class AudioConnection
             return AudioConnection.this.udpSocket;
         }
 
+        @Override
+        public DatagramChannel getUdpChannel()
+        {
+            return AudioConnection.this.udpChannel;
+        }
+
+        @Override
+        public InetSocketAddress getSocketAddress()
+        {
+            return webSocket.getAddress();
+        }
+
         @Override
         public DatagramPacket getNextPacket(boolean changeTalking)
         {
-            DatagramPacket nextPacket = null;
+            ByteBuffer buffer = getNextPacketRaw(changeTalking);
+            if (buffer == null)
+                return null;
+
+            byte[] packet = new byte[buffer.remaining()];
+            buffer.get(packet);
+            return new DatagramPacket(packet, packet.length, webSocket.getAddress());
+        }
+
+        @Override
+        public ByteBuffer getNextPacketRaw(boolean changeTalking)
+        {
+            ByteBuffer nextPacket = null;
 
             try
             {
@@ -523,32 +682,20 @@ public class AudioConnection
                     }
                     else
                     {
-                        if (!sendHandler.isOpus())
-                        {
-                            rawAudio = encodeToOpus(rawAudio);
-                        }
-                        AudioPacket packet = new AudioPacket(seq, timestamp, webSocket.getSSRC(), rawAudio);
+                        if (sendHandler.isOpus())
+                            buffers.setEncoded(rawAudio);
+                        else if (buffers.encode(opusEncoder, rawAudio) <= 0)
+                            return null;
                         if (!speaking)
                             setSpeaking(true);
 
-                        nextPacket = packet.asEncryptedUdpPacket(webSocket.getAddress(), webSocket.getSecretKey());
-
-                        if (seq + 1 > Character.MAX_VALUE)
-                            seq = 0;
-                        else
-                            seq++;
+                        nextPacket = writePacket();
                     }
                 }
                 else if (silenceCounter > -1)
                 {
-                    AudioPacket packet = new AudioPacket(seq, timestamp, webSocket.getSSRC(), silenceBytes);
-
-                    nextPacket = packet.asEncryptedUdpPacket(webSocket.getAddress(), webSocket.getSecretKey());
-
-                    if (seq + 1 > Character.MAX_VALUE)
-                        seq = 0;
-                    else
-                        seq++;
+                    buffers.setEncoded(silenceBytes);
+                    nextPacket = writePacket();
 
                     if (++silenceCounter > 10)
                     {
@@ -570,6 +717,19 @@ public class AudioConnection
             return nextPacket;
         }
 
+        private ByteBuffer writePacket()
+        {
+            if (secretKey == null)
+                secretKey = webSocket.getSecretKey();
+            ByteBuffer packet = buffers.writePacket(seq, timestamp, webSocket.getSSRC(), secretKey);
+
+            if (seq + 1 > Character.MAX_VALUE)
+                seq = 0;
+            else
+                seq++;
+            return packet;
+        }
+
         @Override
         public void onConnectionError(ConnectionStatus status)
         {
@@ -588,32 +748,6 @@ public class AudioConnection
         }
     }
 
-    private byte[] encodeToOpus(byte[] rawAudio)
-    {
-        ShortBuffer nonEncodedBuffer = ShortBuffer.allocate(rawAudio.length / 2);
-        ByteBuffer encoded = ByteBuffer.allocate(4096);
-        for (int i = 0; i < rawAudio.length; i += 2)
-        {
-            int firstByte =  (0x000000FF & rawAudio[i]);      //Promotes to int and handles the fact that it was unsigned.
-            int secondByte = (0x000000FF & rawAudio[i + 1]);  //
-
-            //Combines the 2 bytes into a short. Opus deals with unsigned shorts, not bytes.
-            short toShort = (short) ((firstByte << 8) | secondByte);
-
-            nonEncodedBuffer.put(toShort);
-        }
-        nonEncodedBuffer.flip();
-
-        //TODO: check for 0 / negative value for error.
-        int result = Opus.INSTANCE.opus_encode(opusEncoder, nonEncodedBuffer, OPUS_FRAME_SIZE, encoded, encoded.capacity());
-
-        //ENCODING STOPS HERE
-
-        byte[] audio = new byte[result];
-        encoded.get(audio);
-        return audio;
-    }
-
     private void setSpeaking(boolean isSpeaking)
     {
         this.speaking = isSpeaking;
@@ -0,0 +1,161 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.audio;
+
+import com.iwebpp.crypto.TweetNaclFast;
+import com.sun.jna.ptr.PointerByReference;
+import tomp2p.opuswrapper.Opus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static net.dv8tion.jda.core.audio.AudioConnection.OPUS_CHANNEL_COUNT;
+import static net.dv8tion.jda.core.audio.AudioConnection.OPUS_FRAME_SIZE;
+import static net.dv8tion.jda.core.audio.AudioPacket.*;
+
+/**
+ * Reused buffers for the sending side of a single {@link AudioConnection}.
+ *
+ * <p>PCM input and Opus output are kept in direct buffers so the native encoder reads and writes them in place.
+ * The Opus frame is written right behind the zero padding required by xsalsa20-poly1305, so it can be encrypted
+ * without copying. The finished RTP packet is assembled in a direct buffer that can be handed to
+ * {@link java.nio.channels.DatagramChannel#send(java.nio.ByteBuffer, java.net.SocketAddress) DatagramChannel.send(...)}.
+ * <br>The buffers only grow if a pre-encoded Opus frame is larger than {@value #MAX_OPUS_FRAME_SIZE} bytes.
+ *
+ * <p>This class is not thread-safe, it is only used by the thread that polls the
+ * {@link net.dv8tion.jda.core.audio.factory.IPacketProvider IPacketProvider} of the connection.
+ */
+class AudioSendBuffers
+{
+    public static final int MAX_OPUS_FRAME_SIZE = 4096;
+
+    private static final int ZERO_BYTES = TweetNaclFast.SecretBox.zerobytesLength;
+    private static final int BOX_ZERO_BYTES = TweetNaclFast.SecretBox.boxzerobytesLength;
+    private static final int BOX_OVERHEAD = TweetNaclFast.SecretBox.overheadLength;
+
+    private final ShortBuffer pcm = ByteBuffer.allocateDirect(OPUS_FRAME_SIZE * OPUS_CHANNEL_COUNT * Short.BYTES)
+            .order(ByteOrder.nativeOrder())
+            .asShortBuffer();
+    private final ByteBuffer encoded = ByteBuffer.allocateDirect(MAX_OPUS_FRAME_SIZE);
+
+    // The first RTP_HEADER_BYTE_LENGTH bytes are the RTP header, the rest stays zero
+    private final byte[] nonce = new byte[XSALSA20_NONCE_LENGTH];
+    // ZERO_BYTES of padding followed by the Opus frame, the padding is never written to
+    private byte[] message = new byte[ZERO_BYTES + MAX_OPUS_FRAME_SIZE];
+    private byte[] cipher = new byte[message.length];
+    private ByteBuffer packet = ByteBuffer.allocateDirect(RTP_HEADER_BYTE_LENGTH + BOX_OVERHEAD + MAX_OPUS_FRAME_SIZE);
+
+    private int audioLength = 0;
+
+    /**
+     * Encodes 20ms of 48KHz 16bit stereo signed BigEndian PCM as the current Opus frame.
+     * <br>Input shorter than a full frame is padded with silence.
+     *
+     * @param  encoder
+     *         The Opus encoder of the connection
+     * @param  rawAudio
+     *         The PCM audio
+     *
+     * @return The length of the encoded frame, or a negative Opus error code
+     */
+    public int encode(PointerByReference encoder, byte[] rawAudio)
+    {
+        pcm.clear();
+        for (int i = 0; i + 1 < rawAudio.length && pcm.hasRemaining(); i += 2)
+            pcm.put((short) ((rawAudio[i] << 8) | (rawAudio[i + 1] & 0xFF)));
+        while (pcm.hasRemaining())
+            pcm.put((short) 0);
+        pcm.rewind();
+
+        encoded.clear();
+        int result = Opus.INSTANCE.opus_encode(encoder, pcm, OPUS_FRAME_SIZE, encoded, encoded.capacity());
+        if (result <= 0)
+        {
+            audioLength = 0;
+            return result;
+        }
+
+        encoded.get(message, ZERO_BYTES, result);
+        audioLength = result;
+        return result;
+    }
+
+    /**
+     * Sets the provided pre-encoded Opus frame as the current frame.
+     *
+     * @param audio
+     *        The Opus frame
+     */
+    public void setEncoded(byte[] audio)
+    {
+        ensureCapacity(audio.length);
+        System.arraycopy(audio, 0, message, ZERO_BYTES, audio.length);
+        audioLength = audio.length;
+    }
+
+    /**
+     * Encrypts the current Opus frame and writes it as RTP packet into the reused packet buffer.
+     *
+     * @param  seq
+     *         The RTP sequence
+     * @param  timestamp
+     *         The RTP timestamp
+     * @param  ssrc
+     *         The SSRC of the connection
+     * @param  secretKey
+     *         The secret key of the connection
+     *
+     * @return The packet buffer, ready to be read. Only valid until this method is called again.
+     *         Or {@code null} if the frame could not be encrypted.
+     */
+    public ByteBuffer writePacket(char seq, int timestamp, int ssrc, byte[] secretKey)
+    {
+        nonce[RTP_VERSION_PAD_EXTEND_INDEX] = RTP_VERSION_PAD_EXTEND;
+        nonce[RTP_PAYLOAD_INDEX] = RTP_PAYLOAD_TYPE;
+        nonce[SEQ_INDEX] = (byte) (seq >> 8);
+        nonce[SEQ_INDEX + 1] = (byte) seq;
+        nonce[TIMESTAMP_INDEX] = (byte) (timestamp >> 24);
+        nonce[TIMESTAMP_INDEX + 1] = (byte) (timestamp >> 16);
+        nonce[TIMESTAMP_INDEX + 2] = (byte) (timestamp >> 8);
+        nonce[TIMESTAMP_INDEX + 3] = (byte) timestamp;
+        nonce[SSRC_INDEX] = (byte) (ssrc >> 24);
+        nonce[SSRC_INDEX + 1] = (byte) (ssrc >> 16);
+        nonce[SSRC_INDEX + 2] = (byte) (ssrc >> 8);
+        nonce[SSRC_INDEX + 3] = (byte) ssrc;
+
+        int length = ZERO_BYTES + audioLength;
+        if (TweetNaclFast.crypto_secretbox(cipher, message, length, nonce, secretKey) != 0)
+            return null;
+
+        //The box starts after BOX_ZERO_BYTES and contains the authenticator followed by the encrypted frame
+        packet.clear();
+        packet.put(nonce, 0, RTP_HEADER_BYTE_LENGTH);
+        packet.put(cipher, BOX_ZERO_BYTES, length - BOX_ZERO_BYTES);
+        packet.flip();
+        return packet;
+    }
+
+    private void ensureCapacity(int audioLength)
+    {
+        if (ZERO_BYTES + audioLength <= message.length)
+            return;
+        message = new byte[ZERO_BYTES + audioLength];
+        cipher = new byte[message.length];
+        packet = ByteBuffer.allocateDirect(RTP_HEADER_BYTE_LENGTH + BOX_OVERHEAD + audioLength);
+    }
+}
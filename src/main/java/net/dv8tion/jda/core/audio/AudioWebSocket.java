@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.net.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -71,6 +72,7 @@ public class AudioWebSocket extends WebSocketAdapter
 
     private int ssrc;
     private byte[] secretKey;
+    private DatagramChannel udpChannel;
     private DatagramSocket udpSocket;
     private InetSocketAddress address;
 
@@ -385,6 +387,11 @@ public class AudioWebSocket extends WebSocketAdapter
         return udpSocket;
     }
 
+    public DatagramChannel getUdpChannel()
+    {
+        return udpChannel;
+    }
+
     public InetSocketAddress getAddress()
     {
         return address;
@@ -414,7 +421,10 @@ public class AudioWebSocket extends WebSocketAdapter
         //This is called UDP hole punching.
         try
         {
-            udpSocket = new DatagramSocket();   //Use UDP, not TCP.
+            //Use UDP, not TCP. The socket is backed by a channel so audio can be sent from direct buffers.
+            udpChannel = DatagramChannel.open();
+            udpChannel.bind(null);
+            udpSocket = udpChannel.socket();
 
             //Create a byte array of length 70 containing our ssrc.
             ByteBuffer buffer = ByteBuffer.allocate(70);    //70 taken from https://github.com/Rapptz/discord.py/blob/async/discord/voice_client.py#L208
@@ -493,8 +503,9 @@ public class AudioWebSocket extends WebSocketAdapter
                     ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 1);
                     buffer.put((byte)0xC9);
                     buffer.putLong(seq);
-                    DatagramPacket keepAlivePacket = new DatagramPacket(buffer.array(), buffer.array().length, address);
-                    udpSocket.send(keepAlivePacket);
+                    buffer.flip();
+                    //Sent through the channel directly so this doesn't wait for a blocking receive on the socket.
+                    udpChannel.send(buffer, address);
 
                 }
                 catch (NoRouteToHostException e)
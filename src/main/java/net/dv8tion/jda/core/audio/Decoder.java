@@ -56,27 +56,51 @@ public class Decoder
 
     protected short[] decodeFromOpus(AudioPacket decryptedPacket)
     {
-        int result;
-        ShortBuffer decoded = ShortBuffer.allocate(4096);
         if (decryptedPacket == null)    //Flag for packet-loss
         {
-            result = Opus.INSTANCE.opus_decode(opusDecoder, null, 0, decoded,
+            ShortBuffer decoded = ShortBuffer.allocate(4096);
+            int result = Opus.INSTANCE.opus_decode(opusDecoder, null, 0, decoded,
                     AudioConnection.OPUS_FRAME_SIZE, 0);
             lastSeq = (char) -1;
             lastTimestamp = -1;
+            return toArray(decoded, result);
         }
-        else
-        {
-            char seq = decryptedPacket.getSequence();
-            this.lastSeq = seq;
-            this.lastTimestamp = decryptedPacket.getTimestamp();
 
-            byte[] encodedAudio = decryptedPacket.getEncodedAudio();
+        byte[] encodedAudio = decryptedPacket.getEncodedAudio();
+        return decodeFromOpus(decryptedPacket.getSequence(), decryptedPacket.getTimestamp(),
+                encodedAudio, encodedAudio.length, ShortBuffer.allocate(4096));
+    }
 
-            result = Opus.INSTANCE.opus_decode(opusDecoder, encodedAudio, encodedAudio.length, decoded,
-                    AudioConnection.OPUS_FRAME_SIZE, 0);
-        }
+    /**
+     * Decodes the provided Opus frame using the provided buffer as output of the decoder.
+     * <br>The buffer is reused by the caller, only the returned array is handed out.
+     *
+     * @param  seq
+     *         The RTP sequence of the packet
+     * @param  timestamp
+     *         The RTP timestamp of the packet
+     * @param  encodedAudio
+     *         Array starting with the Opus frame
+     * @param  length
+     *         The length of the Opus frame
+     * @param  decoded
+     *         The output buffer, at least 4096 shorts. Preferably direct to avoid copying it to native memory.
+     *
+     * @return The decoded PCM audio, or {@code null} if the frame could not be decoded
+     */
+    protected short[] decodeFromOpus(char seq, int timestamp, byte[] encodedAudio, int length, ShortBuffer decoded)
+    {
+        this.lastSeq = seq;
+        this.lastTimestamp = timestamp;
+
+        decoded.clear();
+        int result = Opus.INSTANCE.opus_decode(opusDecoder, encodedAudio, length, decoded,
+                AudioConnection.OPUS_FRAME_SIZE, 0);
+        return toArray(decoded, result);
+    }
 
+    private static short[] toArray(ShortBuffer decoded, int result)
+    {
         //If we get a result that is less than 0, then there was an error. Return null as a signifier.
         if (result < 0)
             return null;
@@ -0,0 +1,556 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.audio;
+
+import com.iwebpp.crypto.TweetNaclFast;
+import net.dv8tion.jda.core.audio.factory.DefaultSendFactory;
+import net.dv8tion.jda.core.audio.factory.IAudioSendFactory;
+import net.dv8tion.jda.core.audio.factory.PooledSendFactory;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.dv8tion.jda.core.audio.AudioPacket.*;
+
+/**
+ * Receives the audio of many {@link net.dv8tion.jda.core.audio.AudioConnection AudioConnections} on a few shared
+ * threads, instead of one receiving thread and one combined audio thread per connection.
+ * <br>Can be set using {@link net.dv8tion.jda.core.JDABuilder#setAudioReceiveEngine(SelectorReceiveEngine) JDABuilder.setAudioReceiveEngine(SelectorReceiveEngine)}.
+ * Use a single instance for all JDA instances (shards) to share the threads between them.
+ *
+ * <p>The UDP channels of the connections are registered with one of the {@link java.nio.channels.Selector Selectors}
+ * of this engine. Each selector thread reuses its receive and decryption buffers for all of its connections,
+ * only the decoded audio is allocated per packet.
+ * <br>The decoded audio is not passed to the {@link net.dv8tion.jda.core.audio.AudioReceiveHandler AudioReceiveHandlers}
+ * on the selector threads. It is queued in a bounded queue that is drained by a single dispatching thread, so a slow
+ * handler can not delay receiving. If the queue is full, audio is dropped and counted by {@link #getDroppedCount()}.
+ * <br>Combined audio of all connections is mixed by a single thread every 20ms and queued the same way.
+ *
+ * <p><b>Note:</b> Registered channels are switched to non-blocking mode, in which sending through the
+ * {@link java.net.DatagramSocket DatagramSocket} of the connection fails. The engine can therefore only be used together
+ * with the send factories provided by JDA, which send through the channel, see {@link #isSupported(IAudioSendFactory)}.
+ * Connections using any other {@link net.dv8tion.jda.core.audio.factory.IAudioSendFactory IAudioSendFactory}
+ * fall back to a receiving thread.
+ *
+ * <p>The threads of this engine are started when the first connection is registered and run until {@link #shutdown()}.
+ */
+public class SelectorReceiveEngine
+{
+    /** Large enough for any voice packet, Discord does not send packets larger than the common MTU. */
+    public static final int RECEIVE_BUFFER_SIZE = 2048;
+    /** Maximum amount of packets received from one channel before the other channels of a selector are served. */
+    public static final int MAX_PACKETS_PER_SELECT = 16;
+
+    private static final int ZERO_BYTES = TweetNaclFast.SecretBox.zerobytesLength;
+    private static final int BOX_ZERO_BYTES = TweetNaclFast.SecretBox.boxzerobytesLength;
+
+    protected final int selectorCount;
+    protected final BlockingQueue<Runnable> deliveries;
+    protected final Set<AudioConnection> connections = ConcurrentHashMap.newKeySet();
+
+    protected final AtomicLong received = new AtomicLong();
+    protected final AtomicLong dropped = new AtomicLong();
+    protected final AtomicLong invalid = new AtomicLong();
+
+    protected SelectorThread[] selectors;
+    protected Thread dispatcher;
+    protected ScheduledExecutorService mixer;
+    protected volatile boolean running = false;
+    protected boolean shutdown = false;
+
+    /**
+     * Creates a new SelectorReceiveEngine with a single selector thread and a queue of 2048 deliveries.
+     */
+    public SelectorReceiveEngine()
+    {
+        this(1, 2048);
+    }
+
+    /**
+     * Creates a new SelectorReceiveEngine.
+     *
+     * @param  selectorCount
+     *         The amount of selector threads to distribute the connections on
+     * @param  queueCapacity
+     *         The maximum amount of decoded audio packets waiting to be passed to the handlers
+     *
+     * @throws IllegalArgumentException
+     *         If any of the provided values is less than 1
+     */
+    public SelectorReceiveEngine(int selectorCount, int queueCapacity)
+    {
+        Args.positive(selectorCount, "Selector count");
+        Args.positive(queueCapacity, "Queue capacity");
+        this.selectorCount = selectorCount;
+        this.deliveries = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * The amount of connections currently registered with this engine.
+     *
+     * @return The amount of registered connections
+     */
+    public int getConnectionCount()
+    {
+        return connections.size();
+    }
+
+    /**
+     * The amount of valid audio packets that were received.
+     *
+     * @return The amount of received packets
+     */
+    public long getReceivedCount()
+    {
+        return received.get();
+    }
+
+    /**
+     * The amount of packets that were ignored because they were too small or could not be decrypted.
+     *
+     * @return The amount of invalid packets
+     */
+    public long getInvalidCount()
+    {
+        return invalid.get();
+    }
+
+    /**
+     * The amount of decoded user or combined audio packets that were dropped because the queue was full.
+     *
+     * @return The amount of dropped packets
+     */
+    public long getDroppedCount()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * The amount of decoded audio packets that are currently waiting to be passed to their handler.
+     *
+     * @return The size of the queue
+     */
+    public int getQueuedCount()
+    {
+        return deliveries.size();
+    }
+
+    /**
+     * Stops all threads of this engine and closes its selectors.
+     * <br>Registered connections stop receiving audio. The engine can not be started again.
+     */
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+        if (!running)
+            return;
+        running = false;
+        for (SelectorThread selector : selectors)
+            selector.selector.wakeup();
+        dispatcher.interrupt();
+        mixer.shutdownNow();
+        connections.clear();
+        deliveries.clear();
+    }
+
+    /**
+     * Whether the engine can receive for connections that send using the provided factory.
+     * <br>This is only the case for the {@link net.dv8tion.jda.core.audio.factory.DefaultSendFactory DefaultSendFactory}
+     * and the {@link net.dv8tion.jda.core.audio.factory.PooledSendFactory PooledSendFactory}, other factories
+     * might send through the {@link java.net.DatagramSocket DatagramSocket} which fails in non-blocking mode.
+     *
+     * @param  factory
+     *         The IAudioSendFactory to check
+     *
+     * @return True, if the engine can be used with the factory
+     */
+    public static boolean isSupported(IAudioSendFactory factory)
+    {
+        return factory instanceof DefaultSendFactory || factory instanceof PooledSendFactory;
+    }
+
+    synchronized void register(AudioConnection connection)
+    {
+        if (shutdown)
+        {
+            AudioConnection.LOG.warn("Tried to register an AudioConnection with a SelectorReceiveEngine that was shut down");
+            return;
+        }
+        start();
+
+        DatagramChannel channel = connection.getUdpChannel();
+        if (channel == null)
+        {
+            AudioConnection.LOG.warn("Cannot receive audio using the SelectorReceiveEngine, the UDP socket is not backed by a channel");
+            return;
+        }
+        connections.add(connection);
+
+        SelectorThread selector = nextSelector();
+        selector.registered++;
+        Receiver receiver = new Receiver(connection, channel, selector);
+        selector.execute(() -> selector.register(receiver));
+    }
+
+    synchronized void unregister(AudioConnection connection)
+    {
+        if (!connections.remove(connection))
+            return;
+        for (SelectorThread selector : selectors)
+            selector.execute(() -> selector.unregister(connection));
+    }
+
+    protected SelectorThread nextSelector()
+    {
+        SelectorThread next = selectors[0];
+        for (SelectorThread selector : selectors)
+        {
+            if (selector.registered < next.registered)
+                next = selector;
+        }
+        return next;
+    }
+
+    void deliver(Runnable delivery)
+    {
+        if (!deliveries.offer(delivery))
+            dropped.incrementAndGet();
+    }
+
+    protected void start()
+    {
+        if (running)
+            return;
+        running = true;
+
+        selectors = new SelectorThread[selectorCount];
+        for (int i = 0; i < selectorCount; i++)
+        {
+            try
+            {
+                selectors[i] = new SelectorThread(Selector.open());
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Could not open a Selector", e);
+            }
+            Thread thread = new Thread(selectors[i], "SelectorReceiveEngine Selector " + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        dispatcher = new Thread(this::dispatch, "SelectorReceiveEngine Dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        mixer = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "SelectorReceiveEngine Mixer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mixer.scheduleAtFixedRate(this::mix, 0, AudioConnection.OPUS_FRAME_TIME_AMOUNT, TimeUnit.MILLISECONDS);
+    }
+
+    protected void dispatch()
+    {
+        while (running)
+        {
+            try
+            {
+                deliveries.take().run();
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            catch (Exception e)
+            {
+                AudioConnection.LOG.log(e);
+            }
+        }
+    }
+
+    protected void mix()
+    {
+        for (AudioConnection connection : connections)
+        {
+            try
+            {
+                connection.handleCombinedAudio();
+            }
+            catch (Exception e)
+            {
+                AudioConnection.LOG.log(e);
+            }
+        }
+    }
+
+    protected static class Receiver
+    {
+        protected final AudioConnection connection;
+        protected final DatagramChannel channel;
+        protected final SelectorThread selector;
+        protected final byte[] nonce = new byte[XSALSA20_NONCE_LENGTH];
+        protected byte[] secretKey;
+        protected SelectionKey key;
+
+        protected Receiver(AudioConnection connection, DatagramChannel channel, SelectorThread selector)
+        {
+            this.connection = connection;
+            this.channel = channel;
+            this.selector = selector;
+        }
+    }
+
+    protected class SelectorThread implements Runnable
+    {
+        protected final Selector selector;
+        protected final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Only used by the register method which is synchronized on the engine
+        protected int registered = 0;
+
+        // Reused for every packet received by this thread
+        protected final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(RECEIVE_BUFFER_SIZE);
+        // BOX_ZERO_BYTES of padding followed by the box, the padding is never written to
+        protected final byte[] cipher = new byte[BOX_ZERO_BYTES + RECEIVE_BUFFER_SIZE];
+        protected final byte[] message = new byte[cipher.length];
+        protected final byte[] audio = new byte[RECEIVE_BUFFER_SIZE];
+        protected final ShortBuffer decodeBuffer = ByteBuffer.allocateDirect(4096 * Short.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asShortBuffer();
+
+        protected SelectorThread(Selector selector)
+        {
+            this.selector = selector;
+        }
+
+        protected void execute(Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        protected void register(Receiver receiver)
+        {
+            try
+            {
+                //A key of this selector that was cancelled by unregister and not flushed yet can't be registered again
+                SelectionKey old = receiver.channel.keyFor(selector);
+                if (old != null && !old.isValid())
+                    selector.selectNow();
+
+                //Locked so no other selector thread can restore blocking mode in between
+                synchronized (receiver.channel.blockingLock())
+                {
+                    receiver.channel.configureBlocking(false);
+                    receiver.key = receiver.channel.register(selector, SelectionKey.OP_READ, receiver);
+                }
+            }
+            catch (Exception e)
+            {
+                AudioConnection.LOG.fatal("Could not register the UDP channel of " + receiver.connection.getChannel() + " with a Selector");
+                AudioConnection.LOG.log(e);
+                synchronized (SelectorReceiveEngine.this)
+                {
+                    registered--;
+                }
+            }
+        }
+
+        protected void unregister(AudioConnection connection)
+        {
+            List<DatagramChannel> channels = new ArrayList<>(1);
+            for (SelectionKey key : selector.keys())
+            {
+                Receiver receiver = (Receiver) key.attachment();
+                if (receiver.connection == connection)
+                {
+                    key.cancel();
+                    channels.add(receiver.channel);
+                    synchronized (SelectorReceiveEngine.this)
+                    {
+                        registered--;
+                    }
+                }
+            }
+            if (channels.isEmpty())
+                return;
+
+            try
+            {
+                //Flushes the cancelled keys so the channels are deregistered right away
+                selector.selectNow();
+            }
+            catch (IOException e)
+            {
+                AudioConnection.LOG.log(e);
+            }
+            for (DatagramChannel channel : channels)
+                restoreBlocking(channel);
+        }
+
+        //Puts the channel back into blocking mode for the receive thread of the AudioConnection,
+        // unless it was registered again in the meantime
+        protected void restoreBlocking(DatagramChannel channel)
+        {
+            synchronized (channel.blockingLock())
+            {
+                if (!channel.isOpen() || channel.isRegistered())
+                    return;
+                try
+                {
+                    channel.configureBlocking(true);
+                }
+                catch (IOException e)
+                {
+                    AudioConnection.LOG.log(e);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (running)
+                {
+                    selector.select();
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null)
+                        task.run();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext())
+                    {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (key.isValid() && key.isReadable())
+                            receive((Receiver) key.attachment());
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                AudioConnection.LOG.fatal("A SelectorReceiveEngine selector stopped unexpectedly");
+                AudioConnection.LOG.log(e);
+            }
+            finally
+            {
+                List<DatagramChannel> channels = new ArrayList<>();
+                for (SelectionKey key : selector.keys())
+                    channels.add(((Receiver) key.attachment()).channel);
+                try
+                {
+                    //Deregisters all channels
+                    selector.close();
+                }
+                catch (IOException ignored) {}
+                for (DatagramChannel channel : channels)
+                    restoreBlocking(channel);
+            }
+        }
+
+        protected void receive(Receiver receiver)
+        {
+            for (int i = 0; i < MAX_PACKETS_PER_SELECT; i++)
+            {
+                int length;
+                try
+                {
+                    receiveBuffer.clear();
+                    if (receiver.channel.receive(receiveBuffer) == null)
+                        return;
+                    length = receiveBuffer.position();
+                }
+                catch (IOException e)
+                {
+                    //The channel was closed with the connection, it is removed from the selector automatically.
+                    return;
+                }
+
+                try
+                {
+                    handlePacket(receiver, length);
+                }
+                catch (Exception e)
+                {
+                    AudioConnection.LOG.log(e);
+                }
+            }
+        }
+
+        protected void handlePacket(Receiver receiver, int length)
+        {
+            if (length < RTP_HEADER_BYTE_LENGTH + TweetNaclFast.SecretBox.overheadLength)
+            {
+                invalid.incrementAndGet();
+                return;
+            }
+            if (!receiver.connection.canReceive())
+                return;
+            if (receiver.secretKey == null)
+                receiver.secretKey = receiver.connection.getSecretKey();
+
+            //The RTP header is the start of the nonce, the remaining bytes are always 0
+            int boxLength = length - RTP_HEADER_BYTE_LENGTH;
+            byte[] header = receiver.nonce;
+            receiveBuffer.flip();
+            receiveBuffer.get(header, 0, RTP_HEADER_BYTE_LENGTH);
+            receiveBuffer.get(cipher, BOX_ZERO_BYTES, boxLength);
+            if (TweetNaclFast.crypto_secretbox_open(message, cipher, BOX_ZERO_BYTES + boxLength, receiver.nonce, receiver.secretKey) != 0)
+            {
+                invalid.incrementAndGet();
+                return;
+            }
+
+            //The plain Opus frame starts after ZERO_BYTES
+            int audioLength = BOX_ZERO_BYTES + boxLength - ZERO_BYTES;
+            System.arraycopy(message, ZERO_BYTES, audio, 0, audioLength);
+
+            char seq = (char) (((header[SEQ_INDEX] & 0xFF) << 8) | (header[SEQ_INDEX + 1] & 0xFF));
+            int timestamp = readInt(header, TIMESTAMP_INDEX);
+            int ssrc = readInt(header, SSRC_INDEX);
+
+            received.incrementAndGet();
+            receiver.connection.handleAudioPacket(seq, timestamp, ssrc, audio, audioLength, decodeBuffer);
+        }
+    }
+
+    private static int readInt(byte[] array, int index)
+    {
+        return ((array[index] & 0xFF) << 24)
+             | ((array[index + 1] & 0xFF) << 16)
+             | ((array[index + 2] & 0xFF) << 8)
+             |  (array[index + 3] & 0xFF);
+    }
+}
@@ -21,31 +21,55 @@ import net.dv8tion.jda.core.entities.Guild;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.NoRouteToHostException;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
 
 import static net.dv8tion.jda.core.audio.AudioConnection.OPUS_FRAME_TIME_AMOUNT;
 
 /**
  * The default implementation of the {@link net.dv8tion.jda.core.audio.factory.IAudioSendSystem IAudioSendSystem}.
  * <br>This implementation uses a Java thread, named based on: {@link IPacketProvider#getIdentifier()} + " Sending Thread".
+ *
+ * <p>If the UDP socket is backed by a {@link java.nio.channels.DatagramChannel DatagramChannel} packets are sent
+ * from the reused buffer of {@link IPacketProvider#getNextPacketRaw(boolean)}, so no objects are created per packet.
  */
 public class DefaultSendSystem implements IAudioSendSystem
 {
     private final IPacketProvider packetProvider;
     private Thread sendThread;
+    private volatile boolean running = true;
 
     public DefaultSendSystem(IPacketProvider packetProvider)
     {
         this.packetProvider = packetProvider;
     }
 
+    /**
+     * The channel to send {@link IPacketProvider#getNextPacketRaw(boolean) raw packets} through.
+     * <br>Raw packets can only be sent through the channel if the provider knows the address of the voice server,
+     * otherwise the addressed packets of {@link IPacketProvider#getNextPacket(boolean)} have to be sent through the socket.
+     *
+     * @param  packetProvider
+     *         The provider of the connection
+     *
+     * @return The channel, or {@code null} if the packets have to be sent through the socket
+     */
+    static DatagramChannel getRawChannel(IPacketProvider packetProvider)
+    {
+        return packetProvider.getSocketAddress() == null ? null : packetProvider.getUdpChannel();
+    }
+
     @Override
     public void start()
     {
         final Guild guild = packetProvider.getConnectedChannel().getGuild();
         final DatagramSocket udpSocket = packetProvider.getUdpSocket();
-
+        final InetSocketAddress address = packetProvider.getSocketAddress();
+        final DatagramChannel udpChannel = getRawChannel(packetProvider);
 
         sendThread = new Thread(packetProvider.getIdentifier() + " Sending Thread")
         {
@@ -53,21 +77,29 @@ public class DefaultSendSystem implements IAudioSendSystem
             public void run()
             {
                 long lastFrameSent = System.currentTimeMillis();
-                while (!udpSocket.isClosed() && !sendThread.isInterrupted())
+                while (!udpSocket.isClosed() && running)
                 {
                     try
                     {
                         boolean changeTalking = (System.currentTimeMillis() - lastFrameSent) > OPUS_FRAME_TIME_AMOUNT;
-                        DatagramPacket packet = packetProvider.getNextPacket(changeTalking);
-
-                        if (packet != null)
-                            udpSocket.send(packet);
+                        if (udpChannel != null)
+                        {
+                            ByteBuffer packet = packetProvider.getNextPacketRaw(changeTalking);
+                            if (packet != null)
+                                udpChannel.send(packet, address);
+                        }
+                        else
+                        {
+                            DatagramPacket packet = packetProvider.getNextPacket(changeTalking);
+                            if (packet != null)
+                                udpSocket.send(packet);
+                        }
                     }
                     catch (NoRouteToHostException e)
                     {
                         packetProvider.onConnectionLost();
                     }
-                    catch (SocketException e)
+                    catch (SocketException | ClosedChannelException e)
                     {
                         //Most likely the socket has been closed due to the audio connection be closed. Next iteration will kill loop.
                     }
@@ -88,7 +120,7 @@ public class DefaultSendSystem implements IAudioSendSystem
                             catch (InterruptedException e)
                             {
                                 //We've been asked to stop.
-                                Thread.currentThread().interrupt();
+                                running = false;
                             }
                         }
                         if (System.currentTimeMillis() < lastFrameSent + 60) // If the sending didn't took longer than 60ms (3 times the time frame)
@@ -111,7 +143,8 @@ public class DefaultSendSystem implements IAudioSendSystem
     @Override
     public void shutdown()
     {
-        if (sendThread != null)
-            sendThread.interrupt();
+        //The thread is not interrupted as that would close the channel of the audio connection if it is sending.
+        // It stops after the current frame instead.
+        running = false;
     }
 }
@@ -21,6 +21,9 @@ import net.dv8tion.jda.core.entities.VoiceChannel;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 
 /**
  * Represents the connection between a {@link net.dv8tion.jda.core.audio.factory.IAudioSendSystem IAudioSendSystem} and
@@ -51,10 +54,50 @@ public interface IPacketProvider
      * system that JDA monitors for errors and closures. It should be noted however that using this is not required to
      * send audio packets if the developer wishes to open their own UDP socket to send from.
      *
+     * <p>The socket is the {@link java.net.DatagramSocket DatagramSocket} view of the {@link #getUdpChannel() DatagramChannel}
+     * of the connection. The connection receives through the channel directly, so sending through the socket
+     * does not wait for a receiving thread.
+     * <br>While a {@link net.dv8tion.jda.core.audio.SelectorReceiveEngine SelectorReceiveEngine} receives for the connection
+     * the channel is in non-blocking mode and sending through the socket fails with an
+     * {@link java.nio.channels.IllegalBlockingModeException IllegalBlockingModeException}.
+     * <br>Send systems should therefore send {@link #getNextPacketRaw(boolean) raw packets} through the channel
+     * to the {@link #getSocketAddress() voice server}, like the built-in send systems do, and only fall back to the socket
+     * if either of those is {@code null}.
+     *
      * @return The UDP socket connection used for audio sending.
      */
     DatagramSocket getUdpSocket();
 
+    /**
+     * The {@link java.nio.channels.DatagramChannel DatagramChannel} backing the {@link #getUdpSocket() UDP socket}
+     * of this audio connection. Sending through the channel with {@link #getNextPacketRaw(boolean)} avoids
+     * copying every packet into a new {@link java.net.DatagramPacket DatagramPacket}.
+     *
+     * <p><b>Note:</b> Interrupting a thread that is blocked in an operation on this channel closes the channel,
+     * and with it the audio connection. Send loops should be stopped without interrupting the sending thread.
+     *
+     * @return Possibly-null DatagramChannel, {@code null} if the socket is not backed by a channel
+     */
+    default DatagramChannel getUdpChannel()
+    {
+        DatagramSocket socket = getUdpSocket();
+        return socket == null ? null : socket.getChannel();
+    }
+
+    /**
+     * The address of the Discord voice server that audio packets have to be sent to.
+     * <br>Required to send {@link #getNextPacketRaw(boolean) raw packets} through the {@link #getUdpChannel() channel}.
+     *
+     * <p>The default implementation returns {@code null}, in which case send systems have to fall back to
+     * {@link #getNextPacket(boolean)}, as the returned {@link java.net.DatagramPacket DatagramPacket} is already addressed.
+     *
+     * @return Possibly-null address of the voice server
+     */
+    default InetSocketAddress getSocketAddress()
+    {
+        return null;
+    }
+
     /**
      * Used to retrieve an audio packet to send to Discord. The packet provided is already converted to Opus and
      * encrypted, and as such is completely ready to be sent to Discord. The {@code changeTalking} parameter is used
@@ -76,6 +119,25 @@ public interface IPacketProvider
      */
     DatagramPacket getNextPacket(boolean changeTalking);
 
+    /**
+     * Used to retrieve an audio packet to send to Discord, in the same way as {@link #getNextPacket(boolean)}.
+     * <br>The returned buffer is owned by this provider and reused for the next packet, so it is only valid
+     * until the next call to this method or {@link #getNextPacket(boolean)}. Its content between position and limit
+     * is the packet, which is the format expected by
+     * {@link java.nio.channels.DatagramChannel#send(java.nio.ByteBuffer, java.net.SocketAddress) DatagramChannel.send(ByteBuffer, SocketAddress)}.
+     *
+     * @param  changeTalking
+     *         Whether or not to change the talking indicator if the AudioSendHandler cannot provide a new audio packet.
+     *
+     * @return Possibly-null {@link java.nio.ByteBuffer ByteBuffer} containing an encoded and encrypted packet
+     *         of audio data ready to be sent to discord.
+     */
+    default ByteBuffer getNextPacketRaw(boolean changeTalking)
+    {
+        DatagramPacket packet = getNextPacket(changeTalking);
+        return packet == null ? null : ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength());
+    }
+
     /**
      * This method is used to indicate a connection error to JDA so that the connection can be properly shutdown.
      * <br>This is useful if, during setup or operation, an unrecoverable error is encountered.
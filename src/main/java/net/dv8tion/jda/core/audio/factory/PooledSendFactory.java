@@ -0,0 +1,419 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.audio.factory;
+
+import net.dv8tion.jda.core.audio.AudioConnection;
+import org.apache.http.util.Args;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static net.dv8tion.jda.core.audio.AudioConnection.OPUS_FRAME_TIME_AMOUNT;
+
+/**
+ * {@link net.dv8tion.jda.core.audio.factory.IAudioSendFactory IAudioSendFactory} that drives the sending of all
+ * audio connections it creates from a small fixed amount of threads, instead of one
+ * {@link net.dv8tion.jda.core.audio.factory.DefaultSendSystem thread per connection}.
+ * <br>Use a single instance for all JDA instances (shards) to share the threads between them.
+ *
+ * <p>Every connection is assigned to the worker thread with the fewest connections. A worker wakes up on a fixed
+ * 20ms schedule based on {@link System#nanoTime()} and sends the next frame of each of its connections through
+ * the {@link java.nio.channels.DatagramChannel DatagramChannel} of the connection. The schedule is absolute,
+ * so a late wakeup is caught up on the next tick instead of shifting all following frames.
+ * If a worker falls behind by more than {@value #MAX_BEHIND_FRAMES} frames the schedule is reset.
+ *
+ * <p>All connections of a worker share its thread, so an
+ * {@link net.dv8tion.jda.core.audio.AudioSendHandler AudioSendHandler} that blocks in
+ * {@link net.dv8tion.jda.core.audio.AudioSendHandler#provide20MsAudio() provide20MsAudio()} delays the other
+ * connections of the worker as well. The timing of the workers can be monitored with the metrics of this factory,
+ * like {@link #getLateFrameCount()} and {@link #getMaxJitter(TimeUnit)}.
+ *
+ * <p>Worker threads are only started while they have connections and stop once their last connection is closed.
+ */
+public class PooledSendFactory implements IAudioSendFactory
+{
+    /** A frame that is sent this late after its tick is counted as late. */
+    public static final long LATE_FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(OPUS_FRAME_TIME_AMOUNT / 2);
+    /** Ticks a worker may fall behind before its schedule is reset. */
+    public static final int MAX_BEHIND_FRAMES = 3;
+
+    protected static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(OPUS_FRAME_TIME_AMOUNT);
+
+    protected final Worker[] workers;
+
+    /**
+     * Creates a new PooledSendFactory with one worker thread per 2 available processors, at most 4.
+     */
+    public PooledSendFactory()
+    {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    /**
+     * Creates a new PooledSendFactory with the provided amount of worker threads.
+     *
+     * @param  threadCount
+     *         The amount of worker threads
+     *
+     * @throws IllegalArgumentException
+     *         If the thread count is less than 1
+     */
+    public PooledSendFactory(int threadCount)
+    {
+        Args.positive(threadCount, "Thread count");
+        workers = new Worker[threadCount];
+        for (int i = 0; i < threadCount; i++)
+            workers[i] = new Worker(i);
+    }
+
+    @Override
+    public IAudioSendSystem createSendSystem(IPacketProvider packetProvider)
+    {
+        return new PooledSendSystem(packetProvider);
+    }
+
+    /**
+     * The amount of connections that are currently sending through this factory.
+     *
+     * @return The amount of active connections
+     */
+    public int getConnectionCount()
+    {
+        int count = 0;
+        for (Worker worker : workers)
+            count += worker.connections.length;
+        return count;
+    }
+
+    /**
+     * The amount of audio packets that were sent.
+     *
+     * @return The amount of sent packets
+     */
+    public long getSentCount()
+    {
+        long count = 0;
+        for (Worker worker : workers)
+            count += worker.sent;
+        return count;
+    }
+
+    /**
+     * The amount of audio packets that were sent {@value #LATE_FRAME_NANOS}ns or more after their tick.
+     *
+     * @return The amount of late packets
+     */
+    public long getLateFrameCount()
+    {
+        long count = 0;
+        for (Worker worker : workers)
+            count += worker.late;
+        return count;
+    }
+
+    /**
+     * The amount of audio packets that could not be sent, because the socket send buffer was full
+     * (non-blocking channels only) or sending failed.
+     *
+     * @return The amount of dropped packets
+     */
+    public long getDroppedCount()
+    {
+        long count = 0;
+        for (Worker worker : workers)
+            count += worker.dropped;
+        return count;
+    }
+
+    /**
+     * The amount of times a worker fell behind by more than {@value #MAX_BEHIND_FRAMES} frames and reset its schedule.
+     *
+     * @return The amount of schedule resets
+     */
+    public long getScheduleResetCount()
+    {
+        long count = 0;
+        for (Worker worker : workers)
+            count += worker.resets;
+        return count;
+    }
+
+    /**
+     * The average delay between the planned tick and the actual wakeup of the workers.
+     *
+     * @param  unit
+     *         The unit of the returned value
+     *
+     * @return The average jitter
+     */
+    public long getAverageJitter(TimeUnit unit)
+    {
+        long ticks = 0;
+        long total = 0;
+        for (Worker worker : workers)
+        {
+            ticks += worker.ticks;
+            total += worker.jitterTotal;
+        }
+        return ticks == 0 ? 0 : unit.convert(total / ticks, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The largest delay between the planned tick and the actual wakeup of any worker.
+     *
+     * @param  unit
+     *         The unit of the returned value
+     *
+     * @return The maximum jitter
+     */
+    public long getMaxJitter(TimeUnit unit)
+    {
+        long max = 0;
+        for (Worker worker : workers)
+            max = Math.max(max, worker.maxJitter);
+        return unit.convert(max, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Resets all metrics of this factory.
+     */
+    public void resetMetrics()
+    {
+        for (Worker worker : workers)
+            worker.resetMetrics = true;
+    }
+
+    protected Worker nextWorker()
+    {
+        Worker next = workers[0];
+        for (Worker worker : workers)
+        {
+            if (worker.connections.length < next.connections.length)
+                next = worker;
+        }
+        return next;
+    }
+
+    protected class PooledSendSystem implements IAudioSendSystem
+    {
+        protected final IPacketProvider packetProvider;
+        protected Connection connection;
+
+        protected PooledSendSystem(IPacketProvider packetProvider)
+        {
+            this.packetProvider = packetProvider;
+        }
+
+        @Override
+        public synchronized void start()
+        {
+            if (connection != null)
+                return;
+            connection = new Connection(packetProvider);
+            synchronized (PooledSendFactory.this)
+            {
+                connection.worker = nextWorker();
+                connection.worker.add(connection);
+            }
+        }
+
+        @Override
+        public synchronized void shutdown()
+        {
+            if (connection != null)
+            {
+                connection.worker.remove(connection);
+                connection = null;
+            }
+        }
+    }
+
+    protected static class Connection
+    {
+        protected final IPacketProvider packetProvider;
+        protected final DatagramSocket udpSocket;
+        protected final DatagramChannel udpChannel;
+        protected final InetSocketAddress address;
+        protected Worker worker;
+
+        protected Connection(IPacketProvider packetProvider)
+        {
+            this.packetProvider = packetProvider;
+            this.udpSocket = packetProvider.getUdpSocket();
+            this.address = packetProvider.getSocketAddress();
+            this.udpChannel = DefaultSendSystem.getRawChannel(packetProvider);
+        }
+    }
+
+    protected class Worker implements Runnable
+    {
+        protected final int index;
+        // Copied on change, only read without lock by the worker thread and the metric getters
+        protected volatile Connection[] connections = new Connection[0];
+        protected Thread thread;
+
+        // Metrics, only written by the worker thread
+        protected volatile long sent, late, dropped, resets, ticks, jitterTotal, maxJitter;
+        protected volatile boolean resetMetrics = false;
+
+        protected Worker(int index)
+        {
+            this.index = index;
+        }
+
+        protected synchronized void add(Connection connection)
+        {
+            Connection[] current = connections;
+            Connection[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = connection;
+            connections = updated;
+
+            if (thread == null)
+            {
+                thread = new Thread(this, "PooledSendFactory Worker " + index);
+                thread.setPriority((Thread.NORM_PRIORITY + Thread.MAX_PRIORITY) / 2);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        protected synchronized void remove(Connection connection)
+        {
+            Connection[] current = connections;
+            for (int i = 0; i < current.length; i++)
+            {
+                if (current[i] == connection)
+                {
+                    Connection[] updated = new Connection[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                    connections = updated;
+                    return;
+                }
+            }
+        }
+
+        protected synchronized boolean stopIfIdle()
+        {
+            if (connections.length > 0)
+                return false;
+            thread = null;
+            return true;
+        }
+
+        @Override
+        public void run()
+        {
+            long nextTick = System.nanoTime();
+            while (!stopIfIdle())
+            {
+                long now = System.nanoTime();
+                while (now < nextTick)
+                {
+                    LockSupport.parkNanos(this, nextTick - now);
+                    now = System.nanoTime();
+                }
+
+                if (resetMetrics)
+                {
+                    sent = late = dropped = resets = ticks = jitterTotal = maxJitter = 0;
+                    resetMetrics = false;
+                }
+
+                long jitter = now - nextTick;
+                ticks++;
+                jitterTotal += jitter;
+                if (jitter > maxJitter)
+                    maxJitter = jitter;
+
+                for (Connection connection : connections)
+                    send(connection, nextTick);
+
+                //Keep the absolute schedule unless we are too far behind to catch up
+                nextTick += FRAME_NANOS;
+                if (System.nanoTime() - nextTick > MAX_BEHIND_FRAMES * FRAME_NANOS)
+                {
+                    nextTick = System.nanoTime();
+                    resets++;
+                }
+            }
+        }
+
+        protected void send(Connection connection, long tick)
+        {
+            IPacketProvider packetProvider = connection.packetProvider;
+            if (connection.udpSocket.isClosed())
+            {
+                remove(connection);
+                return;
+            }
+
+            try
+            {
+                boolean changeTalking = System.nanoTime() - tick > FRAME_NANOS;
+                boolean written;
+                if (connection.udpChannel != null)
+                {
+                    ByteBuffer packet = packetProvider.getNextPacketRaw(changeTalking);
+                    if (packet == null)
+                        return;
+                    written = connection.udpChannel.send(packet, connection.address) > 0;
+                }
+                else
+                {
+                    DatagramPacket packet = packetProvider.getNextPacket(changeTalking);
+                    if (packet == null)
+                        return;
+                    connection.udpSocket.send(packet);
+                    written = true;
+                }
+
+                if (!written)
+                {
+                    dropped++;
+                    return;
+                }
+                sent++;
+                if (System.nanoTime() - tick >= LATE_FRAME_NANOS)
+                    late++;
+            }
+            catch (NoRouteToHostException e)
+            {
+                dropped++;
+                packetProvider.onConnectionLost();
+            }
+            catch (SocketException | ClosedChannelException e)
+            {
+                //The socket has been closed due to the audio connection being closed. Next tick will remove it.
+            }
+            catch (Exception e)
+            {
+                dropped++;
+                AudioConnection.LOG.log(e);
+            }
+        }
+    }
+}
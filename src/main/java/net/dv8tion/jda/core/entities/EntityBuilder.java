@@ -16,7 +16,12 @@
 
 package net.dv8tion.jda.core.entities;
 
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TLongLongMap;
 import gnu.trove.map.TLongObjectMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import net.dv8tion.jda.bot.entities.ApplicationInfo;
 import net.dv8tion.jda.bot.entities.impl.ApplicationInfoImpl;
 import net.dv8tion.jda.client.entities.*;
@@ -31,6 +36,9 @@ import net.dv8tion.jda.core.exceptions.AccountTypeException;
 import net.dv8tion.jda.core.handle.GuildMembersChunkHandler;
 import net.dv8tion.jda.core.handle.ReadyHandler;
 import net.dv8tion.jda.core.requests.WebSocketClient;
+import net.dv8tion.jda.core.requests.WebSocketSendQueue;
+import net.dv8tion.jda.core.utils.JsonReader;
+import net.dv8tion.jda.core.utils.MemberCachePolicy;
 import net.dv8tion.jda.core.utils.MiscUtil;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -39,6 +47,7 @@ import org.json.JSONObject;
 import java.awt.Color;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
@@ -54,6 +63,10 @@ public class EntityBuilder
     protected final JDAImpl api;
     protected final TLongObjectMap<JSONObject> cachedGuildJsons = MiscUtil.newLongMap();
     protected final TLongObjectMap<Consumer<Guild>> cachedGuildCallbacks = MiscUtil.newLongMap();
+    //Users that were added to the central User cache while loading a Guild, only tracked when the MemberCachePolicy
+    // can reject Members. These are the only Users that may be dropped again when their Member is rejected, every
+    // other User is still referenced by another Guild, a PrivateChannel or a Relationship.
+    protected final TLongObjectMap<TLongSet> cachedGuildUsers = MiscUtil.newLongMap();
 
     public EntityBuilder(JDA api)
     {
@@ -163,10 +176,11 @@ public class EntityBuilder
             }
         }
 
+        TLongSet newUsers = isMemberCacheRestricted() ? new TLongHashSet() : null;
         if (guild.has("members"))
         {
             JSONArray members = guild.getJSONArray("members");
-            createGuildMemberPass(guildObj, members);
+            createGuildMemberPass(guildObj, members, newUsers);
         }
 
         //This could be null for Client accounts. Will be fixed by GUILD_SYNC
@@ -223,7 +237,7 @@ public class EntityBuilder
         //  after we have the rest of the users. We will request the GUILD_MEMBERS_CHUNK information
         //  which will be sent from discord over the main Websocket and will be handled by
         //  GuildMemberChunkHandler. After the handler has received all users as determined by the
-        //  value set using `setExpectedGuildMembers`, it will do one of the following:
+        //  value set using `requestChunks`, it will do one of the following:
         //    1) If this is a Bot account, immediately call EntityBuilder#createGuildSecondPass, thus finishing
         //        the Guild object creation process.
         //    2) If this is a Client account, it will request op 12 (GUILD_SYNC) to make sure we have all information
@@ -238,12 +252,16 @@ public class EntityBuilder
         {
             cachedGuildJsons.put(id, guild);
             cachedGuildCallbacks.put(id, secondPassCallback);
+            if (newUsers != null)
+                cachedGuildUsers.put(id, newUsers);
 
+            //Requests are coalesced by the handler. While loading they are sent in batches,
+            // at runtime as soon as the gateway ratelimit allows it.
             GuildMembersChunkHandler handler = api.getClient().getHandler("GUILD_MEMBERS_CHUNK");
-            handler.setExpectedGuildMembers(id, guild.getInt("member_count"));
+            handler.requestChunks(id, guild.getInt("member_count"));
 
-            //If we are already past READY / RESUME, then chunk at runtime. Otherwise, pass back to the ReadyHandler
-            // and let it send a burst chunk request.
+            //If we are already past READY / RESUME, then sync at runtime. Otherwise, pass back to the ReadyHandler
+            // and let it send a burst sync request.
             if (api.getClient().isReady())
             {
                 if (api.getAccountType() == AccountType.CLIENT)
@@ -251,21 +269,13 @@ public class EntityBuilder
                     JSONObject obj = new JSONObject()
                             .put("op", 12)
                             .put("guild_id", guildObj.getId());
-                    api.getClient().send(obj.toString());
+                    api.getClient().send(obj.toString(), WebSocketSendQueue.Priority.LOW);
                 }
-                JSONObject obj = new JSONObject()
-                        .put("op", 8)
-                        .put("d", new JSONObject()
-                                .put("guild_id", id)
-                                .put("query","")
-                                .put("limit", 0)
-                        );
-                api.getClient().send(obj.toString());
             }
             else
             {
                 ReadyHandler readyHandler = api.getClient().getHandler("READY");
-                readyHandler.acknowledgeGuild(guildObj, true, true, api.getAccountType() == AccountType.CLIENT);
+                readyHandler.acknowledgeGuild(guildObj, true, api.getAccountType() == AccountType.CLIENT);
             }
 
             api.getGuildLock().lock(id);
@@ -283,12 +293,83 @@ public class EntityBuilder
         JSONArray voiceStates = guild.getJSONArray("voice_states");
         createGuildVoiceStatePass(guildObj, voiceStates);
 
+        if (newUsers != null)
+            applyMemberCachePolicy(guildObj, newUsers);
+
         api.getGuildLock().unlock(guildObj.getIdLong());
         if (secondPassCallback != null)
             secondPassCallback.accept(guildObj);
     }
 
-    public void createGuildSecondPass(long guildId, List<JSONArray> memberChunks)
+    /**
+     * Builds the Members of a single GUILD_MEMBERS_CHUNK directly into the Guild that is being chunked.
+     * <br>Members are created while the chunks arrive, so no chunk has to be kept until the Guild is complete.
+     *
+     * @param  guildId
+     *         The id of the Guild
+     * @param  members
+     *         Reader positioned at the members array of the chunk
+     *
+     * @return The amount of members in the chunk
+     */
+    public int createGuildMemberChunk(long guildId, JsonReader members)
+    {
+        GuildImpl guildObj = getChunkedGuild(guildId);
+        if (guildObj == null)
+        {
+            int count = 0;
+            members.beginArray();
+            for (; members.hasNext(); count++)
+                members.skipValue();
+            members.endArray();
+            return count;
+        }
+        return createGuildMemberPass(guildObj, members, getChunkedGuildUsers(guildId));
+    }
+
+    /**
+     * Builds the Members of a single, already parsed, GUILD_MEMBERS_CHUNK into the Guild that is being chunked.
+     *
+     * @param  guildId
+     *         The id of the Guild
+     * @param  members
+     *         The members array of the chunk
+     *
+     * @return The amount of members in the chunk
+     *
+     * @see    #createGuildMemberChunk(long, JsonReader)
+     */
+    public int createGuildMemberChunk(long guildId, JSONArray members)
+    {
+        GuildImpl guildObj = getChunkedGuild(guildId);
+        if (guildObj != null)
+            createGuildMemberPass(guildObj, members, getChunkedGuildUsers(guildId));
+        return members.length();
+    }
+
+    private GuildImpl getChunkedGuild(long guildId)
+    {
+        GuildImpl guildObj = (GuildImpl) api.getGuildMap().get(guildId);
+        if (guildObj == null || !cachedGuildJsons.containsKey(guildId))
+        {
+            WebSocketClient.LOG.debug("Received a member chunk for a Guild that is not waiting for its second pass. GuildId: " + guildId);
+            return null;
+        }
+        return guildObj;
+    }
+
+    private TLongSet getChunkedGuildUsers(long guildId)
+    {
+        TLongSet newUsers = cachedGuildUsers.get(guildId);
+        if (newUsers == null && isMemberCacheRestricted())
+        {
+            newUsers = new TLongHashSet();
+            cachedGuildUsers.put(guildId, newUsers);
+        }
+        return newUsers;
+    }
+
+    public void createGuildSecondPass(long guildId)
     {
         JSONObject guildJson = cachedGuildJsons.remove(guildId);
         Consumer<Guild> secondPassCallback = cachedGuildCallbacks.remove(guildId);
@@ -303,10 +384,10 @@ public class EntityBuilder
         if (secondPassCallback == null)
             throw new IllegalArgumentException("No callback provided for the second pass on the Guild!");
 
-        for (JSONArray chunk : memberChunks)
-        {
-            createGuildMemberPass(guildObj, chunk);
-        }
+        //All Members were already created by createGuildMemberChunk
+        TLongSet newUsers = cachedGuildUsers.remove(guildId);
+        if (newUsers == null && isMemberCacheRestricted())
+            newUsers = new TLongHashSet();
 
         Member owner = guildObj.getMemberById(guildJson.getLong("owner_id"));
         if (owner != null)
@@ -321,6 +402,9 @@ public class EntityBuilder
         JSONArray voiceStates = guildJson.getJSONArray("voice_states");
         createGuildVoiceStatePass(guildObj, voiceStates);
 
+        if (newUsers != null)
+            applyMemberCachePolicy(guildObj, newUsers);
+
         secondPassCallback.accept(guildObj);
         api.getGuildLock().unlock(guildId);
     }
@@ -346,15 +430,277 @@ public class EntityBuilder
         }
     }
 
-    private void createGuildMemberPass(GuildImpl guildObj, JSONArray members)
+    private void createGuildMemberPass(GuildImpl guildObj, JSONArray members, TLongSet newUsers)
     {
         for (int i = 0; i < members.length(); i++)
         {
             JSONObject memberJson = members.getJSONObject(i);
+            if (newUsers != null)
+                trackNewUser(memberJson.getJSONObject("user").getLong("id"), newUsers);
             createMember(guildObj, memberJson);
         }
     }
 
+    //Builds the members directly from the token stream without creating a JSONObject per member
+    private int createGuildMemberPass(GuildImpl guildObj, JsonReader members, TLongSet newUsers)
+    {
+        int count = 0;
+        members.beginArray();
+        for (; members.hasNext(); count++)
+            createMember(guildObj, members, newUsers);
+        members.endArray();
+        return count;
+    }
+
+    private void trackNewUser(long userId, TLongSet newUsers)
+    {
+        if (!api.getUserMap().containsKey(userId))
+            newUsers.add(userId);
+    }
+
+    //Removes all Members rejected by the MemberCachePolicy once the Guild is complete, so the policy can see
+    // presences and voice states. Only Users created by this load are removed from the central User cache.
+    private void applyMemberCachePolicy(GuildImpl guildObj, TLongSet newUsers)
+    {
+        List<Member> rejected = new ArrayList<>();
+        guildObj.getMembersMap().forEachValue(member ->
+        {
+            if (!isMemberCacheable(member))
+                rejected.add(member);
+            return true;
+        });
+
+        for (Member member : rejected)
+        {
+            final long userId = member.getUser().getIdLong();
+            dropMember(guildObj, member);
+            if (newUsers.contains(userId))
+                uncacheUser(userId);
+        }
+
+        if (!rejected.isEmpty())
+        {
+            WebSocketClient.LOG.debug(() -> "Dropped " + rejected.size() + " Members of Guild " + guildObj.getId()
+                    + " due to the MemberCachePolicy. Cached Members: " + guildObj.getMembersMap().size());
+        }
+    }
+
+    /**
+     * Whether the configured {@link net.dv8tion.jda.core.utils.MemberCachePolicy MemberCachePolicy}
+     * can reject Members. If this is {@code true}, handlers should expect Members and Users to be missing
+     * and must not cache events for them in the {@link net.dv8tion.jda.core.handle.EventCache EventCache}.
+     *
+     * @return True, if the policy is not {@link net.dv8tion.jda.core.utils.MemberCachePolicy#ALL ALL}
+     */
+    public boolean isMemberCacheRestricted()
+    {
+        return api.getMemberCachePolicy() != MemberCachePolicy.ALL;
+    }
+
+    /**
+     * Whether the provided Member should stay in the cache.
+     * <br>The self member and the owner of the Guild are always cached.
+     *
+     * @param  member
+     *         The Member to check
+     *
+     * @return True, if the Member should be cached
+     */
+    public boolean isMemberCacheable(Member member)
+    {
+        return member.getUser().getIdLong() == api.getSelfUser().getIdLong()
+                || member.equals(member.getGuild().getOwner())
+                || api.getMemberCachePolicy().cacheMember(member);
+    }
+
+    /**
+     * Removes the provided Member, which was rejected by the MemberCachePolicy, from its Guild and, if the User is
+     * not referenced anywhere else, also removes the User from the central cache. Does not fire any events.
+     * <br>Only the join date is kept, so the Member can be cached again by {@link #reloadMember(GuildImpl, User, String, String, TLongList, Consumer)},
+     * unless the policy is {@link net.dv8tion.jda.core.utils.MemberCachePolicy#NONE NONE}.
+     *
+     * @param guild
+     *        The Guild of the Member
+     * @param member
+     *        The Member to remove
+     */
+    public void uncacheMember(GuildImpl guild, Member member)
+    {
+        dropMember(guild, member);
+        releaseUser(member.getUser().getIdLong());
+    }
+
+    /**
+     * Caches a Member again that is not cached because it was rejected by the MemberCachePolicy, if the policy
+     * accepts it with the state of the current event.
+     * <br>The provided state setter applies the state of the event (presence or voice state) to a detached Member
+     * which is then checked against the policy. The Member that is cached has no presence and is not connected
+     * to voice, so the handler can apply the state and fire the usual events.
+     *
+     * <p>If no join date is provided the one stored when the Member was dropped is used. Members that were never
+     * cached (for example a presence that arrived before the GUILD_MEMBER_ADD) are not created.
+     *
+     * @param  guild
+     *         The Guild of the Member
+     * @param  user
+     *         The User, not necessarily cached, see {@link #createUnloadedUser(JSONObject)}
+     * @param  joinedAt
+     *         The join date provided by the event, or {@code null}
+     * @param  nick
+     *         The nickname of the Member, or {@code null}
+     * @param  roleIds
+     *         The ids of the roles of the Member
+     * @param  state
+     *         Applies the state of the event to the detached Member
+     *
+     * @return The cached Member, or {@code null} if the policy still rejects it
+     */
+    public MemberImpl reloadMember(GuildImpl guild, User user, String joinedAt, String nick, TLongList roleIds, Consumer<MemberImpl> state)
+    {
+        if (!isMemberCacheRestricted())
+            return null;
+
+        final long userId = user.getIdLong();
+        final OffsetDateTime joinDate;
+        if (joinedAt != null)
+        {
+            joinDate = OffsetDateTime.parse(joinedAt);
+        }
+        else
+        {
+            TLongLongMap dropped = guild.getDroppedMemberMap();
+            if (!dropped.containsKey(userId))
+                return null;
+            joinDate = OffsetDateTime.ofInstant(Instant.ofEpochMilli(dropped.get(userId)), ZoneOffset.UTC);
+        }
+
+        MemberImpl member = new MemberImpl(guild, user);
+        member.setJoinDate(joinDate).setNickname(nick);
+        addRoles(guild, member, roleIds);
+        state.accept(member);
+        if (!isMemberCacheable(member))
+            return null;
+
+        if (!api.getUserMap().containsKey(userId))
+        {
+            if (api.getFakeUserMap().containsKey(userId))
+                user = createUser(userId, user.getName(), user.getDiscriminator(), user.getAvatarId(), user.isBot(), false, true);
+            else
+                api.getUserMap().put(userId, user);
+        }
+
+        member = new MemberImpl(guild, user);
+        member.setJoinDate(joinDate).setNickname(nick);
+        addRoles(guild, member, roleIds);
+        guild.getMembersMap().put(userId, member);
+        guild.getDroppedMemberMap().remove(userId);
+        api.getMembershipIndex().add(userId, guild.getIdLong());
+        return member;
+    }
+
+    /**
+     * Creates the User of a partial Member payload without adding it to the central cache.
+     * <br>If the User is already known the known instance is returned instead.
+     *
+     * @param  userJson
+     *         The user object of the payload
+     *
+     * @return The User, or {@code null} if it is not known and the payload does not contain the complete User
+     */
+    public User createUnloadedUser(JSONObject userJson)
+    {
+        return createUnloadedUser(userJson.getLong("id"),
+                userJson.has("username") ? userJson.getString("username") : null,
+                userJson.has("discriminator") ? userJson.get("discriminator").toString() : null,
+                userJson.has("avatar") && !userJson.isNull("avatar") ? userJson.getString("avatar") : null,
+                userJson.has("bot") && userJson.getBoolean("bot"));
+    }
+
+    public User createUnloadedUser(long userId, String name, String discriminator, String avatarId, boolean bot)
+    {
+        User known = api.getUserMap().get(userId);
+        if (known == null)
+            known = api.getFakeUserMap().get(userId);
+        if (known != null)
+            return known;
+        if (name == null || discriminator == null)
+            return null;
+        return createUser(userId, name, discriminator, avatarId, bot, false, false);
+    }
+
+    private void dropMember(GuildImpl guild, Member member)
+    {
+        removeMember(guild, member);
+        //NONE never caches the Member again, so its join date is never needed
+        if (member.getJoinDate() != null && api.getMemberCachePolicy() != MemberCachePolicy.NONE)
+            guild.getDroppedMemberMap().put(member.getUser().getIdLong(), member.getJoinDate().toInstant().toEpochMilli());
+    }
+
+    /**
+     * Removes the User with the provided id from the central cache if it is not a Member of any cached Guild
+     * and not a friend of the logged in client account.
+     * <br>Users that still have a PrivateChannel (or share a Group with a client account) are kept as fake Users.
+     *
+     * @param userId
+     *        The id of the User
+     */
+    public void releaseUser(long userId)
+    {
+        if (!api.getMembershipIndex().isMember(userId)
+                && !(api.getAccountType() == AccountType.CLIENT && api.asClient().getFriendById(userId) != null))
+        {
+            uncacheUser(userId);
+        }
+    }
+
+    private void removeMember(GuildImpl guild, Member member)
+    {
+        final long userId = member.getUser().getIdLong();
+        guild.getMembersMap().remove(userId);
+        api.getMembershipIndex().remove(userId, guild.getIdLong());
+        guild.getCachedPresenceMap().remove(userId);
+        guild.getPermissionCache().invalidateMember(userId);
+
+        GuildVoiceStateImpl voiceState = (GuildVoiceStateImpl) member.getVoiceState();
+        VoiceChannelImpl channel = (VoiceChannelImpl) voiceState.getChannel();
+        if (channel != null)
+        {
+            channel.getConnectedMembersMap().remove(userId);
+            voiceState.setConnectedChannel(null);
+        }
+    }
+
+    private void uncacheUser(long userId)
+    {
+        UserImpl user = (UserImpl) api.getUserMap().remove(userId);
+        if (user == null)
+            return;
+
+        if (user.hasPrivateChannel())
+        {
+            PrivateChannelImpl priv = (PrivateChannelImpl) user.getPrivateChannel();
+            user.setFake(true);
+            priv.setFake(true);
+            api.getFakeUserMap().put(user.getIdLong(), user);
+            api.getFakePrivateChannelMap().put(priv.getIdLong(), priv);
+        }
+        else if (api.getAccountType() == AccountType.CLIENT)
+        {
+            //While the user might not have a private channel, if this is a client account then the user
+            // could be in a Group, and if so we need to change the User object to be fake and
+            // place it in the FakeUserMap
+            for (Group grp : api.asClient().getGroups())
+            {
+                if (grp.getNonFriendUsers().contains(user))
+                {
+                    user.setFake(true);
+                    api.getFakeUserMap().put(user.getIdLong(), user);
+                    break; //Breaks from groups loop
+                }
+            }
+        }
+    }
+
     private void createGuildChannelPass(GuildImpl guildObj, JSONArray channels)
     {
         for (int i = 0; i < channels.length(); i++)
@@ -405,8 +751,10 @@ public class EntityBuilder
             Member member = guildObj.getMembersMap().get(userId);
             if (member == null)
             {
-                WebSocketClient.LOG.fatal("Received a VoiceState for a unknown Member! GuildId: "
-                        + guildObj.getId() + " MemberId: " + voiceStateJson.getString("user_id"));
+                //Members can be missing here when they were rejected by the MemberCachePolicy
+                if (!isMemberCacheRestricted())
+                    WebSocketClient.LOG.fatal("Received a VoiceState for a unknown Member! GuildId: "
+                            + guildObj.getId() + " MemberId: " + voiceStateJson.getString("user_id"));
                 continue;
             }
 
@@ -430,7 +778,59 @@ public class EntityBuilder
     public User createUser(JSONObject user)     { return createUser(user, false, true); }
     private User createUser(JSONObject user, boolean fake, boolean modifyCache)
     {
-        final long id = user.getLong("id");
+        return createUser(user.getLong("id"), user.getString("username"), user.get("discriminator").toString(),
+                user.isNull("avatar") ? null : user.getString("avatar"), user.has("bot") && user.getBoolean("bot"),
+                fake, modifyCache);
+    }
+
+    public User createUser(JsonReader user)
+    {
+        return createUser(user, null);
+    }
+
+    private User createUser(JsonReader user, TLongSet newUsers)
+    {
+        long id = 0;
+        String name = null;
+        String discriminator = null;
+        String avatarId = null;
+        boolean bot = false;
+
+        user.beginObject();
+        while (user.hasNext())
+        {
+            switch (user.nextName())
+            {
+                case "id":
+                    id = user.nextLong();
+                    break;
+                case "username":
+                    name = user.nextString();
+                    break;
+                case "discriminator":
+                    discriminator = user.nextString();
+                    break;
+                case "avatar":
+                    avatarId = user.nextStringOrNull();
+                    break;
+                case "bot":
+                    bot = user.nextBoolean();
+                    break;
+                default:
+                    user.skipValue();
+            }
+        }
+        user.endObject();
+
+        if (name == null || discriminator == null)
+            throw new JSONException("Received a User without username or discriminator. UserId: " + id);
+        if (newUsers != null)
+            trackNewUser(id, newUsers);
+        return createUser(id, name, discriminator, avatarId, bot, false, true);
+    }
+
+    private User createUser(long id, String name, String discriminator, String avatarId, boolean bot, boolean fake, boolean modifyCache)
+    {
         UserImpl userObj;
 
         userObj = (UserImpl) api.getUserMap().get(id);
@@ -467,35 +867,113 @@ public class EntityBuilder
         }
 
         return userObj
-                .setName(user.getString("username"))
-                .setDiscriminator(user.get("discriminator").toString())
-                .setAvatarId(user.isNull("avatar") ? null : user.getString("avatar"))
-                .setBot(user.has("bot") && user.getBoolean("bot"));
+                .setName(name)
+                .setDiscriminator(discriminator)
+                .setAvatarId(avatarId)
+                .setBot(bot);
     }
 
     public Member createMember(GuildImpl guild, JSONObject memberJson)
     {
         User user = createUser(memberJson.getJSONObject("user"));
+        JSONArray rolesJson = memberJson.getJSONArray("roles");
+        TLongList roleIds = new TLongArrayList(rolesJson.length());
+        for (int k = 0; k < rolesJson.length(); k++)
+            roleIds.add(rolesJson.getLong(k));
+
+        return createMember(guild, user,
+                memberJson.getBoolean("mute"),
+                memberJson.getBoolean("deaf"),
+                memberJson.getString("joined_at"),
+                memberJson.has("nick") && !memberJson.isNull("nick")
+                    ? memberJson.getString("nick")
+                    : null,
+                roleIds);
+    }
+
+    public Member createMember(GuildImpl guild, JsonReader memberJson)
+    {
+        return createMember(guild, memberJson, null);
+    }
+
+    private Member createMember(GuildImpl guild, JsonReader memberJson, TLongSet newUsers)
+    {
+        User user = null;
+        boolean mute = false;
+        boolean deaf = false;
+        String joinedAt = null;
+        String nick = null;
+        TLongList roleIds = new TLongArrayList();
+
+        memberJson.beginObject();
+        while (memberJson.hasNext())
+        {
+            switch (memberJson.nextName())
+            {
+                case "user":
+                    user = createUser(memberJson, newUsers);
+                    break;
+                case "mute":
+                    mute = memberJson.nextBoolean();
+                    break;
+                case "deaf":
+                    deaf = memberJson.nextBoolean();
+                    break;
+                case "joined_at":
+                    joinedAt = memberJson.nextString();
+                    break;
+                case "nick":
+                    nick = memberJson.nextStringOrNull();
+                    break;
+                case "roles":
+                    memberJson.beginArray();
+                    while (memberJson.hasNext())
+                        roleIds.add(memberJson.nextLong());
+                    memberJson.endArray();
+                    break;
+                default:
+                    memberJson.skipValue();
+            }
+        }
+        memberJson.endObject();
+
+        if (user == null || joinedAt == null)
+            throw new JSONException("Received a Member without user or joined_at. GuildId: " + guild.getId());
+        return createMember(guild, user, mute, deaf, joinedAt, nick, roleIds);
+    }
+
+    private Member createMember(GuildImpl guild, User user, boolean mute, boolean deaf, String joinedAt, String nick, TLongList roleIds)
+    {
         MemberImpl member = (MemberImpl) guild.getMember(user);
         if (member == null)
         {
             member = new MemberImpl(guild, user);
             guild.getMembersMap().put(user.getIdLong(), member);
+            guild.getDroppedMemberMap().remove(user.getIdLong());
+            api.getMembershipIndex().add(user.getIdLong(), guild.getIdLong());
+        }
+        else
+        {
+            //The roles of an already cached member might change
+            guild.getPermissionCache().invalidateMember(user.getIdLong());
         }
 
         ((GuildVoiceStateImpl) member.getVoiceState())
-            .setGuildMuted(memberJson.getBoolean("mute"))
-            .setGuildDeafened(memberJson.getBoolean("deaf"));
+            .setGuildMuted(mute)
+            .setGuildDeafened(deaf);
 
-        member.setJoinDate(OffsetDateTime.parse(memberJson.getString("joined_at")))
-            .setNickname(memberJson.has("nick") && !memberJson.isNull("nick")
-                ? memberJson.getString("nick")
-                : null);
+        member.setJoinDate(OffsetDateTime.parse(joinedAt))
+            .setNickname(nick);
+        addRoles(guild, member, roleIds);
 
-        JSONArray rolesJson = memberJson.getJSONArray("roles");
-        for (int k = 0; k < rolesJson.length(); k++)
+        return member;
+    }
+
+    private void addRoles(GuildImpl guild, MemberImpl member, TLongList roleIds)
+    {
+        for (int k = 0; k < roleIds.size(); k++)
         {
-            final long roleId = rolesJson.getLong(k);
+            final long roleId = roleIds.get(k);
             Role r = guild.getRolesMap().get(roleId);
             if (r == null)
             {
@@ -507,8 +985,7 @@ public class EntityBuilder
                 member.getRoleSet().add(r);
             }
         }
-
-        return member;
+        member.invalidateRoles();
     }
 
     //Effectively the same as createFriendPresence
@@ -747,7 +1224,7 @@ public class EntityBuilder
             User user = member != null ? member.getUser() : null;
             if (user != null)
                 message.setAuthor(user);
-            else if (fromWebhook || !exceptionOnMissingUser)
+            else if (fromWebhook || !exceptionOnMissingUser || isMemberCacheRestricted())
                 message.setAuthor(createFakeUser(author, false));
             else
                 throw new IllegalArgumentException(MISSING_USER);
@@ -1004,8 +1481,10 @@ public class EntityBuilder
             default:
                 throw new IllegalArgumentException("Provided with an unknown PermissionOverride type! JSON: " + override);
         }
-        return permOverride.setAllow(allow)
+        permOverride.setAllow(allow)
                 .setDeny(deny);
+        ((GuildImpl) chan.getGuild()).getPermissionCache().invalidateChannel(chan.getIdLong());
+        return permOverride;
     }
 
     public Webhook createWebhook(JSONObject object)
@@ -1180,6 +1659,7 @@ public class EntityBuilder
     public void clearCache()
     {
         cachedGuildJsons.clear();
+        cachedGuildUsers.clear();
         cachedGuildCallbacks.clear();
     }
 
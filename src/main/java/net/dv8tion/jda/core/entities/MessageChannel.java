@@ -15,8 +15,6 @@
  */
 package net.dv8tion.jda.core.entities;
 
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.request.body.MultipartBody;
 import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.MessageBuilder;
@@ -24,7 +22,6 @@ import net.dv8tion.jda.core.entities.impl.MessageImpl;
 import net.dv8tion.jda.core.exceptions.AccountTypeException;
 import net.dv8tion.jda.core.requests.*;
 import net.dv8tion.jda.core.requests.restaction.pagination.MessagePaginationAction;
-import net.dv8tion.jda.core.utils.IOUtil;
 import net.dv8tion.jda.core.utils.MiscUtil;
 import org.apache.http.util.Args;
 import org.json.JSONArray;
@@ -487,7 +484,8 @@ public interface MessageChannel extends ISnowflake, Formattable
         Args.check(file.length() <= 8<<20,   //8MB, TODO: deal with Discord Nitro allowing 50MB files.
             "File is to big! Max file-size is 8MB");
 
-        return sendFile(IOUtil.readFully(file), fileName, message);
+        //Streamed from disk when the request is sent instead of being read into memory here
+        return sendFile(MultipartUpload.of(file, fileName), message);
     }
 
     /**
@@ -526,37 +524,7 @@ public interface MessageChannel extends ISnowflake, Formattable
         Args.notNull(data, "data InputStream");
         Args.notNull(fileName, "fileName");
 
-        Route.CompiledRoute route = Route.Messages.SEND_MESSAGE.compile(getId());
-        MultipartBody body = Unirest.post(Requester.DISCORD_API_PREFIX + route.getCompiledRoute())
-                .fields(null); //We use this to change from an HttpRequest to a MultipartBody
-
-        body.field("file", data, fileName);
-
-        if (message != null)
-        {
-            if (!message.getEmbeds().isEmpty())
-            {
-                AccountType type = getJDA().getAccountType();
-                MessageEmbed embed = message.getEmbeds().get(0);
-                Args.check(embed.isSendable(type),
-                        "Provided Message contains an embed with a length greater than %d characters, which is the max for %s accounts!",
-                        type == AccountType.BOT ? MessageEmbed.EMBED_MAX_LENGTH_BOT : MessageEmbed.EMBED_MAX_LENGTH_CLIENT, type);
-            }
-
-            body.field("payload_json", ((MessageImpl) message).toJSONObject().toString());
-        }
-
-        return new RestAction<Message>(getJDA(), route, body)
-        {
-            @Override
-            protected void handleResponse(Response response, Request<Message> request)
-            {
-                if (response.isOk())
-                    request.onSuccess(api.getEntityBuilder().createMessage(response.getObject(), MessageChannel.this, false));
-                else
-                    request.onFailure(response);
-            }
-        };
+        return sendFile(MultipartUpload.of(data, fileName), message);
     }
 
     /**
@@ -603,12 +571,63 @@ public interface MessageChannel extends ISnowflake, Formattable
         Args.check(data.length <= 8<<20,   //8MB
             "Provided data is too large! Max file-size is 8MB");
 
-        Route.CompiledRoute route = Route.Messages.SEND_MESSAGE.compile(getId());
-        MultipartBody body = Unirest.post(Requester.DISCORD_API_PREFIX + route.getCompiledRoute())
-                .fields(null); //We use this to change from an HttpRequest to a MultipartBody
+        return sendFile(MultipartUpload.of(data, fileName), message);
+    }
 
-        body.field("file", data, fileName);
+    /**
+     * Uploads a file to the Discord servers and sends it to this {@link net.dv8tion.jda.core.entities.MessageChannel MessageChannel}.
+     * Sends the provided {@link net.dv8tion.jda.core.entities.Message Message} with the uploaded file.
+     * <br>If you do not wish to send a Message with the uploaded file, you can provide {@code null} for
+     * the {@code message} parameter.
+     * <br>This allows you to track the progress of the upload using
+     * {@link net.dv8tion.jda.core.requests.MultipartUpload#setProgressListener(net.dv8tion.jda.core.requests.UploadProgressListener)
+     * MultipartUpload.setProgressListener(UploadProgressListener)}.
+     *
+     * <p>The file content is streamed to Discord when the request is executed, it is not loaded into memory.
+     * <br>The upload is not modified by this method and can be sent again. Uploads of an {@link java.io.InputStream InputStream}
+     * can only be sent once, they fail if the request has to be retried because it was rate limited.
+     *
+     * <p><b>Example</b>
+     * <pre><code>
+     * MultipartUpload upload = MultipartUpload.of(file, "image.png")
+     *     .setProgressListener((sent, total) -&gt; System.out.printf("%d/%d bytes%n", sent, total));
+     * channel.sendFile(upload, null).queue();
+     * </code></pre>
+     *
+     * <p>For information about the {@code fileName} of the upload, Refer to the documentation for {@link #sendFile(java.io.File, String, Message)}.
+     * <br>For {@link net.dv8tion.jda.core.requests.ErrorResponse} information, refer to the documentation for {@link #sendFile(java.io.File, String, Message)}.
+     *
+     * @param  upload
+     *         The {@link net.dv8tion.jda.core.requests.MultipartUpload MultipartUpload} to send
+     * @param  message
+     *         The message to be sent along with the uploaded file. This value can be {@code null}.
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         <ul>
+     *             <li>If the provided upload is {@code null} or its file is larger than 8MB</li>
+     *             <li>If the provided {@link net.dv8tion.jda.core.entities.Message Message}
+     *                 contains an {@link net.dv8tion.jda.core.entities.MessageEmbed MessageEmbed}
+     *                 that is not {@link net.dv8tion.jda.core.entities.MessageEmbed#isSendable(net.dv8tion.jda.core.AccountType) sendable}</li>
+     *         </ul>
+     * @throws net.dv8tion.jda.core.exceptions.PermissionException
+     *         If this is a {@link net.dv8tion.jda.core.entities.TextChannel TextChannel} and the logged in account does not have
+     *         <ul>
+     *             <li>{@link net.dv8tion.jda.core.Permission#MESSAGE_READ Permission.MESSAGE_READ}</li>
+     *             <li>{@link net.dv8tion.jda.core.Permission#MESSAGE_WRITE Permission.MESSAGE_WRITE}</li>
+     *             <li>{@link net.dv8tion.jda.core.Permission#MESSAGE_ATTACH_FILES Permission.MESSAGE_ATTACH_FILES}</li>
+     *         </ul>
+     *
+     * @return {@link net.dv8tion.jda.core.requests.RestAction RestAction} - Type: {@link net.dv8tion.jda.core.entities.Message Message}
+     *         <br>The {@link net.dv8tion.jda.core.entities.Message Message} created from this upload.
+     */
+    default RestAction<Message> sendFile(MultipartUpload upload, Message message)
+    {
+        Args.notNull(upload, "upload");
+        Args.check(upload.getFileLength() <= 8<<20,   //8MB, unknown for InputStreams
+            "File is to big! Max file-size is 8MB");
 
+        Route.CompiledRoute route = Route.Messages.SEND_MESSAGE.compile(getId());
+        MultipartUpload body = upload;
         if (message != null)
         {
             if (!message.getEmbeds().isEmpty())
@@ -620,7 +639,7 @@ public interface MessageChannel extends ISnowflake, Formattable
                         type == AccountType.BOT ? MessageEmbed.EMBED_MAX_LENGTH_BOT : MessageEmbed.EMBED_MAX_LENGTH_CLIENT, type);
             }
 
-            body.field("payload_json", ((MessageImpl) message).toJSONObject().toString());
+            body = upload.withPayloadJson(((MessageImpl) message).toJSONObject().toString());
         }
 
         return new RestAction<Message>(getJDA(), route, body)
@@ -269,6 +269,10 @@ public abstract class AbstractChannelImpl<T extends AbstractChannelImpl<T>> impl
     public T setRawPosition(int rawPosition)
     {
         this.rawPosition = rawPosition;
+        if (this instanceof TextChannel)
+            guild.invalidateTextChannels();
+        else
+            guild.invalidateVoiceChannels();
         return (T) this;
     }
 
@@ -16,7 +16,10 @@
 
 package net.dv8tion.jda.core.entities.impl;
 
+import gnu.trove.TCollections;
+import gnu.trove.map.TLongLongMap;
 import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongLongHashMap;
 import net.dv8tion.jda.client.requests.restaction.pagination.MentionPaginationAction;
 import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.Permission;
@@ -34,6 +37,7 @@ import net.dv8tion.jda.core.requests.Response;
 import net.dv8tion.jda.core.requests.RestAction;
 import net.dv8tion.jda.core.requests.Route;
 import net.dv8tion.jda.core.utils.MiscUtil;
+import net.dv8tion.jda.core.utils.NameIndex;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.util.Args;
 import org.json.JSONArray;
@@ -49,13 +53,22 @@ public class GuildImpl implements Guild
 {
     private final long id;
     private final JDAImpl api;
-    private final TLongObjectMap<TextChannel> textChannels = MiscUtil.newLongMap();
+    private final NameIndex<TextChannel> textChannelNameIndex;
+    private final TLongObjectMap<TextChannel> textChannels;
     private final TLongObjectMap<VoiceChannel> voiceChannels = MiscUtil.newLongMap();
     private final TLongObjectMap<Member> members = MiscUtil.newLongMap();
-    private final TLongObjectMap<Role> roles = MiscUtil.newLongMap();
+    private final NameIndex<Role> roleNameIndex;
+    private final TLongObjectMap<Role> roles;
     private final TLongObjectMap<Emote> emotes = MiscUtil.newLongMap();
 
     private final TLongObjectMap<JSONObject> cachedPresences = MiscUtil.newLongMap();
+    //Join date (epoch millis) of Members dropped by the MemberCachePolicy, needed to cache them again from a presence
+    private final TLongLongMap droppedMembers = TCollections.synchronizedMap(new TLongLongHashMap());
+    private final PermissionCache permissionCache;
+
+    private final SortedSnapshot<TextChannel> sortedTextChannels;
+    private final SortedSnapshot<VoiceChannel> sortedVoiceChannels = new SortedSnapshot<>(() -> sorted(voiceChannels));
+    private final SortedSnapshot<Role> sortedRoles;
 
     private final Object mngLock = new Object();
     private volatile GuildManager manager;
@@ -81,6 +94,13 @@ public class GuildImpl implements Guild
     {
         this.id = id;
         this.api = api;
+        this.permissionCache = new PermissionCache();
+        this.textChannelNameIndex = new NameIndex<>(TextChannel::getName, api.isNameIndexEnabled());
+        this.textChannels = textChannelNameIndex.getMap();
+        this.roleNameIndex = new NameIndex<>(Role::getName, api.isNameIndexEnabled());
+        this.roles = roleNameIndex.getMap();
+        this.sortedTextChannels = new SortedSnapshot<>(() -> sorted(textChannels));
+        this.sortedRoles = new SortedSnapshot<>(() -> sorted(roles));
     }
 
     @Override
@@ -217,6 +237,19 @@ public class GuildImpl implements Guild
     public List<Member> getMembersByName(String name, boolean ignoreCase)
     {
         Args.notNull(name, "name");
+        //Every Member has a cached User, so the name index of JDA can be used
+        List<User> users = api.getUserNameIndex().get(name, ignoreCase);
+        if (users != null)
+        {
+            List<Member> list = new ArrayList<>(users.size());
+            for (User user : users)
+            {
+                Member member = members.get(user.getIdLong());
+                if (member != null)
+                    list.add(member);
+            }
+            return Collections.unmodifiableList(list);
+        }
         return Collections.unmodifiableList(members.valueCollection().stream()
                 .filter(m ->
                     ignoreCase
@@ -288,6 +321,9 @@ public class GuildImpl implements Guild
     public List<TextChannel> getTextChannelsByName(String name, boolean ignoreCase)
     {
         Args.notNull(name, "name");
+        List<TextChannel> indexed = textChannelNameIndex.get(name, ignoreCase);
+        if (indexed != null)
+            return Collections.unmodifiableList(indexed);
         return Collections.unmodifiableList(textChannels.valueCollection().stream()
                 .filter(tc ->
                     ignoreCase
@@ -299,9 +335,7 @@ public class GuildImpl implements Guild
     @Override
     public List<TextChannel> getTextChannels()
     {
-        ArrayList<TextChannel> channels = new ArrayList<>(textChannels.valueCollection());
-        channels.sort(Comparator.reverseOrder());
-        return Collections.unmodifiableList(channels);
+        return sortedTextChannels.get();
     }
 
     @Override
@@ -331,9 +365,7 @@ public class GuildImpl implements Guild
     @Override
     public List<VoiceChannel> getVoiceChannels()
     {
-        List<VoiceChannel> channels = new ArrayList<>(voiceChannels.valueCollection());
-        channels.sort(Comparator.reverseOrder());
-        return Collections.unmodifiableList(channels);
+        return sortedVoiceChannels.get();
     }
 
     @Override
@@ -351,15 +383,16 @@ public class GuildImpl implements Guild
     @Override
     public List<Role> getRoles()
     {
-        List<Role> list = new ArrayList<>(roles.valueCollection());
-        list.sort(Comparator.reverseOrder());
-        return Collections.unmodifiableList(list);
+        return sortedRoles.get();
     }
 
     @Override
     public List<Role> getRolesByName(String name, boolean ignoreCase)
     {
         Args.notNull(name, "name");
+        List<Role> indexed = roleNameIndex.get(name, ignoreCase);
+        if (indexed != null)
+            return Collections.unmodifiableList(indexed);
         return Collections.unmodifiableList(roles.valueCollection().stream()
                 .filter(r ->
                         ignoreCase
@@ -719,11 +752,59 @@ public class GuildImpl implements Guild
         return roles;
     }
 
+    public NameIndex<TextChannel> getTextChannelNameIndex()
+    {
+        return textChannelNameIndex;
+    }
+
+    public NameIndex<Role> getRoleNameIndex()
+    {
+        return roleNameIndex;
+    }
+
     public TLongObjectMap<JSONObject> getCachedPresenceMap()
     {
         return cachedPresences;
     }
 
+    public TLongLongMap getDroppedMemberMap()
+    {
+        return droppedMembers;
+    }
+
+    public PermissionCache getPermissionCache()
+    {
+        return permissionCache;
+    }
+
+    /**
+     * Version of the sorted roles of this Guild, changes whenever a Role is added, removed or moved.
+     *
+     * @return The current version of the role order
+     */
+    public int getRoleOrderVersion()
+    {
+        return sortedRoles.getVersion();
+    }
+
+    //The sorted views returned by getRoles(), getTextChannels() and getVoiceChannels() are cached.
+    // These have to be called whenever the maps or the positions of their entities are modified.
+
+    public void invalidateRoles()
+    {
+        sortedRoles.invalidate();
+    }
+
+    public void invalidateTextChannels()
+    {
+        sortedTextChannels.invalidate();
+    }
+
+    public void invalidateVoiceChannels()
+    {
+        sortedVoiceChannels.invalidate();
+    }
+
     public TLongObjectMap<Emote> getEmoteMap()
     {
         return emotes;
@@ -785,4 +866,10 @@ public class GuildImpl implements Guild
         };
     }
 
+    private static <T extends Comparable<? super T>> List<T> sorted(TLongObjectMap<T> map)
+    {
+        List<T> list = new ArrayList<>(map.valueCollection());
+        list.sort(Comparator.reverseOrder());
+        return Collections.unmodifiableList(list);
+    }
 }
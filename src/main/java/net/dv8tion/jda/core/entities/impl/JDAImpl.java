@@ -27,6 +27,7 @@ import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.audio.AudioWebSocket;
 import net.dv8tion.jda.core.audio.factory.DefaultSendFactory;
+import net.dv8tion.jda.core.audio.SelectorReceiveEngine;
 import net.dv8tion.jda.core.audio.factory.IAudioSendFactory;
 import net.dv8tion.jda.core.entities.*;
 import net.dv8tion.jda.core.events.StatusChangeEvent;
@@ -40,7 +41,12 @@ import net.dv8tion.jda.core.managers.Presence;
 import net.dv8tion.jda.core.managers.impl.AudioManagerImpl;
 import net.dv8tion.jda.core.managers.impl.PresenceImpl;
 import net.dv8tion.jda.core.requests.*;
+import net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import net.dv8tion.jda.core.requests.transport.PooledRestTransport;
+import net.dv8tion.jda.core.utils.MemberCachePolicy;
 import net.dv8tion.jda.core.utils.MiscUtil;
+import net.dv8tion.jda.core.utils.NameIndex;
 import net.dv8tion.jda.core.utils.SimpleLog;
 import org.apache.http.HttpHost;
 import org.apache.http.util.Args;
@@ -60,8 +66,11 @@ public class JDAImpl implements JDA
     public static final SimpleLog LOG = SimpleLog.getLog("JDA");
 
     public final ScheduledExecutorService pool;
+    // Whether the pool was provided by the user and may not be shutdown by this instance
+    protected final boolean sharedPool;
 
-    protected final TLongObjectMap<User> users = MiscUtil.newLongMap();
+    protected final NameIndex<User> userNameIndex = new NameIndex<>(User::getName, false);
+    protected final TLongObjectMap<User> users = userNameIndex.getMap();
     protected final TLongObjectMap<Guild> guilds = MiscUtil.newLongMap();
     protected final TLongObjectMap<TextChannel> textChannels = MiscUtil.newLongMap();
     protected final TLongObjectMap<VoiceChannel> voiceChannels = MiscUtil.newLongMap();
@@ -71,8 +80,17 @@ public class JDAImpl implements JDA
     protected final TLongObjectMap<PrivateChannel> fakePrivateChannels = MiscUtil.newLongMap();
 
     protected final TLongObjectMap<AudioManagerImpl> audioManagers = MiscUtil.newLongMap();
+    protected final MembershipIndex membershipIndex = new MembershipIndex();
 
     protected final HttpHost proxy;
+    protected final IRateLimiterFactory rateLimiterFactory;
+    protected final IRestTransport restTransport;
+    //Transports that were provided to the builder are only shut down by shutdown(true)
+    protected boolean sharedTransport;
+    //Managed instances never free the resources shared with other instances, they are freed by their manager
+    protected boolean managed;
+    protected final boolean asyncRequestsEnabled;
+    protected final boolean zlibStreamEnabled;
     protected final WebSocketFactory wsFactory;
     protected final AccountType accountType;
     protected final PresenceImpl presence;
@@ -89,6 +107,10 @@ public class JDAImpl implements JDA
     protected Requester requester;
     protected IEventManager eventManager = new InterfacedEventManager();
     protected IAudioSendFactory audioSendFactory = new DefaultSendFactory();
+    protected SelectorReceiveEngine audioReceiveEngine = null;
+    protected SessionStartQueue sessionStartQueue = null;
+    protected MemberCachePolicy memberCachePolicy = MemberCachePolicy.ALL;
+    protected boolean presenceCacheEnabled = true;
     protected ScheduledThreadPoolExecutor audioKeepAlivePool;
     protected Status status = Status.INITIALIZING;
     protected SelfUser selfUser;
@@ -102,10 +124,25 @@ public class JDAImpl implements JDA
 
     public JDAImpl(AccountType accountType, HttpHost proxy, WebSocketFactory wsFactory,
                    boolean autoReconnect, boolean audioEnabled, boolean useShutdownHook, boolean bulkDeleteSplittingEnabled,
-                   int corePoolSize, int maxReconnectDelay)
+                   int corePoolSize, int maxReconnectDelay, IRateLimiterFactory rateLimiterFactory, IRestTransport restTransport,
+                   boolean asyncRequestsEnabled, boolean zlibStreamEnabled)
+    {
+        this(accountType, proxy, wsFactory, autoReconnect, audioEnabled, useShutdownHook, bulkDeleteSplittingEnabled,
+                corePoolSize, maxReconnectDelay, rateLimiterFactory, restTransport, asyncRequestsEnabled, zlibStreamEnabled, null);
+    }
+
+    public JDAImpl(AccountType accountType, HttpHost proxy, WebSocketFactory wsFactory,
+                   boolean autoReconnect, boolean audioEnabled, boolean useShutdownHook, boolean bulkDeleteSplittingEnabled,
+                   int corePoolSize, int maxReconnectDelay, IRateLimiterFactory rateLimiterFactory, IRestTransport restTransport,
+                   boolean asyncRequestsEnabled, boolean zlibStreamEnabled, ScheduledExecutorService pool)
     {
         this.presence = new PresenceImpl(this);
         this.accountType = accountType;
+        this.rateLimiterFactory = rateLimiterFactory;
+        this.sharedTransport = restTransport != null;
+        this.restTransport = sharedTransport ? restTransport : new PooledRestTransport(proxy);
+        this.asyncRequestsEnabled = asyncRequestsEnabled;
+        this.zlibStreamEnabled = zlibStreamEnabled;
         this.requester = new Requester(this);
         this.proxy = proxy;
         this.wsFactory = wsFactory;
@@ -113,7 +150,8 @@ public class JDAImpl implements JDA
         this.audioEnabled = audioEnabled;
         this.shutdownHook = useShutdownHook ? new Thread(() -> JDAImpl.this.shutdown(true), "JDA Shutdown Hook") : null;
         this.bulkDeleteSplittingEnabled = bulkDeleteSplittingEnabled;
-        this.pool = Executors.newScheduledThreadPool(corePoolSize, new JDAThreadFactory());
+        this.sharedPool = pool != null;
+        this.pool = sharedPool ? pool : Executors.newScheduledThreadPool(corePoolSize, new JDAThreadFactory());
         this.maxReconnectDelay = maxReconnectDelay;
 
         this.jdaClient = accountType == AccountType.CLIENT ? new JDAClientImpl(this) : null;
@@ -346,14 +384,34 @@ public class JDAImpl implements JDA
         {
             Args.notNull(u, "All users");
         }
-        return Collections.unmodifiableList(getGuilds().stream()
-                .filter(guild -> users.stream().allMatch(guild::isMember))
-                .collect(Collectors.toList()));
+        if (users.isEmpty())
+            return getGuilds();
+
+        //Only the Guilds of the User with the fewest Guilds have to be checked
+        long[] guildIds = null;
+        for (User u : users)
+        {
+            long[] ids = membershipIndex.getGuildIds(u.getIdLong());
+            if (guildIds == null || ids.length < guildIds.length)
+                guildIds = ids;
+        }
+
+        List<Guild> mutualGuilds = new ArrayList<>(guildIds.length);
+        for (long guildId : guildIds)
+        {
+            Guild guild = guilds.get(guildId);
+            if (guild != null && users.stream().allMatch(guild::isMember))
+                mutualGuilds.add(guild);
+        }
+        return Collections.unmodifiableList(mutualGuilds);
     }
 
     @Override
     public List<User> getUsersByName(String name, boolean ignoreCase)
     {
+        List<User> indexed = userNameIndex.get(name, ignoreCase);
+        if (indexed != null)
+            return Collections.unmodifiableList(indexed);
         return users.valueCollection().stream().filter(u ->
             ignoreCase
             ? name.equalsIgnoreCase(u.getName())
@@ -478,6 +536,13 @@ public class JDAImpl implements JDA
     @Override
     public List<TextChannel> getTextChannelsByName(String name, boolean ignoreCase)
     {
+        //Every guild has its own index, looking through them is cheaper than comparing every channel
+        if (isNameIndexEnabled())
+        {
+            return guilds.valueCollection().stream()
+                    .flatMap(guild -> guild.getTextChannelsByName(name, ignoreCase).stream())
+                    .collect(Collectors.toList());
+        }
         return textChannels.valueCollection().stream().filter(tc ->
                 ignoreCase
                         ? name.equalsIgnoreCase(tc.getName())
@@ -586,7 +651,8 @@ public class JDAImpl implements JDA
         getClient().setAutoReconnect(false);
         getClient().close();
         getRequester().shutdown();
-        pool.shutdown();
+        if (!sharedPool)
+            pool.shutdown();
 
         if (shutdownHook != null)
         {
@@ -597,6 +663,10 @@ public class JDAImpl implements JDA
             catch (Exception ignored) { }
         }
 
+        if (managed)
+            free = false;
+        if (free || !sharedTransport)
+            restTransport.shutdown();
         if (free)
         {
             try
@@ -709,6 +779,68 @@ public class JDAImpl implements JDA
         this.audioSendFactory = factory;
     }
 
+    public SelectorReceiveEngine getAudioReceiveEngine()
+    {
+        return audioReceiveEngine;
+    }
+
+    public void setAudioReceiveEngine(SelectorReceiveEngine engine)
+    {
+        this.audioReceiveEngine = engine;
+    }
+
+    public SessionStartQueue getSessionStartQueue()
+    {
+        return sessionStartQueue;
+    }
+
+    public void setSessionStartQueue(SessionStartQueue queue)
+    {
+        this.sessionStartQueue = queue;
+    }
+
+    public MembershipIndex getMembershipIndex()
+    {
+        return membershipIndex;
+    }
+
+    public NameIndex<User> getUserNameIndex()
+    {
+        return userNameIndex;
+    }
+
+    public boolean isNameIndexEnabled()
+    {
+        return userNameIndex.isEnabled();
+    }
+
+    public void setNameIndexEnabled(boolean enabled)
+    {
+        //Guilds check this when they are created
+        userNameIndex.setEnabled(enabled);
+    }
+
+    public MemberCachePolicy getMemberCachePolicy()
+    {
+        return memberCachePolicy;
+    }
+
+    public void setMemberCachePolicy(MemberCachePolicy policy)
+    {
+        Args.notNull(policy, "Provided MemberCachePolicy");
+        this.memberCachePolicy = policy;
+    }
+
+    public boolean isPresenceCacheEnabled()
+    {
+        return presenceCacheEnabled;
+    }
+
+    public void setPresenceCacheEnabled(boolean enabled)
+    {
+        this.presenceCacheEnabled = enabled;
+    }
+
     public void setPing(long ping)
     {
         this.ping = ping;
@@ -719,6 +851,51 @@ public class JDAImpl implements JDA
         return requester;
     }
 
+    public IRateLimiterFactory getRateLimiterFactory()
+    {
+        return rateLimiterFactory;
+    }
+
+    public IRestTransport getRestTransport()
+    {
+        return restTransport;
+    }
+
+    /**
+     * Whether the transport is shared with other users. Shared transports are only shut down by {@link #shutdown(boolean) shutdown(true)},
+     * the transport created by this instance is shut down by every shutdown.
+     *
+     * @param shared
+     *        True, if the transport should no longer be shut down by {@link #shutdown(boolean) shutdown(false)}
+     */
+    public void setRestTransportShared(boolean shared)
+    {
+        this.sharedTransport = shared;
+    }
+
+    /**
+     * Whether this instance is managed by a {@link net.dv8tion.jda.bot.sharding.ShardManager ShardManager}.
+     * <br>{@link #shutdown(boolean) shutdown(true)} of a managed instance behaves like {@code shutdown(false)}, so it
+     * does not free the transport and the request threads used by the other shards of the manager.
+     *
+     * @param managed
+     *        True, if the shared resources are freed by the manager of this instance
+     */
+    public void setManaged(boolean managed)
+    {
+        this.managed = managed;
+    }
+
+    public boolean isAsyncRequestsEnabled()
+    {
+        return asyncRequestsEnabled;
+    }
+
+    public boolean isZlibStreamEnabled()
+    {
+        return zlibStreamEnabled;
+    }
+
     public IEventManager getEventManager()
     {
         return eventManager;
@@ -33,6 +33,7 @@ public class MemberImpl implements Member
     private final User user;
     private final HashSet<Role> roles = new HashSet<>();
     private final GuildVoiceState voiceState;
+    private final SortedSnapshot<Role> sortedRoles;
 
     private String nickname;
     private OffsetDateTime joinDate;
@@ -44,6 +45,12 @@ public class MemberImpl implements Member
         this.guild = guild;
         this.user = user;
         this.voiceState = new GuildVoiceStateImpl(guild, this);
+        this.sortedRoles = new SortedSnapshot<>(() ->
+        {
+            List<Role> roleList = new ArrayList<>(roles);
+            roleList.sort(Comparator.reverseOrder());
+            return Collections.unmodifiableList(roleList);
+        });
     }
 
     @Override
@@ -103,10 +110,8 @@ public class MemberImpl implements Member
     @Override
     public List<Role> getRoles()
     {
-        List<Role> roleList = new ArrayList<>(roles);
-        roleList.sort(Comparator.reverseOrder());
-
-        return Collections.unmodifiableList(roleList);
+        //Also rebuilt when the order of the roles in the guild changed
+        return sortedRoles.get(guild.getRoleOrderVersion());
     }
 
     @Override
@@ -219,6 +224,14 @@ public class MemberImpl implements Member
         return roles;
     }
 
+    /**
+     * Has to be called after the {@link #getRoleSet() role set} was modified to update the cached {@link #getRoles()}.
+     */
+    public void invalidateRoles()
+    {
+        sortedRoles.invalidate();
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,151 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.entities.impl;
+
+import gnu.trove.TLongCollection;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Reverse index of the {@link net.dv8tion.jda.core.entities.Guild Guilds} a {@link net.dv8tion.jda.core.entities.User User}
+ * is a cached {@link net.dv8tion.jda.core.entities.Member Member} of.
+ * <br>Allows to find the mutual Guilds of a User in time proportional to the amount of Guilds the User is in,
+ * instead of checking every Guild.
+ *
+ * <p>Entries are added by the {@link net.dv8tion.jda.core.entities.EntityBuilder EntityBuilder} whenever a Member is cached
+ * (guild load, chunking and {@code GUILD_MEMBER_ADD}) and removed by the socket handlers whenever a Member or Guild is removed.
+ */
+public class MembershipIndex
+{
+    private static final long[] EMPTY = new long[0];
+
+    // user id -> guild ids, arrays are replaced instead of being modified so they can be handed out
+    private final TLongObjectMap<long[]> guilds = new TLongObjectHashMap<>();
+
+    /**
+     * Adds the provided Guild to the Guilds of the User.
+     *
+     * @param userId
+     *        The id of the User
+     * @param guildId
+     *        The id of the Guild the User is a Member of
+     */
+    public synchronized void add(long userId, long guildId)
+    {
+        long[] guildIds = guilds.get(userId);
+        if (guildIds == null)
+        {
+            guilds.put(userId, new long[] { guildId });
+            return;
+        }
+        for (long id : guildIds)
+        {
+            if (id == guildId)
+                return;
+        }
+        long[] copy = Arrays.copyOf(guildIds, guildIds.length + 1);
+        copy[guildIds.length] = guildId;
+        guilds.put(userId, copy);
+    }
+
+    /**
+     * Removes the provided Guild from the Guilds of the User.
+     *
+     * @param userId
+     *        The id of the User
+     * @param guildId
+     *        The id of the Guild the User is no longer a Member of
+     */
+    public synchronized void remove(long userId, long guildId)
+    {
+        long[] guildIds = guilds.get(userId);
+        if (guildIds == null)
+            return;
+        for (int i = 0; i < guildIds.length; i++)
+        {
+            if (guildIds[i] != guildId)
+                continue;
+            if (guildIds.length == 1)
+            {
+                guilds.remove(userId);
+                return;
+            }
+            long[] copy = new long[guildIds.length - 1];
+            System.arraycopy(guildIds, 0, copy, 0, i);
+            System.arraycopy(guildIds, i + 1, copy, i, guildIds.length - i - 1);
+            guilds.put(userId, copy);
+            return;
+        }
+    }
+
+    /**
+     * Removes the provided Guild from the Guilds of all provided Users.
+     * <br>Used when a Guild is removed from the cache.
+     *
+     * @param guildId
+     *        The id of the Guild
+     * @param userIds
+     *        The ids of the Members of the Guild
+     */
+    public synchronized void removeGuild(long guildId, TLongCollection userIds)
+    {
+        userIds.forEach(userId ->
+        {
+            remove(userId, guildId);
+            return true;
+        });
+    }
+
+    /**
+     * The ids of the Guilds the User is a cached Member of.
+     *
+     * @param  userId
+     *         The id of the User
+     *
+     * @return The guild ids, the returned array must not be modified
+     */
+    public synchronized long[] getGuildIds(long userId)
+    {
+        long[] guildIds = guilds.get(userId);
+        return guildIds == null ? EMPTY : guildIds;
+    }
+
+    /**
+     * Whether the User is a cached Member of any Guild.
+     *
+     * @param  userId
+     *         The id of the User
+     *
+     * @return True, if the User is a Member of at least one Guild
+     */
+    public synchronized boolean isMember(long userId)
+    {
+        return guilds.containsKey(userId);
+    }
+
+    public synchronized void clear()
+    {
+        guilds.clear();
+    }
+
+    public synchronized int size()
+    {
+        return guilds.size();
+    }
+}
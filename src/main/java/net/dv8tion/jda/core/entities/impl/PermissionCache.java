@@ -0,0 +1,189 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.entities.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-Guild cache of the effective permissions of Members in Channels, as computed by
+ * {@link net.dv8tion.jda.core.utils.PermissionUtil#getEffectivePermission(net.dv8tion.jda.core.entities.Channel, net.dv8tion.jda.core.entities.Member)
+ * PermissionUtil.getEffectivePermission(Channel, Member)}.
+ *
+ * <p>The cache holds at most {@link #getMaxSize()} pairs of Channel and Member. When it is full, the pair that
+ * was least recently used is evicted, so frequently checked Members like the self member stay cached
+ * while the cache of a Guild with many Members and Channels can not grow without bounds.
+ * <br>Entries are invalidated by the socket handlers whenever roles, permission overrides or the roles of a Member change.
+ * Every invalidation increments a generation counter. Values computed while an invalidation happened
+ * are not stored, so a check racing with an update can never cache outdated permissions.
+ */
+public class PermissionCache
+{
+    /** Returned by {@link #get(long, long)} if no permissions are cached. */
+    public static final long NO_ENTRY = Long.MIN_VALUE;
+    /** Default maximum amount of cached pairs of Channel and Member per Guild. */
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final int maxSize;
+    // (channel id, member id) -> permissions, in access order
+    private final LinkedHashMap<Key, Long> entries;
+    private long generation = 0;
+
+    public PermissionCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public PermissionCache(int maxSize)
+    {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Long>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest)
+            {
+                return size() > PermissionCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * The maximum amount of pairs of Channel and Member this cache holds.
+     *
+     * @return The maximum size
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * The cached permissions of the Member in the Channel.
+     *
+     * @param  channelId
+     *         The id of the Channel
+     * @param  memberId
+     *         The id of the Member
+     *
+     * @return The cached raw permissions, or {@link #NO_ENTRY}
+     */
+    public synchronized long get(long channelId, long memberId)
+    {
+        Long permissions = entries.get(new Key(channelId, memberId));
+        return permissions == null ? NO_ENTRY : permissions;
+    }
+
+    /**
+     * The current generation, has to be read before the permissions that are passed to
+     * {@link #put(long, long, long, long)} are computed.
+     *
+     * @return The current generation
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Caches the permissions of the Member in the Channel, unless the cache was invalidated since the
+     * provided generation was read.
+     * <br>Evicts the least recently used entry if the cache is full.
+     *
+     * @param channelId
+     *        The id of the Channel
+     * @param memberId
+     *        The id of the Member
+     * @param permissions
+     *        The raw permissions
+     * @param generation
+     *        The generation read before the permissions were computed
+     */
+    public synchronized void put(long channelId, long memberId, long permissions, long generation)
+    {
+        if (generation != this.generation)
+            return;
+        entries.put(new Key(channelId, memberId), permissions);
+    }
+
+    /**
+     * Invalidates all cached permissions of the Guild.
+     * <br>Used when roles or the owner change.
+     */
+    public synchronized void invalidate()
+    {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Invalidates the cached permissions of all Members in the Channel.
+     * <br>Used when the permission overrides of the Channel change or it is deleted.
+     *
+     * @param channelId
+     *        The id of the Channel
+     */
+    public synchronized void invalidateChannel(long channelId)
+    {
+        generation++;
+        entries.keySet().removeIf(key -> key.channelId == channelId);
+    }
+
+    /**
+     * Invalidates the cached permissions of the Member in all Channels.
+     * <br>Used when the roles of the Member change or it leaves the Guild.
+     *
+     * @param memberId
+     *        The id of the Member
+     */
+    public synchronized void invalidateMember(long memberId)
+    {
+        generation++;
+        entries.keySet().removeIf(key -> key.memberId == memberId);
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    private static final class Key
+    {
+        private final long channelId;
+        private final long memberId;
+
+        private Key(long channelId, long memberId)
+        {
+            this.channelId = channelId;
+            this.memberId = memberId;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return channelId == other.channelId && memberId == other.memberId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(channelId) * 31 + Long.hashCode(memberId);
+        }
+    }
+}
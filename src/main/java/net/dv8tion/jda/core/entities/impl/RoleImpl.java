@@ -36,6 +36,7 @@ import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public class RoleImpl implements Role
 {
@@ -304,7 +305,10 @@ public class RoleImpl implements Role
 
     public RoleImpl setName(String name)
     {
+        String oldName = this.name;
         this.name = name;
+        if (!Objects.equals(oldName, name))
+            ((GuildImpl) guild).getRoleNameIndex().rename(this, oldName);
         return this;
     }
 
@@ -341,6 +345,7 @@ public class RoleImpl implements Role
     public RoleImpl setRawPosition(int rawPosition)
     {
         this.rawPosition = rawPosition;
+        ((GuildImpl) guild).invalidateRoles();
         return this;
     }
 }
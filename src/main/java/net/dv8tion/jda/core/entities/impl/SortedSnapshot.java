@@ -0,0 +1,89 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.entities.impl;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Lazily built, immutable sorted list that is kept until it is invalidated.
+ * <br>Reading a valid snapshot does not allocate or lock.
+ *
+ * <p>A snapshot can depend on the version of another snapshot (for example the roles of a Member on the
+ * order of the roles of the Guild) and is rebuilt when that version changed.
+ */
+class SortedSnapshot<T>
+{
+    private final Object lock = new Object();
+    private final Supplier<List<T>> builder;
+
+    private volatile Snapshot<T> snapshot;
+    private volatile int version = 0;
+
+    SortedSnapshot(Supplier<List<T>> builder)
+    {
+        this.builder = builder;
+    }
+
+    List<T> get()
+    {
+        return get(0);
+    }
+
+    List<T> get(int dependencyVersion)
+    {
+        Snapshot<T> current = snapshot;
+        if (current != null && current.dependencyVersion == dependencyVersion)
+            return current.list;
+
+        final int version = this.version;
+        List<T> list = builder.get();
+        synchronized (lock)
+        {
+            //Only keep the list if nothing changed while it was built
+            if (this.version == version)
+                snapshot = new Snapshot<>(list, dependencyVersion);
+        }
+        return list;
+    }
+
+    int getVersion()
+    {
+        return version;
+    }
+
+    void invalidate()
+    {
+        synchronized (lock)
+        {
+            version++;
+            snapshot = null;
+        }
+    }
+
+    private static class Snapshot<T>
+    {
+        private final List<T> list;
+        private final int dependencyVersion;
+
+        private Snapshot(List<T> list, int dependencyVersion)
+        {
+            this.list = list;
+            this.dependencyVersion = dependencyVersion;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import net.dv8tion.jda.client.exceptions.VerificationLevelException;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.*;
 import net.dv8tion.jda.core.exceptions.PermissionException;
+import net.dv8tion.jda.core.requests.MultipartUpload;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Response;
 import net.dv8tion.jda.core.requests.RestAction;
@@ -30,12 +31,12 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class TextChannelImpl extends AbstractChannelImpl<TextChannelImpl> implements TextChannel
@@ -238,27 +239,16 @@ public class TextChannelImpl extends AbstractChannelImpl<TextChannelImpl> implem
     }
 
     @Override
-    public RestAction<Message> sendFile(InputStream data, String fileName, Message message)
+    public RestAction<Message> sendFile(MultipartUpload upload, Message message)
     {
+        //All other sendFile methods delegate to this one
         checkVerification();
         checkPermission(Permission.MESSAGE_READ);
         checkPermission(Permission.MESSAGE_WRITE);
         checkPermission(Permission.MESSAGE_ATTACH_FILES);
 
         //Call MessageChannel's default method
-        return TextChannel.super.sendFile(data, fileName, message);
-    }
-
-    @Override
-    public RestAction<Message> sendFile(byte[] data, String fileName, Message message)
-    {
-        checkVerification();
-        checkPermission(Permission.MESSAGE_READ);
-        checkPermission(Permission.MESSAGE_WRITE);
-        checkPermission(Permission.MESSAGE_ATTACH_FILES);
-
-        //Call MessageChannel's default method
-        return TextChannel.super.sendFile(data, fileName, message);
+        return TextChannel.super.sendFile(upload, message);
     }
 
     @Override
@@ -413,6 +403,16 @@ public class TextChannelImpl extends AbstractChannelImpl<TextChannelImpl> implem
 
     // -- Setters --
 
+    @Override
+    public TextChannelImpl setName(String name)
+    {
+        String oldName = this.name;
+        super.setName(name);
+        if (!Objects.equals(oldName, name))
+            guild.getTextChannelNameIndex().rename(this, oldName);
+        return this;
+    }
+
     public TextChannelImpl setTopic(String topic)
     {
         this.topic = topic;
@@ -30,6 +30,7 @@ import org.json.JSONObject;
 import java.util.FormattableFlags;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Objects;
 
 public class UserImpl implements User
 {
@@ -199,7 +200,10 @@ public class UserImpl implements User
 
     public UserImpl setName(String name)
     {
+        String oldName = this.name;
         this.name = name;
+        if (!Objects.equals(oldName, name))
+            api.getUserNameIndex().rename(this, oldName);
         return this;
     }
 
@@ -70,6 +70,8 @@ public class ChannelDeleteHandler extends SocketHandler
                 }
 
                 guild.getTextChannelsMap().remove(channel.getIdLong());
+                guild.invalidateTextChannels();
+                guild.getPermissionCache().invalidateChannel(channelId);
                 api.getEventManager().handle(
                         new TextChannelDeleteEvent(
                                 api, responseNumber,
@@ -95,6 +97,8 @@ public class ChannelDeleteHandler extends SocketHandler
                     manager.closeAudioConnection(ConnectionStatus.DISCONNECTED_CHANNEL_DELETED);
                 }
                 guild.getVoiceChannelMap().remove(channel.getIdLong());
+                guild.invalidateVoiceChannels();
+                guild.getPermissionCache().invalidateChannel(channelId);
                 api.getEventManager().handle(
                         new VoiceChannelDeleteEvent(
                                 api, responseNumber,
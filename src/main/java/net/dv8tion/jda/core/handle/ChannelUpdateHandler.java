@@ -225,6 +225,8 @@ public class ChannelUpdateHandler extends SocketHandler
             overridesMap.remove(id);
             return true;
         });
+        if (!toRemove.isEmpty())
+            ((GuildImpl) channel.getGuild()).getPermissionCache().invalidateChannel(channel.getIdLong());
     }
 
     private IPermissionHolder mapPermissionHolder(long id, Guild guild)
@@ -261,6 +263,9 @@ public class ChannelUpdateHandler extends SocketHandler
                 permHolder = channel.getGuild().getMemberById(id);
                 if (permHolder == null)
                 {
+                    //Members rejected by the MemberCachePolicy will never be cached, so there is nothing to update
+                    if (api.getEntityBuilder().isMemberCacheRestricted())
+                        return;
                     api.getEventCache().cache(EventCache.Type.USER, id, () ->
                             handlePermissionOverride(override, channel, content, changedPermHolders, containedPermHolders));
                     EventCache.LOG.debug("CHANNEL_UPDATE attempted to create or update a PermissionOverride for Member that doesn't exist in this Guild! MemberId: " + id + " JSON: " + content);
@@ -283,6 +288,7 @@ public class ChannelUpdateHandler extends SocketHandler
         {
             permOverride.setAllow(allow);
             permOverride.setDeny(deny);
+            ((GuildImpl) channel.getGuild()).getPermissionCache().invalidateChannel(channel.getIdLong());
             changedPermHolders.add(permHolder);
         }
         containedPermHolders.add(permHolder);
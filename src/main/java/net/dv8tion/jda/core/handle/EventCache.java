@@ -19,67 +19,170 @@ import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import net.dv8tion.jda.core.utils.SimpleLog;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Keeps events that reference entities which are not cached yet until the entity is created.
+ *
+ * <p>The cache is bounded per trigger and globally and events that are waiting for longer than
+ * {@link #MAX_EVENT_AGE} are dropped, as their trigger is unlikely to ever arrive.
+ * This also bounds the amount of events that are replayed inline by {@link #playbackCache(Type, long)}.
+ */
 public class EventCache
 {
     public static final SimpleLog LOG = SimpleLog.getLog("EventCache");
-    private final Map<Type, TLongObjectMap<List<Runnable>>> eventCache = new HashMap<>();
 
-    public void cache(Type type, long triggerId, Runnable handler)
+    /** Maximum amount of events cached for a single trigger. */
+    public static final int MAX_CACHED_PER_TRIGGER = 100;
+    /** Maximum amount of events cached in total. */
+    public static final int MAX_CACHED = 10000;
+    /** Cached events older than this (in milliseconds) are dropped. */
+    public static final long MAX_EVENT_AGE = TimeUnit.MINUTES.toMillis(10);
+
+    protected static final long EXPIRY_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+
+    private final Map<Type, TLongObjectMap<ArrayDeque<CachedEvent>>> eventCache = new EnumMap<>(Type.class);
+
+    private int size = 0;
+    private long dropped = 0;
+    private long expired = 0;
+    private long nextExpiry = System.nanoTime() + EXPIRY_INTERVAL;
+
+    public synchronized void cache(Type type, long triggerId, Runnable handler)
     {
-        TLongObjectMap<List<Runnable>> triggerCache =
+        final long now = System.nanoTime();
+        if (now - nextExpiry >= 0)
+            expire(now);
+
+        TLongObjectMap<ArrayDeque<CachedEvent>> triggerCache =
                 eventCache.computeIfAbsent(type, k -> new TLongObjectHashMap<>());
 
-        List<Runnable> items = triggerCache.get(triggerId);
+        ArrayDeque<CachedEvent> items = triggerCache.get(triggerId);
         if (items == null)
         {
-            items = new LinkedList<>();
+            items = new ArrayDeque<>();
             triggerCache.put(triggerId, items);
         }
 
-        items.add(handler);
+        if (items.size() >= MAX_CACHED_PER_TRIGGER || size >= MAX_CACHED)
+        {
+            dropped++;
+            LOG.debug("EventCache is full, dropping event for a " + type + " with id: " + triggerId);
+            return;
+        }
+
+        items.addLast(new CachedEvent(handler, now));
+        size++;
     }
 
     public void playbackCache(Type type, long triggerId)
     {
-        List<Runnable> items;
-        try
+        ArrayDeque<CachedEvent> items;
+        synchronized (this)
         {
-            items = eventCache.get(type).get(triggerId);
-        }
-        catch (NullPointerException e)
-        {
-            //If we encounter an NPE that means something didn't exist.
-            return;
+            TLongObjectMap<ArrayDeque<CachedEvent>> triggerCache = eventCache.get(type);
+            if (triggerCache == null)
+                return;
+            items = triggerCache.remove(triggerId);
+            if (items == null || items.isEmpty())
+                return;
+            size -= items.size();
         }
 
-        if (items != null && !items.isEmpty())
+        //Replayed outside of the lock as the handlers may cache events again
+        EventCache.LOG.debug("Replaying " + items.size() + " events from the EventCache for a " + type + " with id: " + triggerId);
+        for (CachedEvent item : items)
         {
-            EventCache.LOG.debug("Replaying " + items.size() + " events from the EventCache for a " + type + " with id: " + triggerId);
-            List<Runnable> itemsCopy = new LinkedList<>(items);
-            items.clear();
-            for (Runnable item : itemsCopy)
-            {
-                item.run();
-            }
+            item.handler.run();
         }
     }
 
-    public int size()
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * The amount of events cached for triggers of the specified type.
+     *
+     * @param  type
+     *         The trigger type
+     *
+     * @return The amount of cached events
+     */
+    public synchronized int size(Type type)
     {
-        return (int) eventCache.values().stream()
-                .mapToLong(typeMap ->
-                    typeMap.valueCollection().stream().mapToLong(List::size).sum())
-                .sum();
+        TLongObjectMap<ArrayDeque<CachedEvent>> triggerCache = eventCache.get(type);
+        if (triggerCache == null)
+            return 0;
+        int count = 0;
+        for (ArrayDeque<CachedEvent> items : triggerCache.valueCollection())
+            count += items.size();
+        return count;
     }
 
-    public void clear()
+    /**
+     * The total amount of events that were not cached because the cache was full.
+     *
+     * @return The amount of dropped events
+     */
+    public synchronized long getDroppedCount()
+    {
+        return dropped;
+    }
+
+    /**
+     * The total amount of events that were dropped because they were cached for longer than {@link #MAX_EVENT_AGE}.
+     *
+     * @return The amount of expired events
+     */
+    public synchronized long getExpiredCount()
+    {
+        return expired;
+    }
+
+    public synchronized void clear()
     {
         eventCache.clear();
+        size = 0;
+    }
+
+    private void expire(long now)
+    {
+        nextExpiry = now + EXPIRY_INTERVAL;
+        final long maxAge = TimeUnit.MILLISECONDS.toNanos(MAX_EVENT_AGE);
+        final long before = expired;
+        for (TLongObjectMap<ArrayDeque<CachedEvent>> triggerCache : eventCache.values())
+        {
+            //Events of a trigger are cached in order, so only the oldest ones have to be checked
+            triggerCache.retainEntries((triggerId, items) ->
+            {
+                while (!items.isEmpty() && now - items.peekFirst().time >= maxAge)
+                {
+                    items.pollFirst();
+                    size--;
+                    expired++;
+                }
+                return !items.isEmpty();
+            });
+        }
+        if (expired > before)
+            LOG.debug("Dropped " + (expired - before) + " expired events from the EventCache");
+    }
+
+    private static class CachedEvent
+    {
+        private final Runnable handler;
+        private final long time;
+
+        private CachedEvent(Runnable handler, long time)
+        {
+            this.handler = handler;
+            this.time = time;
+        }
     }
 
     public enum Type
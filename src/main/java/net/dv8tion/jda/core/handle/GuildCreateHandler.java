@@ -71,7 +71,7 @@ public class GuildCreateHandler extends SocketHandler
             {
                 if (!api.getClient().isReady())
                 {
-                    api.getClient().<ReadyHandler>getHandler("READY").acknowledgeGuild(guild, false, false, false);
+                    api.getClient().<ReadyHandler>getHandler("READY").acknowledgeGuild(guild, false, false);
                 }
                 else
                 {
@@ -26,9 +26,9 @@ import net.dv8tion.jda.client.entities.RelationshipType;
 import net.dv8tion.jda.client.entities.impl.JDAClientImpl;
 import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.audio.hooks.ConnectionStatus;
-import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.impl.GuildImpl;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.entities.impl.MembershipIndex;
 import net.dv8tion.jda.core.entities.impl.PrivateChannelImpl;
 import net.dv8tion.jda.core.entities.impl.UserImpl;
 import net.dv8tion.jda.core.events.guild.GuildLeaveEvent;
@@ -77,18 +77,12 @@ public class GuildDeleteHandler extends SocketHandler
         // Anything left in memberIds will be removed from the main userMap
         //Use a new HashSet so that we don't actually modify the Member map so it doesn't affect Guild#getMembers for the leave event.
         TLongSet memberIds = new TLongHashSet(guild.getMembersMap().keySet());
-        for (Guild guildI : api.getGuilds())
+        MembershipIndex membershipIndex = api.getMembershipIndex();
+        membershipIndex.removeGuild(id, memberIds);
+        for (TLongIterator it = memberIds.iterator(); it.hasNext();)
         {
-            GuildImpl g = (GuildImpl) guildI;
-            if (g.equals(guild))
-                continue;
-
-            for (TLongIterator it = memberIds.iterator(); it.hasNext();)
-            {
-
-                if (g.getMembersMap().containsKey(it.next()))
-                    it.remove();
-            }
+            if (membershipIndex.isMember(it.next()))
+                it.remove();
         }
 
         //If we are a client account, be sure to not remove any users from the cache that are Friends.
@@ -54,6 +54,10 @@ public class GuildMemberAddHandler extends SocketHandler
                         api, responseNumber,
                         guild, member));
         api.getEventCache().playbackCache(EventCache.Type.USER, member.getUser().getIdLong());
+
+        //The Member was provided to the event listeners, drop it again if the MemberCachePolicy does not want it
+        if (!api.getEntityBuilder().isMemberCacheable(member))
+            api.getEntityBuilder().uncacheMember(guild, member);
         return null;
     }
 }
@@ -15,8 +15,6 @@
  */
 package net.dv8tion.jda.core.handle;
 
-import net.dv8tion.jda.client.entities.Group;
-import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.entities.VoiceChannel;
 import net.dv8tion.jda.core.entities.impl.*;
 import net.dv8tion.jda.core.events.guild.member.GuildMemberLeaveEvent;
@@ -49,12 +47,15 @@ public class GuildMemberRemoveHandler extends SocketHandler
 
         final long userId = content.getJSONObject("user").getLong("id");
         MemberImpl member = (MemberImpl) guild.getMembersMap().remove(userId);
+        api.getMembershipIndex().remove(userId, id);
+        guild.getDroppedMemberMap().remove(userId);
 
         if (member == null)
         {
             WebSocketClient.LOG.debug("Received GUILD_MEMBER_REMOVE for a Member that does not exist in the specified Guild.");
             return null;
         }
+        guild.getPermissionCache().invalidateMember(userId);
 
         if (member.getVoiceState().inVoiceChannel())//If this user was in a VoiceChannel, fire VoiceLeaveEvent.
         {
@@ -69,36 +70,9 @@ public class GuildMemberRemoveHandler extends SocketHandler
                             member, channel));
         }
 
-        //The user is not in a different guild that we share
-        // The user also is not a friend of this account in the case that the logged in account is a client account.
-        if (api.getGuildMap().valueCollection().stream().noneMatch(g -> ((GuildImpl) g).getMembersMap().containsKey(userId))
-                && !(api.getAccountType() == AccountType.CLIENT && api.asClient().getFriendById(userId) != null))
-        {
-            UserImpl user = (UserImpl) api.getUserMap().remove(userId);
-            if (user.hasPrivateChannel())
-            {
-                PrivateChannelImpl priv = (PrivateChannelImpl) user.getPrivateChannel();
-                user.setFake(true);
-                priv.setFake(true);
-                api.getFakeUserMap().put(user.getIdLong(), user);
-                api.getFakePrivateChannelMap().put(priv.getIdLong(), priv);
-            }
-            else if (api.getAccountType() == AccountType.CLIENT)
-            {
-                //While the user might not have a private channel, if this is a client account then the user
-                // could be in a Group, and if so we need to change the User object to be fake and
-                // place it in the FakeUserMap
-                for (Group grp : api.asClient().getGroups())
-                {
-                    if (grp.getNonFriendUsers().contains(user))
-                    {
-                        user.setFake(true);
-                        api.getFakeUserMap().put(user.getIdLong(), user);
-                        break; //Breaks from groups loop
-                    }
-                }
-            }
-        }
+        //Removes the user from the central cache if it is not in a different guild that we share
+        // and is not a friend of this account in the case that the logged in account is a client account.
+        api.getEntityBuilder().releaseUser(userId);
         api.getEventManager().handle(
                 new GuildMemberLeaveEvent(
                         api, responseNumber,
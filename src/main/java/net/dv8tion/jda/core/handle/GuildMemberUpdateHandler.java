@@ -63,6 +63,12 @@ public class GuildMemberUpdateHandler extends SocketHandler
         MemberImpl member = (MemberImpl) guild.getMembersMap().get(userId);
         if (member == null)
         {
+            if (api.getEntityBuilder().isMemberCacheRestricted())
+            {
+                //The Member is most likely not cached due to the MemberCachePolicy, caching the event would leak it.
+                EventCache.LOG.debug("Ignoring GuildMember update for a Member that is not cached. GuildId: " + id + " UserId: " + userId);
+                return null;
+            }
             api.getEventCache().cache(EventCache.Type.USER, userId, () ->
             {
                 handle(responseNumber, allContent);
@@ -101,6 +107,11 @@ public class GuildMemberUpdateHandler extends SocketHandler
             currentRoles.removeAll(removedRoles);
         if (newRoles.size() > 0)
             currentRoles.addAll(newRoles);
+        if (removedRoles.size() > 0 || newRoles.size() > 0)
+        {
+            member.invalidateRoles();
+            guild.getPermissionCache().invalidateMember(userId);
+        }
 
         if (removedRoles.size() > 0)
         {
@@ -16,22 +16,35 @@
 
 package net.dv8tion.jda.core.handle;
 
-import gnu.trove.map.TLongIntMap;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import gnu.trove.map.TLongObjectMap;
-import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
-import net.dv8tion.jda.core.entities.EntityBuilder;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.requests.WebSocketSendQueue;
+import net.dv8tion.jda.core.utils.JsonReader;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.util.LinkedList;
-import java.util.List;
-
-public class GuildMembersChunkHandler extends SocketHandler
+public class GuildMembersChunkHandler extends StreamingSocketHandler
 {
-    private final TLongIntMap expectedGuildMembers = new TLongIntHashMap();
-    private final TLongObjectMap<List<JSONArray>> memberChunksCache = new TLongObjectHashMap<>();
+    //Maximum amount of guild ids allowed in a single op 8 request
+    public static final int MAX_GUILDS_PER_REQUEST = 50;
+    //Minimum time between two progress messages while loading
+    private static final long PROGRESS_LOG_INTERVAL = 5000;
+
+    private final TLongObjectMap<ChunkingGuild> chunkingGuilds = new TLongObjectHashMap<>();
+    //Guilds that still need to be included in an op 8 request
+    private final TLongList pendingRequests = new TLongArrayList();
+    private boolean requestQueued = false;
+    private boolean flushRequested = false;
+
+    //Progress of the current loading phase, reset once all guilds are chunked
+    private int requestedGuilds = 0;
+    private int completedGuilds = 0;
+    private long expectedMembers = 0;
+    private long receivedMembers = 0;
+    private long lastProgressLog = 0;
 
     public GuildMembersChunkHandler(JDAImpl api)
     {
@@ -42,57 +55,281 @@ public class GuildMembersChunkHandler extends SocketHandler
     protected Long handleInternally(JSONObject content)
     {
         final long guildId = content.getLong("guild_id");
-        List<JSONArray> memberChunks = memberChunksCache.get(guildId);
-        int expectMemberCount = expectedGuildMembers.get(guildId);
+        ChunkingGuild guild = getChunkingGuild(guildId);
+        int memberCount = api.getEntityBuilder().createGuildMemberChunk(guildId, content.getJSONArray("members"));
+        handleChunk(guildId, guild, memberCount);
+        return null;
+    }
 
-        JSONArray members = content.getJSONArray("members");
-        JDAImpl.LOG.debug("GUILD_MEMBER_CHUNK for: " + guildId + " \tMembers: " + members.length());
-        memberChunks.add(members);
+    @Override
+    protected Long handleInternally(JsonReader content)
+    {
+        long guildId = 0;
+        boolean hasGuildId = false;
+        String members = null;
+        int memberCount = 0;
+        ChunkingGuild guild = null;
 
-        int currentTotal = 0;
-        for (JSONArray arr : memberChunks)
+        content.beginObject();
+        while (content.hasNext())
         {
-            currentTotal += arr.length();
+            switch (content.nextName())
+            {
+                case "guild_id":
+                    guildId = content.nextLong();
+                    hasGuildId = true;
+                    break;
+                case "members":
+                    if (hasGuildId)
+                    {
+                        //Build the members straight from the token stream into the guild
+                        guild = getChunkingGuild(guildId);
+                        memberCount = api.getEntityBuilder().createGuildMemberChunk(guildId, content);
+                    }
+                    else
+                    {
+                        //The guild is not known yet, keep the raw array until the end of the payload
+                        content.peek();
+                        final int start = content.position();
+                        content.skipValue();
+                        members = content.substring(start, content.position());
+                    }
+                    break;
+                default:
+                    content.skipValue();
+            }
         }
+        content.endObject();
 
-        if (currentTotal >= expectMemberCount)
+        if (members != null)
         {
-            JDAImpl.LOG.debug("Finished chunking for: " + guildId);
-            api.getEntityBuilder().createGuildSecondPass(guildId, memberChunks);
-            memberChunksCache.remove(guildId);
-            expectedGuildMembers.remove(guildId);
+            guild = getChunkingGuild(guildId);
+            memberCount = api.getEntityBuilder().createGuildMemberChunk(guildId, new JsonReader(members));
         }
+
+        handleChunk(guildId, guild, memberCount);
         return null;
     }
 
-    public void setExpectedGuildMembers(long guildId, int count)
+    private void handleChunk(long guildId, ChunkingGuild guild, int memberCount)
     {
-        if (expectedGuildMembers.containsKey(guildId))
-            JDAImpl.LOG.warn("Set the count of expected users from GuildMembersChunk even though a value already exists! GuildId: " + guildId);
+        JDAImpl.LOG.debug("GUILD_MEMBER_CHUNK for: " + guildId + " \tMembers: " + memberCount);
+
+        if (guild == null)
+        {
+            JDAImpl.LOG.debug("Received GUILD_MEMBER_CHUNK for a guild that is not being chunked. GuildId: " + guildId);
+            return;
+        }
+
+        synchronized (this)
+        {
+            receivedMembers += memberCount;
+        }
+        guild.received += memberCount;
+
+        if (guild.received >= guild.expected)
+        {
+            JDAImpl.LOG.debug("Finished chunking for: " + guildId);
+            synchronized (this)
+            {
+                chunkingGuilds.remove(guildId);
+                completedGuilds++;
+            }
+            api.getEntityBuilder().createGuildSecondPass(guildId);
+            logProgress();
+        }
+    }
 
-        expectedGuildMembers.put(guildId, count);
+    /**
+     * Registers the guild for chunking and queues it for an op 8 request.
+     * <br>Guild ids are coalesced into requests for up to {@value #MAX_GUILDS_PER_REQUEST} guilds. The request is
+     * only built once the gateway ratelimit allows it to be sent, so guilds that are added while waiting for budget
+     * are included in the same request. While JDA is still loading, partial requests are held back until
+     * {@link #flushChunkRequests()} is called.
+     *
+     * @param guildId
+     *        The id of the guild
+     * @param memberCount
+     *        The amount of members expected for the guild
+     */
+    public synchronized void requestChunks(long guildId, int memberCount)
+    {
+        ChunkingGuild old = chunkingGuilds.put(guildId, new ChunkingGuild(memberCount));
+        if (old != null)
+        {
+            JDAImpl.LOG.warn("Requested chunking for a guild that was already setup for chunking! GuildId: " + guildId);
+            expectedMembers -= old.expected;
+            receivedMembers -= old.received;
+            if (!pendingRequests.contains(guildId))
+                pendingRequests.add(guildId);
+        }
+        else
+        {
+            requestedGuilds++;
+            pendingRequests.add(guildId);
+        }
+        expectedMembers += memberCount;
+        scheduleRequest();
+    }
 
-        if (memberChunksCache.containsKey(guildId))
-            JDAImpl.LOG.warn("Set the memberChunks for MemberChunking for a guild that was already setup for chunking! GuildId: " + guildId);
+    /**
+     * Allows partial requests to be sent, used once all guilds of READY have been received.
+     */
+    public synchronized void flushChunkRequests()
+    {
+        flushRequested = true;
+        scheduleRequest();
+    }
 
-        memberChunksCache.put(guildId, new LinkedList<>());
+    private synchronized ChunkingGuild getChunkingGuild(long guildId)
+    {
+        return chunkingGuilds.get(guildId);
     }
 
     public void modifyExpectedGuildMember(long guildId, int changeAmount)
     {
-        try
+        ChunkingGuild guild;
+        synchronized (this)
+        {
+            guild = chunkingGuilds.get(guildId);
+            if (guild == null)
+                return;
+            expectedMembers += changeAmount;
+        }
+        guild.expected += changeAmount;
+    }
+
+    /**
+     * The amount of guilds that were requested for chunking since the current loading phase started.
+     *
+     * @return The amount of requested guilds
+     */
+    public synchronized int getRequestedGuildCount()
+    {
+        return requestedGuilds;
+    }
+
+    /**
+     * The amount of guilds that finished chunking since the current loading phase started.
+     *
+     * @return The amount of completely chunked guilds
+     */
+    public synchronized int getCompletedGuildCount()
+    {
+        return completedGuilds;
+    }
+
+    /**
+     * The amount of guilds still waiting to be included in an op 8 request.
+     *
+     * @return The amount of guilds without a sent chunk request
+     */
+    public synchronized int getPendingRequestCount()
+    {
+        return pendingRequests.size();
+    }
+
+    public synchronized long getExpectedMemberCount()
+    {
+        return expectedMembers;
+    }
+
+    public synchronized long getReceivedMemberCount()
+    {
+        return receivedMembers;
+    }
+
+    /**
+     * Drops all chunking state and every queued {@link WebSocketSendQueue.Priority#LOW LOW} priority request.
+     * <br>Both are cleared while holding the lock of this handler, so a queued chunk request can't be dropped
+     * without the handler noticing and no new request can be queued in between.
+     */
+    public synchronized void clearCache()
+    {
+        //Chunk and sync requests of the old session are of no use for the new one
+        api.getClient().getSendQueue().clear(WebSocketSendQueue.Priority.LOW);
+        requestQueued = false;
+        chunkingGuilds.clear();
+        pendingRequests.clear();
+        flushRequested = false;
+        resetProgress();
+    }
+
+    //Must hold the lock of this handler
+    private void scheduleRequest()
+    {
+        if (requestQueued || pendingRequests.isEmpty())
+            return;
+        if (pendingRequests.size() < MAX_GUILDS_PER_REQUEST && !flushRequested && !api.getClient().isReady())
+            return;
+        requestQueued = true;
+        api.getClient().send(this::buildChunkRequest, WebSocketSendQueue.Priority.LOW);
+    }
+
+    //Called by the sending thread once the request is about to be sent
+    private synchronized String buildChunkRequest()
+    {
+        requestQueued = false;
+        if (pendingRequests.isEmpty())
+            return null;
+
+        int count = Math.min(MAX_GUILDS_PER_REQUEST, pendingRequests.size());
+        JSONArray guildIds = new JSONArray();
+        for (int i = 0; i < count; i++)
+            guildIds.put(pendingRequests.get(i));
+        pendingRequests.remove(0, count);
+
+        if (pendingRequests.isEmpty())
+            flushRequested = false;
+        else
+            scheduleRequest();
+
+        return new JSONObject()
+                .put("op", 8)
+                .put("d", new JSONObject()
+                        .put("guild_id", guildIds)
+                        .put("query", "")
+                        .put("limit", 0)
+                ).toString();
+    }
+
+    private void logProgress()
+    {
+        synchronized (this)
         {
-            Integer i = expectedGuildMembers.get(guildId);
-            i += changeAmount;
-            expectedGuildMembers.put(guildId, i);
+            final boolean done = chunkingGuilds.isEmpty();
+            final long now = System.currentTimeMillis();
+            if (!done && now - lastProgressLog < PROGRESS_LOG_INTERVAL)
+                return;
+            lastProgressLog = now;
+
+            if (!api.getClient().isReady() || requestedGuilds > 1)
+            {
+                JDAImpl.LOG.info(api.getIdentifierString() + " chunking progress: " + completedGuilds + "/" + requestedGuilds
+                        + " guilds, " + receivedMembers + "/" + expectedMembers + " members");
+            }
+            if (done && api.getClient().isReady())
+                resetProgress();
         }
-        //Ignore. If one of the above things doesn't exist, causing an NPE, then we don't need to worry.
-        catch (NullPointerException ignored) {}
     }
 
-    public void clearCache()
+    private void resetProgress()
+    {
+        requestedGuilds = 0;
+        completedGuilds = 0;
+        expectedMembers = 0;
+        receivedMembers = 0;
+        lastProgressLog = 0;
+    }
+
+    private static class ChunkingGuild
     {
-        expectedGuildMembers.clear();
-        memberChunksCache.clear();
+        private int expected;
+        private int received = 0;
+
+        private ChunkingGuild(int expected)
+        {
+            this.expected = expected;
+        }
     }
 }
@@ -55,13 +55,16 @@ public class GuildRoleDeleteHandler extends SocketHandler
             EventCache.LOG.debug("GUILD_ROLE_DELETE was received for a Role that is not yet cached: " + content);
             return null;
         }
+        guild.invalidateRoles();
 
         //Now that the role is removed from the Guild, remove it from all users.
         for (Member m : guild.getMembersMap().valueCollection())
         {
             MemberImpl member = (MemberImpl) m;
-            member.getRoleSet().remove(removedRole);
+            if (member.getRoleSet().remove(removedRole))
+                member.invalidateRoles();
         }
+        guild.getPermissionCache().invalidate();
         api.getEventManager().handle(
                 new RoleDeleteEvent(
                         api, responseNumber,
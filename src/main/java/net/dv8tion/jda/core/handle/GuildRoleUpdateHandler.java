@@ -97,6 +97,7 @@ public class GuildRoleUpdateHandler extends SocketHandler
         {
             long oldPermissionsRaw = role.getPermissionsRaw();
             role.setRawPermissions(permissions);
+            guild.getPermissionCache().invalidate();
             api.getEventManager().handle(
                     new RoleUpdatePermissionsEvent(
                             api, responseNumber,
@@ -23,6 +23,7 @@ import net.dv8tion.jda.core.entities.impl.GuildImpl;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.events.guild.update.*;
 import net.dv8tion.jda.core.requests.GuildLock;
+import net.dv8tion.jda.core.requests.WebSocketClient;
 import org.json.JSONObject;
 
 import java.util.Objects;
@@ -56,14 +57,26 @@ public class GuildUpdateHandler extends SocketHandler
                 ? guild.getVoiceChannelMap().get(content.getLong("afk_channel_id"))
                 : null;
 
-        if (!Objects.equals(owner, guild.getOwner()))
+        if (owner == null)
+        {
+            //The new owner is not cached because it was rejected by the MemberCachePolicy.
+            // Keep the previous owner instead of leaving the Guild without one.
+            WebSocketClient.LOG.debug("Received GUILD_UPDATE with an owner that is not cached. GuildId: " + id
+                    + " OwnerId: " + content.getString("owner_id"));
+        }
+        else if (!Objects.equals(owner, guild.getOwner()))
         {
             Member oldOwner = guild.getOwner();
             guild.setOwner(owner);
+            guild.getPermissionCache().invalidate();
             api.getEventManager().handle(
                     new GuildUpdateOwnerEvent(
                         api, responseNumber,
                         guild, oldOwner));
+
+            //The previous owner was only cached because it owned the Guild
+            if (oldOwner != null && !api.getEntityBuilder().isMemberCacheable(oldOwner))
+                api.getEntityBuilder().uncacheMember(guild, oldOwner);
         }
         if (!Objects.equals(name, guild.getName()))
         {
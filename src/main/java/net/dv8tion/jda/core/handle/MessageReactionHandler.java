@@ -69,6 +69,12 @@ public class MessageReactionHandler extends SocketHandler
             user = api.getFakeUserMap().get(userId);
         if (user == null)
         {
+            if (api.getEntityBuilder().isMemberCacheRestricted())
+            {
+                //The User is most likely not cached due to the MemberCachePolicy, the event would never be played back
+                WebSocketClient.LOG.debug("Ignoring reaction " + (add ? "add" : "remove") + " for a user that is not cached. UserId: " + userId);
+                return null;
+            }
             api.getEventCache().cache(EventCache.Type.USER, userId, () -> handle(responseNumber, allContent));
             EventCache.LOG.debug("Received a reaction for a user that JDA does not currently have cached");
             return null;
@@ -15,18 +15,24 @@
  */
 package net.dv8tion.jda.core.handle;
 
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import net.dv8tion.jda.core.OnlineStatus;
+import net.dv8tion.jda.core.entities.EntityBuilder;
 import net.dv8tion.jda.core.entities.Game;
+import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.entities.impl.*;
 import net.dv8tion.jda.core.events.user.UserAvatarUpdateEvent;
 import net.dv8tion.jda.core.events.user.UserGameUpdateEvent;
 import net.dv8tion.jda.core.events.user.UserNameUpdateEvent;
 import net.dv8tion.jda.core.events.user.UserOnlineStatusUpdateEvent;
 import net.dv8tion.jda.core.requests.GuildLock;
+import net.dv8tion.jda.core.utils.JsonReader;
 import org.apache.commons.lang3.StringUtils;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
-public class PresenceUpdateHandler extends SocketHandler
+public class PresenceUpdateHandler extends StreamingSocketHandler
 {
 
     public PresenceUpdateHandler(JDAImpl api)
@@ -37,16 +43,177 @@ public class PresenceUpdateHandler extends SocketHandler
     @Override
     protected Long handleInternally(JSONObject content)
     {
+        Presence presence = new Presence();
+        presence.raw = content;
+        if (!content.isNull("guild_id"))
+            presence.guildId = content.getLong("guild_id");
+        presence.statusKey = content.getString("status");
+        presence.nick = content.optString("nick", null);
+        //Only needed to cache Members again that were dropped by the MemberCachePolicy
+        if (api.getEntityBuilder().isMemberCacheRestricted() && !content.isNull("roles"))
+        {
+            JSONArray roles = content.getJSONArray("roles");
+            presence.roleIds = new TLongArrayList(roles.length());
+            for (int i = 0; i < roles.length(); i++)
+                presence.roleIds.add(roles.getLong(i));
+        }
+
+        JSONObject jsonUser = content.getJSONObject("user");
+        presence.userId = jsonUser.getLong("id");
+        if (jsonUser.has("username"))
+        {
+            presence.name = jsonUser.getString("username");
+            presence.discriminator = jsonUser.get("discriminator").toString();
+            presence.avatarId = jsonUser.isNull("avatar") ? null : jsonUser.getString("avatar");
+        }
+        presence.bot = jsonUser.optBoolean("bot");
+
+        JSONObject game = content.optJSONObject("game");
+        if (game != null && !game.isNull("name"))
+        {
+            presence.gameName = game.get("name").toString();
+            presence.gameUrl = game.isNull("url") ? null : game.get("url").toString();
+            presence.gameType = game.isNull("type") ? null : game.get("type").toString();
+        }
+        return handlePresence(presence);
+    }
+
+    @Override
+    protected Long handleInternally(JsonReader content)
+    {
+        //Only pull the fields we need. Roles are skipped without being parsed unless members may have been dropped.
+        final boolean restricted = api.getEntityBuilder().isMemberCacheRestricted();
+        content.peek();
+        final int contentStart = content.position();
+        Presence presence = new Presence();
+
+        content.beginObject();
+        while (content.hasNext())
+        {
+            switch (content.nextName())
+            {
+                case "guild_id":
+                    if (content.peek() == JsonReader.Token.NULL)
+                        content.nextNull();
+                    else
+                        presence.guildId = content.nextLong();
+                    break;
+                case "status":
+                    presence.statusKey = content.nextString();
+                    break;
+                case "nick":
+                    presence.nick = content.nextStringOrNull();
+                    break;
+                case "roles":
+                    //Only needed to cache Members again that were dropped by the MemberCachePolicy
+                    if (!restricted || content.peek() == JsonReader.Token.NULL)
+                    {
+                        content.skipValue();
+                        break;
+                    }
+                    presence.roleIds = new TLongArrayList();
+                    content.beginArray();
+                    while (content.hasNext())
+                        presence.roleIds.add(content.nextLong());
+                    content.endArray();
+                    break;
+                case "user":
+                    content.beginObject();
+                    while (content.hasNext())
+                    {
+                        switch (content.nextName())
+                        {
+                            case "id":
+                                presence.userId = content.nextLong();
+                                break;
+                            case "username":
+                                presence.name = content.nextString();
+                                break;
+                            case "discriminator":
+                                presence.discriminator = content.nextString();
+                                break;
+                            case "avatar":
+                                presence.avatarId = content.nextStringOrNull();
+                                break;
+                            case "bot":
+                                presence.bot = content.nextBoolean();
+                                break;
+                            default:
+                                content.skipValue();
+                        }
+                    }
+                    content.endObject();
+                    break;
+                case "game":
+                    if (content.peek() == JsonReader.Token.NULL)
+                    {
+                        content.nextNull();
+                        break;
+                    }
+                    String gameName = null;
+                    String gameUrl = null;
+                    String gameType = null;
+                    content.beginObject();
+                    while (content.hasNext())
+                    {
+                        switch (content.nextName())
+                        {
+                            case "name":
+                                gameName = content.nextStringOrNull();
+                                break;
+                            case "url":
+                                gameUrl = content.nextStringOrNull();
+                                break;
+                            case "type":
+                                gameType = content.nextStringOrNull();
+                                break;
+                            default:
+                                content.skipValue();
+                        }
+                    }
+                    content.endObject();
+                    if (gameName != null)
+                    {
+                        presence.gameName = gameName;
+                        presence.gameUrl = gameUrl;
+                        presence.gameType = gameType;
+                    }
+                    break;
+                default:
+                    content.skipValue();
+            }
+        }
+        content.endObject();
+        final int contentEnd = content.position();
+        //The raw presence is only needed if it has to be cached for a Member that is not loaded yet
+        presence.rawSource = content;
+        presence.rawStart = contentStart;
+        presence.rawEnd = contentEnd;
+        return handlePresence(presence);
+    }
+
+    private Long handlePresence(Presence presence)
+    {
+        final Long guildIdValue = presence.guildId;
+        final long userId = presence.userId;
+        final String name = presence.name;
+        final String discriminator = presence.discriminator;
+        final String avatarId = presence.avatarId;
+        final String statusKey = presence.statusKey;
+        final String gameName = presence.gameName;
+
         //Do a pre-check to see if this is for a Guild, and if it is, if the guild is currently locked.
-        if (content.has("guild_id"))
+        if (guildIdValue != null)
         {
-            final long guildId = content.getLong("guild_id");
+            final long guildId = guildIdValue;
             if (api.getGuildLock().isLocked(guildId))
                 return guildId;
         }
 
-        JSONObject jsonUser = content.getJSONObject("user");
-        final long userId = jsonUser.getLong("id");
+        //The Member might have been dropped by the MemberCachePolicy and be accepted again with this presence
+        if (guildIdValue != null && presence.roleIds != null)
+            reloadMember(guildIdValue, presence);
+
         UserImpl user = (UserImpl) api.getUserMap().get(userId);
 
         //If we do know about the user, lets update the user's specific info.
@@ -56,12 +223,8 @@ public class PresenceUpdateHandler extends SocketHandler
         // due to a User leaving a guild or no longer being a relation.
         if (user != null)
         {
-            if (jsonUser.has("username"))
+            if (name != null)
             {
-                String name = jsonUser.getString("username");
-                String discriminator = jsonUser.get("discriminator").toString();
-                String avatarId = jsonUser.isNull("avatar") ? null : jsonUser.getString("avatar");
-
                 if (!user.getName().equals(name))
                 {
                     String oldUsername = user.getName();
@@ -87,34 +250,16 @@ public class PresenceUpdateHandler extends SocketHandler
 
             //Now that we've update the User's info, lets see if we need to set the specific Presence information.
             // This is stored in the Member or Relation objects.
-            String gameName = null;
-            String gameUrl = null;
-            Game.GameType type = null;
-            if ( !content.isNull("game") && !content.getJSONObject("game").isNull("name") )
-            {
-                gameName = content.getJSONObject("game").get("name").toString();
-                gameUrl = ( content.getJSONObject("game").isNull("url") ? null : content.getJSONObject("game").get("url").toString() );
-                try
-                {
-                    type = content.getJSONObject("game").isNull("type")
-                            ? Game.GameType.DEFAULT
-                            : Game.GameType.fromKey(Integer.parseInt(content.getJSONObject("game").get("type").toString()));
-                }
-                catch (NumberFormatException ex)
-                {
-                    type = Game.GameType.DEFAULT;
-                }
-            }
             Game nextGame = (gameName == null
                     ? null
-                    : new GameImpl(gameName, gameUrl, type));
-            OnlineStatus status = OnlineStatus.fromKey(content.getString("status"));
+                    : new GameImpl(gameName, presence.gameUrl, presence.getGameType()));
+            OnlineStatus status = OnlineStatus.fromKey(statusKey);
 
             //If we are in a Guild, then we will use Member.
             // If we aren't we'll be dealing with the Relation system.
-            if (content.has("guild_id"))
+            if (guildIdValue != null)
             {
-                GuildImpl guild = (GuildImpl) api.getGuildById(content.getLong("guild_id"));
+                GuildImpl guild = (GuildImpl) api.getGuildById(guildIdValue);
                 MemberImpl member = (MemberImpl) guild.getMember(user);
 
                 //If the Member is null, then User isn't in the Guild.
@@ -126,9 +271,9 @@ public class PresenceUpdateHandler extends SocketHandler
                 if (member == null)
                 {
                     //Cache the presence and return to finish up.
-                    if (status != OnlineStatus.OFFLINE)
+                    if (status != OnlineStatus.OFFLINE && api.isPresenceCacheEnabled())
                     {
-                        guild.getCachedPresenceMap().put(userId, content);
+                        guild.getCachedPresenceMap().put(userId, presence.getRaw());
                         return null;
                     }
                 }
@@ -153,6 +298,10 @@ public class PresenceUpdateHandler extends SocketHandler
                                         api, responseNumber,
                                         user, guild, oldGame));
                     }
+
+                    //The MemberCachePolicy might depend on the OnlineStatus (e.g. going offline)
+                    if (!api.getEntityBuilder().isMemberCacheable(member))
+                        api.getEntityBuilder().uncacheMember(guild, member);
                 }
             }
             else
@@ -172,15 +321,18 @@ public class PresenceUpdateHandler extends SocketHandler
             // the OnlineStatus is not OFFLINE.
 
             //If the OnlineStatus is OFFLINE, ignore the event and return.
-            OnlineStatus status = OnlineStatus.fromKey(content.getString("status"));
+            OnlineStatus status = OnlineStatus.fromKey(statusKey);
             if (status == OnlineStatus.OFFLINE)
                 return null;
 
             //If this was for a Guild, cache it in the Guild for later use in GUILD_MEMBER_ADD
-            if (content.has("guild_id"))
+            if (guildIdValue != null)
             {
-                GuildImpl guild = (GuildImpl) api.getGuildById(content.getLong("guild_id"));
-                guild.getCachedPresenceMap().put(userId, content);
+                if (!api.isPresenceCacheEnabled())
+                    return null;
+
+                GuildImpl guild = (GuildImpl) api.getGuildById(guildIdValue);
+                guild.getCachedPresenceMap().put(userId, presence.getRaw());
             }
             else
             {
@@ -189,4 +341,64 @@ public class PresenceUpdateHandler extends SocketHandler
         }
         return null;
     }
+
+    private void reloadMember(long guildId, Presence presence)
+    {
+        GuildImpl guild = (GuildImpl) api.getGuildMap().get(guildId);
+        if (guild == null || guild.getMembersMap().containsKey(presence.userId)
+                || !guild.getDroppedMemberMap().containsKey(presence.userId))
+            return;
+
+        EntityBuilder builder = api.getEntityBuilder();
+        User user = builder.createUnloadedUser(presence.userId, presence.name, presence.discriminator, presence.avatarId, presence.bot);
+        if (user == null)
+            return;
+
+        final OnlineStatus status = OnlineStatus.fromKey(presence.statusKey);
+        final Game game = presence.gameName == null ? null : new GameImpl(presence.gameName, presence.gameUrl, presence.getGameType());
+        builder.reloadMember(guild, user, null, presence.nick, presence.roleIds, member -> member.setOnlineStatus(status).setGame(game));
+    }
+
+    //The fields of a presence that are used by this handler, read from either a JSONObject or a JsonReader
+    private static class Presence
+    {
+        private Long guildId;
+        private long userId;
+        private String name;
+        private String discriminator;
+        private String avatarId;
+        private boolean bot;
+        private String nick;
+        private TLongList roleIds;
+        private String statusKey;
+        private String gameName;
+        private String gameUrl;
+        private String gameType;
+
+        private JSONObject raw;
+        private JsonReader rawSource;
+        private int rawStart;
+        private int rawEnd;
+
+        private Game.GameType getGameType()
+        {
+            if (gameType == null)
+                return Game.GameType.DEFAULT;
+            try
+            {
+                return Game.GameType.fromKey(Integer.parseInt(gameType));
+            }
+            catch (NumberFormatException ex)
+            {
+                return Game.GameType.DEFAULT;
+            }
+        }
+
+        private JSONObject getRaw()
+        {
+            if (raw == null)
+                raw = new JSONObject(rawSource.substring(rawStart, rawEnd));
+            return raw;
+        }
+    }
 }
@@ -27,6 +27,7 @@ import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.managers.impl.PresenceImpl;
 import net.dv8tion.jda.core.requests.WebSocketClient;
+import net.dv8tion.jda.core.requests.WebSocketSendQueue;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -38,7 +39,6 @@ public class ReadyHandler extends SocketHandler
     private final Set<String> incompleteGuilds = new HashSet<>();
     private final Set<String> acknowledgedGuilds = new HashSet<>();
     private final Set<String> unavailableGuilds = new HashSet<>();
-    private final Set<String> guildsRequiringChunking = new HashSet<>();
     private final Set<String> guildsRequiringSyncing = new HashSet<>();
 
     public ReadyHandler(JDAImpl api)
@@ -165,7 +165,7 @@ public class ReadyHandler extends SocketHandler
         api.getClient().ready();
     }
 
-    public void acknowledgeGuild(Guild guild, boolean available, boolean requiresChunking, boolean requiresSync)
+    public void acknowledgeGuild(Guild guild, boolean available, boolean requiresSync)
     {
         acknowledgedGuilds.add(guild.getId());
         if (available)
@@ -173,8 +173,6 @@ public class ReadyHandler extends SocketHandler
             //We remove from unavailable guilds because it is possible that we were told it was unavailable, but
             // during a long READY load it could have become available and was sent to us.
             unavailableGuilds.remove(guild.getId());
-            if (requiresChunking)
-                guildsRequiringChunking.add(guild.getId());
             if (requiresSync)
                 guildsRequiringSyncing.add(guild.getId());
         }
@@ -199,7 +197,6 @@ public class ReadyHandler extends SocketHandler
         incompleteGuilds.clear();
         acknowledgedGuilds.clear();
         unavailableGuilds.clear();
-        guildsRequiringChunking.clear();
         guildsRequiringSyncing.clear();
     }
 
@@ -210,7 +207,9 @@ public class ReadyHandler extends SocketHandler
             api.getClient().setChunkingAndSyncing(true);
             if (api.getAccountType() == AccountType.CLIENT)
                 sendGuildSyncRequests();
-            sendMemberChunkRequests();
+            //Full batches of chunk requests are already sent while guilds are still arriving,
+            // now that all guilds are known the remaining partial batch can be sent as well.
+            api.getClient().<GuildMembersChunkHandler>getHandler("GUILD_MEMBERS_CHUNK").flushChunkRequests();
         }
     }
 
@@ -230,7 +229,7 @@ public class ReadyHandler extends SocketHandler
             {
                 api.getClient().send(new JSONObject()
                         .put("op", 12)
-                        .put("d", guildIds).toString());
+                        .put("d", guildIds).toString(), WebSocketSendQueue.Priority.LOW);
                 guildIds = new JSONArray();
             }
         }
@@ -240,47 +239,8 @@ public class ReadyHandler extends SocketHandler
         {
             api.getClient().send(new JSONObject()
                     .put("op", 12)
-                    .put("d", guildIds).toString());
+                    .put("d", guildIds).toString(), WebSocketSendQueue.Priority.LOW);
         }
         guildsRequiringSyncing.clear();
     }
-
-    private void sendMemberChunkRequests()
-    {
-        if (guildsRequiringChunking.isEmpty())
-            return;
-
-        JSONArray guildIds = new JSONArray();
-        for (String guildId : guildsRequiringChunking)
-        {
-            guildIds.put(guildId);
-
-            //We can only request 50 guilds in a single request, so after we've reached 50, send them
-            // and reset the
-            if (guildIds.length() == 50)
-            {
-                api.getClient().send(new JSONObject()
-                    .put("op", 8)
-                    .put("d", new JSONObject()
-                        .put("guild_id", guildIds)
-                        .put("query", "")
-                        .put("limit", 0)
-                    ).toString());
-                guildIds = new JSONArray();
-            }
-        }
-
-        //Send the remaining guilds that need to be sent
-        if (guildIds.length() > 0)
-        {
-            api.getClient().send(new JSONObject()
-                .put("op", 8)
-                .put("d", new JSONObject()
-                        .put("guild_id", guildIds)
-                        .put("query", "")
-                        .put("limit", 0)
-                ).toString());
-        }
-        guildsRequiringChunking.clear();
-    }
 }
@@ -40,6 +40,18 @@ public abstract class SocketHandler
             api.getGuildLock().queue(guildId, o);
     }
 
+    /**
+     * Whether this handler reads the data-json directly from a {@link net.dv8tion.jda.core.utils.JsonReader JsonReader}.
+     * <br>Only {@link StreamingSocketHandler StreamingSocketHandlers} can be streaming, all other handlers
+     * always receive a fully parsed JSONObject.
+     *
+     * @return True, if events should be passed to {@link StreamingSocketHandler#handle(long, String, net.dv8tion.jda.core.utils.JsonReader)}
+     */
+    public boolean isStreaming()
+    {
+        return false;
+    }
+
     /**
      * Handles a given data-json of the Event handled by this Handler.
      * @param content
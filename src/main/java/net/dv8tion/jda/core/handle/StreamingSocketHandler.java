@@ -0,0 +1,70 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.core.handle;
+
+import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.utils.JsonReader;
+import org.json.JSONObject;
+
+/**
+ * A {@link SocketHandler} that can read the data-json of its events directly from a {@link JsonReader}.
+ * <br>Streaming handlers only pull the fields they need instead of requiring a fully parsed JSONObject.
+ * The JSONObject path is still used for events that were queued by the
+ * {@link net.dv8tion.jda.core.requests.GuildLock GuildLock} or received during initialization,
+ * so implementations have to support both.
+ */
+public abstract class StreamingSocketHandler extends SocketHandler
+{
+    public StreamingSocketHandler(JDAImpl api)
+    {
+        super(api);
+    }
+
+    /**
+     * Handles an event without parsing its payload into a JSONObject first.
+     * <br>{@link #allContent} is not available in this mode.
+     *
+     * @param responseTotal
+     *      the sequence number of the event
+     * @param message
+     *      the raw event message, only parsed if the event has to be queued for a locked guild
+     * @param content
+     *      a reader positioned at the data-json of the event
+     */
+    public final void handle(long responseTotal, String message, JsonReader content)
+    {
+        this.allContent = null;
+        this.responseNumber = responseTotal;
+        final Long guildId = handleInternally(content);
+        if (guildId != null)
+            api.getGuildLock().queue(guildId, new JSONObject(message));
+    }
+
+    @Override
+    public boolean isStreaming()
+    {
+        return true;
+    }
+
+    /**
+     * Handles a given data-json of the Event handled by this Handler from a reader.
+     * @param content
+     *      the reader positioned at the content of the event to handle
+     * @return
+     *      Guild-id if that guild has a lock, or null if successful
+     */
+    protected abstract Long handleInternally(JsonReader content);
+}
@@ -25,13 +25,14 @@ import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.events.user.UserTypingEvent;
 import net.dv8tion.jda.core.requests.GuildLock;
+import net.dv8tion.jda.core.utils.JsonReader;
 import org.json.JSONObject;
 
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 
-public class TypingStartHandler extends SocketHandler
+public class TypingStartHandler extends StreamingSocketHandler
 {
 
     public TypingStartHandler(JDAImpl api)
@@ -42,7 +43,40 @@ public class TypingStartHandler extends SocketHandler
     @Override
     protected Long handleInternally(JSONObject content)
     {
-        final long channelId = content.getLong("channel_id");
+        return handleTyping(content.getLong("channel_id"), content.getLong("user_id"), content.getLong("timestamp"));
+    }
+
+    @Override
+    protected Long handleInternally(JsonReader content)
+    {
+        long channelId = 0;
+        long userId = 0;
+        long timestampSeconds = 0;
+        content.beginObject();
+        while (content.hasNext())
+        {
+            switch (content.nextName())
+            {
+                case "channel_id":
+                    channelId = content.nextLong();
+                    break;
+                case "user_id":
+                    userId = content.nextLong();
+                    break;
+                case "timestamp":
+                    timestampSeconds = content.nextLong();
+                    break;
+                default:
+                    content.skipValue();
+            }
+        }
+        content.endObject();
+
+        return handleTyping(channelId, userId, timestampSeconds);
+    }
+
+    private Long handleTyping(long channelId, long userId, long timestampSeconds)
+    {
         MessageChannel channel = api.getTextChannelMap().get(channelId);
         if (channel == null)
             channel = api.getPrivateChannelMap().get(channelId);
@@ -62,7 +96,6 @@ public class TypingStartHandler extends SocketHandler
                 return guildId;
         }
 
-        final long userId = content.getLong("user_id");
         User user;
         if (channel instanceof PrivateChannel)
             user = ((PrivateChannel) channel).getUser();
@@ -75,7 +108,7 @@ public class TypingStartHandler extends SocketHandler
             return null;    //Just like in the comment above, if for some reason we don't have the user for some reason
                             // then we will just throw the event away.
 
-        OffsetDateTime timestamp = Instant.ofEpochSecond(content.getInt("timestamp")).atOffset(ZoneOffset.UTC);
+        OffsetDateTime timestamp = Instant.ofEpochSecond(timestampSeconds).atOffset(ZoneOffset.UTC);
         api.getEventManager().handle(
                 new UserTypingEvent(
                         api, responseNumber,
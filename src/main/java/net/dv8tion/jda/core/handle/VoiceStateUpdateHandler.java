@@ -16,6 +16,8 @@
 
 package net.dv8tion.jda.core.handle;
 
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
 import net.dv8tion.jda.client.entities.Call;
 import net.dv8tion.jda.client.entities.CallUser;
 import net.dv8tion.jda.client.entities.CallableChannel;
@@ -26,7 +28,10 @@ import net.dv8tion.jda.client.events.call.voice.CallVoiceJoinEvent;
 import net.dv8tion.jda.client.events.call.voice.CallVoiceLeaveEvent;
 import net.dv8tion.jda.client.events.call.voice.CallVoiceSelfDeafenEvent;
 import net.dv8tion.jda.client.events.call.voice.CallVoiceSelfMuteEvent;
+import net.dv8tion.jda.core.entities.EntityBuilder;
 import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.entities.impl.GuildImpl;
 import net.dv8tion.jda.core.entities.impl.GuildVoiceStateImpl;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.entities.impl.MemberImpl;
@@ -35,6 +40,7 @@ import net.dv8tion.jda.core.events.guild.voice.*;
 import net.dv8tion.jda.core.managers.impl.AudioManagerImpl;
 import net.dv8tion.jda.core.requests.GuildLock;
 import net.dv8tion.jda.core.requests.WebSocketClient;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.Objects;
@@ -101,9 +107,22 @@ public class VoiceStateUpdateHandler extends SocketHandler
             // in fact the issue was that the VOICE_STATE_UPDATE was sent after they had left, however, by caching
             // it we will preserve the integrity of the cache in the event that it was actually a mis-ordering of
             // GUILD_MEMBER_ADD and VOICE_STATE_UPDATE. I'll take some bad-data events over an invalid cache.
-            api.getEventCache().cache(EventCache.Type.USER, userId, () -> handle(responseNumber, allContent));
-            EventCache.LOG.debug("Received VOICE_STATE_UPDATE for a Member that has yet to be cached. JSON: " + content);
-            return;
+            //When the MemberCachePolicy rejects Members this is most likely a Member that is not cached at all,
+            // so we don't cache the event as it would never be played back. Instead the Member is cached again
+            // if the policy accepts it with the new voice state (e.g. MemberCachePolicy.VOICE).
+            if (!api.getEntityBuilder().isMemberCacheRestricted())
+            {
+                api.getEventCache().cache(EventCache.Type.USER, userId, () -> handle(responseNumber, allContent));
+                EventCache.LOG.debug("Received VOICE_STATE_UPDATE for a Member that has yet to be cached. JSON: " + content);
+                return;
+            }
+
+            member = reloadMember((GuildImpl) guild, content, channel);
+            if (member == null)
+            {
+                EventCache.LOG.debug("Ignoring VOICE_STATE_UPDATE for a Member that is not cached. JSON: " + content);
+                return;
+            }
         }
 
         GuildVoiceStateImpl vState = (GuildVoiceStateImpl) member.getVoiceState();
@@ -182,6 +201,38 @@ public class VoiceStateUpdateHandler extends SocketHandler
             api.getEventManager().handle(new GuildVoiceMuteEvent(api, responseNumber, member));
         if (wasDeaf != vState.isDeafened())
             api.getEventManager().handle(new GuildVoiceDeafenEvent(api, responseNumber, member));
+
+        if (!api.getEntityBuilder().isMemberCacheable(member))
+            api.getEntityBuilder().uncacheMember((GuildImpl) guild, member);
+    }
+
+    private MemberImpl reloadMember(GuildImpl guild, JSONObject content, VoiceChannelImpl channel)
+    {
+        if (!content.has("member") || content.isNull("member"))
+            return null;
+
+        EntityBuilder builder = api.getEntityBuilder();
+        JSONObject memberJson = content.getJSONObject("member");
+        User user = builder.createUnloadedUser(memberJson.getJSONObject("user"));
+        if (user == null)
+            return null;
+
+        JSONArray rolesJson = memberJson.getJSONArray("roles");
+        TLongList roleIds = new TLongArrayList(rolesJson.length());
+        for (int i = 0; i < rolesJson.length(); i++)
+            roleIds.add(rolesJson.getLong(i));
+
+        return builder.reloadMember(guild, user,
+                memberJson.has("joined_at") ? memberJson.getString("joined_at") : null,
+                memberJson.has("nick") && !memberJson.isNull("nick") ? memberJson.getString("nick") : null,
+                roleIds,
+                m -> ((GuildVoiceStateImpl) m.getVoiceState())
+                        .setConnectedChannel(channel)
+                        .setSelfMuted(content.getBoolean("self_mute"))
+                        .setSelfDeafened(content.getBoolean("self_deaf"))
+                        .setGuildMuted(content.getBoolean("mute"))
+                        .setGuildDeafened(content.getBoolean("deaf"))
+                        .setSuppressed(content.getBoolean("suppress")));
     }
 
     private void handleCallVoiceState(JSONObject content)
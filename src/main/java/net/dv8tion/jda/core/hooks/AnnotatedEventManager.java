@@ -18,10 +18,14 @@ package net.dv8tion.jda.core.hooks;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.events.Event;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation for {@link net.dv8tion.jda.core.hooks.IEventManager IEventManager}
@@ -41,104 +45,157 @@ import java.util.*;
  *     }
  * </code></pre>
  *
+ * <p>The listener methods are resolved once on registration and invoked through
+ * {@link java.lang.invoke.MethodHandle MethodHandles}. For every concrete event class a dispatch table
+ * of all matching methods is built on first use and cached until the registered listeners change.
+ * <br>Registration is copy-on-write, so listeners can be (un-)registered from any thread while events are handled.
+ *
  * @see net.dv8tion.jda.core.hooks.InterfacedEventManager
  * @see net.dv8tion.jda.core.hooks.IEventManager
  * @see net.dv8tion.jda.core.hooks.SubscribeEvent
  */
 public class AnnotatedEventManager implements IEventManager
 {
-    private final Set<Object> listeners = new HashSet<>();
-    private final Map<Class<? extends Event>, Map<Object, List<Method>>> methods = new HashMap<>();
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Event.class);
+    private static final EventHandler[] NO_HANDLERS = new EventHandler[0];
+
+    private final Object lock = new Object();
+    private volatile Registry registry = new Registry(Collections.emptyMap());
 
     @Override
     public void register(Object listener)
     {
-        if (listeners.add(listener))
+        synchronized (lock)
         {
-            updateMethods();
+            if (registry.listeners.containsKey(listener))
+                return;
+            Map<Object, EventHandler[]> listeners = new LinkedHashMap<>(registry.listeners);
+            listeners.put(listener, findHandlers(listener));
+            registry = new Registry(listeners);
         }
     }
 
     @Override
     public void unregister(Object listener)
     {
-        if (listeners.remove(listener))
+        synchronized (lock)
         {
-            updateMethods();
+            if (!registry.listeners.containsKey(listener))
+                return;
+            Map<Object, EventHandler[]> listeners = new LinkedHashMap<>(registry.listeners);
+            listeners.remove(listener);
+            registry = new Registry(listeners);
         }
     }
 
     @Override
     public List<Object> getRegisteredListeners()
     {
-        return Collections.unmodifiableList(new LinkedList<>(listeners));
+        return Collections.unmodifiableList(new LinkedList<>(registry.listeners.keySet()));
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void handle(Event event)
     {
-        Class<? extends Event> eventClass = event.getClass();
-        do
+        for (EventHandler handler : registry.getHandlers(event.getClass()))
         {
-            Map<Object, List<Method>> listeners = methods.get(eventClass);
-            if (listeners != null)
+            try
             {
-                listeners.entrySet().forEach(e -> e.getValue().forEach(method ->
-                {
-                    try
-                    {
-                        method.setAccessible(true);
-                        method.invoke(e.getKey(), event);
-                    }
-                    catch (IllegalAccessException | InvocationTargetException e1)
-                    {
-                        JDAImpl.LOG.log(e1);
-                    }
-                    catch (Throwable throwable)
-                    {
-                        JDAImpl.LOG.fatal("One of the EventListeners had an uncaught exception");
-                        JDAImpl.LOG.log(throwable);
-                    }
-                }));
+                handler.handle.invokeExact(event);
+            }
+            catch (Throwable throwable)
+            {
+                JDAImpl.LOG.fatal("One of the EventListeners had an uncaught exception");
+                JDAImpl.LOG.log(throwable);
             }
-            eventClass = eventClass == Event.class ? null : (Class<? extends Event>) eventClass.getSuperclass();
         }
-        while (eventClass != null);
     }
 
-    private void updateMethods()
+    private EventHandler[] findHandlers(Object listener)
     {
-        methods.clear();
-        for (Object listener : listeners)
+        boolean isClass = listener instanceof Class;
+        Class<?> c = isClass ? (Class) listener : listener.getClass();
+        List<EventHandler> handlers = new ArrayList<>();
+        for (Method m : c.getDeclaredMethods())
         {
-            boolean isClass = listener instanceof Class;
-            Class<?> c = isClass ? (Class) listener : listener.getClass();
-            Method[] allMethods = c.getDeclaredMethods();
-            for (Method m : allMethods)
+            if (!m.isAnnotationPresent(SubscribeEvent.class) || (isClass && !Modifier.isStatic(m.getModifiers())))
+            {
+                continue;
+            }
+            Class<?>[] pType  = m.getParameterTypes();
+            if (pType.length == 1 && Event.class.isAssignableFrom(pType[0]))
             {
-                if (!m.isAnnotationPresent(SubscribeEvent.class) || (isClass && !Modifier.isStatic(m.getModifiers())))
+                @SuppressWarnings("unchecked")
+                Class<? extends Event> eventClass = (Class<? extends Event>) pType[0];
+                try
                 {
-                    continue;
+                    m.setAccessible(true);
+                    MethodHandle handle = MethodHandles.lookup().unreflect(m);
+                    if (!Modifier.isStatic(m.getModifiers()))
+                        handle = handle.bindTo(listener);
+                    handlers.add(new EventHandler(eventClass, handle.asType(HANDLER_TYPE)));
                 }
-                Class<?>[] pType  = m.getParameterTypes();
-                if (pType.length == 1 && Event.class.isAssignableFrom(pType[0]))
+                catch (IllegalAccessException | RuntimeException e)
                 {
-                    @SuppressWarnings("unchecked")
-                    Class<? extends Event> eventClass = (Class<? extends Event>) pType[0];
-                    if (!methods.containsKey(eventClass))
-                    {
-                        methods.put(eventClass, new HashMap<>());
-                    }
+                    JDAImpl.LOG.fatal("Could not access the event method " + m + " of listener " + listener);
+                    JDAImpl.LOG.log(e);
+                }
+            }
+        }
+        return handlers.toArray(NO_HANDLERS);
+    }
 
-                    if (!methods.get(eventClass).containsKey(listener))
+    private static final class EventHandler
+    {
+        private final Class<? extends Event> eventClass;
+        private final MethodHandle handle;
+
+        private EventHandler(Class<? extends Event> eventClass, MethodHandle handle)
+        {
+            this.eventClass = eventClass;
+            this.handle = handle;
+        }
+    }
+
+    // Immutable snapshot of the registered listeners with the dispatch tables built from it
+    private static final class Registry
+    {
+        private final Map<Object, EventHandler[]> listeners;
+        private final ConcurrentMap<Class<?>, EventHandler[]> dispatch = new ConcurrentHashMap<>();
+
+        private Registry(Map<Object, EventHandler[]> listeners)
+        {
+            this.listeners = listeners;
+        }
+
+        private EventHandler[] getHandlers(Class<? extends Event> eventClass)
+        {
+            EventHandler[] handlers = dispatch.get(eventClass);
+            if (handlers == null)
+                handlers = dispatch.computeIfAbsent(eventClass, this::compile);
+            return handlers;
+        }
+
+        // Collects the handlers for the event class and all of its superclasses,
+        // starting with the most specific class
+        private EventHandler[] compile(Class<?> eventClass)
+        {
+            List<EventHandler> handlers = new ArrayList<>();
+            Class<?> current = eventClass;
+            do
+            {
+                for (EventHandler[] listenerHandlers : listeners.values())
+                {
+                    for (EventHandler handler : listenerHandlers)
                     {
-                        methods.get(eventClass).put(listener, new ArrayList<>());
+                        if (handler.eventClass == current)
+                            handlers.add(handler);
                     }
-
-                    methods.get(eventClass).get(listener).add(m);
                 }
+                current = current == Event.class ? null : current.getSuperclass();
             }
+            while (current != null);
+            return handlers.toArray(NO_HANDLERS);
         }
     }
-}
\ No newline at end of file
+}
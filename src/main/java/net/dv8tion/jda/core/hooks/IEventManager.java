@@ -23,7 +23,7 @@ import java.util.List;
  * An interface for JDA's EventManager system.
  * <br>This should be registered in the {@link net.dv8tion.jda.core.JDABuilder JDABuilder}
  *
- * <p>JDA provides 2 implementations:
+ * <p>JDA provides 3 implementations:
  * <ul>
  *     <li>{@link net.dv8tion.jda.core.hooks.InterfacedEventManager InterfacedEventManager}
  *     <br>Simple implementation that allows {@link net.dv8tion.jda.core.hooks.EventListener EventListener}
@@ -32,6 +32,10 @@ import java.util.List;
  *     <li>{@link net.dv8tion.jda.core.hooks.AnnotatedEventManager AnnotatedEventManager}
  *     <br>An implementation that accepts any object and uses the {@link net.dv8tion.jda.core.hooks.SubscribeEvent SubscribeEvent}
  *         annotation to handle events.</li>
+ *
+ *     <li>{@link net.dv8tion.jda.core.hooks.ThreadedEventManager ThreadedEventManager}
+ *     <br>Forwards events to one of the implementations above on a pool of worker threads,
+ *         keeping the order of events per Guild or channel.</li>
  * </ul>
  *
  * <p>The default event manager is {@link net.dv8tion.jda.core.hooks.InterfacedEventManager InterfacedEventManager}
@@ -41,6 +45,7 @@ import java.util.List;
  *
  * @see net.dv8tion.jda.core.hooks.InterfacedEventManager
  * @see net.dv8tion.jda.core.hooks.AnnotatedEventManager
+ * @see net.dv8tion.jda.core.hooks.ThreadedEventManager
  */
 public interface IEventManager
 {
@@ -18,9 +18,14 @@ package net.dv8tion.jda.core.hooks;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.events.Event;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -32,6 +37,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * <br>An adapter implementation is {@link net.dv8tion.jda.core.hooks.ListenerAdapter ListenerAdapter} which
  * provides methods for each individual {@link net.dv8tion.jda.core.events.Event}.
  *
+ * <p>For every event class the listeners that have to receive it are looked up once and cached.
+ * {@link net.dv8tion.jda.core.hooks.ListenerAdapter ListenerAdapters} only receive events for which they
+ * override at least one callback (or {@link net.dv8tion.jda.core.hooks.ListenerAdapter#onGenericEvent(Event) onGenericEvent}),
+ * all other listeners receive every event.
+ *
  * <p><b>This is the default IEventManager used by JDA</b>
  *
  * @see net.dv8tion.jda.core.hooks.AnnotatedEventManager
@@ -39,7 +49,20 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class InterfacedEventManager implements IEventManager
 {
+    private static final EventListener[] NO_LISTENERS = new EventListener[0];
+
+    // The event types handled by the callbacks a ListenerAdapter subclass overrides
+    private static final ClassValue<Class<?>[]> adapterEventTypes = new ClassValue<Class<?>[]>()
+    {
+        @Override
+        protected Class<?>[] computeValue(Class<?> type)
+        {
+            return findOverriddenEventTypes(type);
+        }
+    };
+
     private final CopyOnWriteArrayList<EventListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConcurrentMap<Class<? extends Event>, EventListener[]> dispatch = new ConcurrentHashMap<>();
 
     public InterfacedEventManager()
     {
@@ -60,12 +83,14 @@ public class InterfacedEventManager implements IEventManager
             throw new IllegalArgumentException("Listener must implement EventListener");
         }
         listeners.add(((EventListener) listener));
+        dispatch = new ConcurrentHashMap<>();
     }
 
     @Override
     public void unregister(Object listener)
     {
-        listeners.remove(listener);
+        if (listeners.remove(listener))
+            dispatch = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -77,7 +102,12 @@ public class InterfacedEventManager implements IEventManager
     @Override
     public void handle(Event event)
     {
-        for (EventListener listener : listeners)
+        ConcurrentMap<Class<? extends Event>, EventListener[]> dispatch = this.dispatch;
+        EventListener[] targets = dispatch.get(event.getClass());
+        if (targets == null)
+            targets = dispatch.computeIfAbsent(event.getClass(), this::findListeners);
+
+        for (EventListener listener : targets)
         {
             try
             {
@@ -90,4 +120,50 @@ public class InterfacedEventManager implements IEventManager
             }
         }
     }
+
+    private EventListener[] findListeners(Class<? extends Event> eventClass)
+    {
+        List<EventListener> targets = new ArrayList<>();
+        for (EventListener listener : listeners)
+        {
+            if (!(listener instanceof ListenerAdapter) || isHandledBy(listener.getClass(), eventClass))
+                targets.add(listener);
+        }
+        return targets.toArray(NO_LISTENERS);
+    }
+
+    private static boolean isHandledBy(Class<?> adapterClass, Class<? extends Event> eventClass)
+    {
+        for (Class<?> type : adapterEventTypes.get(adapterClass))
+        {
+            if (type.isAssignableFrom(eventClass))
+                return true;
+        }
+        return false;
+    }
+
+    // ListenerAdapter#onEvent only calls callbacks whose parameter type is a supertype of the event,
+    // thus an event can be skipped if none of the overridden callbacks accepts it.
+    private static Class<?>[] findOverriddenEventTypes(Class<?> type)
+    {
+        List<Class<?>> types = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != ListenerAdapter.class; c = c.getSuperclass())
+        {
+            for (Method method : c.getDeclaredMethods())
+            {
+                if (method.isSynthetic() || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1)
+                    continue;
+                Class<?> parameter = method.getParameterTypes()[0];
+                if (!Event.class.isAssignableFrom(parameter))
+                    continue;
+                try
+                {
+                    ListenerAdapter.class.getMethod(method.getName(), parameter);
+                    types.add(parameter);
+                }
+                catch (NoSuchMethodException ignored) {}
+            }
+        }
+        return types.toArray(new Class<?>[types.size()]);
+    }
 }
@@ -99,6 +99,9 @@ import net.dv8tion.jda.core.events.user.*;
  *     }
  * }</code></pre>
  *
+ * <p>When registered to an {@link net.dv8tion.jda.core.hooks.InterfacedEventManager InterfacedEventManager},
+ * an adapter only receives the events for which it overrides at least one method.
+ *
  * @see net.dv8tion.jda.core.hooks.EventListener
  */
 public abstract class ListenerAdapter implements EventListener
@@ -0,0 +1,513 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.hooks;
+
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.events.Event;
+import net.dv8tion.jda.core.events.channel.text.GenericTextChannelEvent;
+import net.dv8tion.jda.core.events.channel.voice.GenericVoiceChannelEvent;
+import net.dv8tion.jda.core.events.emote.GenericEmoteEvent;
+import net.dv8tion.jda.core.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.core.events.message.GenericMessageEvent;
+import net.dv8tion.jda.core.events.role.GenericRoleEvent;
+import net.dv8tion.jda.core.events.user.GenericUserEvent;
+import net.dv8tion.jda.core.events.user.UserGameUpdateEvent;
+import net.dv8tion.jda.core.events.user.UserOnlineStatusUpdateEvent;
+import net.dv8tion.jda.core.events.user.UserTypingEvent;
+import org.apache.http.util.Args;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link net.dv8tion.jda.core.hooks.IEventManager IEventManager} implementation that hands events
+ * to a pool of worker threads instead of calling the listeners on the thread that reads the gateway.
+ * <br>A slow listener therefore no longer delays reading events and sending heartbeats.
+ *
+ * <p>The actual listener handling is done by a delegate manager, by default an
+ * {@link net.dv8tion.jda.core.hooks.InterfacedEventManager InterfacedEventManager}.
+ * Every worker owns a bounded queue (lane). Events are assigned to a lane by an ordering key,
+ * which is the Guild for all Guild related events and the channel or user otherwise.
+ * This means events of the same Guild or channel are always handled in the order they were received,
+ * while events of unrelated Guilds are handled in parallel.
+ * <br>Events without such a key (like {@link net.dv8tion.jda.core.events.ReadyEvent ReadyEvent}) share a single lane.
+ * There is no ordering guarantee between events of different keys.
+ *
+ * <p>The workers are daemon threads and are not stopped by {@link net.dv8tion.jda.core.JDA#shutdown() JDA.shutdown()}
+ * as a manager may be shared by multiple shards. Use {@link #shutdown()} once it is no longer needed.
+ * Events received after that are handled on the calling thread, once the worker of their lane handled all queued events.
+ *
+ * <p>When a lane is full the configured {@link BackpressurePolicy BackpressurePolicy} decides what happens.
+ * <br>Listeners registered to this manager may be called from multiple threads at the same time and
+ * have to be thread-safe.
+ *
+ * <p>Example
+ * <pre><code>
+ * JDA jda = new JDABuilder(AccountType.BOT)
+ *     .setEventManager(new ThreadedEventManager(4, 1000, ThreadedEventManager.BackpressurePolicy.BLOCK))
+ *     .addEventListener(new MyListener())
+ *     .buildAsync();
+ * </code></pre>
+ *
+ * @see net.dv8tion.jda.core.hooks.InterfacedEventManager
+ * @see net.dv8tion.jda.core.hooks.IEventManager
+ */
+public class ThreadedEventManager implements IEventManager
+{
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    /** Default maximum time in milliseconds the {@link BackpressurePolicy#BLOCK BLOCK} policy waits for space in a queue. */
+    public static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+
+    private static final AtomicInteger managerCount = new AtomicInteger();
+
+    protected final IEventManager delegate;
+    protected final BackpressurePolicy policy;
+    protected final Lane[] lanes;
+
+    protected final LongAdder handled = new LongAdder();
+    protected final LongAdder dropped = new LongAdder();
+    protected final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    protected volatile long blockTimeout = DEFAULT_BLOCK_TIMEOUT;
+    protected volatile boolean running = true;
+
+    /**
+     * Creates a new ThreadedEventManager with one worker per available processor,
+     * a queue capacity of {@value #DEFAULT_QUEUE_CAPACITY} per worker and the
+     * {@link BackpressurePolicy#BLOCK BLOCK} policy, which waits at most {@value #DEFAULT_BLOCK_TIMEOUT} milliseconds.
+     */
+    public ThreadedEventManager()
+    {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new ThreadedEventManager that uses an
+     * {@link net.dv8tion.jda.core.hooks.InterfacedEventManager InterfacedEventManager} to handle the events.
+     *
+     * @param  threads
+     *         The amount of worker threads
+     * @param  queueCapacity
+     *         The maximum amount of queued events per worker
+     * @param  policy
+     *         The {@link BackpressurePolicy BackpressurePolicy} to use when a queue is full
+     *
+     * @throws IllegalArgumentException
+     *         If the amount of threads or the capacity is not positive or the policy is null
+     */
+    public ThreadedEventManager(int threads, int queueCapacity, BackpressurePolicy policy)
+    {
+        this(new InterfacedEventManager(), threads, queueCapacity, policy);
+    }
+
+    /**
+     * Creates a new ThreadedEventManager that forwards events to the provided manager
+     * on its worker threads.
+     *
+     * @param  delegate
+     *         The {@link net.dv8tion.jda.core.hooks.IEventManager IEventManager} that calls the listeners,
+     *         for instance an {@link net.dv8tion.jda.core.hooks.AnnotatedEventManager AnnotatedEventManager}
+     * @param  threads
+     *         The amount of worker threads
+     * @param  queueCapacity
+     *         The maximum amount of queued events per worker
+     * @param  policy
+     *         The {@link BackpressurePolicy BackpressurePolicy} to use when a queue is full
+     *
+     * @throws IllegalArgumentException
+     *         If the delegate or policy is null or the amount of threads or the capacity is not positive
+     */
+    public ThreadedEventManager(IEventManager delegate, int threads, int queueCapacity, BackpressurePolicy policy)
+    {
+        Args.notNull(delegate, "Delegate");
+        Args.notNull(policy, "BackpressurePolicy");
+        Args.positive(threads, "Threads");
+        Args.positive(queueCapacity, "Queue capacity");
+        this.delegate = delegate;
+        this.policy = policy;
+        this.lanes = new Lane[threads];
+
+        final int id = managerCount.incrementAndGet();
+        for (int i = 0; i < threads; i++)
+        {
+            lanes[i] = new Lane(queueCapacity, "JDA EventManager " + id + " Worker " + i);
+            lanes[i].worker.start();
+        }
+    }
+
+    @Override
+    public void register(Object listener)
+    {
+        delegate.register(listener);
+    }
+
+    @Override
+    public void unregister(Object listener)
+    {
+        delegate.unregister(listener);
+    }
+
+    @Override
+    public List<Object> getRegisteredListeners()
+    {
+        return delegate.getRegisteredListeners();
+    }
+
+    @Override
+    public void handle(Event event)
+    {
+        Lane lane = lanes[getLaneIndex(getOrderingKey(event))];
+        //Events that arrive after shutdown (like the ShutdownEvent) are handled directly,
+        // but only after the worker of their lane handled the events queued before them
+        if (!running)
+        {
+            lane.awaitTermination();
+            lane.handle(event);
+            return;
+        }
+
+        if (lane.enqueue(event))
+        {
+            int depth = lane.queue.size();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+            //The worker might have terminated between the check above and the enqueue
+            if (!running)
+            {
+                lane.awaitTermination();
+                lane.drain();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new events for the worker threads. Events that are already queued are still handled,
+     * afterwards the workers terminate. Events handled after this call are dispatched on the calling thread
+     * once the worker of their lane terminated.
+     */
+    public void shutdown()
+    {
+        running = false;
+    }
+
+    /**
+     * The maximum time the {@link BackpressurePolicy#BLOCK BLOCK} policy waits for space in a full queue.
+     * <br>The event is dropped and counted by {@link #getDroppedEventCount()} if the queue is still full afterwards.
+     * Default is {@value #DEFAULT_BLOCK_TIMEOUT} milliseconds.
+     *
+     * @param  timeout
+     *         The maximum time to wait, {@code 0} to drop the event right away
+     * @param  unit
+     *         The unit of the timeout
+     *
+     * @throws IllegalArgumentException
+     *         If the timeout is negative or the unit is null
+     */
+    public void setBlockTimeout(long timeout, TimeUnit unit)
+    {
+        Args.notNegative(timeout, "Timeout");
+        Args.notNull(unit, "TimeUnit");
+        this.blockTimeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * The maximum time in milliseconds the {@link BackpressurePolicy#BLOCK BLOCK} policy waits for space in a full queue.
+     *
+     * @return The block timeout in milliseconds
+     */
+    public long getBlockTimeout()
+    {
+        return blockTimeout;
+    }
+
+    /**
+     * The {@link BackpressurePolicy BackpressurePolicy} used by this manager.
+     *
+     * @return The BackpressurePolicy
+     */
+    public BackpressurePolicy getBackpressurePolicy()
+    {
+        return policy;
+    }
+
+    /**
+     * The amount of worker threads (and therefore queues) of this manager.
+     *
+     * @return The amount of workers
+     */
+    public int getWorkerCount()
+    {
+        return lanes.length;
+    }
+
+    /**
+     * The amount of events currently waiting to be handled across all queues.
+     *
+     * @return The current queue depth
+     */
+    public int getQueueDepth()
+    {
+        int depth = 0;
+        for (Lane lane : lanes)
+            depth += lane.queue.size();
+        return depth;
+    }
+
+    /**
+     * The amount of events currently waiting in the queue of the specified worker.
+     *
+     * @param  worker
+     *         The index of the worker, between 0 and {@link #getWorkerCount()} - 1
+     *
+     * @throws IndexOutOfBoundsException
+     *         If the index is out of range
+     *
+     * @return The queue depth of the worker
+     */
+    public int getQueueDepth(int worker)
+    {
+        return lanes[worker].queue.size();
+    }
+
+    /**
+     * The highest queue depth any single worker has reached.
+     *
+     * @return The maximum queue depth
+     */
+    public int getMaxQueueDepth()
+    {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * The amount of events that have been passed to the delegate manager.
+     *
+     * @return The amount of handled events
+     */
+    public long getHandledEventCount()
+    {
+        return handled.sum();
+    }
+
+    /**
+     * The amount of events that were discarded due to the {@link BackpressurePolicy BackpressurePolicy}.
+     *
+     * @return The amount of dropped events
+     */
+    public long getDroppedEventCount()
+    {
+        return dropped.sum();
+    }
+
+    /**
+     * The key used to decide which worker handles the provided event.
+     * <br>Events with the same key are always handled by the same worker in order.
+     *
+     * <p>By default this is the id of the Guild for Guild related events, the id of the channel for
+     * messages and typing in private channels and the id of the User for other User events.
+     * All remaining events use {@code 0}.
+     *
+     * @param  event
+     *         The event
+     *
+     * @return The ordering key
+     */
+    protected long getOrderingKey(Event event)
+    {
+        Guild guild = null;
+        if (event instanceof GenericGuildEvent)
+            guild = ((GenericGuildEvent) event).getGuild();
+        else if (event instanceof GenericTextChannelEvent)
+            guild = ((GenericTextChannelEvent) event).getGuild();
+        else if (event instanceof GenericVoiceChannelEvent)
+            guild = ((GenericVoiceChannelEvent) event).getGuild();
+        else if (event instanceof GenericRoleEvent)
+            guild = ((GenericRoleEvent) event).getGuild();
+        else if (event instanceof GenericEmoteEvent)
+            guild = ((GenericEmoteEvent) event).getGuild();
+        else if (event instanceof GenericMessageEvent)
+            return getChannelKey(((GenericMessageEvent) event).getChannel());
+        else if (event instanceof UserTypingEvent)
+            return getChannelKey(((UserTypingEvent) event).getChannel());
+        else if (event instanceof UserGameUpdateEvent)
+            guild = ((UserGameUpdateEvent) event).getGuild();
+        else if (event instanceof UserOnlineStatusUpdateEvent)
+            guild = ((UserOnlineStatusUpdateEvent) event).getGuild();
+
+        if (guild != null)
+            return guild.getIdLong();
+        if (event instanceof GenericUserEvent)
+            return ((GenericUserEvent) event).getUser().getIdLong();
+        return 0;
+    }
+
+    protected long getChannelKey(MessageChannel channel)
+    {
+        if (channel == null)
+            return 0;
+        //Keep guild channels on the guild key so they stay ordered with the other events of that guild
+        if (channel instanceof TextChannel)
+            return ((TextChannel) channel).getGuild().getIdLong();
+        return channel.getIdLong();
+    }
+
+    protected int getLaneIndex(long key)
+    {
+        //The lower bits of snowflakes are not well distributed, spread the hash first
+        int hash = Long.hashCode(key) * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * Decides what happens when an event is received while the queue of its worker is full.
+     * <br>All policies keep the order of the events that are handled.
+     */
+    public enum BackpressurePolicy
+    {
+        /**
+         * Blocks the thread that received the event until there is space in the queue, but at most for the
+         * {@link #setBlockTimeout(long, TimeUnit) block timeout}. Afterwards the new event is discarded.
+         * <br>No events are lost as long as the workers keep up, but a full queue delays reading from the gateway.
+         */
+        BLOCK,
+        /**
+         * Discards the new event.
+         */
+        DROP_NEWEST,
+        /**
+         * Discards the oldest queued event of the worker to make room for the new one.
+         */
+        DROP_OLDEST
+    }
+
+    protected class Lane implements Runnable
+    {
+        protected final BlockingQueue<Event> queue;
+        protected final Thread worker;
+
+        protected Lane(int capacity, String name)
+        {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = new Thread(this, name);
+            this.worker.setDaemon(true);
+        }
+
+        protected boolean enqueue(Event event)
+        {
+            switch (policy)
+            {
+                case BLOCK:
+                    try
+                    {
+                        if (queue.offer(event, blockTimeout, TimeUnit.MILLISECONDS))
+                            return true;
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                case DROP_OLDEST:
+                    while (!queue.offer(event))
+                    {
+                        if (queue.poll() != null)
+                            dropped.increment();
+                    }
+                    return true;
+                case DROP_NEWEST:
+                    if (queue.offer(event))
+                        return true;
+                    break;
+            }
+            dropped.increment();
+            JDAImpl.LOG.debug(() -> "Dropped " + event.getClass().getSimpleName() + " because the event queue is full");
+            return false;
+        }
+
+        /**
+         * Waits until the worker handled all queued events and terminated after {@link #shutdown()}.
+         * <br>Returns right away when called by the worker itself, for instance by a listener that shuts down JDA.
+         */
+        protected void awaitTermination()
+        {
+            if (Thread.currentThread() == worker)
+                return;
+            try
+            {
+                worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        protected void drain()
+        {
+            Event event;
+            while ((event = queue.poll()) != null)
+                handle(event);
+        }
+
+        protected void handle(Event event)
+        {
+            try
+            {
+                delegate.handle(event);
+            }
+            catch (Throwable throwable)
+            {
+                JDAImpl.LOG.fatal("The delegate EventManager had an uncaught exception");
+                JDAImpl.LOG.log(throwable);
+            }
+            handled.increment();
+        }
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                Event event;
+                try
+                {
+                    event = queue.poll(1, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    continue;
+                }
+
+                if (event == null)
+                {
+                    if (!running)
+                        break;
+                    continue;
+                }
+
+                handle(event);
+            }
+        }
+    }
+}
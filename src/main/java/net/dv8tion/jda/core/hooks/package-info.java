@@ -28,6 +28,9 @@
  * <p>The {@link net.dv8tion.jda.core.hooks.AnnotatedEventManager AnnotatedEventManager}
  * can forward events directly to methods that have the {@link net.dv8tion.jda.core.hooks.SubscribeEvent SubscribeEvent} annotation.
  *
+ * <p>The {@link net.dv8tion.jda.core.hooks.ThreadedEventManager ThreadedEventManager} wraps either of them and
+ * handles events on a pool of worker threads instead of the thread reading the gateway.
+ *
  * <p><b>Note: All of the standard EventManager implementations are synchronized</b>
  */
 package net.dv8tion.jda.core.hooks;
@@ -17,72 +17,344 @@ package net.dv8tion.jda.core.requests;
 
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
-import gnu.trove.set.TLongSet;
-import gnu.trove.set.hash.TLongHashSet;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.utils.SimpleLog;
 import org.json.JSONObject;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Holds back events of Guilds that are not completely loaded yet (waiting for member chunks or guild sync).
+ *
+ * <p>Queued events are bounded per Guild and globally. Events that exceed these bounds or that have been waiting
+ * for longer than {@link #MAX_EVENT_AGE} are dropped and counted in the metrics of this lock.
+ *
+ * <p>Unlocking a Guild does not replay all of its events at once. The Guild stays locked while its events are
+ * replayed in batches of {@link #REPLAY_BATCH_SIZE} in between incoming gateway messages (see {@link #replay()}),
+ * so new events of that Guild keep being queued behind the old ones and the order is preserved.
+ * <br>While a backlog remains, the next batch is also scheduled on the JDA pool, so a quiet connection
+ * does not have to wait for the next gateway message to make progress.
+ */
 public class GuildLock
 {
     public static final SimpleLog LOG = SimpleLog.getLog("JDAGuildLock");
 
+    /** Maximum amount of events queued for a single Guild. */
+    public static final int MAX_QUEUED_PER_GUILD = 10000;
+    /** Maximum amount of events queued for all Guilds. */
+    public static final int MAX_QUEUED = 100000;
+    /** Queued events older than this (in milliseconds) are dropped. */
+    public static final long MAX_EVENT_AGE = TimeUnit.MINUTES.toMillis(10);
+    /** Maximum amount of events replayed per call of {@link #replay()}. */
+    public static final int REPLAY_BATCH_SIZE = 100;
+
+    protected static final long EXPIRY_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+
     private final JDA api;
-    private final TLongObjectMap<List<JSONObject>> cache = new TLongObjectHashMap<>();
-    private final TLongSet cached = new TLongHashSet();
+    private final TLongObjectMap<GuildQueue> locked = new TLongObjectHashMap<>();
+    // Unlocked guilds that still have events to replay, in order of unlocking
+    private final ArrayDeque<GuildQueue> replayQueue = new ArrayDeque<>();
+
+    private int queued = 0;
+    private long dropped = 0;
+    private long expired = 0;
+    private long nextExpiry = System.nanoTime() + EXPIRY_INTERVAL;
 
-    public boolean isLocked(long guildId)
+    // Guild that is currently being replayed. Its events have to be handled instead of queued again.
+    private Thread replayThread = null;
+    private long replayGuild = 0;
+    private boolean replayScheduled = false;
+
+    public GuildLock(JDA api)
     {
-        return cached.contains(guildId);
+        this.api = api;
+    }
+
+    public synchronized boolean isLocked(long guildId)
+    {
+        if (replayThread == Thread.currentThread() && replayGuild == guildId)
+            return false;
+        return locked.containsKey(guildId);
+    }
+
+    public synchronized void lock(long guildId)
+    {
+        GuildQueue guild = locked.get(guildId);
+        if (guild == null)
+            locked.put(guildId, new GuildQueue(guildId));
+        else
+            guild.unlocked = false; //Events that were not replayed yet stay in front of the new ones
+    }
+
+    public void unlock(long guildId)
+    {
+        synchronized (this)
+        {
+            GuildQueue guild = locked.get(guildId);
+            if (guild == null || guild.unlocked)
+                return;
+
+            if (guild.dropped > 0)
+                LOG.warn("Dropped " + guild.dropped + " events while guild with id " + guildId + " was locked");
+            if (guild.events.isEmpty())
+            {
+                locked.remove(guildId);
+                return;
+            }
+
+            LOG.debug("Replaying " + guild.events.size() + " events for unlocked guild with id " + guildId);
+            guild.unlocked = true;
+            guild.dropped = 0;
+            if (!guild.replaying)
+            {
+                guild.replaying = true;
+                replayQueue.addLast(guild);
+            }
+        }
+        replay();
     }
 
-    public void lock(long guildId)
+    public synchronized void queue(long guildId, JSONObject event)
     {
         if (!isLocked(guildId))
+            return;
+
+        final long now = System.nanoTime();
+        if (now - nextExpiry >= 0)
+            expire(now);
+
+        GuildQueue guild = locked.get(guildId);
+        if (guild.events.size() >= MAX_QUEUED_PER_GUILD || queued >= MAX_QUEUED)
         {
-            cached.add(guildId);
-            cache.put(guildId, new LinkedList<>());
+            if (guild.dropped++ == 0)
+                LOG.warn("Too many events queued for locked guild with id " + guildId + ", dropping further events");
+            dropped++;
+            return;
         }
+
+        LOG.trace(() -> "Queueing up event for guild with id " + guildId + ": " + event);
+        guild.events.addLast(new QueuedEvent(event, now));
+        queued++;
     }
 
-    public void unlock(long guildId)
+    /**
+     * Replays the next batch of events of unlocked Guilds.
+     * <br>Called by the reading thread of the gateway connection after each message, so large backlogs are spread
+     * over several messages instead of blocking the connection. If events are left afterwards, the next batch is
+     * scheduled on the JDA pool where it runs in between gateway messages as well.
+     */
+    public void replay()
+    {
+        replayBatch();
+
+        synchronized (this)
+        {
+            if (replayScheduled || replayThread != null || replayQueue.isEmpty())
+                return;
+            replayScheduled = true;
+        }
+        try
+        {
+            ((JDAImpl) api).pool.execute(() ->
+            {
+                synchronized (this)
+                {
+                    replayScheduled = false;
+                }
+                WebSocketClient client = ((JDAImpl) api).getClient();
+                if (client != null)
+                    client.runLocked(this::replay);
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            //JDA is shutting down, there is nothing left to replay to
+            synchronized (this)
+            {
+                replayScheduled = false;
+            }
+        }
+    }
+
+    private void replayBatch()
     {
-        if (isLocked(guildId))
+        int budget = REPLAY_BATCH_SIZE;
+        while (budget > 0)
         {
-            cached.remove(guildId);
-            List<JSONObject> events = cache.remove(guildId);
-            if(events.size() > 0)
+            List<JSONObject> batch;
+            synchronized (this)
             {
-                LOG.debug("Replaying " + events.size() + " events for unlocked guild with id " + guildId);
-                ((JDAImpl) api).getClient().handle(events);
-                LOG.debug("Finished replaying events for guild with id " + guildId);
+                //Events replayed right now may unlock other guilds, those are handled by this loop
+                if (replayThread != null)
+                    return;
+                GuildQueue guild = replayQueue.peekFirst();
+                if (guild == null)
+                    return;
+                if (!guild.unlocked)
+                {
+                    //Locked again before it was fully replayed
+                    replayQueue.pollFirst();
+                    guild.replaying = false;
+                    continue;
+                }
+
+                int size = Math.min(budget, guild.events.size());
+                batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    batch.add(guild.events.pollFirst().event);
+                queued -= size;
+                budget -= size;
+
+                if (guild.events.isEmpty())
+                {
+                    replayQueue.pollFirst();
+                    guild.replaying = false;
+                    locked.remove(guild.guildId);
+                    LOG.debug("Finished replaying events for guild with id " + guild.guildId);
+                }
+                replayThread = Thread.currentThread();
+                replayGuild = guild.guildId;
+            }
+
+            try
+            {
+                ((JDAImpl) api).getClient().handle(batch);
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    replayThread = null;
+                }
             }
         }
     }
 
-    public void queue(long guildId, JSONObject event)
+    public synchronized void clear()
+    {
+        locked.clear();
+        replayQueue.clear();
+        queued = 0;
+    }
+
+    /**
+     * The amount of Guilds that are currently locked, including Guilds that are still replaying their events.
+     *
+     * @return The amount of locked Guilds
+     */
+    public synchronized int getLockedCount()
+    {
+        return locked.size();
+    }
+
+    /**
+     * The amount of events currently queued for all Guilds.
+     *
+     * @return The amount of queued events
+     */
+    public synchronized int getQueuedCount()
+    {
+        return queued;
+    }
+
+    /**
+     * The amount of events currently queued for the specified Guild.
+     *
+     * @param  guildId
+     *         The id of the Guild
+     *
+     * @return The amount of queued events, {@code 0} if the Guild is not locked
+     */
+    public synchronized int getQueuedCount(long guildId)
+    {
+        GuildQueue guild = locked.get(guildId);
+        return guild == null ? 0 : guild.events.size();
+    }
+
+    /**
+     * The amount of events of already unlocked Guilds that are still waiting to be replayed.
+     *
+     * @return The replay backlog
+     */
+    public synchronized int getReplayBacklog()
     {
-        if (isLocked(guildId))
+        int backlog = 0;
+        for (GuildQueue guild : replayQueue)
+            backlog += guild.events.size();
+        return backlog;
+    }
+
+    /**
+     * The total amount of events that were dropped because a Guild or this lock was full.
+     *
+     * @return The amount of dropped events
+     */
+    public synchronized long getDroppedCount()
+    {
+        return dropped;
+    }
+
+    /**
+     * The total amount of events that were dropped because they were queued for longer than {@link #MAX_EVENT_AGE}.
+     *
+     * @return The amount of expired events
+     */
+    public synchronized long getExpiredCount()
+    {
+        return expired;
+    }
+
+    private void expire(long now)
+    {
+        nextExpiry = now + EXPIRY_INTERVAL;
+        final long maxAge = TimeUnit.MILLISECONDS.toNanos(MAX_EVENT_AGE);
+        for (GuildQueue guild : locked.valueCollection())
         {
-            LOG.debug("Queueing up event for guild with id " + guildId + ": " + event.toString());
-            cache.get(guildId).add(event);
+            if (guild.unlocked)
+                continue;
+            int count = 0;
+            while (!guild.events.isEmpty() && now - guild.events.peekFirst().time >= maxAge)
+            {
+                guild.events.pollFirst();
+                count++;
+            }
+            if (count > 0)
+            {
+                queued -= count;
+                expired += count;
+                LOG.warn("Dropped " + count + " expired events of guild with id " + guild.guildId + " that has been locked for too long");
+            }
         }
     }
 
-    public void clear()
+    private static class GuildQueue
     {
-        cache.clear();
-        cached.clear();
+        private final long guildId;
+        private final ArrayDeque<QueuedEvent> events = new ArrayDeque<>();
+        private boolean unlocked = false;
+        private boolean replaying = false;
+        private int dropped = 0;
+
+        private GuildQueue(long guildId)
+        {
+            this.guildId = guildId;
+        }
     }
 
-    public GuildLock(JDA api)
+    private static class QueuedEvent
     {
-        this.api = api;
+        private final JSONObject event;
+        private final long time;
+
+        private QueuedEvent(JSONObject event, long time)
+        {
+            this.event = event;
+            this.time = time;
+        }
     }
 }
@@ -0,0 +1,385 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.util.Args;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streaming {@code multipart/form-data} body for file uploads.
+ *
+ * <p>The file is never loaded into memory as a whole, it is copied to the connection through a bounded buffer of
+ * {@link #BUFFER_SIZE} bytes when the request is sent.
+ * <br>Uploads of a {@link java.io.File File} or {@code byte[]} have a known length and can be repeated if the request
+ * has to be retried. Uploads of an {@link java.io.InputStream InputStream} are sent with chunked transfer encoding
+ * and can only be sent once. If such a request is rate limited and has to be retried, it fails with an
+ * {@link java.io.IOException IOException} instead of sending the remaining content of the stream.
+ *
+ * <p>Progress of the upload can be tracked with an {@link net.dv8tion.jda.core.requests.UploadProgressListener UploadProgressListener}.
+ */
+public class MultipartUpload
+{
+    /** Size of the buffer used to copy the file to the connection. */
+    public static final int BUFFER_SIZE = 16 * 1024;
+
+    protected final File file;
+    protected final InputStream stream;
+    protected final byte[] data;
+    protected final String fileName;
+    protected final String boundary;
+    protected final String payloadJson;
+
+    // Set once the content of the InputStream was read, shared with the copies of this upload
+    protected final AtomicBoolean consumed;
+
+    protected UploadProgressListener listener;
+
+    protected MultipartUpload(File file, InputStream stream, byte[] data, String fileName)
+    {
+        this(file, stream, data, fileName, null, new AtomicBoolean());
+    }
+
+    protected MultipartUpload(File file, InputStream stream, byte[] data, String fileName, String payloadJson, AtomicBoolean consumed)
+    {
+        Args.notNull(fileName, "fileName");
+        this.file = file;
+        this.stream = stream;
+        this.data = data;
+        this.fileName = fileName;
+        this.payloadJson = payloadJson;
+        this.consumed = consumed;
+        this.boundary = "JDA" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                              + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates an upload that streams the content of the provided file.
+     *
+     * @param  file
+     *         The file to upload
+     * @param  fileName
+     *         The name that should be sent to discord
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If any of the provided arguments is {@code null} or the file does not exist or is not readable
+     *
+     * @return The new MultipartUpload
+     */
+    public static MultipartUpload of(File file, String fileName)
+    {
+        Args.notNull(file, "file");
+        Args.check(file.exists() && file.canRead(),
+            "Provided file is either null, doesn't exist or is not readable!");
+        return new MultipartUpload(file, null, null, fileName);
+    }
+
+    /**
+     * Creates an upload that streams the content of the provided InputStream.
+     * <br>The stream is read when the request is sent and closed afterwards.
+     *
+     * @param  data
+     *         The InputStream to upload
+     * @param  fileName
+     *         The name that should be sent to discord
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If any of the provided arguments is {@code null}
+     *
+     * @return The new MultipartUpload
+     */
+    public static MultipartUpload of(InputStream data, String fileName)
+    {
+        Args.notNull(data, "data InputStream");
+        return new MultipartUpload(null, data, null, fileName);
+    }
+
+    /**
+     * Creates an upload of the provided data.
+     *
+     * @param  data
+     *         The data to upload
+     * @param  fileName
+     *         The name that should be sent to discord
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If any of the provided arguments is {@code null}
+     *
+     * @return The new MultipartUpload
+     */
+    public static MultipartUpload of(byte[] data, String fileName)
+    {
+        Args.notNull(data, "file data[]");
+        return new MultipartUpload(null, null, data, fileName);
+    }
+
+    /**
+     * Creates a copy of this upload with the provided {@code payload_json} part, containing the message sent along with the file.
+     * <br>This upload is not modified, so it can be sent again with a different message. The copy shares the file
+     * content and the {@link #setProgressListener(UploadProgressListener) progress listener} of this upload.
+     *
+     * @param  payloadJson
+     *         The json of the message, or {@code null} to only upload the file
+     *
+     * @return The new MultipartUpload
+     */
+    public MultipartUpload withPayloadJson(String payloadJson)
+    {
+        MultipartUpload upload = new MultipartUpload(file, stream, data, fileName, payloadJson, consumed);
+        upload.listener = listener;
+        return upload;
+    }
+
+    /**
+     * Sets the listener that is notified about the progress of this upload.
+     *
+     * @param  listener
+     *         The listener, or {@code null} to remove it
+     *
+     * @return The current MultipartUpload, useful for chaining
+     */
+    public MultipartUpload setProgressListener(UploadProgressListener listener)
+    {
+        this.listener = listener;
+        return this;
+    }
+
+    public String getFileName()
+    {
+        return fileName;
+    }
+
+    /**
+     * The size of the uploaded file.
+     *
+     * @return The size in bytes, or {@code -1} if the upload is read from an InputStream
+     */
+    public long getFileLength()
+    {
+        if (file != null)
+            return file.length();
+        if (data != null)
+            return data.length;
+        return -1;
+    }
+
+    public boolean isRepeatable()
+    {
+        return stream == null;
+    }
+
+    /**
+     * Creates the entity that is sent as the body of the request.
+     *
+     * @return The HttpEntity of this upload
+     */
+    public HttpEntity createEntity()
+    {
+        return new Entity();
+    }
+
+    protected byte[] createHead()
+    {
+        StringBuilder head = new StringBuilder();
+        if (payloadJson != null)
+        {
+            head.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"payload_json\"\r\n")
+                .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                .append(payloadJson).append("\r\n");
+        }
+        head.append("--").append(boundary).append("\r\n")
+            .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(escape(fileName)).append("\"\r\n")
+            .append("Content-Type: application/octet-stream\r\n\r\n");
+        return head.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected byte[] createTail()
+    {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected static String escape(String fileName)
+    {
+        return fileName.replace("\r", "").replace("\n", "").replace("\"", "%22");
+    }
+
+    protected class Entity extends AbstractHttpEntity
+    {
+        protected final byte[] head = createHead();
+        protected final byte[] tail = createTail();
+        protected final long length;
+
+        protected Entity()
+        {
+            setContentType("multipart/form-data; boundary=" + boundary);
+            setChunked(stream != null);
+            long fileLength = getFileLength();
+            length = fileLength < 0 ? -1 : head.length + fileLength + tail.length;
+        }
+
+        @Override
+        public boolean isRepeatable()
+        {
+            return MultipartUpload.this.isRepeatable();
+        }
+
+        @Override
+        public long getContentLength()
+        {
+            return length;
+        }
+
+        @Override
+        public boolean isStreaming()
+        {
+            return stream != null;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException
+        {
+            checkConsumed();
+            //Used by the asynchronous transport, which pulls the body instead of writing it to a stream
+            InputStream content = new SequenceInputStream(new ByteArrayInputStream(head),
+                    new SequenceInputStream(openFile(), new ByteArrayInputStream(tail)));
+            return new ProgressInputStream(content, length);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException
+        {
+            Args.notNull(out, "Output stream");
+            checkConsumed();
+            long sent = 0;
+            out.write(head);
+            sent += head.length;
+            progress(sent, length);
+
+            if (file != null)
+            {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+                {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                    int read;
+                    while ((read = channel.read(wrapped)) != -1)
+                    {
+                        out.write(buffer, 0, read);
+                        wrapped.clear();
+                        sent += read;
+                        progress(sent, length);
+                    }
+                }
+            }
+            else if (data != null)
+            {
+                for (int offset = 0; offset < data.length; offset += BUFFER_SIZE)
+                {
+                    int count = Math.min(BUFFER_SIZE, data.length - offset);
+                    out.write(data, offset, count);
+                    sent += count;
+                    progress(sent, length);
+                }
+            }
+            else
+            {
+                try (InputStream in = stream)
+                {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = in.read(buffer)) != -1)
+                    {
+                        out.write(buffer, 0, read);
+                        sent += read;
+                        progress(sent, length);
+                    }
+                }
+            }
+
+            out.write(tail);
+            sent += tail.length;
+            out.flush();
+            progress(sent, length);
+        }
+
+        protected void checkConsumed() throws IOException
+        {
+            if (stream == null)
+                return;
+            if (consumed.getAndSet(true))
+                throw new IOException("The InputStream of this upload was already sent and can not be sent again");
+        }
+
+        protected InputStream openFile() throws IOException
+        {
+            if (file != null)
+                return new FileInputStream(file);
+            if (data != null)
+                return new ByteArrayInputStream(data);
+            return stream;
+        }
+    }
+
+    protected void progress(long sent, long total)
+    {
+        UploadProgressListener listener = this.listener;
+        if (listener != null)
+            listener.onProgress(sent, total);
+    }
+
+    protected class ProgressInputStream extends FilterInputStream
+    {
+        protected final long total;
+        protected long sent = 0;
+
+        protected ProgressInputStream(InputStream in, long total)
+        {
+            super(in);
+            this.total = total;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = super.read();
+            if (read != -1)
+                progress(++sent, total);
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int read = super.read(b, off, len);
+            if (read > 0)
+            {
+                sent += read;
+                progress(sent, total);
+            }
+            return read;
+        }
+    }
+}
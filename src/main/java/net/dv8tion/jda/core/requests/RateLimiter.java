@@ -18,14 +18,18 @@ package net.dv8tion.jda.core.requests;
 
 import com.mashape.unirest.http.HttpResponse;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.events.ExceptionEvent;
 import net.dv8tion.jda.core.requests.Route.CompiledRoute;
 import net.dv8tion.jda.core.requests.ratelimit.IBucket;
+import net.dv8tion.jda.core.utils.MiscUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public abstract class RateLimiter
 {
@@ -34,20 +38,26 @@ public abstract class RateLimiter
     protected final Requester requester;
     protected final ScheduledExecutorService pool;
     protected volatile boolean isShutdown;
+    // Amount of Requesters using this RateLimiter, see retain()
+    protected final AtomicInteger users = new AtomicInteger(1);
     protected volatile ConcurrentHashMap<String, IBucket> buckets = new ConcurrentHashMap<>();
     protected volatile ConcurrentLinkedQueue<IBucket> submittedBuckets = new ConcurrentLinkedQueue<>();
+    // Name of the pool threads and handler of internal errors, see setShared(...)
+    protected volatile String identifier;
+    protected volatile Consumer<Throwable> errorHandler;
 
     protected RateLimiter(Requester requester, int poolSize)
     {
         this.requester = requester;
         this.isShutdown = false;
-        this.pool = Executors.newScheduledThreadPool(poolSize, new RateLimitThreadFactory(requester.getJDA()));
+        this.identifier = requester.getJDA().getIdentifierString();
+        this.pool = Executors.newScheduledThreadPool(poolSize, new RateLimitThreadFactory());
     }
 
 
     // -- Required Implementations --
     public abstract Long getRateLimit(CompiledRoute route);
-    protected abstract void queueRequest(Request request);
+    protected abstract void queueRequest(Request<?> request);
     protected abstract Long handleResponse(CompiledRoute route, HttpResponse<String> response);
 
 
@@ -74,6 +84,164 @@ public abstract class RateLimiter
         }
     }
 
+    /**
+     * Executes the requests of the provided queue in order until the queue is empty or a request
+     * was rate limited. Afterwards {@code onFinish} is run.
+     * <br>The provided queue must only be processed by one thread at a time.
+     *
+     * <p>If the {@link net.dv8tion.jda.core.requests.Requester Requester} sends its requests asynchronously
+     * this returns as soon as a request is in flight. Processing then continues on the thread that completes it.
+     *
+     * @param requests
+     *        The queue of a bucket
+     * @param onFinish
+     *        Called once this stops processing the queue
+     */
+    protected void runQueue(Queue<Request<?>> requests, Runnable onFinish)
+    {
+        Request<?> request;
+        while ((request = requests.peek()) != null)
+        {
+            CompletableFuture<Long> future;
+            try
+            {
+                //Shared RateLimiters execute requests of multiple JDA instances
+                future = ((JDAImpl) request.getRestAction().getJDA()).getRequester().execute(request);
+            }
+            catch (Throwable t)
+            {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(t);
+            }
+
+            if (!future.isDone())
+            {
+                final Request<?> current = request;
+                future.whenComplete((retryAfter, t) ->
+                {
+                    try
+                    {
+                        if (handleResult(requests, current, retryAfter, t))
+                            runQueue(requests, onFinish);
+                        else
+                            onFinish.run();
+                    }
+                    catch (Throwable err)
+                    {
+                        handleInternalError(err);
+                    }
+                });
+                return;
+            }
+
+            Long retryAfter = null;
+            Throwable failure = null;
+            try
+            {
+                retryAfter = future.join();
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+
+            if (!handleResult(requests, request, retryAfter, failure))
+                break;
+        }
+        onFinish.run();
+    }
+
+    private boolean handleResult(Queue<Request<?>> requests, Request<?> request, Long retryAfter, Throwable failure)
+    {
+        failure = MiscUtil.unwrapCompletion(failure);
+
+        if (failure != null)
+        {
+            Requester.LOG.fatal("Requester system encountered an internal error");
+            Requester.LOG.log(failure);
+            requests.poll();
+            request.onFailure(failure);
+            return true;
+        }
+
+        if (retryAfter != null)
+            return false;
+
+        requests.poll();
+        return true;
+    }
+
+    protected void handleInternalError(Throwable err)
+    {
+        Requester.LOG.fatal("Requester system encountered an internal error from beyond the request execution. NOT GOOD!");
+        Requester.LOG.log(err);
+        if (err instanceof Error)
+        {
+            Consumer<Throwable> handler = errorHandler;
+            if (handler != null)
+            {
+                handler.accept(err);
+                return;
+            }
+            JDAImpl api = requester.getJDA();
+            api.getEventManager().handle(new ExceptionEvent(api, err, true));
+        }
+    }
+
+    /**
+     * Configures this RateLimiter to be used by multiple {@link net.dv8tion.jda.core.requests.Requester Requesters}.
+     * <br>The threads of the pool are named after the provided identifier instead of the JDA instance that created
+     * this RateLimiter, and internal errors are passed to the provided handler instead of being fired as an
+     * {@link net.dv8tion.jda.core.events.ExceptionEvent ExceptionEvent} on that instance, which might have been
+     * shutdown while others still use this RateLimiter.
+     * <br>Has to be called before the first request is queued, threads that were already started keep their name.
+     *
+     * @param identifier
+     *        The identifier used in the names of the pool threads
+     * @param errorHandler
+     *        Handles internal errors, or {@code null} to fire them on the JDA instance that created this RateLimiter
+     */
+    public void setShared(String identifier, Consumer<Throwable> errorHandler)
+    {
+        this.identifier = identifier;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Registers another {@link net.dv8tion.jda.core.requests.Requester Requester} that uses this RateLimiter.
+     * <br>A RateLimiter that is shared by multiple Requesters is only shutdown once all of them
+     * {@link #release() released} it. This is used to share the rate limits of a token between multiple shards.
+     *
+     * @return True, if this RateLimiter can be used. False, if it was already shutdown and a new one has to be created
+     */
+    public boolean retain()
+    {
+        int current;
+        do
+        {
+            current = users.get();
+            if (current <= 0 || isShutdown)
+                return false;
+        }
+        while (!users.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Called by a {@link net.dv8tion.jda.core.requests.Requester Requester} that stopped using this RateLimiter.
+     * <br>Shuts this RateLimiter down once the last user released it.
+     */
+    protected void release()
+    {
+        if (users.decrementAndGet() <= 0)
+            shutdown();
+    }
+
+    public boolean isShutdown()
+    {
+        return isShutdown;
+    }
+
     protected void shutdown()
     {
         isShutdown = true;
@@ -83,18 +251,12 @@ public abstract class RateLimiter
 
     private class RateLimitThreadFactory implements ThreadFactory
     {
-        final String identifier;
         AtomicInteger threadCount = new AtomicInteger(1);
 
-        public RateLimitThreadFactory(JDAImpl api)
-        {
-            identifier = api.getIdentifierString() + " RateLimit-Queue Pool";
-        }
-
         @Override
         public Thread newThread(Runnable r)
         {
-            Thread t = new Thread(r, identifier + " - Thread " + threadCount.getAndIncrement());
+            Thread t = new Thread(r, identifier + " RateLimit-Queue Pool - Thread " + threadCount.getAndIncrement());
             t.setDaemon(true);
 
             return t;
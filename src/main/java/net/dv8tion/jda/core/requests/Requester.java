@@ -16,24 +16,31 @@
 
 package net.dv8tion.jda.core.requests;
 
+import com.mashape.unirest.http.HttpMethod;
 import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.async.Callback;
 import com.mashape.unirest.http.exceptions.UnirestException;
-import com.mashape.unirest.request.BaseRequest;
-import com.mashape.unirest.request.GetRequest;
-import com.mashape.unirest.request.HttpRequest;
 import com.mashape.unirest.request.body.MultipartBody;
 import net.dv8tion.jda.core.AccountType;
 import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.JDAInfo;
 import net.dv8tion.jda.core.entities.impl.JDAImpl;
 import net.dv8tion.jda.core.requests.Route.CompiledRoute;
-import net.dv8tion.jda.core.requests.ratelimit.BotRateLimiter;
-import net.dv8tion.jda.core.requests.ratelimit.ClientRateLimiter;
+import net.dv8tion.jda.core.requests.executor.AsyncRequestExecutor;
+import net.dv8tion.jda.core.requests.executor.BlockingRequestExecutor;
+import net.dv8tion.jda.core.requests.executor.IRequestExecutor;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import net.dv8tion.jda.core.utils.MiscUtil;
 import net.dv8tion.jda.core.utils.SimpleLog;
+import org.apache.http.Header;
+import org.apache.http.client.methods.*;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class Requester
 {
@@ -43,6 +50,10 @@ public class Requester
 
     private final JDAImpl api;
     private final RateLimiter rateLimiter;
+    private final IRestTransport transport;
+    private final IRequestExecutor executor;
+    private volatile HeaderTemplate headerTemplate;
+    private volatile boolean isShutdown = false;
 
     public Requester(JDA api)
     {
@@ -55,10 +66,12 @@ public class Requester
             throw new NullPointerException("Provided accountType was null!");
 
         this.api = (JDAImpl) api;
-        if (accountType == AccountType.BOT)
-            rateLimiter = new BotRateLimiter(this, 5);
+        this.transport = this.api.getRestTransport();
+        this.rateLimiter = this.api.getRateLimiterFactory().createRateLimiter(this, accountType);
+        if (this.api.isAsyncRequestsEnabled())
+            this.executor = new AsyncRequestExecutor(transport, rateLimiter.pool);
         else
-            rateLimiter = new ClientRateLimiter(this, 5);
+            this.executor = new BlockingRequestExecutor(transport);
     }
 
     public JDAImpl getJDA()
@@ -68,7 +81,7 @@ public class Requester
 
     public <T> void request(Request<T> apiRequest)
     {
-        if (rateLimiter.isShutdown)
+        if (isShutdown || rateLimiter.isShutdown)
             throw new IllegalStateException("The Requester has been shutdown! No new requests can be requested!");
         if (apiRequest.shouldQueue())
         {
@@ -76,96 +89,101 @@ public class Requester
         }
         else
         {
-            Long retryAfter = execute(apiRequest);
-            if (retryAfter != null)
-                apiRequest.getRestAction().handleResponse(new Response(429, null, retryAfter), apiRequest);
+            execute(apiRequest).whenComplete((retryAfter, t) ->
+            {
+                Throwable failure = MiscUtil.unwrapCompletion(t);
+                if (failure != null)
+                {
+                    LOG.fatal("Requester system encountered an internal error");
+                    LOG.log(failure);
+                    apiRequest.onFailure(failure);
+                }
+                else if (retryAfter != null)
+                {
+                    apiRequest.getRestAction().handleResponse(new Response(429, null, retryAfter), apiRequest);
+                }
+            });
         }
     }
 
     /**
      * Used to execute a Request. Processes request related to provided bucket.
+     * <br>Depending on the {@link net.dv8tion.jda.core.requests.executor.IRequestExecutor IRequestExecutor} in use
+     * the returned future might not be completed yet when this returns.
      *
      * @param  apiRequest
      *         The API request that needs to be sent
      *
-     * @return Non-null if the request was ratelimited. Returns a Long containing retry_after milliseconds until
-     *         the request can be made again. This could either be for the Per-Route ratelimit or the Global ratelimit.
+     * @return Future that completes with a non-null value if the request was ratelimited. The value is a Long containing
+     *         retry_after milliseconds until the request can be made again. This could either be for the Per-Route
+     *         ratelimit or the Global ratelimit.
      *         <br>Check if globalCooldown is {@code null} to determine if it was Per-Route or Global.
      */
-    public <T> Long execute(Request<T> apiRequest)
+    public <T> CompletableFuture<Long> execute(Request<T> apiRequest)
     {
         CompiledRoute route = apiRequest.getRoute();
         Long retryAfter = rateLimiter.getRateLimit(route);
         if (retryAfter != null)
-            return retryAfter;
-
-        BaseRequest request;
-        Object body = apiRequest.getData();
+            return CompletableFuture.completedFuture(retryAfter);
 
-        //Special case handling for MessageChannel#sendFile.
-        // If a MultipartBody request was passed as the body then we assume it was constructed correctly
-        // and just wrap it in auth headers and allow processing.
-        if (body instanceof MultipartBody)
-        {
-            request = addHeaders((MultipartBody) body);
-        }
-        else
-        {
-            String bodyData = body != null ? body.toString() : null;
-            request = createRequest(route, bodyData);
-        }
+        HttpUriRequest request = createRequest(route, apiRequest.getData());
 
-        Set<String> rays = new LinkedHashSet<>();
-        try
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        executor.execute(apiRequest, request, new Callback<String>()
         {
-            HttpResponse<String> response;
-            int attempt = 0;
-            do
+            @Override
+            public void completed(HttpResponse<String> response)
             {
-                //If the request has been canceled via the Future, don't execute.
-                if (apiRequest.isCanceled())
-                    return null;
-                response = request.asString();
-                String cfRay = response.getHeaders().getFirst("CF-RAY");
-                if (cfRay != null)
-                    rays.add(cfRay);
-
-                if (response.getStatus() < 500)
-                    break;
-
-                attempt++;
-                LOG.debug(String.format("Requesting %s -> %s returned status %d... retrying (attempt %d)",
-                        request.getHttpRequest().getHttpMethod().name(),
-                        request.getHttpRequest().getUrl(),
-                        response.getStatus(), attempt));
                 try
                 {
-                    Thread.sleep(50 * attempt);
+                    future.complete(handleResponse(apiRequest, route, response));
+                }
+                catch (Throwable t)
+                {
+                    future.completeExceptionally(t);
                 }
-                catch (InterruptedException ignored) {}
             }
-            while (attempt < 3 && response.getStatus() >= 500);
 
-            if (response.getStatus() >= 500)
+            @Override
+            public void failed(UnirestException e)
             {
-                //Epic failure from other end. Attempted 4 times.
-                return null;
+                try
+                {
+                    LOG.log(e); //This originally only printed on DEBUG in 2.x
+                    apiRequest.getRestAction().handleResponse(new Response(e), apiRequest);
+                    future.complete(null);
+                }
+                catch (Throwable t)
+                {
+                    future.completeExceptionally(t);
+                }
             }
 
-            retryAfter = rateLimiter.handleResponse(route, response);
-            if (!rays.isEmpty())
-                LOG.debug("Received response with following cf-rays: " + rays);
-            if (retryAfter == null)
-                apiRequest.getRestAction().handleResponse(new Response(response.getStatus(), response.getBody(), -1), apiRequest);
+            @Override
+            public void cancelled()
+            {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
 
-            return retryAfter;
-        }
-        catch (UnirestException e)
+    private <T> Long handleResponse(Request<T> apiRequest, CompiledRoute route, HttpResponse<String> response)
+    {
+        if (response.getStatus() >= 500)
         {
-            LOG.log(e); //This originally only printed on DEBUG in 2.x
-            apiRequest.getRestAction().handleResponse(new Response(e), apiRequest);
+            //Epic failure from other end. Attempted 3 times.
             return null;
         }
+
+        Long retryAfter = rateLimiter.handleResponse(route, response);
+        String cfRay = response.getHeaders().getFirst("CF-RAY");
+        if (cfRay != null)
+            LOG.debug(() -> "Received response with following cf-ray: " + cfRay);
+        if (retryAfter == null)
+            apiRequest.getRestAction().handleResponse(new Response(response.getStatus(), response.getBody(), -1), apiRequest);
+
+        return retryAfter;
     }
 
     public RateLimiter getRateLimiter()
@@ -173,52 +191,110 @@ public class Requester
         return rateLimiter;
     }
 
-    public void shutdown()
+    public IRestTransport getTransport()
+    {
+        return transport;
+    }
+
+    public IRequestExecutor getExecutor()
+    {
+        return executor;
+    }
+
+    public synchronized void shutdown()
     {
-        rateLimiter.shutdown();
+        if (isShutdown)
+            return;
+        isShutdown = true;
+        //The RateLimiter might be shared with other Requesters
+        rateLimiter.release();
+        executor.shutdown();
     }
 
-    private BaseRequest createRequest(Route.CompiledRoute route, String body)
+    private HttpUriRequest createRequest(Route.CompiledRoute route, Object body)
     {
-        String url = DISCORD_API_PREFIX + route.getCompiledRoute();
-        BaseRequest request = null;
+        String url = transport.getBaseUrl() + route.getCompiledRoute();
+        HeaderTemplate template = getHeaderTemplate();
+
+        //Special case handling for MessageChannel#sendFile.
+        // If a MultipartBody request was passed as the body then we assume it was constructed correctly
+        // and just send its entity with the auth headers. The entity provides its own Content-Type.
+        if (body instanceof MultipartUpload)
+        {
+            HttpPost request = new HttpPost(url);
+            request.setHeaders(template.headers);
+            request.setEntity(((MultipartUpload) body).createEntity());
+            return request;
+        }
+        if (body instanceof MultipartBody)
+        {
+            HttpPost request = new HttpPost(url);
+            request.setHeaders(template.headers);
+            request.setEntity(((MultipartBody) body).getEntity());
+            return request;
+        }
+
+        String bodyData = body != null ? body.toString() : null;
+        HttpRequestBase request = null;
         switch (route.getMethod())
         {
             case GET:
-                request = addHeaders(Unirest.get(url));
+                request = new HttpGet(url);
                 break;
             case POST:
-                request = addHeaders(Unirest.post(url)).body(body);
+                request = withBody(new HttpPost(url), bodyData);
                 break;
             case PUT:
-                request = addHeaders(Unirest.put(url)).body(body);
+                request = withBody(new HttpPut(url), bodyData);
                 break;
             case DELETE:
-                request = addHeaders(Unirest.delete(url));
+                request = new HttpDelete(url);
                 break;
             case PATCH:
-                request = addHeaders(Unirest.patch(url)).body(body);
+                request = withBody(new HttpPatch(url), bodyData);
                 break;
         }
+        request.setHeaders(route.getMethod() == HttpMethod.GET ? template.headers : template.jsonHeaders);
         return request;
     }
 
-    protected <T extends BaseRequest> T addHeaders(T baseRequest)
+    private HttpRequestBase withBody(HttpEntityEnclosingRequestBase request, String body)
     {
-        HttpRequest request = baseRequest.getHttpRequest();
+        if (body != null)
+            request.setEntity(new StringEntity(body, StandardCharsets.UTF_8));
+        return request;
+    }
 
-        //adding token to all requests to the discord api or cdn pages
-        //can't check for startsWith(DISCORD_API_PREFIX) due to cdn endpoints
-        if (api.getToken() != null && request.getUrl().contains("discordapp.com"))
-        {
-            request.header("authorization", api.getToken());
-        }
-        if (!(request instanceof GetRequest) && !(baseRequest instanceof MultipartBody))
+    private HeaderTemplate getHeaderTemplate()
+    {
+        //The token only changes while logging in, so the headers shared by all requests are built once
+        // and rebuilt whenever a different token is in use.
+        String token = api.getToken();
+        HeaderTemplate template = headerTemplate;
+        if (template == null || template.token != token)
+            headerTemplate = template = new HeaderTemplate(token);
+        return template;
+    }
+
+    private static class HeaderTemplate
+    {
+        final String token;
+        final Header[] headers;
+        final Header[] jsonHeaders;
+
+        HeaderTemplate(String token)
         {
-            request.header("Content-Type", "application/json");
+            this.token = token;
+
+            List<Header> headers = new ArrayList<>(4);
+            if (token != null)
+                headers.add(new BasicHeader("authorization", token));
+            headers.add(new BasicHeader("user-agent", USER_AGENT));
+            headers.add(new BasicHeader("Accept-Encoding", "gzip"));
+            this.headers = headers.toArray(new Header[headers.size()]);
+
+            headers.add(new BasicHeader("Content-Type", "application/json"));
+            this.jsonHeaders = headers.toArray(new Header[headers.size()]);
         }
-        request.header("user-agent", USER_AGENT);
-        request.header("Accept-Encoding", "gzip");
-        return baseRequest;
     }
 }
@@ -0,0 +1,176 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests;
+
+import net.dv8tion.jda.core.utils.SimpleLog;
+
+import java.util.LinkedHashSet;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out the IDENTIFY payloads of multiple gateway connections that use the same token.
+ * <br>Discord only accepts one IDENTIFY every {@value #IDENTIFY_DELAY} seconds per token, sessions that are started
+ * faster than that are invalidated and have to identify again.
+ *
+ * <p>A single queue is shared by all shards of a bot, see
+ * {@link net.dv8tion.jda.core.JDABuilder#setSessionStartQueue(SessionStartQueue) JDABuilder.setSessionStartQueue(SessionStartQueue)}.
+ * Connections that need to identify are appended in order and are identified one after the other by a single
+ * daemon thread. RESUMEs are not affected by this limit and are sent right away.
+ * <br>Connections that disconnected while waiting are skipped, they are appended again once they reconnect.
+ */
+public class SessionStartQueue
+{
+    public static final SimpleLog LOG = SimpleLog.getLog("JDASessionQueue");
+
+    /** Minimum delay between two IDENTIFYs in seconds. */
+    public static final int IDENTIFY_DELAY = 5;
+
+    protected final LinkedHashSet<WebSocketClient> queue = new LinkedHashSet<>();
+    protected final long delayNanos;
+
+    protected Thread worker;
+    protected long lastIdentify;
+    protected boolean shutdown = false;
+
+    public SessionStartQueue()
+    {
+        this.delayNanos = TimeUnit.SECONDS.toNanos(IDENTIFY_DELAY);
+        // Nothing has been identified yet
+        this.lastIdentify = System.nanoTime() - delayNanos;
+    }
+
+    /**
+     * The amount of connections that are waiting to identify.
+     *
+     * @return The amount of waiting connections
+     */
+    public synchronized int size()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Stops the worker thread. Connections that are still waiting will not be identified anymore.
+     */
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+        queue.clear();
+        notifyAll();
+    }
+
+    public synchronized boolean isShutdown()
+    {
+        return shutdown;
+    }
+
+    /**
+     * Appends the provided connection to the queue. A connection that is already waiting keeps its position.
+     *
+     * @param client
+     *        The connection that has to identify
+     */
+    protected synchronized void appendSession(WebSocketClient client)
+    {
+        if (shutdown)
+        {
+            LOG.warn("SessionStartQueue was shutdown, identifying " + client.api.getIdentifierString() + " right away");
+            client.identify();
+            return;
+        }
+        if (!queue.add(client))
+            return;
+        if (worker == null)
+        {
+            worker = new Thread(this::run, "JDA SessionStartQueue Worker");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Removes the provided connection from the queue if it is still waiting.
+     *
+     * @param client
+     *        The connection that does not have to identify anymore
+     */
+    protected synchronized void removeSession(WebSocketClient client)
+    {
+        queue.remove(client);
+    }
+
+    protected void run()
+    {
+        try
+        {
+            while (true)
+            {
+                WebSocketClient next;
+                synchronized (this)
+                {
+                    while (queue.isEmpty() && !shutdown)
+                        wait();
+                    if (shutdown)
+                        return;
+
+                    long wait = lastIdentify + delayNanos - System.nanoTime();
+                    if (wait > 0)
+                    {
+                        TimeUnit.NANOSECONDS.timedWait(this, wait);
+                        //Re-check as sessions might have been removed while waiting
+                        continue;
+                    }
+
+                    Iterator<WebSocketClient> it = queue.iterator();
+                    next = it.next();
+                    it.remove();
+                }
+
+                if (!next.isConnected())
+                    continue;
+
+                LOG.debug("Identifying " + next.api.getIdentifierString());
+                next.identify();
+                synchronized (this)
+                {
+                    lastIdentify = System.nanoTime();
+                }
+            }
+        }
+        catch (InterruptedException ignored) {}
+        catch (Throwable t)
+        {
+            LOG.fatal("SessionStartQueue Worker encountered an exception");
+            LOG.log(t);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                worker = null;
+                if (!queue.isEmpty() && !shutdown)
+                {
+                    worker = new Thread(this::run, "JDA SessionStartQueue Worker");
+                    worker.setDaemon(true);
+                    worker.start();
+                }
+            }
+        }
+    }
+}
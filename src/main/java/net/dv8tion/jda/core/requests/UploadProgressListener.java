@@ -0,0 +1,39 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests;
+
+/**
+ * Receives the progress of a file upload started through
+ * {@link net.dv8tion.jda.core.entities.MessageChannel#sendFile(MultipartUpload, net.dv8tion.jda.core.entities.Message)
+ * MessageChannel.sendFile(...)}.
+ *
+ * <p>This is called by the thread that writes the request body, listeners should return quickly.
+ * <br>If the request has to be retried (for example due to a rate limit) the progress starts over at {@code 0}.
+ */
+@FunctionalInterface
+public interface UploadProgressListener
+{
+    /**
+     * Called whenever a part of the request body has been written.
+     *
+     * @param sentBytes
+     *        The amount of bytes of the request body that have been written so far
+     * @param totalBytes
+     *        The total size of the request body, or {@code -1} if it is not known (uploads from an InputStream)
+     */
+    void onProgress(long sentBytes, long totalBytes);
+}
@@ -35,6 +35,7 @@ import net.dv8tion.jda.core.handle.*;
 import net.dv8tion.jda.core.managers.AudioManager;
 import net.dv8tion.jda.core.managers.impl.AudioManagerImpl;
 import net.dv8tion.jda.core.managers.impl.PresenceImpl;
+import net.dv8tion.jda.core.utils.JsonReader;
 import net.dv8tion.jda.core.utils.MiscUtil;
 import net.dv8tion.jda.core.utils.SimpleLog;
 import org.apache.commons.lang3.tuple.MutablePair;
@@ -44,11 +45,11 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
 
 public class WebSocketClient extends WebSocketAdapter implements WebSocketListener
 {
@@ -61,16 +62,18 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     protected final Map<String, SocketHandler> handlers = new HashMap<>();
     protected final List<String> cfRays = new LinkedList<>();
 
+    protected final ZlibDecompressor decompressor;
+
     protected WebSocket socket;
     protected String gatewayUrl = null;
 
     protected String sessionId = null;
 
     protected volatile Thread keepAliveThread;
-    protected boolean connected;
+    protected volatile boolean connected;
 
     protected volatile boolean chunkingAndSyncing = false;
-    protected boolean initiating;             //cache all events?
+    protected volatile boolean initiating;    //cache all events?
     protected final List<JSONObject> cachedEvents = new LinkedList<>();
 
     protected boolean shouldReconnect = true;
@@ -80,20 +83,22 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     //GuildId, <TimeOfNextAttempt, AudioConnection>
     protected final TLongObjectMap<MutablePair<Long, VoiceChannel>> queuedAudioConnections = MiscUtil.newLongMap();
 
-    protected final LinkedList<String> ratelimitQueue = new LinkedList<>();
+    protected final WebSocketSendQueue sendQueue = new WebSocketSendQueue();
     protected volatile Thread ratelimitThread = null;
-    protected volatile long ratelimitResetTime;
-    protected volatile int messagesSent;
     protected volatile boolean printedRateLimitMessage = false;
 
     protected boolean firstInit = true;
 
+    // Held while a gateway message is handled, so events can also be handled outside of the reading thread
+    protected final Object dispatchLock = new Object();
+
     public WebSocketClient(JDAImpl api)
     {
         this.api = api;
         this.shardInfo = api.getShardInfo();
         this.proxy = api.getGlobalProxy();
         this.shouldReconnect = api.isAutoReconnect();
+        this.decompressor = new ZlibDecompressor(api.isZlibStreamEnabled());
         setupHandlers();
         setupSendingThread();
         connect();
@@ -150,6 +155,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             api.getEventManager().handle(new ResumedEvent(api, api.getResponseTotal()));
         }
         api.setStatus(JDA.Status.CONNECTED);
+        //Messages held back while loading can be sent now
+        sendQueue.signal();
         LOG.debug("Resending " + cachedEvents.size() + " cached events...");
         handle(cachedEvents);
         LOG.debug("Sending of cached events finished.");
@@ -166,131 +173,195 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         events.forEach(this::handleEvent);
     }
 
+    /**
+     * Queues the provided message with {@link WebSocketSendQueue.Priority#NORMAL NORMAL} priority.
+     *
+     * @param message
+     *        The message to send
+     */
     public void send(String message)
     {
-        ratelimitQueue.addLast(message);
+        send(message, WebSocketSendQueue.Priority.NORMAL);
     }
 
-    private boolean send(String message, boolean skipQueue)
+    /**
+     * Queues the provided message in the specified priority lane.
+     * <br>Messages are sent as soon as the connection state and the gateway ratelimit allow it.
+     * {@link WebSocketSendQueue.Priority#NORMAL NORMAL} messages are held back until JDA finished loading.
+     *
+     * @param message
+     *        The message to send
+     * @param priority
+     *        The priority of the message
+     */
+    public void send(String message, WebSocketSendQueue.Priority priority)
     {
+        sendQueue.add(message, priority);
+    }
+
+    /**
+     * Queues a message that is only built once it is about to be sent, see
+     * {@link WebSocketSendQueue#add(java.util.function.Supplier, WebSocketSendQueue.Priority)}.
+     *
+     * @param message
+     *        The supplier of the message
+     * @param priority
+     *        The priority of the message
+     */
+    public void send(Supplier<String> message, WebSocketSendQueue.Priority priority)
+    {
+        sendQueue.add(message, priority);
+    }
+
+    public WebSocketSendQueue getSendQueue()
+    {
+        return sendQueue;
+    }
+
+    private void setupSendingThread()
+    {
+        ratelimitThread = new Thread(() ->
+        {
+            try
+            {
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    //Read the signal count before checking so changes made while sending are not missed
+                    int signalCount = sendQueue.getSignalCount();
+                    long delay = sendNext();
+                    if (delay != 0)
+                        sendQueue.await(signalCount, delay);
+                }
+            }
+            catch (InterruptedException ignored)
+            {
+                LOG.debug("Main WS send thread interrupted. Most likely JDA is disconnecting the websocket.");
+            }
+        });
+        ratelimitThread.setName(api.getIdentifierString() + " MainWS-Sending Thread");
+        ratelimitThread.start();
+    }
+
+    /**
+     * Sends the next message that is allowed by the connection state and the gateway ratelimit.
+     *
+     * @return {@code 0} if a message was sent, otherwise the time in nanoseconds until sending could be possible
+     *         again or {@code -1} if nothing can be sent until the queue is signalled
+     */
+    protected long sendNext()
+    {
+        //Make sure that we don't send any packets while not connected.
         if (!connected)
-            return false;
+            return -1;
 
-        long now = System.currentTimeMillis();
+        //Heartbeats, identify and resume are allowed before the session is ready
+        long delay = sendNext(WebSocketSendQueue.Priority.HIGH);
+        if (delay >= 0)
+            return delay;
 
-        if (this.ratelimitResetTime <= now)
+        delay = -1;
+        if (isReady())
         {
-            this.messagesSent = 0;
-            this.ratelimitResetTime = now + 60000;//60 seconds
-            this.printedRateLimitMessage = false;
+            MutablePair<Long, VoiceChannel> audioRequest = getNextAudioConnectRequest();
+            if (audioRequest != null)
+            {
+                if (!sendQueue.tryAcquire(WebSocketSendQueue.Priority.NORMAL))
+                    return rateLimited(WebSocketSendQueue.Priority.NORMAL);
+                sendAudioConnect(audioRequest);
+                resetRateLimitMessage(WebSocketSendQueue.Priority.NORMAL);
+                return 0;
+            }
+            delay = getNextAudioConnectDelay();
+
+            long normalDelay = sendNext(WebSocketSendQueue.Priority.NORMAL);
+            if (normalDelay >= 0)
+                return normalDelay == 0 ? 0 : minDelay(delay, normalDelay);
         }
 
-        //Allows 115 messages to be sent before limiting.
-        if (this.messagesSent <= 115 || (skipQueue && this.messagesSent <= 119))   //technically we could go to 120, but we aren't going to chance it
+        //Chunking and syncing is required to finish loading, so this lane is not held back by isReady()
+        long lowDelay = sendNext(WebSocketSendQueue.Priority.LOW);
+        if (lowDelay >= 0)
+            return lowDelay == 0 ? 0 : minDelay(delay, lowDelay);
+        return delay;
+    }
+
+    //Returns 0 if a message was sent, the delay until the lane has budget again or -1 if the lane is empty
+    private long sendNext(WebSocketSendQueue.Priority priority)
+    {
+        String message = sendQueue.poll(priority);
+        if (message != null)
         {
-            LOG.trace("<- " + message);
+            LOG.trace(() -> "<- " + message);
             socket.sendText(message);
-            this.messagesSent++;
-            return true;
+            resetRateLimitMessage(priority);
+            return 0;
         }
-        else
+        return sendQueue.hasQueued(priority) ? rateLimited(priority) : -1;
+    }
+
+    //Prints the ratelimit warning again for the next burst once the lane is no longer limited
+    private void resetRateLimitMessage(WebSocketSendQueue.Priority priority)
+    {
+        if (printedRateLimitMessage && sendQueue.getBudgetDelay(priority) == 0)
+            printedRateLimitMessage = false;
+    }
+
+    private long rateLimited(WebSocketSendQueue.Priority priority)
+    {
+        if (!printedRateLimitMessage)
         {
-            if (!printedRateLimitMessage)
-            {
-                LOG.warn("Hit the WebSocket RateLimit! If you see this message a lot then you might need to talk to DV8FromTheWorld.");
-                printedRateLimitMessage = true;
-            }
-            return false;
+            LOG.warn("Hit the WebSocket RateLimit! If you see this message a lot then you might need to talk to DV8FromTheWorld.");
+            printedRateLimitMessage = true;
         }
+        return sendQueue.getBudgetDelay(priority);
     }
 
-    private void setupSendingThread()
+    private static long minDelay(long a, long b)
     {
-        ratelimitThread = new Thread(api.getIdentifierString() + " MainWS-Sending Thread")
-        {
+        if (a < 0)
+            return b;
+        if (b < 0)
+            return a;
+        return Math.min(a, b);
+    }
 
-            @Override
-            public void run()
+    private void sendAudioConnect(MutablePair<Long, VoiceChannel> audioRequest)
+    {
+        VoiceChannel channel = audioRequest.getRight();
+        AudioManager audioManager = channel.getGuild().getAudioManager();
+        JSONObject audioConnectPacket = new JSONObject()
+                .put("op", 4)
+                .put("d", new JSONObject()
+                        .put("guild_id", channel.getGuild().getId())
+                        .put("channel_id", channel.getId())
+                        .put("self_mute", audioManager.isSelfMuted())
+                        .put("self_deaf", audioManager.isSelfDeafened())
+                );
+        String message = audioConnectPacket.toString();
+        LOG.trace(() -> "<- " + message);
+        socket.sendText(message);
+
+        //Next allowed connect request will be 2 seconds from now
+        audioRequest.setLeft(System.currentTimeMillis() + 2000);
+
+        //If the connection is already established, then the packet just sent
+        // was a move channel packet, thus, it won't trigger the removal from
+        // queuedAudioConnections in VoiceServerUpdateHandler because we won't receive
+        // that event just for a move, so we remove it here after successfully sending.
+        if (audioManager.isConnected())
+        {
+            synchronized (queuedAudioConnections)
             {
-                boolean needRatelimit;
-                boolean attemptedToSend;
-                while (!this.isInterrupted())
-                {
-                    try
-                    {
-                        //Make sure that we don't send any packets while attempting to connect.
-                        if (!connected || initiating)
-                        {
-                            Thread.sleep(1000);
-                            continue;
-                        }
-
-                        attemptedToSend = false;
-                        needRatelimit = false;
-
-                        MutablePair<Long, VoiceChannel> audioRequest = getNextAudioConnectRequest();
-
-                        if (audioRequest != null)
-                        {
-                            VoiceChannel channel = audioRequest.getRight();
-                            AudioManager audioManager = channel.getGuild().getAudioManager();
-                            JSONObject audioConnectPacket = new JSONObject()
-                                    .put("op", 4)
-                                    .put("d", new JSONObject()
-                                            .put("guild_id", channel.getGuild().getId())
-                                            .put("channel_id", channel.getId())
-                                            .put("self_mute", audioManager.isSelfMuted())
-                                            .put("self_deaf", audioManager.isSelfDeafened())
-                                    );
-                            needRatelimit = !send(audioConnectPacket.toString(), false);
-                            if (!needRatelimit)
-                            {
-                                //If we didn't get RateLimited, Next allowed connect request will be 2 seconds from now
-                                audioRequest.setLeft(System.currentTimeMillis() + 2000);
-
-                                //If the connection is already established, then the packet just sent
-                                // was a move channel packet, thus, it won't trigger the removal from
-                                // queuedAudioConnections in VoiceServerUpdateHandler because we won't receive
-                                // that event just for a move, so we remove it here after successfully sending.
-                                if (audioManager.isConnected())
-                                {
-                                    queuedAudioConnections.remove(channel.getGuild().getIdLong());
-                                }
-                            }
-                            attemptedToSend = true;
-                        }
-                        else
-                        {
-                            String message = ratelimitQueue.peekFirst();
-                            if (message != null)
-                            {
-                                needRatelimit = !send(message, false);
-                                if (!needRatelimit)
-                                {
-                                    ratelimitQueue.removeFirst();
-                                }
-                                attemptedToSend = true;
-                            }
-                        }
-
-                        if (needRatelimit || !attemptedToSend)
-                        {
-                            Thread.sleep(1000);
-                        }
-                    }
-                    catch (InterruptedException ignored)
-                    {
-                        LOG.debug("Main WS send thread interrupted. Most likely JDA is disconnecting the websocket.");
-                        break;
-                    }
-                }
+                queuedAudioConnections.remove(channel.getGuild().getIdLong());
             }
-        };
-        ratelimitThread.start();
+        }
     }
 
     public void close()
     {
+        SessionStartQueue sessionStartQueue = api.getSessionStartQueue();
+        if (sessionStartQueue != null)
+            sessionStartQueue.removeSession(this);
         socket.sendClose(1000);
     }
 
@@ -314,8 +385,13 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                     throw new RuntimeException("Could not fetch WS-Gateway!");
                 }
             }
+            String url = gatewayUrl;
+            if (decompressor.isStreaming())
+                url += "&compress=zlib-stream";
+            //Each connection starts a new zlib context
+            decompressor.reset();
             socket = api.getWebSocketFactory()
-                    .createSocket(gatewayUrl)
+                    .createSocket(url)
                     .addHeader("Accept-Encoding", "gzip")
                     .addListener(this);
             socket.connect();
@@ -373,10 +449,12 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 LOG.debug("Received new CF-RAY: " + ray);
             }
         }
-        connected = true;
         reconnectTimeoutS = 2;
-        messagesSent = 0;
-        ratelimitResetTime = System.currentTimeMillis() + 60000;
+        //The ratelimit is per connection and heartbeats of the previous connection are stale
+        sendQueue.clear(WebSocketSendQueue.Priority.HIGH);
+        sendQueue.resetBudget();
+        printedRateLimitMessage = false;
+        connected = true;
         if (sessionId == null)
         {
             sendIdentify();
@@ -391,6 +469,9 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     public void onDisconnected(WebSocket websocket, WebSocketFrame serverCloseFrame, WebSocketFrame clientCloseFrame, boolean closedByServer)
     {
         connected = false;
+        sendQueue.signal();
+        //No more messages are read from this connection, release the native inflater
+        decompressor.close();
         api.setStatus(JDA.Status.DISCONNECTED);
 
         CloseCode closeCode = null;
@@ -465,21 +546,72 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    /**
+     * Runs the provided task while no gateway message is being handled.
+     * <br>Used to handle events outside of the reading thread without racing it.
+     *
+     * @param task
+     *        The task to run
+     */
+    public void runLocked(Runnable task)
+    {
+        synchronized (dispatchLock)
+        {
+            task.run();
+        }
+    }
+
     @Override
     public void onTextMessage(WebSocket websocket, String message)
     {
-        JSONObject content = new JSONObject(message);
-        int opCode = content.getInt("op");
+        synchronized (dispatchLock)
+        {
+            handleMessage(message);
+        }
+    }
 
-        if (!content.isNull("s"))
+    protected void handleMessage(String message)
+    {
+        //Only the envelope is read here. The payload in "d" is skipped and parsed on demand,
+        // either by a streaming SocketHandler or into a JSONObject.
+        JsonReader reader = new JsonReader(message);
+        int opCode = -1;
+        String type = null;
+        int dataStart = -1;
+        int dataEnd = -1;
+        reader.beginObject();
+        while (reader.hasNext())
         {
-            api.setResponseTotal(content.getInt("s"));
+            switch (reader.nextName())
+            {
+                case "op":
+                    opCode = reader.nextInt();
+                    break;
+                case "s":
+                    if (reader.peek() == JsonReader.Token.NULL)
+                        reader.nextNull();
+                    else
+                        api.setResponseTotal(reader.nextInt());
+                    break;
+                case "t":
+                    type = reader.nextStringOrNull();
+                    break;
+                case "d":
+                    reader.peek();
+                    dataStart = reader.position();
+                    reader.skipValue();
+                    dataEnd = reader.position();
+                    break;
+                default:
+                    reader.skipValue();
+            }
         }
+        reader.endObject();
 
         switch (opCode)
         {
             case 0:
-                handleEvent(content);
+                handleEvent(type, message, dataStart, dataEnd);
                 break;
             case 1:
                 LOG.debug("Got Keep-Alive request (OP 1). Sending response...");
@@ -496,7 +628,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 break;
             case 10:
                 LOG.debug("Got HELLO packet (OP 10). Initializing keep-alive.");
-                setupKeepAlive(content.getJSONObject("d").getLong("heartbeat_interval"));
+                setupKeepAlive(new JSONObject(message.substring(dataStart, dataEnd)).getLong("heartbeat_interval"));
                 break;
             case 11:
                 LOG.trace("Got Heartbeat Ack (OP 11).");
@@ -505,6 +637,9 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
             default:
                 LOG.debug("Got unknown op-code: " + opCode + " with content: " + message);
         }
+
+        //Events of unlocked guilds are replayed in batches in between messages
+        api.getGuildLock().replay();
     }
 
     protected void setupKeepAlive(long timeout)
@@ -541,12 +676,26 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                     .put("d", api.getResponseTotal()
                 ).toString();
 
-        if (!send(keepAlivePacket, true))
-            ratelimitQueue.addLast(keepAlivePacket);
+        send(keepAlivePacket, WebSocketSendQueue.Priority.HIGH);
         heartbeatStartTime = System.currentTimeMillis();
     }
 
     protected void sendIdentify()
+    {
+        //Multiple shards of the same token have to wait for their turn
+        SessionStartQueue sessionStartQueue = api.getSessionStartQueue();
+        if (sessionStartQueue != null)
+        {
+            LOG.debug("Queueing Identify-packet in the SessionStartQueue...");
+            sessionStartQueue.appendSession(this);
+        }
+        else
+        {
+            identify();
+        }
+    }
+
+    protected void identify()
     {
         LOG.debug("Sending Identify-packet...");
         PresenceImpl presenceObj = (PresenceImpl) api.getPresence();
@@ -564,7 +713,9 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                         )
                         .put("v", DISCORD_GATEWAY_VERSION)
                         .put("large_threshold", 250)
-                        .put("compress", true));    //Used to make the READY event be given as compressed binary data when over a certain size. TY @ShadowLordAlpha
+                        //Used to make the READY event be given as compressed binary data when over a certain size. TY @ShadowLordAlpha
+                        //Not allowed in combination with zlib-stream transport compression.
+                        .put("compress", !decompressor.isStreaming()));
         if (shardInfo != null)
         {
             identify.getJSONObject("d")
@@ -572,7 +723,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                         .put(shardInfo.getShardId())
                         .put(shardInfo.getShardTotal()));
         }
-        send(identify.toString(), true);
+        send(identify.toString(), WebSocketSendQueue.Priority.HIGH);
     }
 
     protected void sendResume()
@@ -585,7 +736,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                         .put("token", api.getToken())
                         .put("seq", api.getResponseTotal())
                 );
-        send(resume.toString(), true);
+        send(resume.toString(), WebSocketSendQueue.Priority.HIGH);
     }
 
     protected void invalidate()
@@ -597,14 +748,16 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         api.getVoiceChannelMap().clear();
         api.getGuildMap().clear();
         api.getUserMap().clear();
+        api.getMembershipIndex().clear();
         api.getPrivateChannelMap().clear();
         api.getFakeUserMap().clear();
         api.getFakePrivateChannelMap().clear();
         api.getEntityBuilder().clearCache();
         api.getEventCache().clear();
+        //Also drops the queued chunk and sync requests of the old session
+        this.<GuildMembersChunkHandler>getHandler("GUILD_MEMBERS_CHUNK").clearCache();
         api.getGuildLock().clear();
         this.<ReadyHandler>getHandler("READY").clearCache();
-        this.<GuildMembersChunkHandler>getHandler("GUILD_MEMBERS_CHUNK").clearCache();
 
         if (api.getAccountType() == AccountType.CLIENT)
         {
@@ -673,6 +826,45 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         api.getAudioManagerMap().valueCollection().removeIf(Objects::isNull);
     }
 
+    protected void handleEvent(String type, String message, int dataStart, int dataEnd)
+    {
+        SocketHandler handler = handlers.get(type);
+        if (!(handler instanceof StreamingSocketHandler) || !handler.isStreaming()
+                || (initiating && !isAllowedDuringInit(type)))
+        {
+            handleEvent(new JSONObject(message));
+            return;
+        }
+
+        //Streaming handlers read the payload directly, no JSONObject tree is built for these events.
+        long responseTotal = api.getResponseTotal();
+        LOG.trace(() -> type + " -> " + message.substring(dataStart, dataEnd));
+        try
+        {
+            ((StreamingSocketHandler) handler).handle(responseTotal, message, new JsonReader(message, dataStart, dataEnd));
+        }
+        catch (JSONException ex)
+        {
+            LOG.warn("Got an unexpected Json-parse error. Please redirect following message to the devs:\n\t"
+                    + ex.getMessage() + "\n\t" + type + " -> " + message.substring(dataStart, dataEnd));
+        }
+        catch (Exception ex)
+        {
+            LOG.log(ex);
+        }
+    }
+
+    //If initiating, only allows READY, RESUMED, GUILD_MEMBERS_CHUNK, GUILD_SYNC, and GUILD_CREATE through.
+    // If we are currently chunking, we don't allow GUILD_CREATE through anymore.
+    protected boolean isAllowedDuringInit(String type)
+    {
+        return type.equals("READY")
+                || type.equals("GUILD_MEMBERS_CHUNK")
+                || type.equals("RESUMED")
+                || type.equals("GUILD_SYNC")
+                || (!chunkingAndSyncing && type.equals("GUILD_CREATE"));
+    }
+
     protected void handleEvent(JSONObject raw)
     {
         String type = raw.getString("t");
@@ -683,13 +875,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         if (type.equals("GUILD_MEMBER_REMOVE"))
             ((GuildMembersChunkHandler) getHandler("GUILD_MEMBERS_CHUNK")).modifyExpectedGuildMember(raw.getJSONObject("d").getLong("guild_id"), -1);
 
-        //If initiating, only allows READY, RESUMED, GUILD_MEMBERS_CHUNK, GUILD_SYNC, and GUILD_CREATE through.
-        // If we are currently chunking, we don't allow GUILD_CREATE through anymore.
-        if (initiating &&  !(type.equals("READY")
-                || type.equals("GUILD_MEMBERS_CHUNK")
-                || type.equals("RESUMED")
-                || type.equals("GUILD_SYNC")
-                || (!chunkingAndSyncing && type.equals("GUILD_CREATE"))))
+        if (initiating && !isAllowedDuringInit(type))
         {
             //If we are currently GuildStreaming, and we get a GUILD_DELETE informing us that a Guild is unavailable
             // convert it to a GUILD_CREATE for handling.
@@ -723,7 +909,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 //        }
 
         JSONObject content = raw.getJSONObject("d");
-        LOG.trace(String.format("%s -> %s", type, content.toString()));
+        final String eventType = type;
+        LOG.trace(() -> eventType + " -> " + content);
 
         try
         {
@@ -759,23 +946,18 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     }
 
     @Override
-    public void onBinaryMessage(WebSocket websocket, byte[] binary) throws UnsupportedEncodingException, DataFormatException
+    public void onBinaryMessage(WebSocket websocket, byte[] binary) throws DataFormatException
     {
         //Thanks to ShadowLordAlpha for code and debugging.
-        //Get the compressed message and inflate it
-        StringBuilder builder = new StringBuilder();
-        Inflater decompresser = new Inflater();
-        decompresser.setInput(binary, 0, binary.length);
-        byte[] result = new byte[128];
-        while(!decompresser.finished())
-        {
-            int resultLength = decompresser.inflate(result);
-            builder.append(new String(result, 0, resultLength, "UTF-8"));
-        }
-        decompresser.end();
+        //Inflate the compressed message with the inflater of this connection
+        String message = decompressor.decompress(binary);
+
+        //Incomplete zlib-stream fragment, wait for the rest of the message
+        if (message == null)
+            return;
 
         // send the inflated message to the TextMessage method
-        onTextMessage(websocket, builder.toString());
+        onTextMessage(websocket, message);
     }
 
     @Override
@@ -820,7 +1002,11 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
 
     public void queueAudioConnect(VoiceChannel channel)
     {
-        queuedAudioConnections.put(channel.getGuild().getIdLong(), new MutablePair<>(System.currentTimeMillis(), channel));
+        synchronized (queuedAudioConnections)
+        {
+            queuedAudioConnections.put(channel.getGuild().getIdLong(), new MutablePair<>(System.currentTimeMillis(), channel));
+        }
+        sendQueue.signal();
     }
 
     public TLongObjectMap<MutablePair<Long, VoiceChannel>> getQueuedAudioConnectionMap()
@@ -882,6 +1068,21 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         return null;
     }
 
+    //Time in nanoseconds until the next queued audio connect request may be attempted, -1 if there is none
+    protected long getNextAudioConnectDelay()
+    {
+        synchronized (queuedAudioConnections)
+        {
+            if (queuedAudioConnections.isEmpty())
+                return -1;
+            long next = Long.MAX_VALUE;
+            for (MutablePair<Long, VoiceChannel> audioRequest : queuedAudioConnections.valueCollection())
+                next = Math.min(next, audioRequest.getLeft());
+            //getNextAudioConnectRequest only accepts requests strictly before now
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(1, next - System.currentTimeMillis() + 1));
+        }
+    }
+
     public Map<String, SocketHandler> getHandlers()
     {
         return handlers;
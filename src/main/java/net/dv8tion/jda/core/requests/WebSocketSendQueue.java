@@ -0,0 +1,418 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe outgoing message queue for the main gateway connection.
+ *
+ * <p>Messages are queued in one of several {@link Priority priority lanes} and are only released while the
+ * sliding window budget of {@value #WINDOW_LIMIT} messages per {@value #WINDOW_MILLIS} ms allows it.
+ * Each lane keeps a number of slots in the window free for the lanes above it, so heartbeats can still be sent
+ * while a large burst of chunk requests is waiting.
+ *
+ * <p>Messages can also be queued as a {@link java.util.function.Supplier Supplier} that is only evaluated once the
+ * message is about to be sent. This allows requests to be coalesced while they are waiting for budget,
+ * for example member chunk requests for multiple guilds.
+ *
+ * <p>The sending thread waits on this queue using {@link #getSignalCount()} and {@link #await(int, long)}.
+ * Any call to {@link #add(String, Priority)} or {@link #signal()} wakes it up immediately instead of it having
+ * to poll.
+ * <br>Messages must only be removed by that single sending thread.
+ */
+public class WebSocketSendQueue
+{
+    /** Maximum amount of messages the gateway accepts in the window. */
+    public static final int WINDOW_LIMIT = 120;
+    /** Length of the sliding window. */
+    public static final long WINDOW_MILLIS = 60000;
+
+    protected static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS);
+
+    /**
+     * Priority lanes of the queue. Higher lanes are always drained first.
+     */
+    public enum Priority
+    {
+        /** Heartbeats, identify and resume. May use the whole window. */
+        HIGH(0),
+        /** Presence and voice state updates and everything else sent by the library user. */
+        NORMAL(4),
+        /** Bulk requests like member chunking and guild sync that can be delayed in favour of other messages. */
+        LOW(20);
+
+        private final int reserved;
+
+        Priority(int reserved)
+        {
+            this.reserved = reserved;
+        }
+
+        /**
+         * The amount of messages this lane may send in a single window.
+         *
+         * @return The budget of this lane
+         */
+        public int getLimit()
+        {
+            return WINDOW_LIMIT - reserved;
+        }
+    }
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected final Condition changed = lock.newCondition();
+    protected final EnumMap<Priority, ArrayDeque<Supplier<String>>> lanes = new EnumMap<>(Priority.class);
+
+    // Ring buffer with the System.nanoTime() of the messages sent in the current window, oldest first
+    protected final long[] sentTimes = new long[WINDOW_LIMIT];
+    protected int sentHead = 0;
+    protected int sentCount = 0;
+
+    protected volatile int signalCount = 0;
+
+    public WebSocketSendQueue()
+    {
+        for (Priority priority : Priority.values())
+            lanes.put(priority, new ArrayDeque<>());
+    }
+
+    /**
+     * Queues the provided message and wakes the sending thread.
+     *
+     * @param message
+     *        The message to send
+     * @param priority
+     *        The lane to queue the message in
+     */
+    public void add(String message, Priority priority)
+    {
+        add(() -> message, priority);
+    }
+
+    /**
+     * Queues a message that is built right before it is sent and wakes the sending thread.
+     * <br>The supplier is called by the sending thread without holding any lock of this queue and may return
+     * {@code null} if there is nothing to send anymore, in which case no budget is used.
+     *
+     * @param message
+     *        The supplier of the message to send
+     * @param priority
+     *        The lane to queue the message in
+     */
+    public void add(Supplier<String> message, Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            lanes.get(priority).addLast(message);
+            signalLocked();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next message of the provided lane if the lane has budget left in the current window.
+     * <br>The returned message is counted towards the window, so it has to be sent.
+     *
+     * @param  priority
+     *         The lane to poll
+     *
+     * @return The next message, or {@code null} if the lane is empty or has no budget left
+     */
+    public String poll(Priority priority)
+    {
+        while (true)
+        {
+            Supplier<String> next;
+            lock.lock();
+            try
+            {
+                ArrayDeque<Supplier<String>> lane = lanes.get(priority);
+                expireLocked(System.nanoTime());
+                if (lane.isEmpty() || sentCount >= priority.getLimit())
+                    return null;
+                next = lane.pollFirst();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            //Built outside of the lock as suppliers may queue further messages.
+            // The budget can't be taken by anyone else in the meantime as only the sending thread removes messages.
+            String message = next.get();
+            if (message == null)
+                continue;
+
+            lock.lock();
+            try
+            {
+                if (tryAcquireLocked(priority, System.nanoTime()))
+                    return message;
+                //Only possible if the budget is used by another thread, keep the message instead of losing it
+                lanes.get(priority).addFirst(() -> message);
+                return null;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes a slot of the provided lane's budget for a message that is not queued in this queue.
+     *
+     * @param  priority
+     *         The lane to use the budget of
+     *
+     * @return True, if a slot was taken and the message may be sent
+     */
+    public boolean tryAcquire(Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            return tryAcquireLocked(priority, System.nanoTime());
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The time until the provided lane has budget again.
+     *
+     * @param  priority
+     *         The lane to check
+     *
+     * @return The delay in nanoseconds, {@code 0} if budget is available right now
+     */
+    public long getBudgetDelay(Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            final long now = System.nanoTime();
+            expireLocked(now);
+            int excess = sentCount - priority.getLimit();
+            if (excess < 0)
+                return 0;
+            //The lane has budget again once the oldest "excess + 1" messages left the window
+            long freedAt = sentTimes[(sentHead + excess) % sentTimes.length] + WINDOW_NANOS;
+            return Math.max(1, freedAt - now);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasQueued(Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            return !lanes.get(priority).isEmpty();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int size(Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            return lanes.get(priority).size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public int size()
+    {
+        lock.lock();
+        try
+        {
+            int size = 0;
+            for (ArrayDeque<Supplier<String>> lane : lanes.values())
+                size += lane.size();
+            return size;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The amount of messages sent in the current window.
+     *
+     * @return The used budget of the window
+     */
+    public int getSentInWindow()
+    {
+        lock.lock();
+        try
+        {
+            expireLocked(System.nanoTime());
+            return sentCount;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops all queued messages of the provided lane.
+     *
+     * @param priority
+     *        The lane to clear
+     */
+    public void clear(Priority priority)
+    {
+        lock.lock();
+        try
+        {
+            lanes.get(priority).clear();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new window. Used when a new connection is established as the budget is per connection.
+     */
+    public void resetBudget()
+    {
+        lock.lock();
+        try
+        {
+            sentHead = 0;
+            sentCount = 0;
+            signalLocked();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes the sending thread, used when state outside of this queue changed (connection status, audio requests).
+     */
+    public void signal()
+    {
+        lock.lock();
+        try
+        {
+            signalLocked();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counter that is incremented for every change that might allow the sending thread to make progress.
+     * <br>Read this before checking the queue and pass it to {@link #await(int, long)} to not miss a wakeup.
+     *
+     * @return The current signal count
+     */
+    public int getSignalCount()
+    {
+        return signalCount;
+    }
+
+    /**
+     * Blocks until this queue is signalled after the provided signal count was read, or the timeout passed.
+     *
+     * @param  lastSignalCount
+     *         The signal count read before the queue was last checked
+     * @param  timeoutNanos
+     *         The maximum time to wait in nanoseconds, or a negative value to wait until signalled
+     *
+     * @throws InterruptedException
+     *         If the thread is interrupted while waiting
+     */
+    public void await(int lastSignalCount, long timeoutNanos) throws InterruptedException
+    {
+        lock.lock();
+        try
+        {
+            if (timeoutNanos < 0)
+            {
+                while (signalCount == lastSignalCount)
+                    changed.await();
+            }
+            else
+            {
+                long remaining = timeoutNanos;
+                while (signalCount == lastSignalCount && remaining > 0)
+                    remaining = changed.awaitNanos(remaining);
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    protected void signalLocked()
+    {
+        signalCount++;
+        changed.signalAll();
+    }
+
+    protected boolean tryAcquireLocked(Priority priority, long now)
+    {
+        expireLocked(now);
+        if (sentCount >= priority.getLimit())
+            return false;
+        sentTimes[(sentHead + sentCount) % sentTimes.length] = now;
+        sentCount++;
+        return true;
+    }
+
+    protected void expireLocked(long now)
+    {
+        while (sentCount > 0 && now - sentTimes[sentHead] >= WINDOW_NANOS)
+        {
+            sentHead = (sentHead + 1) % sentTimes.length;
+            sentCount--;
+        }
+    }
+}
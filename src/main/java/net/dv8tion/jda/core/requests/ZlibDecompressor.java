@@ -0,0 +1,186 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Connection scoped decompressor for binary gateway messages.
+ *
+ * <p>A single {@link java.util.zip.Inflater Inflater} and output buffer are reused for every message received
+ * on the connection instead of allocating new ones per frame.
+ * <br>Two modes are supported:
+ * <ul>
+ *     <li><b>Payload compression</b> - every binary message is a self-contained zlib stream
+ *         (identify {@code compress: true}). The inflater is reset between messages.</li>
+ *     <li><b>Transport compression</b> - the whole connection is a single zlib stream
+ *         ({@code compress=zlib-stream}). The inflater context is kept across messages and each message
+ *         ends with the {@code Z_SYNC_FLUSH} suffix {@code 00 00 FF FF}. Fragments without that suffix are
+ *         buffered until the message is complete.</li>
+ * </ul>
+ *
+ * <p>This class is not thread-safe, it is expected to only be used by the reading thread of the connection
+ * and {@link #reset()} when a new connection is established.
+ * <br>The native memory of the inflater is released by {@link #close()} once the connection is closed,
+ * the next {@link #reset()} creates a new inflater.
+ */
+public class ZlibDecompressor
+{
+    public static final int ZLIB_SUFFIX = 0x0000FFFF;
+
+    /** Initial capacity of the reused output buffer. */
+    protected static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    /** Buffers larger than this are dropped after use so a single huge READY does not pin memory. */
+    protected static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    protected final boolean streaming;
+    protected Inflater inflater = new Inflater();
+
+    protected byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    // zlib-stream fragments that did not end with the flush suffix yet
+    protected byte[] pending;
+    protected int pendingLength;
+
+    /**
+     * Creates a new decompressor.
+     *
+     * @param streaming
+     *        Whether the connection uses {@code zlib-stream} transport compression
+     *        instead of per-payload compression
+     */
+    public ZlibDecompressor(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * Inflates the provided binary message.
+     *
+     * @param  data
+     *         The compressed binary message
+     *
+     * @throws DataFormatException
+     *         If the data is not valid zlib data
+     *
+     * @return The decompressed UTF-8 message, or {@code null} if this was an incomplete
+     *         {@code zlib-stream} fragment and more data is required
+     */
+    public String decompress(byte[] data) throws DataFormatException
+    {
+        if (inflater == null)
+            throw new IllegalStateException("Decompressor is closed");
+        byte[] input = data;
+        int inputLength = data.length;
+
+        if (streaming)
+        {
+            if (!endsWithSuffix(data, data.length) || pendingLength > 0)
+            {
+                appendPending(data);
+                if (!endsWithSuffix(pending, pendingLength))
+                    return null;
+                input = pending;
+                inputLength = pendingLength;
+                pendingLength = 0;
+            }
+        }
+        else
+        {
+            inflater.reset();
+        }
+
+        inflater.setInput(input, 0, inputLength);
+        int length = 0;
+        while (true)
+        {
+            if (length == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            int read = inflater.inflate(buffer, length, buffer.length - length);
+            length += read;
+            if (inflater.finished() || (read == 0 && length < buffer.length && (inflater.needsInput() || inflater.needsDictionary())))
+                break;
+        }
+
+        String message = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        if (buffer.length > MAX_RETAINED_BUFFER_SIZE)
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        if (pending != null && pending.length > MAX_RETAINED_BUFFER_SIZE)
+            pending = null;
+        return message;
+    }
+
+    /**
+     * Resets the inflater context and drops buffered fragments.
+     * <br>Has to be called whenever a new connection is established.
+     */
+    public void reset()
+    {
+        if (inflater == null)
+            inflater = new Inflater();
+        else
+            inflater.reset();
+        pendingLength = 0;
+    }
+
+    /**
+     * Releases the inflater and the buffers of this decompressor.
+     * <br>Has to be called when the connection is closed, the {@link java.util.zip.Inflater Inflater} holds
+     * native memory that is otherwise only released once it is garbage collected.
+     */
+    public void close()
+    {
+        if (inflater != null)
+        {
+            inflater.end();
+            inflater = null;
+        }
+        pending = null;
+        pendingLength = 0;
+        if (buffer.length > INITIAL_BUFFER_SIZE)
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    protected void appendPending(byte[] data)
+    {
+        if (pending == null)
+            pending = new byte[Math.max(INITIAL_BUFFER_SIZE, data.length)];
+        else if (pendingLength + data.length > pending.length)
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + data.length));
+        System.arraycopy(data, 0, pending, pendingLength, data.length);
+        pendingLength += data.length;
+    }
+
+    protected static boolean endsWithSuffix(byte[] data, int length)
+    {
+        if (length < 4)
+            return false;
+        int suffix = ((data[length - 4] & 0xFF) << 24)
+                   | ((data[length - 3] & 0xFF) << 16)
+                   | ((data[length - 2] & 0xFF) << 8)
+                   |  (data[length - 1] & 0xFF);
+        return suffix == ZLIB_SUFFIX;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.executor;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.async.Callback;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import net.dv8tion.jda.core.requests.Request;
+import net.dv8tion.jda.core.requests.Requester;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link net.dv8tion.jda.core.requests.executor.IRequestExecutor IRequestExecutor} that sends requests through
+ * the non-blocking client of the {@link net.dv8tion.jda.core.requests.transport.IRestTransport IRestTransport}.
+ * <br>No thread waits for a response, which allows a lot more requests to be in flight than there are
+ * threads in the {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter} pool.
+ *
+ * <p>Retries for server errors are scheduled on the provided executor instead of sleeping. The callback
+ * is invoked on that executor as well, so that the I/O threads of the client never handle responses.
+ * If the executor rejects a retry or a response because it was shutdown, the callback is failed on the
+ * current thread instead.
+ */
+public class AsyncRequestExecutor implements IRequestExecutor
+{
+    protected final IRestTransport transport;
+    protected final ScheduledExecutorService executor;
+
+    public AsyncRequestExecutor(IRestTransport transport, ScheduledExecutorService executor)
+    {
+        this.transport = transport;
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Request<?> apiRequest, HttpUriRequest request, Callback<String> callback)
+    {
+        send(apiRequest, request, callback, 0);
+    }
+
+    protected void send(Request<?> apiRequest, HttpUriRequest request, Callback<String> callback, int attempt)
+    {
+        //If the request has been canceled via the Future, don't execute.
+        if (apiRequest.isCanceled())
+        {
+            callback.cancelled();
+            return;
+        }
+
+        transport.executeAsync(request, new Callback<String>()
+        {
+            @Override
+            public void completed(HttpResponse<String> response)
+            {
+                if (response.getStatus() < 500 || attempt >= 2)
+                {
+                    dispatch(() -> callback.completed(response), callback);
+                    return;
+                }
+
+                int next = attempt + 1;
+                Requester.LOG.debug(() -> String.format("Requesting %s -> %s returned status %d... retrying (attempt %d)",
+                        request.getMethod(), request.getURI(),
+                        response.getStatus(), next));
+                try
+                {
+                    executor.schedule(() -> send(apiRequest, request, callback, next), 50 * next, TimeUnit.MILLISECONDS);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    //The requester is probably shutdown, fail the request so the caller is not left waiting
+                    Requester.LOG.debug("Caught RejectedExecutionException when scheduling a retry. Failing the request.");
+                    callback.failed(new UnirestException(e));
+                }
+            }
+
+            @Override
+            public void failed(UnirestException e)
+            {
+                dispatch(() -> callback.failed(e), callback);
+            }
+
+            @Override
+            public void cancelled()
+            {
+                dispatch(callback::cancelled, callback);
+            }
+        });
+    }
+
+    protected void dispatch(Runnable task, Callback<String> callback)
+    {
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            //The requester is probably shutdown, fail the request on this thread so the caller is not left waiting
+            Requester.LOG.debug("Caught RejectedExecutionException when handing over a response. Failing the request.");
+            callback.failed(new UnirestException(e));
+        }
+    }
+
+    @Override
+    public void shutdown() {}
+}
@@ -0,0 +1,83 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.executor;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.async.Callback;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import net.dv8tion.jda.core.requests.Request;
+import net.dv8tion.jda.core.requests.Requester;
+import net.dv8tion.jda.core.requests.transport.IRestTransport;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * The default {@link net.dv8tion.jda.core.requests.executor.IRequestExecutor IRequestExecutor}.
+ * <br>Sends each request on the calling thread and waits for the response before invoking the callback.
+ */
+public class BlockingRequestExecutor implements IRequestExecutor
+{
+    protected final IRestTransport transport;
+
+    public BlockingRequestExecutor(IRestTransport transport)
+    {
+        this.transport = transport;
+    }
+
+    @Override
+    public void execute(Request<?> apiRequest, HttpUriRequest request, Callback<String> callback)
+    {
+        HttpResponse<String> response;
+        try
+        {
+            int attempt = 0;
+            do
+            {
+                //If the request has been canceled via the Future, don't execute.
+                if (apiRequest.isCanceled())
+                {
+                    callback.cancelled();
+                    return;
+                }
+                response = transport.execute(request);
+
+                if (response.getStatus() < 500)
+                    break;
+
+                final int retry = ++attempt;
+                final int status = response.getStatus();
+                Requester.LOG.debug(() -> String.format("Requesting %s -> %s returned status %d... retrying (attempt %d)",
+                        request.getMethod(), request.getURI(),
+                        status, retry));
+                try
+                {
+                    Thread.sleep(50 * attempt);
+                }
+                catch (InterruptedException ignored) {}
+            }
+            while (attempt < 3 && response.getStatus() >= 500);
+        }
+        catch (UnirestException e)
+        {
+            callback.failed(e);
+            return;
+        }
+        callback.completed(response);
+    }
+
+    @Override
+    public void shutdown() {}
+}
@@ -0,0 +1,54 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.executor;
+
+import com.mashape.unirest.http.async.Callback;
+import net.dv8tion.jda.core.requests.Request;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Sends the HTTP requests created by the {@link net.dv8tion.jda.core.requests.Requester Requester}
+ * through its {@link net.dv8tion.jda.core.requests.transport.IRestTransport IRestTransport}.
+ * <br>Implementations decide whether the calling thread waits for the response or not. The
+ * {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter} continues with the next request of a bucket
+ * once the provided callback was invoked.
+ *
+ * <p>Requests that are answered with a server error (5xx) are attempted up to 3 times before the last
+ * response is handed to the callback. Callbacks must not be invoked on I/O threads of the underlying
+ * client, as they parse the response and build the resulting entities.
+ */
+public interface IRequestExecutor
+{
+    /**
+     * Sends the provided HTTP request and invokes exactly one of the methods of the callback
+     * once a final response is available, the request failed or {@link Request#isCanceled() was canceled}.
+     *
+     * @param apiRequest
+     *        The API request the HTTP request was created for
+     * @param request
+     *        The fully prepared HTTP request
+     * @param callback
+     *        The callback to hand the result to
+     */
+    void execute(Request<?> apiRequest, HttpUriRequest request, Callback<String> callback);
+
+    /**
+     * Called when the {@link net.dv8tion.jda.core.requests.Requester Requester} is shut down.
+     * <br>Requests that are still in flight may be dropped.
+     */
+    void shutdown();
+}
@@ -18,8 +18,6 @@ package net.dv8tion.jda.core.requests.ratelimit;
 
 import com.mashape.unirest.http.Headers;
 import com.mashape.unirest.http.HttpResponse;
-import net.dv8tion.jda.core.entities.impl.JDAImpl;
-import net.dv8tion.jda.core.events.ExceptionEvent;
 import net.dv8tion.jda.core.requests.RateLimiter;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Requester;
@@ -30,7 +28,6 @@ import org.json.JSONObject;
 
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -58,7 +55,7 @@ public class BotRateLimiter extends RateLimiter
     }
 
     @Override
-    protected void queueRequest(Request request)
+    protected void queueRequest(Request<?> request)
     {
         if (isShutdown)
             throw new RejectedExecutionException("Cannot queue a request after shutdown");
@@ -207,7 +204,7 @@ public class BotRateLimiter extends RateLimiter
         volatile long resetTime = 0;
         volatile int routeUsageRemaining = 1;    //These are default values to only allow 1 request until we have properly
         volatile int routeUsageLimit = 1;        // ratelimit information.
-        volatile ConcurrentLinkedQueue<Request> requests = new ConcurrentLinkedQueue<>();
+        volatile ConcurrentLinkedQueue<Request<?>> requests = new ConcurrentLinkedQueue<>();
 
         public Bucket(String route, RateLimit rateLimit)
         {
@@ -220,7 +217,7 @@ public class BotRateLimiter extends RateLimiter
             }
         }
 
-        void addToQueue(Request request)
+        void addToQueue(Request<?> request)
         {
             requests.add(request);
             submitForProcessing();
@@ -292,61 +289,32 @@ public class BotRateLimiter extends RateLimiter
         {
             try
             {
-                synchronized (requests)
+                //The submittedBuckets check makes sure that only one thread at a time processes this bucket.
+                runQueue(requests, this::finishProcessing);
+            }
+            catch (Throwable err)
+            {
+                handleInternalError(err);
+            }
+        }
+
+        void finishProcessing()
+        {
+            synchronized (submittedBuckets)
+            {
+                submittedBuckets.remove(this);
+                if (!requests.isEmpty())
                 {
-                    for (Iterator<Request> it = requests.iterator(); it.hasNext(); )
+                    try
                     {
-                        Request request = null;
-                        try
-                        {
-                            request = it.next();
-                            Long retryAfter = requester.execute(request);
-                            if (retryAfter != null)
-                            {
-                                break;
-                            }
-                            else
-                            {
-                                it.remove();
-                            }
-                        }
-                        catch (Throwable t)
-                        {
-                            Requester.LOG.fatal("Requester system encountered an internal error");
-                            Requester.LOG.log(t);
-                            it.remove();
-                            if (request != null)
-                                request.onFailure(t);
-                        }
+                        this.submitForProcessing();
                     }
-
-                    synchronized (submittedBuckets)
+                    catch (RejectedExecutionException e)
                     {
-                        submittedBuckets.remove(this);
-                        if (!requests.isEmpty())
-                        {
-                            try
-                            {
-                                this.submitForProcessing();
-                            }
-                            catch (RejectedExecutionException e)
-                            {
-                                Requester.LOG.debug("Caught RejectedExecutionException when re-queuing a ratelimited request. The requester is probably shutdown, thus, this can be ignored.");
-                            }
-                        }
+                        Requester.LOG.debug("Caught RejectedExecutionException when re-queuing a ratelimited request. The requester is probably shutdown, thus, this can be ignored.");
                     }
                 }
             }
-            catch (Throwable err)
-            {
-                Requester.LOG.fatal("Requester system encountered an internal error from beyond the synchronized execution blocks. NOT GOOD!");
-                Requester.LOG.log(err);
-                if (err instanceof Error)
-                {
-                    JDAImpl api = requester.getJDA();
-                    api.getEventManager().handle(new ExceptionEvent(api, err, true));
-                }
-            }
         }
 
         @Override
@@ -362,7 +330,7 @@ public class BotRateLimiter extends RateLimiter
         }
 
         @Override
-        public Queue<Request> getRequests()
+        public Queue<Request<?>> getRequests()
         {
             return requests;
         }
@@ -0,0 +1,340 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.ratelimit;
+
+import com.mashape.unirest.http.Headers;
+import com.mashape.unirest.http.HttpResponse;
+import net.dv8tion.jda.core.requests.RateLimiter;
+import net.dv8tion.jda.core.requests.Request;
+import net.dv8tion.jda.core.requests.Requester;
+import net.dv8tion.jda.core.requests.Route.CompiledRoute;
+import net.dv8tion.jda.core.requests.Route.RateLimit;
+import net.dv8tion.jda.core.utils.SimpleLog;
+import org.json.JSONObject;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bot rate limiter that follows the same rules as the {@link net.dv8tion.jda.core.requests.ratelimit.BotRateLimiter BotRateLimiter}
+ * without taking any locks on the request path.
+ *
+ * <p>The state of each bucket is kept in atomics and every bucket tracks whether it is currently submitted to the pool
+ * with its own flag. This means that queueing a request, checking a rate limit or handling a response only ever touches
+ * the bucket of the route in question, instead of synchronizing on the bucket and on the shared queue of submitted buckets.
+ */
+public class ConcurrentBotRateLimiter extends RateLimiter
+{
+    volatile Long timeOffset = null;
+    final AtomicLong globalCooldown = new AtomicLong(Long.MIN_VALUE);
+
+    public ConcurrentBotRateLimiter(Requester requester, int poolSize)
+    {
+        super(requester, poolSize);
+    }
+
+    @Override
+    public Long getRateLimit(CompiledRoute route)
+    {
+        return getBucket(route).getRateLimit();
+    }
+
+    @Override
+    protected void queueRequest(Request<?> request)
+    {
+        if (isShutdown)
+            throw new RejectedExecutionException("Cannot queue a request after shutdown");
+        getBucket(request.getRoute()).addToQueue(request);
+    }
+
+    @Override
+    protected Long handleResponse(CompiledRoute route, HttpResponse<String> response)
+    {
+        Bucket bucket = getBucket(route);
+        Headers headers = response.getHeaders();
+        int code = response.getStatus();
+        if (timeOffset == null)
+            setTimeOffset(headers);
+
+        if (code == 429)
+        {
+            String global = headers.getFirst("X-RateLimit-Global");
+            String retry = headers.getFirst("Retry-After");
+            if (retry == null || retry.isEmpty())
+            {
+                JSONObject limitObj = new JSONObject(response.getBody());
+                retry = limitObj.get("retry_after").toString();
+            }
+            long retryAfter = Long.parseLong(retry);
+            if (!Boolean.parseBoolean(global))  //Not global ratelimit
+            {
+                updateBucket(bucket, headers);
+            }
+            else
+            {
+                //If it is global, lock down the threads.
+                globalCooldown.set(getNow() + retryAfter);
+            }
+
+            return retryAfter;
+        }
+        else
+        {
+            updateBucket(bucket, headers);
+            return null;
+        }
+    }
+
+    @Override
+    public List<IBucket> getQueuedRouteBuckets()
+    {
+        return Collections.unmodifiableList(buckets.values().stream()
+                .filter(bucket -> ((Bucket) bucket).submitted.get())
+                .collect(Collectors.toList()));
+    }
+
+    private Bucket getBucket(CompiledRoute route)
+    {
+        String rateLimitRoute = route.getRatelimitRoute();
+        Bucket bucket = (Bucket) buckets.get(rateLimitRoute);
+        if (bucket == null)
+            bucket = (Bucket) buckets.computeIfAbsent(rateLimitRoute, r -> new Bucket(r, route.getBaseRoute().getRatelimit()));
+        return bucket;
+    }
+
+    public long getNow()
+    {
+        return System.currentTimeMillis() + getTimeOffset();
+    }
+
+    public long getTimeOffset()
+    {
+        Long offset = timeOffset;
+        return offset == null ? 0 : offset;
+    }
+
+    private void setTimeOffset(Headers headers)
+    {
+        //Store as soon as possible to get the most accurate time difference;
+        long time = System.currentTimeMillis();
+        if (timeOffset == null)
+        {
+            //Get the date header provided by Discord.
+            //Format:  "date" : "Fri, 16 Sep 2016 05:49:36 GMT"
+            String date = headers.getFirst("Date");
+            if (date != null)
+            {
+                OffsetDateTime tDate = OffsetDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME);
+                long lDate = tDate.toInstant().toEpochMilli(); //We want to work in milliseconds, not seconds
+                timeOffset = lDate - time; //Get offset in milliseconds.
+            }
+        }
+    }
+
+    private void updateBucket(Bucket bucket, Headers headers)
+    {
+        try
+        {
+            //The reset time has to be published before the remaining uses, so a thread that observes
+            // an exhausted bucket never pairs it with the reset time of the previous window.
+            if (bucket.hasRatelimit()) // Check if there's a hardcoded rate limit
+            {
+                bucket.resetTime = getNow() + bucket.getRatelimit().getResetTime();
+            }
+            else
+            {
+                bucket.resetTime = Long.parseLong(headers.getFirst("X-RateLimit-Reset")) * 1000; //Seconds to milliseconds
+                bucket.routeUsageLimit = Integer.parseInt(headers.getFirst("X-RateLimit-Limit"));
+            }
+
+            //See BotRateLimiter#updateBucket for why the remaining amount is also respected for hardcoded ratelimits.
+            bucket.routeUsageRemaining.set(Integer.parseInt(headers.getFirst("X-RateLimit-Remaining")));
+        }
+        catch (NumberFormatException ex)
+        {
+            if (!bucket.getRoute().equals("gateway")
+                    && !bucket.getRoute().equals("users/@me")
+                    && Requester.LOG.getEffectiveLevel().getPriority() <= SimpleLog.Level.DEBUG.getPriority())
+            {
+                Requester.LOG.debug("Encountered issue with headers when updating a bucket"
+                                  + "\nRoute: " + bucket.getRoute()
+                                  + "\nHeaders: " + headers);
+            }
+        }
+    }
+
+    private class Bucket implements IBucket, Runnable
+    {
+        final String route;
+        final RateLimit rateLimit;
+        final AtomicBoolean submitted = new AtomicBoolean(false);
+        final AtomicInteger routeUsageRemaining = new AtomicInteger(1); //These are default values to only allow 1 request until we have
+        volatile int routeUsageLimit = 1;                               // properly ratelimit information.
+        volatile long resetTime = 0;
+        final ConcurrentLinkedQueue<Request<?>> requests = new ConcurrentLinkedQueue<>();
+
+        public Bucket(String route, RateLimit rateLimit)
+        {
+            this.route = route;
+            this.rateLimit = rateLimit;
+            if (rateLimit != null)
+            {
+                this.routeUsageRemaining.set(rateLimit.getUsageLimit());
+                this.routeUsageLimit = rateLimit.getUsageLimit();
+            }
+        }
+
+        void addToQueue(Request<?> request)
+        {
+            requests.add(request);
+            submitForProcessing();
+        }
+
+        void submitForProcessing()
+        {
+            //Only the thread that flips the flag schedules the bucket, every other caller
+            // can rely on the already scheduled run to pick up its request.
+            if (!submitted.compareAndSet(false, true))
+                return;
+
+            Long delay = getRateLimit();
+            if (delay == null)
+                delay = 0L;
+
+            try
+            {
+                pool.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+            catch (RejectedExecutionException e)
+            {
+                submitted.set(false);
+                throw e;
+            }
+        }
+
+        Long getRateLimit()
+        {
+            long gCooldown = globalCooldown.get();
+            if (gCooldown != Long.MIN_VALUE) //Are we on global cooldown?
+            {
+                long now = getNow();
+                if (now > gCooldown)   //Verify that we should still be on cooldown.
+                {
+                    globalCooldown.compareAndSet(gCooldown, Long.MIN_VALUE);  //If we are done cooling down, reset the globalCooldown and continue.
+                }
+                else
+                {
+                    return gCooldown - now;    //If we should still be on cooldown, return when we can go again.
+                }
+            }
+
+            while (true)
+            {
+                int remaining = routeUsageRemaining.get();
+                if (remaining > 0)
+                    return null;
+
+                long reset = this.resetTime;
+                long now = getNow();
+                if (now <= reset)
+                    return reset - now;
+
+                //The window has passed, refill the bucket. If this fails another thread either refilled it
+                // or a response updated it in the meantime, so the new state has to be checked again.
+                if (routeUsageRemaining.compareAndSet(remaining, routeUsageLimit))
+                    return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Bucket))
+                return false;
+
+            Bucket oBucket = (Bucket) o;
+            return route.equals(oBucket.route);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return route.hashCode();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                //The submitted flag guarantees that only one thread at a time processes this bucket,
+                // so the queue can be drained without any further locking.
+                runQueue(requests, this::finishProcessing);
+            }
+            catch (Throwable err)
+            {
+                handleInternalError(err);
+            }
+        }
+
+        void finishProcessing()
+        {
+            submitted.set(false);
+            //A request added after the queue was drained but before the flag was cleared would not have scheduled
+            // this bucket, so the queue has to be checked again now that the flag is free.
+            if (!requests.isEmpty())
+            {
+                try
+                {
+                    this.submitForProcessing();
+                }
+                catch (RejectedExecutionException e)
+                {
+                    Requester.LOG.debug("Caught RejectedExecutionException when re-queuing a ratelimited request. The requester is probably shutdown, thus, this can be ignored.");
+                }
+            }
+        }
+
+        @Override
+        public RateLimit getRatelimit()
+        {
+            return rateLimit;
+        }
+
+        @Override
+        public String getRoute()
+        {
+            return route;
+        }
+
+        @Override
+        public Queue<Request<?>> getRequests()
+        {
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.ratelimit;
+
+import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.requests.RateLimiter;
+import net.dv8tion.jda.core.requests.Requester;
+import org.apache.http.util.Args;
+
+/**
+ * Implementation of the {@link net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory IRateLimiterFactory}
+ * which creates a {@link net.dv8tion.jda.core.requests.ratelimit.ConcurrentBotRateLimiter ConcurrentBotRateLimiter}
+ * for {@link net.dv8tion.jda.core.AccountType#BOT BOT} accounts.
+ * <br>This is intended for bots that keep many rate limit buckets busy at the same time, as no bucket operation
+ * has to acquire a monitor shared with other buckets.
+ *
+ * <p>{@link net.dv8tion.jda.core.AccountType#CLIENT CLIENT} accounts still use the
+ * {@link net.dv8tion.jda.core.requests.ratelimit.ClientRateLimiter ClientRateLimiter}.
+ */
+public class ConcurrentRateLimiterFactory implements IRateLimiterFactory
+{
+    protected final int poolSize;
+
+    public ConcurrentRateLimiterFactory()
+    {
+        this(DefaultRateLimiterFactory.DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a new ConcurrentRateLimiterFactory.
+     *
+     * @param  poolSize
+     *         The amount of threads used to execute requests for each created RateLimiter
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided pool size is not positive
+     */
+    public ConcurrentRateLimiterFactory(int poolSize)
+    {
+        Args.positive(poolSize, "Pool size");
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public RateLimiter createRateLimiter(Requester requester, AccountType accountType)
+    {
+        if (accountType == AccountType.BOT)
+            return new ConcurrentBotRateLimiter(requester, poolSize);
+        else
+            return new ClientRateLimiter(requester, poolSize);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.ratelimit;
+
+import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.requests.RateLimiter;
+import net.dv8tion.jda.core.requests.Requester;
+
+/**
+ * The default implementation of the {@link net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory IRateLimiterFactory}.
+ * <br>Creates a {@link net.dv8tion.jda.core.requests.ratelimit.BotRateLimiter BotRateLimiter} for
+ * {@link net.dv8tion.jda.core.AccountType#BOT BOT} accounts and a
+ * {@link net.dv8tion.jda.core.requests.ratelimit.ClientRateLimiter ClientRateLimiter} for
+ * {@link net.dv8tion.jda.core.AccountType#CLIENT CLIENT} accounts.
+ */
+public class DefaultRateLimiterFactory implements IRateLimiterFactory
+{
+    public static final int DEFAULT_POOL_SIZE = 5;
+
+    @Override
+    public RateLimiter createRateLimiter(Requester requester, AccountType accountType)
+    {
+        if (accountType == AccountType.BOT)
+            return new BotRateLimiter(requester, DEFAULT_POOL_SIZE);
+        else
+            return new ClientRateLimiter(requester, DEFAULT_POOL_SIZE);
+    }
+}
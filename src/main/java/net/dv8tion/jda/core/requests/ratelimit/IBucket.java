@@ -25,7 +25,7 @@ public interface IBucket
 {
     Route.RateLimit getRatelimit();
     String getRoute();
-    Queue<Request> getRequests();
+    Queue<Request<?>> getRequests();
     
     default boolean hasRatelimit()
     {
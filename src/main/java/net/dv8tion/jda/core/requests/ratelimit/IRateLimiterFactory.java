@@ -0,0 +1,46 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.ratelimit;
+
+import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.requests.RateLimiter;
+import net.dv8tion.jda.core.requests.Requester;
+
+/**
+ * Factory interface for the creation of the {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter}
+ * used by a {@link net.dv8tion.jda.core.requests.Requester Requester}.
+ * <br>JDA, by default, uses {@link net.dv8tion.jda.core.requests.ratelimit.DefaultRateLimiterFactory DefaultRateLimiterFactory}.
+ * <p>
+ * Implementations of this interface are provided to
+ * {@link net.dv8tion.jda.core.JDABuilder#setRateLimiterFactory(IRateLimiterFactory) JDABuilder.setRateLimiterFactory(IRateLimiterFactory)}.
+ */
+public interface IRateLimiterFactory
+{
+    /**
+     * Called by the {@link net.dv8tion.jda.core.requests.Requester Requester} when it is constructed.
+     * <br>This can be called more than once for the same JDA instance if the login process has to switch
+     * the {@link net.dv8tion.jda.core.AccountType AccountType} of the provided token.
+     *
+     * @param  requester
+     *         The Requester that will execute the requests queued on the new RateLimiter
+     * @param  accountType
+     *         The AccountType the Requester is handling requests for
+     *
+     * @return The newly constructed RateLimiter
+     */
+    RateLimiter createRateLimiter(Requester requester, AccountType accountType);
+}
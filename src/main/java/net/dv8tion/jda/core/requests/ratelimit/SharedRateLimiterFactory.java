@@ -0,0 +1,114 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.ratelimit;
+
+import net.dv8tion.jda.core.AccountType;
+import net.dv8tion.jda.core.requests.RateLimiter;
+import net.dv8tion.jda.core.requests.Requester;
+import org.apache.http.util.Args;
+
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the {@link net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory IRateLimiterFactory}
+ * which hands the same {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter} to every
+ * {@link net.dv8tion.jda.core.AccountType#BOT BOT} {@link net.dv8tion.jda.core.requests.Requester Requester}.
+ * <br>This is used to run multiple shards of a bot in one JVM, they then share the rate limit buckets
+ * (including the global rate limit) and the request pool of a single RateLimiter instead of each shard tracking
+ * the limits of the token on its own.
+ *
+ * <p>The shared RateLimiter is created by the wrapped factory when it is first requested and shutdown once the
+ * last Requester using it was shutdown. A new one is created if it is requested again afterwards.
+ * <br>{@link net.dv8tion.jda.core.AccountType#CLIENT CLIENT} accounts are not shared and directly use the wrapped factory.
+ *
+ * <p>The shared RateLimiter is {@link net.dv8tion.jda.core.requests.RateLimiter#setShared(String, Consumer) configured}
+ * with the identifier and error handler of this factory, so its threads and errors are not attributed to the
+ * Requester that happened to create it.
+ */
+public class SharedRateLimiterFactory implements IRateLimiterFactory
+{
+    protected final IRateLimiterFactory factory;
+    protected final String identifier;
+    protected final Consumer<Throwable> errorHandler;
+    protected RateLimiter rateLimiter;
+
+    public SharedRateLimiterFactory()
+    {
+        this(new DefaultRateLimiterFactory());
+    }
+
+    /**
+     * Creates a new SharedRateLimiterFactory.
+     *
+     * @param  factory
+     *         The factory used to create the shared RateLimiter
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided factory is {@code null}
+     */
+    public SharedRateLimiterFactory(IRateLimiterFactory factory)
+    {
+        this(factory, "JDA Shared", null);
+    }
+
+    /**
+     * Creates a new SharedRateLimiterFactory.
+     *
+     * @param  factory
+     *         The factory used to create the shared RateLimiter
+     * @param  identifier
+     *         The identifier used in the thread names of the shared RateLimiter
+     * @param  errorHandler
+     *         Handles internal errors of the shared RateLimiter, or {@code null} to fire them on the JDA instance
+     *         that created it
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided factory or identifier is {@code null}
+     */
+    public SharedRateLimiterFactory(IRateLimiterFactory factory, String identifier, Consumer<Throwable> errorHandler)
+    {
+        Args.notNull(factory, "IRateLimiterFactory");
+        Args.notNull(identifier, "Identifier");
+        this.factory = factory;
+        this.identifier = identifier;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public synchronized RateLimiter createRateLimiter(Requester requester, AccountType accountType)
+    {
+        if (accountType != AccountType.BOT)
+            return factory.createRateLimiter(requester, accountType);
+
+        if (rateLimiter == null || !rateLimiter.retain())
+        {
+            rateLimiter = factory.createRateLimiter(requester, accountType);
+            rateLimiter.setShared(identifier, errorHandler);
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * The RateLimiter that is currently shared, or {@code null} if none was created yet.
+     *
+     * @return Possibly-null shared RateLimiter
+     */
+    public synchronized RateLimiter getRateLimiter()
+    {
+        return rateLimiter;
+    }
+}
@@ -17,5 +17,8 @@
 /**
  * Implementations of {@link net.dv8tion.jda.core.requests.RateLimiter RateLimiter}
  * that handle the rate limit responses for the {@link net.dv8tion.jda.core.requests.Requester Requester}!
+ *
+ * <p>Which implementation is used is decided by the {@link net.dv8tion.jda.core.requests.ratelimit.IRateLimiterFactory IRateLimiterFactory}
+ * provided to {@link net.dv8tion.jda.core.JDABuilder#setRateLimiterFactory(IRateLimiterFactory) JDABuilder.setRateLimiterFactory(IRateLimiterFactory)}.
  */
 package net.dv8tion.jda.core.requests.ratelimit;
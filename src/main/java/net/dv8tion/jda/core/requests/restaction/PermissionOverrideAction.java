@@ -20,6 +20,7 @@ import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.*;
 import net.dv8tion.jda.core.entities.impl.AbstractChannelImpl;
+import net.dv8tion.jda.core.entities.impl.GuildImpl;
 import net.dv8tion.jda.core.entities.impl.PermissionOverrideImpl;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Response;
@@ -421,6 +422,7 @@ public class PermissionOverrideAction extends RestAction<PermissionOverride>
         PermissionOverrideImpl override = new PermissionOverrideImpl(channel, id, isMember ? member : role).setAllow(allow).setDeny(deny);
 
         ((AbstractChannelImpl<?>) channel).getOverrideMap().put(id, override);
+        ((GuildImpl) channel.getGuild()).getPermissionCache().invalidateChannel(channel.getIdLong());
 
         request.onSuccess(override);
     }
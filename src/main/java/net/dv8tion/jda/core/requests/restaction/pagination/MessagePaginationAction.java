@@ -22,6 +22,8 @@ import net.dv8tion.jda.core.exceptions.PermissionException;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Response;
 import net.dv8tion.jda.core.requests.Route;
+import net.dv8tion.jda.core.utils.MiscUtil;
+import org.apache.http.util.Args;
 import org.json.JSONArray;
 
 import java.util.ArrayList;
@@ -48,6 +50,7 @@ import java.util.List;
 public class MessagePaginationAction extends PaginationAction<Message, MessagePaginationAction>
 {
     private final MessageChannel channel;
+    private volatile String anchor;
 
     public MessagePaginationAction(MessageChannel channel)
     {
@@ -84,16 +87,59 @@ public class MessagePaginationAction extends PaginationAction<Message, MessagePa
         return channel;
     }
 
+    /**
+     * Starts the pagination before the specified message instead of the most recent message of the channel.
+     * <br>This only affects the first page, the following pages are always retrieved before the last
+     * retrieved message. Can be used to resume the traversal of a channel from a stored message id.
+     *
+     * @param  messageId
+     *         The id of the message to start before, or {@code null} to start with the most recent message
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided id is empty or not a valid snowflake
+     *
+     * @return The current MessagePaginationAction for chaining convenience
+     */
+    public MessagePaginationAction before(String messageId)
+    {
+        if (messageId != null)
+        {
+            Args.notEmpty(messageId, "Message ID");
+            MiscUtil.parseSnowflake(messageId);
+        }
+        this.anchor = messageId;
+        return this;
+    }
+
+    /**
+     * The id of the message this pagination starts before.
+     *
+     * @return The starting message id, or {@code null} if the pagination starts with the most recent message
+     *
+     * @see    #before(String)
+     */
+    public String getBefore()
+    {
+        return anchor;
+    }
+
     @Override
     protected void finalizeRoute()
     {
-        final String limit = String.valueOf(this.getLimit());
+        finalizeRoute(getLimit());
+    }
+
+    @Override
+    protected void finalizeRoute(int pageLimit)
+    {
+        final String limit = String.valueOf(pageLimit);
         final Message last = this.last;
+        final String before = last == null ? anchor : last.getId();
 
-        if (last == null)
+        if (before == null)
             route = Route.Messages.GET_MESSAGE_HISTORY.compile(channel.getId(), limit);
         else
-            route = Route.Messages.GET_MESSAGE_HISTORY_BEFORE.compile(channel.getId(), limit, last.getId());
+            route = Route.Messages.GET_MESSAGE_HISTORY_BEFORE.compile(channel.getId(), limit, before);
     }
 
     @Override
@@ -17,13 +17,20 @@
 package net.dv8tion.jda.core.requests.restaction.pagination;
 
 import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.exceptions.ErrorResponseException;
+import net.dv8tion.jda.core.exceptions.PermissionException;
 import net.dv8tion.jda.core.requests.Request;
 import net.dv8tion.jda.core.requests.Response;
 import net.dv8tion.jda.core.requests.RestAction;
+import net.dv8tion.jda.core.requests.restaction.RequestFuture;
+import net.dv8tion.jda.core.utils.MiscUtil;
+import net.dv8tion.jda.core.utils.Procedure;
 import org.apache.http.util.Args;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -273,6 +280,69 @@ public abstract class PaginationAction<T, M extends PaginationAction<T, M>> exte
         return new PaginationIterator();
     }
 
+    /**
+     * {@link net.dv8tion.jda.core.requests.restaction.pagination.PaginationAction.PrefetchIterator PrefetchIterator}
+     * that will iterate over all entities for this PaginationAction while retrieving the following pages in the background.
+     *
+     * @param  prefetchDepth
+     *         The maximum amount of pages that are retrieved ahead of the page that is currently iterated
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided depth is not positive
+     *
+     * @return new PrefetchIterator
+     */
+    public PrefetchIterator iterator(int prefetchDepth)
+    {
+        Args.positive(prefetchDepth, "Prefetch depth");
+        return new PrefetchIterator(prefetchDepth);
+    }
+
+    /**
+     * Iterates over all entities for this PaginationAction without blocking the calling thread.
+     * <br>First the {@link #getCached() cached} entities are provided, afterwards the following pages are retrieved
+     * using the highest possible limit. The next page is requested as soon as a page is received, so the request is
+     * in flight while the provided procedure handles the current page.
+     *
+     * <p>The procedure is called for one entity at a time and in order, but not necessarily on the same thread.
+     * <br>The iteration stops once the end of the pagination is reached, the procedure returns {@code false}
+     * or throws an exception, or a request fails.
+     * Cancelling the returned future stops the iteration after the current entity.
+     *
+     * <p>When iterating large endpoints it is recommended to {@link #cache(boolean) disable the cache}.
+     *
+     * @param  action
+     *         The procedure to call for every entity, returns {@code false} to stop the iteration
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided procedure is {@code null}
+     *
+     * @return Future that is completed once the iteration stopped, or completed exceptionally with the failure
+     *         of a request or the procedure
+     */
+    public CompletableFuture<Void> forEachAsync(Procedure<? super T> action)
+    {
+        Args.notNull(action, "Procedure");
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try
+        {
+            for (T entity : cached)
+            {
+                if (!action.execute(entity))
+                {
+                    result.complete(null);
+                    return result;
+                }
+            }
+            forEachPage(requestPage(), action, result);
+        }
+        catch (Throwable t)
+        {
+            result.completeExceptionally(t);
+        }
+        return result;
+    }
+
     @Override
     public Spliterator<T> spliterator()
     {
@@ -303,6 +373,103 @@ public abstract class PaginationAction<T, M extends PaginationAction<T, M>> exte
     protected abstract void finalizeRoute();
     protected abstract void handleResponse(Response response, Request<List<T>> request);
 
+    /**
+     * Compiles the route of the next page with the provided limit instead of the configured {@link #getLimit() limit}.
+     * <br>Used by the iterators which always request the highest possible limit.
+     * Implementations that do not override this use the configured limit.
+     *
+     * @param limit
+     *        The limit to use for the next page
+     */
+    protected void finalizeRoute(int limit)
+    {
+        finalizeRoute();
+    }
+
+    /**
+     * Requests the page following the {@link #getLast() last} retrieved entity with the highest possible limit.
+     * <br>Pages are chained by the last entity, so a page may only be requested once the previous page was received.
+     *
+     * @return Future that is completed with the next page, which is empty once the end has been reached
+     */
+    protected RequestFuture<List<T>> requestPage()
+    {
+        finalizeData();
+        finalizeRoute(maxLimit == 0 ? getLimit() : maxLimit);
+        return new RequestFuture<>(this, true);
+    }
+
+    protected void forEachPage(CompletableFuture<List<T>> page, Procedure<? super T> action, CompletableFuture<Void> result)
+    {
+        MiscUtil.whenCompleteOn(page, api.pool, (entities, failure) -> handlePage(entities, failure, action, result),
+                result::completeExceptionally);
+    }
+
+    protected void handlePage(List<T> entities, Throwable failure, Procedure<? super T> action, CompletableFuture<Void> result)
+    {
+        RequestFuture<List<T>> next = null;
+        try
+        {
+            if (result.isDone())
+                return;
+            if (failure != null)
+            {
+                result.completeExceptionally(failure);
+                return;
+            }
+            if (entities.isEmpty())
+            {
+                result.complete(null);
+                return;
+            }
+
+            //The next page is retrieved while this one is handled
+            next = requestPage();
+            for (T entity : entities)
+            {
+                if (result.isDone())
+                {
+                    next.cancel(false);
+                    return;
+                }
+                if (!action.execute(entity))
+                {
+                    next.cancel(false);
+                    result.complete(null);
+                    return;
+                }
+            }
+            forEachPage(next, action, result);
+        }
+        catch (Throwable t)
+        {
+            if (next != null)
+                next.cancel(false);
+            result.completeExceptionally(t);
+        }
+    }
+
+    protected List<T> completePage()
+    {
+        try
+        {
+            return requestPage().get();
+        }
+        catch (Throwable e)
+        {
+            //Same handling as RestAction.complete()
+            if (e instanceof ExecutionException)
+            {
+                Throwable t = e.getCause();
+                if (t instanceof PermissionException)
+                    throw (PermissionException) t;
+                else if (t instanceof ErrorResponseException)
+                    throw (ErrorResponseException) t;
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Iterator implementation for a {@link net.dv8tion.jda.core.requests.restaction.pagination.PaginationAction PaginationAction}.
      * <br>This iterator will first iterate over all currently cached entities and continue to retrieve new entities
@@ -324,12 +491,7 @@ public abstract class PaginationAction<T, M extends PaginationAction<T, M>> exte
             if (!hitEnd())
                 return true;
 
-            synchronized (limit)
-            {
-                final int tmp = limit.getAndSet(maxLimit);
-                items.addAll(complete());
-                limit.set(tmp);
-            }
+            items.addAll(completePage());
 
             if (!hitEnd())
                 return true;
@@ -354,4 +516,108 @@ public abstract class PaginationAction<T, M extends PaginationAction<T, M>> exte
 
     }
 
+    /**
+     * Iterator implementation for a {@link net.dv8tion.jda.core.requests.restaction.pagination.PaginationAction PaginationAction}
+     * that retrieves the following pages in the background.
+     * <br>This iterator will first iterate over all currently cached entities and continue with the retrieved pages.
+     *
+     * <p>As soon as a page is received the next one is requested, until the configured amount of pages is waiting
+     * to be iterated. The requests themselves are still sent one after the other, as every page starts after the
+     * last entity of the previous one. This allows the handling of a page to overlap with the retrieval of the next.
+     * <br>An iterator that is not used anymore stops once its buffer is full.
+     */
+    public class PrefetchIterator implements Iterator<T>
+    {
+        protected final int prefetchDepth;
+        protected final Deque<List<T>> pages = new ArrayDeque<>();
+        protected Queue<T> items = new LinkedList<>(cached);
+        protected boolean fetching = false;
+        protected boolean reachedEnd = false;
+        protected Throwable failure = null;
+
+        protected PrefetchIterator(int prefetchDepth)
+        {
+            this.prefetchDepth = prefetchDepth;
+            synchronized (this)
+            {
+                fetchNext();
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (!items.isEmpty())
+                return true;
+
+            synchronized (this)
+            {
+                while (true)
+                {
+                    List<T> page = pages.poll();
+                    if (page != null)
+                    {
+                        items.addAll(page);
+                        fetchNext();
+                        return true;
+                    }
+                    if (failure != null)
+                        throw failure instanceof RuntimeException ? (RuntimeException) failure : new RuntimeException(failure);
+                    if (reachedEnd)
+                        return false;
+                    fetchNext();
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public T next()
+        {
+            if (!hasNext())
+                throw new NoSuchElementException("Reached End of pagination task!");
+            return items.poll();
+        }
+
+        // Has to be called while holding the lock of this iterator
+        protected void fetchNext()
+        {
+            if (fetching || reachedEnd || failure != null || pages.size() >= prefetchDepth)
+                return;
+            fetching = true;
+            try
+            {
+                requestPage().whenComplete(this::onPage);
+            }
+            catch (Throwable t)
+            {
+                //For example when JDA was shut down, wake up hasNext() so it can throw
+                fetching = false;
+                failure = t;
+                notifyAll();
+            }
+        }
+
+        protected synchronized void onPage(List<T> page, Throwable t)
+        {
+            fetching = false;
+            if (t != null)
+                failure = MiscUtil.unwrapCompletion(t);
+            else if (page.isEmpty())
+                reachedEnd = true;
+            else
+                pages.add(page);
+            fetchNext();
+            notifyAll();
+        }
+    }
+
 }
@@ -82,9 +82,15 @@ public class ReactionPaginationAction extends PaginationAction<User, ReactionPag
 
     @Override
     protected void finalizeRoute()
+    {
+        finalizeRoute(getLimit());
+    }
+
+    @Override
+    protected void finalizeRoute(int pageLimit)
     {
         String after = null;
-        String limit = String.valueOf(getLimit());
+        String limit = String.valueOf(pageLimit);
         User last = this.last;
         if (last != null)
             after = last.getId();
@@ -0,0 +1,87 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.transport;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.async.Callback;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import net.dv8tion.jda.core.requests.Requester;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Transport used by the {@link net.dv8tion.jda.core.requests.Requester Requester} to send HTTP requests to Discord.
+ * <br>JDA, by default, uses a {@link net.dv8tion.jda.core.requests.transport.PooledRestTransport PooledRestTransport}.
+ *
+ * <p>Implementations of this interface are provided to
+ * {@link net.dv8tion.jda.core.JDABuilder#setRestTransport(IRestTransport) JDABuilder.setRestTransport(IRestTransport)}.
+ * A single transport can be shared by multiple JDA instances, it is shut down when a JDA instance using it is
+ * {@link net.dv8tion.jda.core.JDA#shutdown(boolean) shut down} with {@code free} set to {@code true}.
+ */
+public interface IRestTransport
+{
+    /**
+     * The base url that all routes are resolved against.
+     * <br>This can be overridden to send all requests to a different host, for example a local server that
+     * mimics the Discord API.
+     *
+     * @return The base url, including the trailing slash
+     */
+    default String getBaseUrl()
+    {
+        return Requester.DISCORD_API_PREFIX;
+    }
+
+    /**
+     * Sends the provided request and waits for the response.
+     *
+     * @param  request
+     *         The request to send
+     *
+     * @throws com.mashape.unirest.http.exceptions.UnirestException
+     *         If the request could not be sent or no response was received
+     *
+     * @return The response
+     */
+    HttpResponse<String> execute(HttpUriRequest request) throws UnirestException;
+
+    /**
+     * Sends the provided request without waiting for the response.
+     * <br>The callback may be invoked on an I/O thread of the transport and should hand off any further work.
+     *
+     * @param request
+     *        The request to send
+     * @param callback
+     *        The callback to hand the response or failure to
+     */
+    void executeAsync(HttpUriRequest request, Callback<String> callback);
+
+    /**
+     * Statistics of the connections currently held by this transport.
+     * <br>Transports that do not pool their connections may return {@code null}.
+     *
+     * @return {@link org.apache.http.pool.PoolStats PoolStats} with the amount of leased, idle (available)
+     *         and pending connections
+     */
+    PoolStats getPoolStats();
+
+    /**
+     * Closes all connections held by this transport.
+     * <br>The transport can not be used anymore afterwards.
+     */
+    void shutdown();
+}
@@ -0,0 +1,303 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.requests.transport;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.async.Callback;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import net.dv8tion.jda.core.requests.Requester;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The default {@link net.dv8tion.jda.core.requests.transport.IRestTransport IRestTransport}.
+ * <br>Keeps pools of persistent connections for both blocking and asynchronous requests, so that consecutive
+ * requests to the same host reuse an already established connection.
+ *
+ * <p>The amount of connections can be limited in total and per host. The limits apply to each of the two pools,
+ * the pool for asynchronous requests is only created once the first asynchronous request is sent.
+ */
+public class PooledRestTransport implements IRestTransport
+{
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_HOST = 50;
+    public static final int DEFAULT_TIMEOUT = 60000;
+
+    protected final String baseUrl;
+    protected final HttpHost proxy;
+    protected final int maxTotal;
+    protected final int maxPerHost;
+    protected final RequestConfig requestConfig;
+    protected final Map<HttpHost, Integer> hostLimits = new HashMap<>();
+    protected final PoolingHttpClientConnectionManager connectionManager;
+    protected final CloseableHttpClient client;
+
+    protected volatile PoolingNHttpClientConnectionManager asyncConnectionManager;
+    protected volatile CloseableHttpAsyncClient asyncClient;
+    protected volatile boolean isShutdown = false;
+
+    public PooledRestTransport()
+    {
+        this(null);
+    }
+
+    public PooledRestTransport(HttpHost proxy)
+    {
+        this(Requester.DISCORD_API_PREFIX, proxy, DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_HOST);
+    }
+
+    /**
+     * Creates a new PooledRestTransport.
+     *
+     * @param  baseUrl
+     *         The url all routes are resolved against, including the trailing slash
+     * @param  proxy
+     *         The HTTP proxy to use, or {@code null}
+     * @param  maxTotal
+     *         The maximum amount of connections held by each pool
+     * @param  maxPerHost
+     *         The maximum amount of connections to a single host held by each pool
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the base url is {@code null} or one of the limits is not positive
+     */
+    public PooledRestTransport(String baseUrl, HttpHost proxy, int maxTotal, int maxPerHost)
+    {
+        Args.notNull(baseUrl, "Base url");
+        Args.positive(maxTotal, "Max total connections");
+        Args.positive(maxPerHost, "Max connections per host");
+        this.baseUrl = baseUrl;
+        this.proxy = proxy;
+        this.maxTotal = maxTotal;
+        this.maxPerHost = maxPerHost;
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(DEFAULT_TIMEOUT)
+                .setSocketTimeout(DEFAULT_TIMEOUT)
+                .setConnectionRequestTimeout(DEFAULT_TIMEOUT)
+                .build();
+
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(maxTotal);
+        this.connectionManager.setDefaultMaxPerRoute(maxPerHost);
+        this.connectionManager.setValidateAfterInactivity(2000);
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setProxy(proxy)
+                .disableCookieManagement()
+                .build();
+    }
+
+    /**
+     * Sets the maximum amount of connections to the provided host held by each pool.
+     * <br>This overrides the per host limit provided in the constructor for this host.
+     *
+     * @param  host
+     *         The host, for example {@code new HttpHost("discordapp.com", 443, "https")}
+     * @param  max
+     *         The maximum amount of connections
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the host is {@code null} or the limit is not positive
+     *
+     * @return The current PooledRestTransport, useful for chaining
+     */
+    public PooledRestTransport setMaxConnections(HttpHost host, int max)
+    {
+        Args.notNull(host, "Host");
+        Args.positive(max, "Max connections");
+        HttpRoute route = getRoute(host);
+        synchronized (hostLimits)
+        {
+            hostLimits.put(host, max);
+            connectionManager.setMaxPerRoute(route, max);
+            if (asyncConnectionManager != null)
+                asyncConnectionManager.setMaxPerRoute(route, max);
+        }
+        return this;
+    }
+
+    @Override
+    public String getBaseUrl()
+    {
+        return baseUrl;
+    }
+
+    @Override
+    public HttpResponse<String> execute(HttpUriRequest request) throws UnirestException
+    {
+        try (CloseableHttpResponse response = client.execute(request))
+        {
+            return new HttpResponse<>(response, String.class);
+        }
+        catch (Exception e)
+        {
+            throw new UnirestException(e);
+        }
+    }
+
+    @Override
+    public void executeAsync(HttpUriRequest request, Callback<String> callback)
+    {
+        CloseableHttpAsyncClient asyncClient;
+        try
+        {
+            asyncClient = getAsyncClient();
+        }
+        catch (IOReactorException | IllegalStateException e)
+        {
+            callback.failed(new UnirestException(e));
+            return;
+        }
+
+        asyncClient.execute(request, new FutureCallback<org.apache.http.HttpResponse>()
+        {
+            @Override
+            public void completed(org.apache.http.HttpResponse response)
+            {
+                HttpResponse<String> result;
+                try
+                {
+                    result = new HttpResponse<>(response, String.class);
+                }
+                catch (Exception e)
+                {
+                    callback.failed(new UnirestException(e));
+                    return;
+                }
+                callback.completed(result);
+            }
+
+            @Override
+            public void failed(Exception ex)
+            {
+                callback.failed(new UnirestException(ex));
+            }
+
+            @Override
+            public void cancelled()
+            {
+                callback.cancelled();
+            }
+        });
+    }
+
+    @Override
+    public PoolStats getPoolStats()
+    {
+        PoolStats stats = connectionManager.getTotalStats();
+        PoolingNHttpClientConnectionManager asyncManager = asyncConnectionManager;
+        if (asyncManager == null)
+            return stats;
+
+        PoolStats asyncStats = asyncManager.getTotalStats();
+        return new PoolStats(
+                stats.getLeased() + asyncStats.getLeased(),
+                stats.getPending() + asyncStats.getPending(),
+                stats.getAvailable() + asyncStats.getAvailable(),
+                stats.getMax() + asyncStats.getMax());
+    }
+
+    @Override
+    public void shutdown()
+    {
+        isShutdown = true;
+        try
+        {
+            client.close();
+        }
+        catch (IOException ignored) {}
+
+        synchronized (hostLimits)
+        {
+            if (asyncClient != null)
+            {
+                try
+                {
+                    asyncClient.close();
+                }
+                catch (IOException ignored) {}
+            }
+        }
+    }
+
+    protected CloseableHttpAsyncClient getAsyncClient() throws IOReactorException
+    {
+        CloseableHttpAsyncClient client = asyncClient;
+        if (client == null)
+        {
+            synchronized (hostLimits)
+            {
+                client = asyncClient;
+                if (client == null)
+                {
+                    if (isShutdown)
+                        throw new IllegalStateException("The transport has been shutdown!");
+
+                    PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(
+                            new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT));
+                    manager.setMaxTotal(maxTotal);
+                    manager.setDefaultMaxPerRoute(maxPerHost);
+                    hostLimits.forEach((host, max) -> manager.setMaxPerRoute(getRoute(host), max));
+
+                    client = HttpAsyncClients.custom()
+                            .setConnectionManager(manager)
+                            .setDefaultRequestConfig(requestConfig)
+                            .setProxy(proxy)
+                            .disableCookieManagement()
+                            .build();
+                    client.start();
+
+                    asyncConnectionManager = manager;
+                    asyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    protected HttpRoute getRoute(HttpHost host)
+    {
+        //Routes are compared by value, so they have to look exactly like the ones planned by the client.
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        int port = host.getPort() >= 0 ? host.getPort() : secure ? 443 : 80;
+        HttpHost target = new HttpHost(host.getHostName(), port, host.getSchemeName());
+        if (proxy != null)
+            return new HttpRoute(target, null, proxy, secure);
+        else
+            return new HttpRoute(target, null, secure);
+    }
+}
@@ -0,0 +1,587 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.utils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Pull based JSON reader that walks over a JSON String token by token without building a DOM tree.
+ * <br>This is used by JDA to only read the fields that are actually required from large gateway payloads.
+ * Sub-trees that are needed as a whole can still be materialized into {@link org.json.JSONObject JSONObjects}
+ * using {@link #nextJSONObject()} and {@link #nextJSONArray()}.
+ *
+ * <p>Snowflake ids are encoded as JSON strings by Discord, thus {@link #nextLong()} and {@link #nextInt()}
+ * accept both numbers and numeric strings.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class JsonReader
+{
+    /**
+     * The type of a token in the JSON stream.
+     */
+    public enum Token
+    {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final String source;
+    private final int end;
+    private int pos;
+
+    private int[] stack = new int[16];
+    private int depth;
+
+    private Token peeked;
+
+    /**
+     * Creates a reader for the provided JSON String.
+     *
+     * @param source
+     *        The JSON String
+     */
+    public JsonReader(String source)
+    {
+        this(source, 0, source.length());
+    }
+
+    /**
+     * Creates a reader for the JSON value located between {@code start} (inclusive)
+     * and {@code end} (exclusive) of the provided String.
+     *
+     * @param source
+     *        The String containing the JSON value
+     * @param start
+     *        The index of the first character of the value
+     * @param end
+     *        The index after the last character of the value
+     */
+    public JsonReader(String source, int start, int end)
+    {
+        if (start < 0 || end > source.length() || start > end)
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") for source of length " + source.length());
+        this.source = source;
+        this.pos = start;
+        this.end = end;
+        this.stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * The type of the next token without consuming it.
+     *
+     * @throws JSONException
+     *         If the source is not valid JSON
+     *
+     * @return The next {@link Token}
+     */
+    public Token peek()
+    {
+        if (peeked != null)
+            return peeked;
+
+        int scope = stack[depth - 1];
+        char c;
+        switch (scope)
+        {
+            case EMPTY_ARRAY:
+                if (nextNonWhitespace() == ']')
+                    return peeked = Token.END_ARRAY;
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']')
+                    return peeked = Token.END_ARRAY;
+                if (c != ',')
+                    throw syntaxError("Expected ',' or ']'");
+                pos++;
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}')
+                    return peeked = Token.END_OBJECT;
+                if (scope == NONEMPTY_OBJECT)
+                {
+                    if (c != ',')
+                        throw syntaxError("Expected ',' or '}'");
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"')
+                    throw syntaxError("Expected name");
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':')
+                    throw syntaxError("Expected ':'");
+                pos++;
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                skipWhitespace();
+                if (pos >= end)
+                    return peeked = Token.END_DOCUMENT;
+                throw syntaxError("Expected end of document");
+        }
+
+        switch (nextNonWhitespace())
+        {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                return peeked = Token.NULL;
+            default:
+                char first = source.charAt(pos);
+                if (first == '-' || (first >= '0' && first <= '9'))
+                    return peeked = Token.NUMBER;
+                throw syntaxError("Unexpected character '" + first + "'");
+        }
+    }
+
+    /**
+     * Whether the current object or array has another element.
+     *
+     * @return True, if the next token is neither the end of an object, array or of the document
+     */
+    public boolean hasNext()
+    {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject()
+    {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(EMPTY_OBJECT);
+        peeked = null;
+    }
+
+    public void endObject()
+    {
+        expect(Token.END_OBJECT);
+        pos++;
+        depth--;
+        peeked = null;
+    }
+
+    public void beginArray()
+    {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(EMPTY_ARRAY);
+        peeked = null;
+    }
+
+    public void endArray()
+    {
+        expect(Token.END_ARRAY);
+        pos++;
+        depth--;
+        peeked = null;
+    }
+
+    /**
+     * Consumes the name of the next field in the current object.
+     *
+     * @return The field name
+     */
+    public String nextName()
+    {
+        expect(Token.NAME);
+        peeked = null;
+        return readString();
+    }
+
+    /**
+     * Consumes the next value as String.
+     * <br>Numbers and booleans are returned in their literal representation.
+     *
+     * @throws JSONException
+     *         If the next value is not a String, number or boolean
+     *
+     * @return The String value
+     */
+    public String nextString()
+    {
+        Token token = peek();
+        switch (token)
+        {
+            case STRING:
+                peeked = null;
+                return readString();
+            case NUMBER:
+            case BOOLEAN:
+                peeked = null;
+                return readLiteral();
+            default:
+                throw syntaxError("Expected a string but was " + token);
+        }
+    }
+
+    /**
+     * Consumes the next value as String or {@code null} if the value is a JSON null.
+     *
+     * @return The String value or {@code null}
+     */
+    public String nextStringOrNull()
+    {
+        if (peek() == Token.NULL)
+        {
+            nextNull();
+            return null;
+        }
+        return nextString();
+    }
+
+    /**
+     * Consumes the next value as long. Numeric strings, such as snowflake ids, are accepted.
+     *
+     * @throws JSONException
+     *         If the next value is not numeric
+     *
+     * @return The long value
+     */
+    public long nextLong()
+    {
+        Token token = peek();
+        String value;
+        if (token == Token.STRING)
+            value = readString();
+        else if (token == Token.NUMBER)
+            value = readLiteral();
+        else
+            throw syntaxError("Expected a long but was " + token);
+        peeked = null;
+
+        try
+        {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e)
+        {
+            try
+            {
+                double d = Double.parseDouble(value);
+                if (d == (long) d)
+                    return (long) d;
+            }
+            catch (NumberFormatException ignored) {}
+            throw new JSONException("Value " + value + " is not a long");
+        }
+    }
+
+    /**
+     * Consumes the next value as int. Numeric strings are accepted.
+     *
+     * @throws JSONException
+     *         If the next value is not numeric or does not fit into an int
+     *
+     * @return The int value
+     */
+    public int nextInt()
+    {
+        long value = nextLong();
+        if ((int) value != value)
+            throw new JSONException("Value " + value + " is not an int");
+        return (int) value;
+    }
+
+    public boolean nextBoolean()
+    {
+        expect(Token.BOOLEAN);
+        peeked = null;
+        String literal = readLiteral();
+        if (literal.equals("true"))
+            return true;
+        if (literal.equals("false"))
+            return false;
+        throw syntaxError("Expected a boolean but was " + literal);
+    }
+
+    public void nextNull()
+    {
+        expect(Token.NULL);
+        peeked = null;
+        if (!readLiteral().equals("null"))
+            throw syntaxError("Expected null");
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays, without parsing it.
+     */
+    public void skipValue()
+    {
+        Token token = peek();
+        if (token == Token.NAME || token == Token.END_OBJECT || token == Token.END_ARRAY || token == Token.END_DOCUMENT)
+            throw syntaxError("Expected a value but was " + token);
+        pos = scanValue(pos);
+        peeked = null;
+    }
+
+    /**
+     * Consumes the next value and returns its raw JSON representation.
+     *
+     * @return The JSON text of the next value
+     */
+    public String nextRaw()
+    {
+        peek();
+        int start = pos;
+        skipValue();
+        return source.substring(start, pos);
+    }
+
+    /**
+     * Consumes the next value and parses it into a {@link org.json.JSONObject JSONObject}.
+     *
+     * @return The JSONObject
+     */
+    public JSONObject nextJSONObject()
+    {
+        if (peek() != Token.BEGIN_OBJECT)
+            throw syntaxError("Expected an object but was " + peeked);
+        return new JSONObject(nextRaw());
+    }
+
+    /**
+     * Consumes the next value and parses it into a {@link org.json.JSONArray JSONArray}.
+     *
+     * @return The JSONArray
+     */
+    public JSONArray nextJSONArray()
+    {
+        if (peek() != Token.BEGIN_ARRAY)
+            throw syntaxError("Expected an array but was " + peeked);
+        return new JSONArray(nextRaw());
+    }
+
+    /**
+     * The current position of this reader in the source.
+     * <br>After a call to {@link #peek()} this is the index of the first character of the peeked token,
+     * after a value has been consumed it is the index right after that value.
+     *
+     * @return The current position
+     */
+    public int position()
+    {
+        return pos;
+    }
+
+    /**
+     * Returns the part of the source between the provided positions.
+     * <br>Can be used together with {@link #position()} to keep the raw text of a value that was read.
+     *
+     * @param  start
+     *         The start index (inclusive)
+     * @param  end
+     *         The end index (exclusive)
+     *
+     * @return The raw source text
+     */
+    public String substring(int start, int end)
+    {
+        return source.substring(start, end);
+    }
+
+    // -- internals --
+
+    private void expect(Token expected)
+    {
+        Token token = peek();
+        if (token != expected)
+            throw syntaxError("Expected " + expected + " but was " + token);
+    }
+
+    private void push(int scope)
+    {
+        if (depth == stack.length)
+            stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+
+    private void skipWhitespace()
+    {
+        while (pos < end)
+        {
+            char c = source.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                return;
+            pos++;
+        }
+    }
+
+    private char nextNonWhitespace()
+    {
+        skipWhitespace();
+        if (pos >= end)
+            throw syntaxError("Unexpected end of input");
+        return source.charAt(pos);
+    }
+
+    private String readLiteral()
+    {
+        int start = pos;
+        while (pos < end)
+        {
+            char c = source.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                break;
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    // Reads the string starting at the opening quote at pos and moves behind the closing quote
+    private String readString()
+    {
+        int start = ++pos;
+        while (pos < end)
+        {
+            char c = source.charAt(pos);
+            if (c == '"')
+                return source.substring(start, pos++);
+            if (c == '\\')
+                return readEscapedString(start);
+            pos++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private String readEscapedString(int start)
+    {
+        StringBuilder builder = new StringBuilder(pos - start + 16);
+        builder.append(source, start, pos);
+        while (pos < end)
+        {
+            char c = source.charAt(pos++);
+            if (c == '"')
+                return builder.toString();
+            if (c != '\\')
+            {
+                builder.append(c);
+                continue;
+            }
+            if (pos >= end)
+                break;
+            char escaped = source.charAt(pos++);
+            switch (escaped)
+            {
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > end)
+                        throw syntaxError("Unterminated escape sequence");
+                    try
+                    {
+                        builder.append((char) Integer.parseInt(source.substring(pos, pos + 4), 16));
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw syntaxError("Invalid escape sequence");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    // Returns the index right after the value starting at index
+    private int scanValue(int index)
+    {
+        char c = source.charAt(index);
+        if (c == '"')
+            return scanString(index);
+        if (c != '{' && c != '[')
+        {
+            while (index < end)
+            {
+                c = source.charAt(index);
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                    break;
+                index++;
+            }
+            return index;
+        }
+
+        int nesting = 0;
+        while (index < end)
+        {
+            c = source.charAt(index);
+            if (c == '"')
+            {
+                index = scanString(index);
+                continue;
+            }
+            if (c == '{' || c == '[')
+                nesting++;
+            else if ((c == '}' || c == ']') && --nesting == 0)
+                return index + 1;
+            index++;
+        }
+        throw syntaxError("Unterminated " + (source.charAt(pos) == '{' ? "object" : "array"));
+    }
+
+    // Returns the index right after the closing quote of the string starting at index
+    private int scanString(int index)
+    {
+        index++;
+        while (index < end)
+        {
+            char c = source.charAt(index++);
+            if (c == '\\')
+                index++;
+            else if (c == '"')
+                return index;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private JSONException syntaxError(String message)
+    {
+        return new JSONException(message + " at character " + pos);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.utils;
+
+import net.dv8tion.jda.core.OnlineStatus;
+import net.dv8tion.jda.core.entities.Member;
+import org.apache.http.util.Args;
+
+/**
+ * Decides which {@link net.dv8tion.jda.core.entities.Member Members} JDA keeps in its cache.
+ * <br>Can be set using {@link net.dv8tion.jda.core.JDABuilder#setMemberCachePolicy(MemberCachePolicy) JDABuilder.setMemberCachePolicy(MemberCachePolicy)}.
+ *
+ * <p>The policy is evaluated whenever a Member is received (guild load, {@code GUILD_MEMBER_ADD})
+ * and whenever the state it is likely to depend on changes (presence and voice updates).
+ * Members that are rejected are removed from the {@link net.dv8tion.jda.core.entities.Guild Guild} and, if they are
+ * not referenced anywhere else, their {@link net.dv8tion.jda.core.entities.User User} is removed from JDA as well.
+ * <br>A Member that was dropped is cached again as soon as the policy accepts it with the state of a later
+ * presence or voice update, for example when it comes online with {@link #ONLINE} or joins a
+ * {@link net.dv8tion.jda.core.entities.VoiceChannel VoiceChannel} with {@link #VOICE}. Only the join date of a dropped
+ * Member is kept for this, as presence updates do not contain it. With {@link #NONE} no join dates are kept.
+ *
+ * <p>The {@link net.dv8tion.jda.core.entities.Guild#getSelfMember() self member} and the
+ * {@link net.dv8tion.jda.core.entities.Guild#getOwner() owner} of a Guild are always cached regardless of the policy.
+ *
+ * <p>Events that depend on a Member that is not cached (for example reactions or member updates) are dropped
+ * instead of being cached for later when the policy is not {@link #ALL}. Messages from uncached Members are
+ * provided with a fake {@link net.dv8tion.jda.core.entities.User User} as author and no Member.
+ */
+@FunctionalInterface
+public interface MemberCachePolicy
+{
+    /** Caches every Member. This is the default. */
+    MemberCachePolicy ALL = member -> true;
+    /** Only caches the self member and the owner of each Guild. */
+    MemberCachePolicy NONE = member -> false;
+    /** Caches Members that are not {@link net.dv8tion.jda.core.OnlineStatus#OFFLINE OFFLINE}. */
+    MemberCachePolicy ONLINE = member -> member.getOnlineStatus() != OnlineStatus.OFFLINE;
+    /** Caches Members that are connected to a {@link net.dv8tion.jda.core.entities.VoiceChannel VoiceChannel}. */
+    MemberCachePolicy VOICE = member -> member.getVoiceState().inVoiceChannel();
+
+    /**
+     * Whether the provided Member should be kept in the cache.
+     *
+     * @param  member
+     *         The Member to check
+     *
+     * @return True, if the Member should be cached
+     */
+    boolean cacheMember(Member member);
+
+    /**
+     * Combines this policy with the provided one, caching a Member if either of them accepts it.
+     *
+     * @param  policy
+     *         The other policy
+     *
+     * @throws IllegalArgumentException
+     *         If the provided policy is {@code null}
+     *
+     * @return The combined MemberCachePolicy
+     */
+    default MemberCachePolicy or(MemberCachePolicy policy)
+    {
+        Args.notNull(policy, "MemberCachePolicy");
+        return member -> cacheMember(member) || policy.cacheMember(member);
+    }
+
+    /**
+     * Combines this policy with the provided one, caching a Member only if both of them accept it.
+     *
+     * @param  policy
+     *         The other policy
+     *
+     * @throws IllegalArgumentException
+     *         If the provided policy is {@code null}
+     *
+     * @return The combined MemberCachePolicy
+     */
+    default MemberCachePolicy and(MemberCachePolicy policy)
+    {
+        Args.notNull(policy, "MemberCachePolicy");
+        return member -> cacheMember(member) && policy.cacheMember(member);
+    }
+}
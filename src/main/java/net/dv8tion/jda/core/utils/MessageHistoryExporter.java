@@ -0,0 +1,675 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.utils;
+
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.ChannelType;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.impl.JDAImpl;
+import net.dv8tion.jda.core.exceptions.PermissionException;
+import net.dv8tion.jda.core.requests.Request;
+import net.dv8tion.jda.core.requests.Response;
+import net.dv8tion.jda.core.requests.RestAction;
+import net.dv8tion.jda.core.requests.Route;
+import net.dv8tion.jda.core.requests.restaction.RequestFuture;
+import org.apache.http.util.Args;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Streams the complete message history of {@link net.dv8tion.jda.core.entities.MessageChannel MessageChannels}
+ * into a {@link Sink Sink}, from the most recent message to the oldest.
+ *
+ * <p>Unlike {@link net.dv8tion.jda.core.entities.MessageHistory MessageHistory} and the
+ * {@link net.dv8tion.jda.core.requests.restaction.pagination.MessagePaginationAction MessagePaginationAction}
+ * nothing is retained by the exporter. Every page of up to {@value #PAGE_LIMIT} messages is handed to the sink
+ * as raw JSON and dropped afterwards. {@link net.dv8tion.jda.core.entities.Message Message} entities are only built
+ * if the sink asks for them, see {@link Sink#ofMessages(Consumer)}.
+ * <br>The next page of a channel is requested before the current page is written, so the sink works while the
+ * request is in flight. Requests go through the usual rate limiter.
+ *
+ * <p>After a page was {@link Sink#writePage(MessageChannel, JSONArray) written} the ids of the newest and the oldest
+ * exported message are stored as the {@link #getCheckpoint(MessageChannel) checkpoint} of the channel.
+ * Exporting the channel again first continues before the oldest message, which resumes an interrupted export,
+ * and then exports the messages sent after the newest message since the previous export.
+ * Checkpoints can be stored and restored with {@link #setCheckpoint(MessageChannel, Checkpoint)}.
+ *
+ * <p>{@link #exportAll(Collection)} exports multiple channels in parallel. The history endpoint is limited per
+ * channel, so each channel is paginated within its own rate limit bucket.
+ *
+ * <h2>Example</h2>
+ * <pre><code>
+ * try (MessageHistoryExporter.NdjsonSink sink = new MessageHistoryExporter.NdjsonSink(Paths.get("archive.ndjson")))
+ * {
+ *     MessageHistoryExporter exporter = new MessageHistoryExporter(sink);
+ *     exporter.exportAll(guild.getTextChannels()).join();
+ * }
+ * </code></pre>
+ */
+public class MessageHistoryExporter
+{
+    /** Amount of messages requested per page, the maximum the history endpoint allows. */
+    public static final int PAGE_LIMIT = 100;
+    /** Amount of channels {@link #exportAll(Collection)} exports at the same time by default. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    protected final Sink sink;
+    protected final int parallelism;
+    protected final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new exporter that exports up to {@value #DEFAULT_PARALLELISM} channels at the same time.
+     *
+     * @param  sink
+     *         The sink to write the messages to
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided sink is {@code null}
+     */
+    public MessageHistoryExporter(Sink sink)
+    {
+        this(sink, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param  sink
+     *         The sink to write the messages to
+     * @param  parallelism
+     *         The amount of channels {@link #exportAll(Collection)} exports at the same time
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided sink is {@code null} or the parallelism is not positive
+     */
+    public MessageHistoryExporter(Sink sink, int parallelism)
+    {
+        Args.notNull(sink, "Sink");
+        Args.positive(parallelism, "Parallelism");
+        this.sink = sink;
+        this.parallelism = parallelism;
+    }
+
+    public Sink getSink()
+    {
+        return sink;
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * The range of messages of the provided channel that was written to the sink.
+     *
+     * @param  channel
+     *         The channel
+     *
+     * @return The checkpoint of the channel, or {@code null} if nothing was exported yet
+     */
+    public Checkpoint getCheckpoint(MessageChannel channel)
+    {
+        Args.notNull(channel, "MessageChannel");
+        return checkpoints.get(channel.getId());
+    }
+
+    /**
+     * Snapshot of all checkpoints, mapped by channel id.
+     * <br>Can be stored and restored with {@link #setCheckpoint(MessageChannel, Checkpoint)} to resume an export later.
+     *
+     * @return Unmodifiable map of channel ids to the range of exported messages
+     */
+    public Map<String, Checkpoint> getCheckpoints()
+    {
+        return Collections.unmodifiableMap(new HashMap<>(checkpoints));
+    }
+
+    /**
+     * Sets the range of messages of the provided channel that was already exported.
+     *
+     * @param  channel
+     *         The channel
+     * @param  checkpoint
+     *         The range of exported messages, or {@code null} to export the whole history again
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided channel is {@code null}
+     *
+     * @return The current MessageHistoryExporter for chaining convenience
+     */
+    public MessageHistoryExporter setCheckpoint(MessageChannel channel, Checkpoint checkpoint)
+    {
+        Args.notNull(channel, "MessageChannel");
+        if (checkpoint == null)
+            checkpoints.remove(channel.getId());
+        else
+            checkpoints.put(channel.getId(), checkpoint);
+        return this;
+    }
+
+    /**
+     * Exports the history of the provided channel.
+     * <br>If the channel has a {@link #getCheckpoint(MessageChannel) checkpoint}, the export continues before its
+     * oldest message and afterwards exports the messages sent after its newest message.
+     * <br>Cancelling the returned future stops the export after the current page.
+     *
+     * @param  channel
+     *         The channel to export
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided channel is {@code null}
+     * @throws net.dv8tion.jda.core.exceptions.PermissionException
+     *         If the provided channel is a {@link net.dv8tion.jda.core.entities.TextChannel TextChannel} and the currently
+     *         logged in account does not have {@link net.dv8tion.jda.core.Permission#MESSAGE_HISTORY Permission.MESSAGE_HISTORY}
+     *
+     * @return Future that is completed once the oldest and the newest message were written, or completed exceptionally
+     *         with the failure of a request or the sink
+     */
+    public CompletableFuture<Void> export(MessageChannel channel)
+    {
+        Args.notNull(channel, "MessageChannel");
+        if (channel.getType() == ChannelType.TEXT)
+        {
+            TextChannel textChannel = (TextChannel) channel;
+            if (!textChannel.getGuild().getSelfMember().hasPermission(textChannel, Permission.MESSAGE_HISTORY))
+                throw new PermissionException(Permission.MESSAGE_HISTORY);
+        }
+
+        final Checkpoint checkpoint = checkpoints.get(channel.getId());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (checkpoint == null)
+        {
+            exportPage(channel, false, requestPage(channel, false, null), result);
+            return result;
+        }
+
+        //Finishes the older history first, then exports the messages sent since the previous export
+        CompletableFuture<Void> older = new CompletableFuture<>();
+        exportPage(channel, false, requestPage(channel, false, checkpoint.getOldestId()), older);
+        older.whenComplete((v, failure) ->
+        {
+            if (failure != null)
+                result.completeExceptionally(failure);
+            else if (!result.isDone())
+                exportPage(channel, true, requestPage(channel, true, checkpoint.getNewestId()), result);
+        });
+        result.whenComplete((v, failure) -> older.cancel(false));
+        return result;
+    }
+
+    /**
+     * Exports the history of all provided channels, at most {@link #getParallelism()} at the same time.
+     * <br>Each channel continues from its {@link #getCheckpoint(MessageChannel) checkpoint} if there is one.
+     *
+     * <p>A channel that fails does not stop the others. Once all channels are done the returned future is completed
+     * exceptionally with the first failure, further failures are added as suppressed exceptions.
+     * The checkpoints can then be used to retry the failed channels.
+     *
+     * @param  channels
+     *         The channels to export
+     *
+     * @throws java.lang.IllegalArgumentException
+     *         If the provided collection is {@code null} or contains {@code null}
+     *
+     * @return Future that is completed once all channels are exported
+     */
+    public CompletableFuture<Void> exportAll(Collection<? extends MessageChannel> channels)
+    {
+        Args.notNull(channels, "Channels");
+        for (MessageChannel channel : channels)
+            Args.notNull(channel, "MessageChannel");
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (channels.isEmpty())
+        {
+            result.complete(null);
+            return result;
+        }
+
+        Queue<MessageChannel> queue = new ConcurrentLinkedQueue<>(channels);
+        AtomicInteger remaining = new AtomicInteger(channels.size());
+        Throwable[] failure = new Throwable[1];
+        for (int i = 0; i < parallelism && i < channels.size(); i++)
+            exportNext(queue, remaining, failure, result);
+        return result;
+    }
+
+    protected void exportNext(Queue<MessageChannel> queue, AtomicInteger remaining, Throwable[] failure, CompletableFuture<Void> result)
+    {
+        MessageChannel channel = queue.poll();
+        if (channel == null)
+            return;
+
+        CompletableFuture<Void> future;
+        try
+        {
+            future = export(channel);
+        }
+        catch (Throwable t)
+        {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(t);
+        }
+
+        future.whenComplete((v, t) ->
+        {
+            //Async so that channels which fail right away don't grow the stack
+            Runnable done = () -> onExported(queue, remaining, failure, result, t);
+            try
+            {
+                ((JDAImpl) channel.getJDA()).pool.execute(done);
+            }
+            catch (RejectedExecutionException e)
+            {
+                //JDA was shut down, the remaining channels fail right away
+                done.run();
+            }
+        });
+    }
+
+    protected void onExported(Queue<MessageChannel> queue, AtomicInteger remaining, Throwable[] failure, CompletableFuture<Void> result, Throwable t)
+    {
+        if (t != null)
+        {
+            synchronized (failure)
+            {
+                if (failure[0] == null)
+                    failure[0] = t;
+                else
+                    failure[0].addSuppressed(t);
+            }
+        }
+
+        if (remaining.decrementAndGet() > 0)
+        {
+            exportNext(queue, remaining, failure, result);
+            return;
+        }
+        synchronized (failure)
+        {
+            if (failure[0] == null)
+                result.complete(null);
+            else
+                result.completeExceptionally(failure[0]);
+        }
+    }
+
+    protected void exportPage(MessageChannel channel, boolean newer, CompletableFuture<JSONArray> page, CompletableFuture<Void> result)
+    {
+        MiscUtil.whenCompleteOn(page, ((JDAImpl) channel.getJDA()).pool,
+                (messages, failure) -> handlePage(channel, newer, messages, failure, result), result::completeExceptionally);
+    }
+
+    protected void handlePage(MessageChannel channel, boolean newer, JSONArray messages, Throwable failure, CompletableFuture<Void> result)
+    {
+        CompletableFuture<JSONArray> next = null;
+        try
+        {
+            if (result.isDone())
+                return;
+            if (failure != null)
+            {
+                result.completeExceptionally(failure);
+                return;
+            }
+            if (messages.length() == 0)
+            {
+                result.complete(null);
+                return;
+            }
+
+            String newest = messages.getJSONObject(0).getString("id");
+            String oldest = messages.getJSONObject(messages.length() - 1).getString("id");
+            if (MiscUtil.parseSnowflake(newest) < MiscUtil.parseSnowflake(oldest))
+            {
+                String swap = newest;
+                newest = oldest;
+                oldest = swap;
+            }
+            //A page that is not full is the last one, otherwise the next page is retrieved while this one is written
+            if (messages.length() == PAGE_LIMIT)
+                next = requestPage(channel, newer, newer ? newest : oldest);
+            sink.writePage(channel, messages);
+            checkpoints.merge(channel.getId(), new Checkpoint(newest, oldest), (current, page) -> newer
+                ? new Checkpoint(page.getNewestId(), current.getOldestId())
+                : new Checkpoint(current.getNewestId(), page.getOldestId()));
+
+            if (next == null)
+                result.complete(null);
+            else if (result.isDone())
+                next.cancel(false);
+            else
+                exportPage(channel, newer, next, result);
+        }
+        catch (Throwable t)
+        {
+            if (next != null)
+                next.cancel(false);
+            result.completeExceptionally(t);
+        }
+    }
+
+    protected CompletableFuture<JSONArray> requestPage(MessageChannel channel, boolean newer, String messageId)
+    {
+        final String limit = String.valueOf(PAGE_LIMIT);
+        Route.CompiledRoute route;
+        if (messageId == null)
+            route = Route.Messages.GET_MESSAGE_HISTORY.compile(channel.getId(), limit);
+        else if (newer)
+            route = Route.Messages.GET_MESSAGE_HISTORY_AFTER.compile(channel.getId(), limit, messageId);
+        else
+            route = Route.Messages.GET_MESSAGE_HISTORY_BEFORE.compile(channel.getId(), limit, messageId);
+
+        RestAction<JSONArray> action = new RestAction<JSONArray>(channel.getJDA(), route, null)
+        {
+            @Override
+            protected void handleResponse(Response response, Request<JSONArray> request)
+            {
+                if (!response.isOk())
+                {
+                    request.onFailure(response);
+                    return;
+                }
+
+                JSONArray array = response.getArray();
+                if (array == null)
+                    request.onFailure(new IllegalStateException("Received invalid message history: " + response.getString()));
+                else
+                    request.onSuccess(array);
+            }
+        };
+        return new RequestFuture<>(action, true);
+    }
+
+    /**
+     * The range of messages of a channel that was exported, from the newest to the oldest message.
+     * <br>The history in between is complete, unless the export was interrupted before all of it was written.
+     */
+    public static class Checkpoint
+    {
+        protected final String newestId;
+        protected final String oldestId;
+
+        /**
+         * Creates a new checkpoint.
+         *
+         * @param  newestId
+         *         The id of the newest exported message
+         * @param  oldestId
+         *         The id of the oldest exported message
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If either id is {@code null} or not a valid snowflake
+         */
+        public Checkpoint(String newestId, String oldestId)
+        {
+            Args.notNull(newestId, "Newest message id");
+            Args.notNull(oldestId, "Oldest message id");
+            MiscUtil.parseSnowflake(newestId);
+            MiscUtil.parseSnowflake(oldestId);
+            this.newestId = newestId;
+            this.oldestId = oldestId;
+        }
+
+        public String getNewestId()
+        {
+            return newestId;
+        }
+
+        public String getOldestId()
+        {
+            return oldestId;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Checkpoint(" + newestId + ", " + oldestId + ")";
+        }
+    }
+
+    /**
+     * Receiver of the exported messages.
+     * <br>Implementations have to be thread-safe when used to export multiple channels at the same time.
+     */
+    public interface Sink
+    {
+        /**
+         * Writes a single message, in the raw JSON format of the Discord API.
+         * <br>The JSON object is not used anymore afterwards and may be retained by the sink.
+         *
+         * @param  channel
+         *         The channel the message was sent in
+         * @param  message
+         *         The message
+         *
+         * @throws IOException
+         *         If the message could not be written, this stops the export of the channel
+         */
+        void write(MessageChannel channel, JSONObject message) throws IOException;
+
+        /**
+         * Persists all previously written messages. Called by the default {@link #writePage(MessageChannel, JSONArray)}
+         * after every page.
+         *
+         * @throws IOException
+         *         If the buffered messages could not be written, this stops the export of the channel
+         */
+        default void flush() throws IOException {}
+
+        /**
+         * Writes a page of messages, ordered from newest to oldest. The {@link #getCheckpoint(MessageChannel) checkpoint}
+         * of the channel only advances once this returns, so the page should be persisted by now.
+         * <br>The history before the checkpoint is written from the newest page to the oldest, the messages sent after
+         * the checkpoint are written from the oldest page to the newest.
+         * <br>The default implementation {@link #write(MessageChannel, JSONObject) writes} every message and
+         * {@link #flush() flushes} afterwards. If that fails part-way, the messages written so far are written again
+         * when the export is resumed. Sinks that can undo a partial page should override this.
+         *
+         * @param  channel
+         *         The channel the messages were sent in
+         * @param  messages
+         *         The messages of the page
+         *
+         * @throws IOException
+         *         If the page could not be written, this stops the export of the channel
+         */
+        default void writePage(MessageChannel channel, JSONArray messages) throws IOException
+        {
+            for (int i = 0; i < messages.length(); i++)
+                write(channel, messages.getJSONObject(i));
+            flush();
+        }
+
+        /**
+         * Sink that builds a {@link net.dv8tion.jda.core.entities.Message Message} for every exported message.
+         * <br>The messages are not cached by JDA.
+         *
+         * @param  consumer
+         *         The consumer of the messages
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If the provided consumer is {@code null}
+         *
+         * @return Sink that passes the messages to the consumer
+         */
+        static Sink ofMessages(Consumer<? super Message> consumer)
+        {
+            Args.notNull(consumer, "Consumer");
+            return (channel, message) ->
+                consumer.accept(((JDAImpl) channel.getJDA()).getEntityBuilder().createMessage(message, channel, false));
+        }
+    }
+
+    /**
+     * {@link Sink Sink} that appends every message as one line of JSON to a file
+     * (<a href="http://ndjson.org/" target="_blank">NDJSON</a>).
+     * <br>Lines are collected in a direct buffer and written to the {@link java.nio.channels.FileChannel FileChannel}
+     * whenever the buffer is full and after every page.
+     *
+     * <p>This sink is thread-safe. Pages are written as a whole, but pages of different channels may be interleaved
+     * in the file. Each line contains the {@code channel_id} of the message.
+     * <br>If a page fails part-way the file is truncated back to the end of the previous page, so resuming from the
+     * checkpoint does not write messages twice. Only if the process dies while a page is written can that page
+     * remain partially in the file and be written again on resume, so readers should be prepared to skip duplicate ids.
+     */
+    public static class NdjsonSink implements Sink, Closeable
+    {
+        /** Default size of the write buffer. */
+        public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+        protected final FileChannel channel;
+        protected final ByteBuffer buffer;
+
+        /**
+         * Opens the provided file for appending, creating it if it doesn't exist.
+         *
+         * @param  path
+         *         The file to write to
+         *
+         * @throws IOException
+         *         If the file could not be opened
+         */
+        public NdjsonSink(Path path) throws IOException
+        {
+            this(path, DEFAULT_BUFFER_SIZE);
+        }
+
+        /**
+         * Opens the provided file for appending, creating it if it doesn't exist.
+         *
+         * @param  path
+         *         The file to write to
+         * @param  bufferSize
+         *         The size of the write buffer in bytes
+         *
+         * @throws java.lang.IllegalArgumentException
+         *         If the provided path is {@code null} or the buffer size is not positive
+         * @throws IOException
+         *         If the file could not be opened
+         */
+        public NdjsonSink(Path path, int bufferSize) throws IOException
+        {
+            Args.notNull(path, "Path");
+            Args.positive(bufferSize, "Buffer size");
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public synchronized void write(MessageChannel channel, JSONObject message) throws IOException
+        {
+            String json = message.toString();
+            if (json == null)
+                throw new IOException("Could not serialize message " + message.opt("id"));
+            byte[] line = json.getBytes(StandardCharsets.UTF_8);
+            if (line.length + 1 > buffer.remaining())
+                drain();
+            if (line.length + 1 > buffer.capacity())
+            {
+                //Larger than the whole buffer, write it directly
+                writeFully(ByteBuffer.wrap(line));
+                writeFully(ByteBuffer.wrap(new byte[] { '\n' }));
+                return;
+            }
+            buffer.put(line).put((byte) '\n');
+        }
+
+        @Override
+        public synchronized void flush() throws IOException
+        {
+            drain();
+        }
+
+        @Override
+        public synchronized void writePage(MessageChannel source, JSONArray messages) throws IOException
+        {
+            drain();
+            final long start = channel.size();
+            try
+            {
+                for (int i = 0; i < messages.length(); i++)
+                    write(source, messages.getJSONObject(i));
+                drain();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                //Cut off the partial page so it is not written twice when the export is resumed
+                buffer.clear();
+                try
+                {
+                    channel.truncate(start);
+                }
+                catch (IOException ex)
+                {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException
+        {
+            try
+            {
+                drain();
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+
+        protected void drain() throws IOException
+        {
+            buffer.flip();
+            try
+            {
+                writeFully(buffer);
+            }
+            finally
+            {
+                buffer.compact();
+            }
+        }
+
+        protected void writeFully(ByteBuffer data) throws IOException
+        {
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+    }
+}
@@ -30,6 +30,12 @@ import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
 import java.util.Formatter;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class MiscUtil
 {
@@ -103,6 +109,52 @@ public class MiscUtil
         return TCollections.synchronizedMap(new TLongObjectHashMap<T>());
     }
 
+    /**
+     * The cause of a {@link java.util.concurrent.CompletionException CompletionException}, which wraps failures
+     * of dependent {@link java.util.concurrent.CompletableFuture CompletableFutures}.
+     *
+     * @param  failure
+     *         The failure of a future, or {@code null}
+     *
+     * @return The cause if the failure is a CompletionException with a cause, otherwise the failure itself
+     */
+    public static Throwable unwrapCompletion(Throwable failure)
+    {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Passes the result or the {@link #unwrapCompletion(Throwable) unwrapped} failure of the future to the action
+     * once it completes. The action runs on the provided pool, so futures which are already completed don't grow
+     * the stack when the action requests the next future, for instance the next page of a pagination.
+     *
+     * @param future
+     *        The future
+     * @param pool
+     *        The pool to run the action on
+     * @param action
+     *        Receives the result or the failure of the future
+     * @param rejected
+     *        Called instead of the action if the pool rejected it, for instance because JDA was shut down
+     * @param <T>
+     *        The result type of the future
+     */
+    public static <T> void whenCompleteOn(CompletableFuture<T> future, Executor pool, BiConsumer<? super T, Throwable> action,
+                                          Consumer<RejectedExecutionException> rejected)
+    {
+        future.whenComplete((value, failure) ->
+        {
+            try
+            {
+                pool.execute(() -> action.accept(value, unwrapCompletion(failure)));
+            }
+            catch (RejectedExecutionException e)
+            {
+                rejected.accept(e);
+            }
+        });
+    }
+
     /**
      * URL-Encodes the given String to UTF-8 after
      * form-data specifications (space {@literal ->} +)
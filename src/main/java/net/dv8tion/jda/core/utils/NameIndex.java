@@ -0,0 +1,278 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.utils;
+
+import gnu.trove.TCollections;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.core.entities.ISnowflake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index of a cache map which allows to find entities by their name with a hash lookup
+ * instead of comparing the name of every cached entity.
+ *
+ * <p>The index owns its {@link #getMap() map}, every entity put into or removed from the map is added to or removed
+ * from the index. Entities that are renamed while they are cached have to be re-keyed with {@link #rename(ISnowflake, String)}.
+ * <br>Entities are keyed by their {@link #fold(String) case-folded} name, so a single key serves both case-sensitive
+ * and case-insensitive lookups.
+ *
+ * <p>A disabled index does not keep any state and {@link #get(String, boolean)} returns {@code null}, callers then
+ * have to fall back to iterating the map.
+ *
+ * @param <T>
+ *        The type of the indexed entities
+ */
+public class NameIndex<T extends ISnowflake>
+{
+    protected final Function<? super T, String> nameFunction;
+    protected final TLongObjectMap<T> map;
+    // folded name -> T or Object[] of T, arrays are never modified once they are visible
+    protected final ConcurrentHashMap<String, Object> index = new ConcurrentHashMap<>();
+    protected volatile boolean enabled;
+
+    /**
+     * Creates a new NameIndex and its map.
+     *
+     * @param nameFunction
+     *        Provides the name of an entity, may return {@code null} for entities that don't have one yet
+     * @param enabled
+     *        Whether the index should be kept up-to-date
+     */
+    public NameIndex(Function<? super T, String> nameFunction, boolean enabled)
+    {
+        this.nameFunction = nameFunction;
+        this.enabled = enabled;
+        this.map = TCollections.synchronizedMap(new IndexedMap());
+    }
+
+    /**
+     * The thread-safe map that is indexed by this NameIndex.
+     *
+     * @return The indexed map
+     */
+    public TLongObjectMap<T> getMap()
+    {
+        return map;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables this index. Enabling rebuilds the index from the current content of the map.
+     *
+     * @param enabled
+     *        Whether the index should be kept up-to-date
+     */
+    public void setEnabled(boolean enabled)
+    {
+        synchronized (map)
+        {
+            this.enabled = enabled;
+            index.clear();
+            if (enabled)
+            {
+                map.forEachValue(entity ->
+                {
+                    addIndexed(entity);
+                    return true;
+                });
+            }
+        }
+    }
+
+    /**
+     * All cached entities with the provided name.
+     *
+     * @param  name
+     *         The name to look up
+     * @param  ignoreCase
+     *         Whether the name should be compared case-insensitively
+     *
+     * @return List of the matching entities, or {@code null} if this index is disabled
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> get(String name, boolean ignoreCase)
+    {
+        if (!enabled)
+            return null;
+        Object value = index.get(fold(name));
+        if (value == null)
+            return Collections.emptyList();
+
+        Object[] candidates = value instanceof Object[] ? (Object[]) value : new Object[] { value };
+        List<T> list = new ArrayList<>(candidates.length);
+        for (Object candidate : candidates)
+        {
+            //Only the folded names are known to match
+            T entity = (T) candidate;
+            String entityName = nameFunction.apply(entity);
+            if (ignoreCase ? name.equalsIgnoreCase(entityName) : name.equals(entityName))
+                list.add(entity);
+        }
+        return list;
+    }
+
+    /**
+     * Moves the provided entity from its old name to its current name, if it is currently cached in the map.
+     *
+     * @param entity
+     *        The renamed entity
+     * @param oldName
+     *        The name the entity had before, may be {@code null}
+     */
+    public void rename(T entity, String oldName)
+    {
+        if (!enabled)
+            return;
+        synchronized (map)
+        {
+            if (map.get(entity.getIdLong()) != entity)
+                return;
+            removeIndexed(entity, oldName);
+            addIndexed(entity);
+        }
+    }
+
+    /**
+     * Folds the case of the provided name. Two names are {@link String#equalsIgnoreCase(String) equal ignoring case}
+     * exactly if their folded names are equal.
+     *
+     * @param  name
+     *         The name to fold
+     *
+     * @return The folded name
+     */
+    public static String fold(String name)
+    {
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (foldChar(c) != c)
+            {
+                char[] chars = name.toCharArray();
+                for (int j = i; j < chars.length; j++)
+                    chars[j] = foldChar(chars[j]);
+                return new String(chars);
+            }
+        }
+        return name;
+    }
+
+    // Has to be called while holding the lock of the map
+    protected void addIndexed(T entity)
+    {
+        String name = nameFunction.apply(entity);
+        if (name == null)
+            return;
+        index.merge(fold(name), entity, (existing, e) ->
+        {
+            if (existing instanceof Object[])
+            {
+                Object[] array = (Object[]) existing;
+                Object[] copy = Arrays.copyOf(array, array.length + 1);
+                copy[array.length] = e;
+                return copy;
+            }
+            return new Object[] { existing, e };
+        });
+    }
+
+    // Has to be called while holding the lock of the map
+    protected void removeIndexed(T entity, String name)
+    {
+        if (name == null)
+            return;
+        index.computeIfPresent(fold(name), (key, existing) ->
+        {
+            if (!(existing instanceof Object[]))
+                return existing == entity ? null : existing;
+
+            Object[] array = (Object[]) existing;
+            for (int i = 0; i < array.length; i++)
+            {
+                if (array[i] != entity)
+                    continue;
+                if (array.length == 2)
+                    return array[1 - i];
+                Object[] copy = new Object[array.length - 1];
+                System.arraycopy(array, 0, copy, 0, i);
+                System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+                return copy;
+            }
+            return existing;
+        });
+    }
+
+    protected static char foldChar(char c)
+    {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    protected class IndexedMap extends TLongObjectHashMap<T>
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public T put(long key, T value)
+        {
+            T previous = super.put(key, value);
+            if (enabled && previous != value)
+            {
+                if (previous != null)
+                    removeIndexed(previous, nameFunction.apply(previous));
+                addIndexed(value);
+            }
+            return previous;
+        }
+
+        @Override
+        public T putIfAbsent(long key, T value)
+        {
+            T previous = super.putIfAbsent(key, value);
+            if (enabled && previous == null)
+                addIndexed(value);
+            return previous;
+        }
+
+        @Override
+        protected void removeAt(int index)
+        {
+            //Used by remove(long), iterators and retainEntries
+            T previous = get(_set[index]);
+            super.removeAt(index);
+            if (enabled && previous != null)
+                removeIndexed(previous, nameFunction.apply(previous));
+        }
+
+        @Override
+        public void clear()
+        {
+            super.clear();
+            NameIndex.this.index.clear();
+        }
+    }
+}
@@ -17,15 +17,13 @@ package net.dv8tion.jda.core.utils;
 
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.*;
-import net.dv8tion.jda.core.entities.impl.AbstractChannelImpl;
 import net.dv8tion.jda.core.entities.impl.GuildImpl;
+import net.dv8tion.jda.core.entities.impl.PermissionCache;
 import net.dv8tion.jda.core.entities.impl.PermissionOverrideImpl;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.http.util.Args;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.LongBinaryOperator;
 
 public class PermissionUtil
 {
@@ -334,6 +332,10 @@ public class PermissionUtil
      * {@link net.dv8tion.jda.core.Permission Permissions} that this member can use in this {@link net.dv8tion.jda.core.entities.Channel Channel}.
      * <br>This functions very similarly to how {@link net.dv8tion.jda.core.entities.Role#getPermissionsRaw() Role.getPermissionsRaw()}.
      *
+     * <p>The result is cached per {@link net.dv8tion.jda.core.entities.Guild Guild} until the roles, the
+     * permission overrides of the channel or the roles of the member change. The cache of a Guild holds a limited
+     * amount of pairs of channel and member, the least recently checked pairs are computed again.
+     *
      * @param  channel
      *         The {@link net.dv8tion.jda.core.entities.Channel Channel} being checked.
      * @param  member
@@ -350,7 +352,6 @@ public class PermissionUtil
     {
         Args.notNull(channel, "Channel");
         Args.notNull(member, "Member");
-        final long admin = Permission.ADMINISTRATOR.getRawValue();
 
         if (!channel.getGuild().equals(member.getGuild()))
             throw new IllegalArgumentException("Provided channel and provided member are not of the same guild!");
@@ -359,15 +360,29 @@ public class PermissionUtil
             // Owner effectively has all permissions
             return Permission.ALL_PERMISSIONS;
 
-        final AbstractChannelImpl<?> abstractChannel = (AbstractChannelImpl<?>) channel;
-        final Guild guild = member.getGuild();
-        long permission = getEffectivePermission(member) | getImplicitPermission(channel, member);
+        final PermissionCache cache = ((GuildImpl) channel.getGuild()).getPermissionCache();
+        final long channelId = channel.getIdLong();
+        final long memberId = member.getUser().getIdLong();
 
-        AtomicLong allow = new AtomicLong(0);
-        AtomicLong deny = new AtomicLong(0);
+        long permission = cache.get(channelId, memberId);
+        if (permission != PermissionCache.NO_ENTRY)
+            return permission;
 
-        getImplicitOverrides(channel, member, allow, deny);
-        permission = apply(permission, allow.get(), deny.get());
+        final long generation = cache.getGeneration();
+        permission = computeEffectivePermission(channel, member);
+        cache.put(channelId, memberId, permission, generation);
+        return permission;
+    }
+
+    private static long computeEffectivePermission(Channel channel, Member member)
+    {
+        final long admin = Permission.ADMINISTRATOR.getRawValue();
+        long permission = getEffectivePermission(member) | getImplicitPermission(channel, member);
+
+        // [0] = allow, [1] = deny
+        final long[] overrides = new long[2];
+        getImplicitOverrides(channel, member, overrides);
+        permission = apply(permission, overrides[0], overrides[1]);
 
         if (isApplied(permission, admin))
             // If the public role is marked as administrator we can return full permissions here
@@ -382,7 +397,7 @@ public class PermissionUtil
             // In text channels MANAGE_CHANNEL and MANAGE_PERMISSIONS grant full text/voice permissions
             permission |= Permission.ALL_TEXT_PERMISSIONS | Permission.ALL_VOICE_PERMISSIONS;
 
-        return permission & ~deny.get() | allow.get();
+        return permission & ~overrides[1] | overrides[0];
     }
 
     /**
@@ -499,13 +514,11 @@ public class PermissionUtil
 
         long permission = guild.getPublicRole().getPermissionsRaw();
 
-        AtomicLong allow = new AtomicLong(0);
-        AtomicLong deny = new AtomicLong(0);
-
         // populates allow/deny
-        getImplicitOverrides(channel, member, allow, deny);
+        final long[] overrides = new long[2];
+        getImplicitOverrides(channel, member, overrides);
 
-        return apply(permission, allow.get(), deny.get());
+        return apply(permission, overrides[0], overrides[1]);
     }
 
     /**
@@ -554,17 +567,16 @@ public class PermissionUtil
     }
 
     /**
-     * Pushes all deny/allow values to the specified BiConsumer
-     * <br>First parameter is allow, second is deny
+     * Accumulates all allow/deny values of the overrides that apply to the member
+     * <br>Allow is stored at index 0, deny at index 1
      */
-    private static void getImplicitOverrides(Channel channel, Member member, AtomicLong allow, AtomicLong deny)
+    private static void getImplicitOverrides(Channel channel, Member member, long[] overrides)
     {
         PermissionOverride override = channel.getPermissionOverride(member.getGuild().getPublicRole());
-        LongBinaryOperator accumulator = (l1, l2) -> l1 | l2;
         if (override != null)
         {
-            allow.accumulateAndGet(override.getAllowedRaw(), accumulator);
-            deny.accumulateAndGet(override.getDeniedRaw(), accumulator);
+            overrides[0] |= override.getAllowedRaw();
+            overrides[1] |= override.getDeniedRaw();
         }
 
         for (Role role : member.getRoles())
@@ -572,16 +584,16 @@ public class PermissionUtil
             override = channel.getPermissionOverride(role);
             if (override != null)
             {
-                allow.accumulateAndGet(override.getAllowedRaw(), accumulator);
-                deny.accumulateAndGet(override.getDeniedRaw(), accumulator);
+                overrides[0] |= override.getAllowedRaw();
+                overrides[1] |= override.getDeniedRaw();
             }
         }
 
         override = channel.getPermissionOverride(member);
         if (override != null)
         {
-            allow.accumulateAndGet(override.getAllowedRaw(), accumulator);
-            deny.accumulateAndGet(override.getDeniedRaw(), accumulator);
+            overrides[0] |= override.getAllowedRaw();
+            overrides[1] |= override.getDeniedRaw();
         }
     }
 
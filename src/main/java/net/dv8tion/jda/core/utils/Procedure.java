@@ -0,0 +1,39 @@
+/*
+ *     Copyright 2015-2017 Austin Keener & Michael Ritter
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.core.utils;
+
+/**
+ * Iteration callback that can stop the iteration early, used by
+ * {@link net.dv8tion.jda.core.requests.restaction.pagination.PaginationAction#forEachAsync(Procedure)
+ * PaginationAction.forEachAsync(Procedure)}.
+ *
+ * @param <T>
+ *        The type of the iterated elements
+ */
+@FunctionalInterface
+public interface Procedure<T>
+{
+    /**
+     * Called for every element of the iteration.
+     *
+     * @param  value
+     *         The current element
+     *
+     * @return True, to continue with the next element. False, to stop the iteration
+     */
+    boolean execute(T value);
+}
@@ -24,6 +24,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class SimpleLog
 {
@@ -295,6 +296,66 @@ public class SimpleLog
         return level == null ? SimpleLog.LEVEL : level;
     }
 
+    /**
+     * Whether a message with the given LOG-level would be seen by anyone.
+     * <br>This is the case if it passes the level of this Logger, a {@link LogListener} is registered
+     * or a File-log accepts the level.
+     * Use this to guard expensive message building, or use the {@link java.util.function.Supplier Supplier} based
+     * methods like {@link #trace(java.util.function.Supplier)} which do that check for you.
+     *
+     * @param level The level to check
+     * @return true, if a message with the given level would be logged
+     */
+    public boolean isEnabled(Level level)
+    {
+        if (level != Level.OFF && level.getPriority() >= getEffectiveLevel().getPriority())
+            return true;
+        synchronized (listeners)
+        {
+            if (!listeners.isEmpty())
+                return true;
+        }
+        for (Level fileLevel : fileLogs.keySet())
+        {
+            if (fileLevel.getPriority() <= level.getPriority())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether messages with trace level would be logged.
+     *
+     * @return true, if trace messages are logged
+     */
+    public boolean isTraceEnabled()
+    {
+        return isEnabled(Level.TRACE);
+    }
+
+    /**
+     * Whether messages with debug level would be logged.
+     *
+     * @return true, if debug messages are logged
+     */
+    public boolean isDebugEnabled()
+    {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * Will LOG a message with given LOG-level.
+     * The message is only created if it would actually be logged.
+     *
+     * @param level The level of the Log
+     * @param msg   Supplier of the message to LOG
+     */
+    public void log(Level level, Supplier<?> msg)
+    {
+        if (isEnabled(level))
+            log(level, msg.get());
+    }
+
     /**
      * Will LOG a message with given LOG-level
      *
@@ -302,6 +363,8 @@ public class SimpleLog
      * @param msg   The message to LOG
      */
     public void log(Level level, Object msg) {
+        if (!isEnabled(level))
+            return;
         synchronized (listeners)
         {
             for (LogListener listener : listeners)
@@ -342,6 +405,16 @@ public class SimpleLog
         log(Level.TRACE, msg);
     }
 
+    /**
+     * Will LOG a message with trace level.
+     * The message is only created if trace logging is enabled.
+     *
+     * @param msg supplier of the object, which should be logged
+     */
+    public void trace(Supplier<?> msg) {
+        log(Level.TRACE, msg);
+    }
+
     /**
      * Will LOG a message with debug level
      *
@@ -351,6 +424,16 @@ public class SimpleLog
         log(Level.DEBUG, msg);
     }
 
+    /**
+     * Will LOG a message with debug level.
+     * The message is only created if debug logging is enabled.
+     *
+     * @param msg supplier of the object, which should be logged
+     */
+    public void debug(Supplier<?> msg) {
+        log(Level.DEBUG, msg);
+    }
+
     /**
      * Will LOG a message with info level
      *
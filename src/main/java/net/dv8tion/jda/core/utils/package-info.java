@@ -25,6 +25,9 @@
  *     <li>{@link net.dv8tion.jda.core.utils.IOUtil IOUtil}
  *     <br>Allows to read from files (use case: sending files)</li>
  *
+ *     <li>{@link net.dv8tion.jda.core.utils.MemberCachePolicy MemberCachePolicy}
+ *     <br>Decides which Members are kept in the cache, configured through the {@link net.dv8tion.jda.core.JDABuilder JDABuilder}</li>
+ *
  *     <li>{@link net.dv8tion.jda.core.utils.MiscUtil MiscUtil}
  *     <br>Various operations that don't have specific utility classes yet, mostly internals that are accessible from JDA entities</li>
  *